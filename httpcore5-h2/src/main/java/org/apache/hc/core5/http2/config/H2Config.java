@@ -48,9 +48,19 @@ public class H2Config {
     private final int initialWindowSize;
     private final int maxFrameSize;
     private final int maxHeaderListSize;
+    private final int corkThreshold;
+    private final int corkMaxFrames;
+    private final boolean prioritySchedulingEnabled;
+    private final boolean windowAutoTuningEnabled;
+    private final int maxStreamWindowSize;
+    private final int maxConnectionWindowSize;
+    private final int windowUpdateThreshold;
 
     H2Config(final int headerTableSize, final boolean pushEnabled, final int maxConcurrentStreams,
-             final int initialWindowSize, final int maxFrameSize, final int maxHeaderListSize) {
+             final int initialWindowSize, final int maxFrameSize, final int maxHeaderListSize,
+             final int corkThreshold, final int corkMaxFrames, final boolean prioritySchedulingEnabled,
+             final boolean windowAutoTuningEnabled, final int maxStreamWindowSize, final int maxConnectionWindowSize,
+             final int windowUpdateThreshold) {
         super();
         this.headerTableSize = headerTableSize;
         this.pushEnabled = pushEnabled;
@@ -58,6 +68,13 @@ public class H2Config {
         this.initialWindowSize = initialWindowSize;
         this.maxFrameSize = maxFrameSize;
         this.maxHeaderListSize = maxHeaderListSize;
+        this.corkThreshold = corkThreshold;
+        this.corkMaxFrames = corkMaxFrames;
+        this.prioritySchedulingEnabled = prioritySchedulingEnabled;
+        this.windowAutoTuningEnabled = windowAutoTuningEnabled;
+        this.maxStreamWindowSize = maxStreamWindowSize;
+        this.maxConnectionWindowSize = maxConnectionWindowSize;
+        this.windowUpdateThreshold = windowUpdateThreshold;
     }
 
     public int getHeaderTableSize() {
@@ -84,6 +101,86 @@ public int getMaxHeaderListSize() {
         return maxHeaderListSize;
     }
 
+    /**
+     * Returns the maximum number of bytes of small frames that can be held back
+     * and written out together in one pass of the I/O event loop. Zero means
+     * every frame gets written out as soon as it has been committed.
+     *
+     * @since 5.0
+     */
+    public int getCorkThreshold() {
+        return corkThreshold;
+    }
+
+    /**
+     * Returns the maximum number of frames that can be held back before
+     * they get written out.
+     *
+     * @see #getCorkThreshold()
+     * @since 5.0
+     */
+    public int getCorkMaxFrames() {
+        return corkMaxFrames;
+    }
+
+    /**
+     * Determines whether or not stream output is to be scheduled according to
+     * RFC 9218 priorities ({@code priority} header urgency and incremental parameters).
+     * Streams get served in a round-robin fashion regardless of their priority
+     * otherwise. The stream scheduler itself is not pluggable.
+     *
+     * @since 5.0
+     */
+    public boolean isPrioritySchedulingEnabled() {
+        return prioritySchedulingEnabled;
+    }
+
+    /**
+     * Determines whether or not receive windows are to be grown beyond
+     * the initial window size based on bandwidth-delay product estimated
+     * from PING round trips and the rate of incoming data.
+     *
+     * @see #getMaxStreamWindowSize()
+     * @see #getMaxConnectionWindowSize()
+     * @since 5.0
+     */
+    public boolean isWindowAutoTuningEnabled() {
+        return windowAutoTuningEnabled;
+    }
+
+    /**
+     * Returns the maximum size the receive window of individual streams can be
+     * grown to by window auto-tuning.
+     *
+     * @since 5.0
+     */
+    public int getMaxStreamWindowSize() {
+        return maxStreamWindowSize;
+    }
+
+    /**
+     * Returns the maximum size the connection receive window can be grown to
+     * by window auto-tuning.
+     *
+     * @since 5.0
+     */
+    public int getMaxConnectionWindowSize() {
+        return maxConnectionWindowSize;
+    }
+
+    /**
+     * Returns the share of the receive window, in percent, input capacity released
+     * by the consumer has to add up to before a WINDOW_UPDATE frame gets sent out
+     * right away. Smaller increments get accumulated and sent out together at the end
+     * of the current I/O event. Zero means every increment gets sent out as soon
+     * as it has been released.
+     *
+     * @since 5.0
+     */
+    public int getWindowUpdateThreshold() {
+        return windowUpdateThreshold;
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
@@ -93,6 +190,13 @@ public String toString() {
                 .append(", initialWindowSize=").append(this.initialWindowSize)
                 .append(", maxFrameSize=").append(this.maxFrameSize)
                 .append(", maxHeaderListSize=").append(this.maxHeaderListSize)
+                .append(", corkThreshold=").append(this.corkThreshold)
+                .append(", corkMaxFrames=").append(this.corkMaxFrames)
+                .append(", prioritySchedulingEnabled=").append(this.prioritySchedulingEnabled)
+                .append(", windowAutoTuningEnabled=").append(this.windowAutoTuningEnabled)
+                .append(", maxStreamWindowSize=").append(this.maxStreamWindowSize)
+                .append(", maxConnectionWindowSize=").append(this.maxConnectionWindowSize)
+                .append(", windowUpdateThreshold=").append(this.windowUpdateThreshold)
                 .append("]");
         return builder.toString();
     }
@@ -109,7 +213,14 @@ public static H2Config.Builder copy(final H2Config config) {
                 .setMaxConcurrentStreams(config.getMaxConcurrentStreams())
                 .setInitialWindowSize(config.getInitialWindowSize())
                 .setMaxFrameSize(config.getMaxFrameSize())
-                .setMaxHeaderListSize(config.getMaxHeaderListSize());
+                .setMaxHeaderListSize(config.getMaxHeaderListSize())
+                .setCorkThreshold(config.getCorkThreshold())
+                .setCorkMaxFrames(config.getCorkMaxFrames())
+                .setPrioritySchedulingEnabled(config.isPrioritySchedulingEnabled())
+                .setWindowAutoTuningEnabled(config.isWindowAutoTuningEnabled())
+                .setMaxStreamWindowSize(config.getMaxStreamWindowSize())
+                .setMaxConnectionWindowSize(config.getMaxConnectionWindowSize())
+                .setWindowUpdateThreshold(config.getWindowUpdateThreshold());
     }
 
     public static class Builder {
@@ -120,6 +231,13 @@ public static class Builder {
         private int initialWindowSize;
         private int maxFrameSize;
         private int maxHeaderListSize;
+        private int corkThreshold;
+        private int corkMaxFrames;
+        private boolean prioritySchedulingEnabled;
+        private boolean windowAutoTuningEnabled;
+        private int maxStreamWindowSize;
+        private int maxConnectionWindowSize;
+        private int windowUpdateThreshold;
 
         Builder() {
             this.headerTableSize = 8192;
@@ -128,6 +246,13 @@ public static class Builder {
             this.initialWindowSize = 65535;
             this.maxFrameSize  = FrameConsts.MIN_FRAME_SIZE * 4;
             this.maxHeaderListSize = FrameConsts.MAX_FRAME_SIZE;
+            this.corkThreshold = FrameConsts.MIN_FRAME_SIZE / 2;
+            this.corkMaxFrames = 32;
+            this.prioritySchedulingEnabled = false;
+            this.windowAutoTuningEnabled = false;
+            this.maxStreamWindowSize = 16 * 1024 * 1024;
+            this.maxConnectionWindowSize = 16 * 1024 * 1024;
+            this.windowUpdateThreshold = 25;
         }
 
         public Builder setHeaderTableSize(final int headerTableSize) {
@@ -165,6 +290,74 @@ public Builder setMaxHeaderListSize(final int maxHeaderListSize) {
             return this;
         }
 
+        /**
+         * Sets the maximum number of bytes of small frames that can be held back
+         * and written out together. Zero disables output corking.
+         *
+         * @since 5.0
+         */
+        public Builder setCorkThreshold(final int corkThreshold) {
+            Args.notNegative(corkThreshold, "Cork threshold");
+            this.corkThreshold = corkThreshold;
+            return this;
+        }
+
+        /**
+         * @since 5.0
+         */
+        public Builder setCorkMaxFrames(final int corkMaxFrames) {
+            Args.positive(corkMaxFrames, "Cork max frames");
+            this.corkMaxFrames = corkMaxFrames;
+            return this;
+        }
+
+        /**
+         * @since 5.0
+         */
+        public Builder setPrioritySchedulingEnabled(final boolean prioritySchedulingEnabled) {
+            this.prioritySchedulingEnabled = prioritySchedulingEnabled;
+            return this;
+        }
+
+        /**
+         * @since 5.0
+         */
+        public Builder setWindowAutoTuningEnabled(final boolean windowAutoTuningEnabled) {
+            this.windowAutoTuningEnabled = windowAutoTuningEnabled;
+            return this;
+        }
+
+        /**
+         * @since 5.0
+         */
+        public Builder setMaxStreamWindowSize(final int maxStreamWindowSize) {
+            Args.positive(maxStreamWindowSize, "Max stream window size");
+            this.maxStreamWindowSize = maxStreamWindowSize;
+            return this;
+        }
+
+        /**
+         * @since 5.0
+         */
+        public Builder setMaxConnectionWindowSize(final int maxConnectionWindowSize) {
+            Args.positive(maxConnectionWindowSize, "Max connection window size");
+            this.maxConnectionWindowSize = maxConnectionWindowSize;
+            return this;
+        }
+
+        /**
+         * Sets the share of the receive window, in percent, released input capacity
+         * has to add up to before a WINDOW_UPDATE frame gets sent out right away.
+         * Zero disables coalescing of window updates.
+         *
+         * @since 5.0
+         */
+        public Builder setWindowUpdateThreshold(final int windowUpdateThreshold) {
+            this.windowUpdateThreshold = Args.checkRange(windowUpdateThreshold, 0, 100,
+                    "Invalid window update threshold");
+            return this;
+        }
+
         public H2Config build() {
             return new H2Config(
                     headerTableSize,
@@ -172,7 +365,14 @@ public H2Config build() {
                     maxConcurrentStreams,
                     initialWindowSize > 0 ? initialWindowSize : 65535,
                     maxFrameSize,
-                    maxHeaderListSize);
+                    maxHeaderListSize,
+                    corkThreshold,
+                    corkMaxFrames,
+                    prioritySchedulingEnabled,
+                    windowAutoTuningEnabled,
+                    maxStreamWindowSize,
+                    maxConnectionWindowSize,
+                    windowUpdateThreshold);
         }
 
     }
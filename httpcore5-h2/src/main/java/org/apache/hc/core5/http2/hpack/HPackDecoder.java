@@ -129,9 +129,9 @@ static void decodePlainString(final ByteArrayBuffer buffer, final ByteBuffer src
         }
         if (src.hasArray()) {
             final byte[] b = src.array();
-            final int off = src.position();
+            final int off = src.arrayOffset() + src.position();
             buffer.append(b, off, strLen);
-            src.position(off + strLen);
+            src.position(src.position() + strLen);
         } else {
             for (int i = 0; i < strLen; i++) {
                 buffer.append(src.get());
@@ -40,7 +40,6 @@
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.ByteArrayBuffer;
-import org.apache.hc.core5.util.LangUtils;
 
 /**
  * HPACK encoder.
@@ -112,9 +111,9 @@ void encodeString(final ByteArrayBuffer dst, final ByteBuffer src, final boolean
             encodeInt(dst, 7, strLen, 0x0);
             if (src.hasArray()) {
                 final byte[] b = src.array();
-                final int off = src.position();
+                final int off = src.arrayOffset() + src.position();
                 dst.append(b, off, strLen);
-                src.position(off + strLen);
+                src.position(src.position() + strLen);
             } else {
                 while (src.hasRemaining()) {
                     dst.append(src.get());
@@ -200,13 +199,8 @@ int encodeString(final ByteArrayBuffer dst, final String s, final boolean huffma
     }
 
     void encodeLiteralHeader(
-            final ByteArrayBuffer dst, final HPackEntry existing, final Header header,
-            final HPackRepresentation representation, final boolean useHuffman) throws CharacterCodingException {
-        encodeLiteralHeader(dst, existing, header.getName(), header.getValue(), header.isSensitive(), representation, useHuffman);
-    }
-
-    void encodeLiteralHeader(
-            final ByteArrayBuffer dst, final HPackEntry existing, final String key, final String value, final boolean sensitive,
+            final ByteArrayBuffer dst, final int index, final int indexedNameLen,
+            final String key, final String value, final boolean sensitive,
             final HPackRepresentation representation, final boolean useHuffman) throws CharacterCodingException {
 
         final int n;
@@ -227,14 +221,13 @@ void encodeLiteralHeader(
             default:
                 throw new IllegalStateException("Unexpected value: " + representation);
         }
-        final int index = existing != null ? existing.getIndex() : 0;
         final int nameLen;
         if (index <= 0) {
             encodeInt(dst, n, 0, mask);
             nameLen = encodeString(dst, key, useHuffman);
         } else {
             encodeInt(dst, n, index, mask);
-            nameLen = existing.getHeader().getNameLen();
+            nameLen = indexedNameLen;
         }
         final int valueLen = encodeString(dst, value != null ? value : "", useHuffman);
         if (representation == HPackRepresentation.WITH_INDEXING) {
@@ -246,19 +239,6 @@ void encodeIndex(final ByteArrayBuffer dst, final int index) {
         encodeInt(dst, 7, index, 0x80);
     }
 
-    private int findFullMatch(final List<HPackEntry> entries, final String value) {
-        if (entries == null || entries.isEmpty()) {
-            return 0;
-        }
-        for (int i = 0; i < entries.size(); i++) {
-            final HPackEntry entry = entries.get(i);
-            if (LangUtils.equals(value, entry.getHeader().getValue())) {
-                return entry.getIndex();
-            }
-        }
-        return 0;
-    }
-
     void encodeHeader(
             final ByteArrayBuffer dst, final Header header,
             final boolean noIndexing, final boolean useHuffman) throws CharacterCodingException {
@@ -278,33 +258,26 @@ void encodeHeader(
             representation = HPackRepresentation.WITH_INDEXING;
         }
 
-        final List<HPackEntry> staticEntries = StaticTable.INSTANCE.getByName(name);
-
         if (representation == HPackRepresentation.WITH_INDEXING) {
             // Try to find full match and encode as as index
-            final int staticIndex = findFullMatch(staticEntries, value);
+            final int staticIndex = StaticTable.INSTANCE.getIndex(name, value);
             if (staticIndex > 0) {
                 encodeIndex(dst, staticIndex);
                 return;
             }
-            final List<HPackEntry> dynamicEntries = dynamicTable.getByName(name);
-            final int dynamicIndex = findFullMatch(dynamicEntries, value);
+            final int dynamicIndex = dynamicTable.getIndex(name, value);
             if (dynamicIndex > 0) {
                 encodeIndex(dst, dynamicIndex);
                 return;
             }
         }
         // Encode as literal
-        HPackEntry existing = null;
-        if (staticEntries != null && !staticEntries.isEmpty()) {
-            existing = staticEntries.get(0);
-        } else {
-            final List<HPackEntry> dynamicEntries = dynamicTable.getByName(name);
-            if (dynamicEntries != null && !dynamicEntries.isEmpty()) {
-                existing = dynamicEntries.get(0);
-            }
+        int nameIndex = StaticTable.INSTANCE.getIndex(name);
+        if (nameIndex <= 0) {
+            nameIndex = dynamicTable.getIndex(name);
         }
-        encodeLiteralHeader(dst, existing, name, value, sensitive, representation, useHuffman);
+        final int nameLen = nameIndex > 0 ? dynamicTable.getHeader(nameIndex).getNameLen() : 0;
+        encodeLiteralHeader(dst, nameIndex, nameLen, name, value, sensitive, representation, useHuffman);
     }
 
     void encodeHeaders(
@@ -0,0 +1,185 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http2.hpack;
+
+import java.util.Arrays;
+
+import org.apache.hc.core5.util.LangUtils;
+
+/**
+ * Open-addressed hash index of {@link HPackHeader}s keyed either on the header
+ * name alone or on the name and value pair. Each key maps to a single int slot
+ * value, typically the position of the most recent matching table entry.
+ * Lookups and removals do not allocate; the backing arrays are only re-allocated
+ * when the index needs to grow.
+ */
+final class HPackHeaderIndex {
+
+    private final boolean byValue;
+
+    private HPackHeader[] keys;
+    private int[] hashes;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    HPackHeaderIndex(final boolean byValue, final int expectedSize) {
+        this.byValue = byValue;
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(final int capacity) {
+        this.keys = new HPackHeader[capacity];
+        this.hashes = new int[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private static int spread(final int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private int hash(final String name, final String value) {
+        int h = name.hashCode();
+        if (byValue) {
+            h = h * 31 + (value != null ? value.hashCode() : 0);
+        }
+        return spread(h);
+    }
+
+    private boolean matches(final int slot, final int hash, final String name, final String value) {
+        if (hashes[slot] != hash) {
+            return false;
+        }
+        final HPackHeader key = keys[slot];
+        return name.equals(key.getName()) && (!byValue || LangUtils.equals(value, key.getValue()));
+    }
+
+    private int find(final String name, final String value, final int hash) {
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (matches(slot, hash, name, value)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the value mapped to the given key or {@code -1} if there is no mapping.
+     * The value is ignored by name-only indexes.
+     */
+    int get(final String name, final String value) {
+        final int slot = find(name, value, hash(name, value));
+        return slot >= 0 ? values[slot] : -1;
+    }
+
+    /**
+     * Maps the key of the given header to the given value, replacing any existing mapping.
+     */
+    void put(final HPackHeader header, final int value) {
+        final String name = header.getName();
+        final String headerValue = header.getValue();
+        final int hash = hash(name, headerValue);
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (matches(slot, hash, name, headerValue)) {
+                keys[slot] = header;
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = header;
+        hashes[slot] = hash;
+        values[slot] = value;
+        size++;
+        if (size * 2 > keys.length) {
+            rehash();
+        }
+    }
+
+    /**
+     * Removes the mapping of the key of the given header, but only if it is still
+     * mapped to the given value.
+     */
+    void remove(final HPackHeader header, final int value) {
+        final int slot = find(header.getName(), header.getValue(), hash(header.getName(), header.getValue()));
+        if (slot < 0 || values[slot] != value) {
+            return;
+        }
+        size--;
+        // Backward shift deletion keeps probe sequences intact without tombstones
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != null) {
+            final int home = hashes[next] & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                hashes[hole] = hashes[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = null;
+    }
+
+    private void rehash() {
+        final HPackHeader[] oldKeys = keys;
+        final int[] oldHashes = hashes;
+        final int[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = oldHashes[i] & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                hashes[slot] = oldHashes[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+}
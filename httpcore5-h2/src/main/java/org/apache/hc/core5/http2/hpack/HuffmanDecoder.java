@@ -32,89 +32,137 @@
 import org.apache.hc.core5.util.ByteArrayBuffer;
 
 /**
- * This Huffman codec implementation has been derived from Twitter HPack project
- * (https://github.com/twitter/hpack)
+ * Table driven Huffman decoder. The Huffman code tree is compiled into a finite
+ * state machine where each state represents an internal node of the tree and
+ * each transition consumes four bits of input. A transition yields the next state,
+ * at most one decoded symbol (the shortest code is five bits long) and flags
+ * telling whether the input is acceptable if it ends at this point.
  */
 final class HuffmanDecoder {
 
-    private final HuffmanNode root;
+    private static final int STATE_MASK = 0xFF;
+    private static final int SYMBOL_SHIFT = 8;
+    private static final int SYMBOL_MASK = 0xFF;
+    private static final int FLAG_EMIT = 0x10000;
+    private static final int FLAG_ACCEPT = 0x20000;
+    private static final int FLAG_FAIL = 0x40000;
+
+    // Shortest code length in bits
+    private static final int MIN_CODE_LENGTH = 5;
+
+    private final int[] transitions;
 
     HuffmanDecoder(final int[] codes, final byte[] lengths) {
-        root = buildTree(codes, lengths);
+        this.transitions = buildTransitions(codes, lengths);
     }
 
     void decode(final ByteArrayBuffer out, final ByteBuffer src) throws HPackException {
-        HuffmanNode node = this.root;
-        int current = 0;
-        int bits = 0;
+        out.ensureCapacity((src.remaining() * 8) / MIN_CODE_LENGTH + 1);
+        final byte[] dst = out.array();
+        int len = out.length();
+        int state = 0;
+        int t = FLAG_ACCEPT;
         while (src.hasRemaining()) {
             final int b = src.get() & 0xFF;
-            current = (current << 8) | b;
-            bits += 8;
-            while (bits >= 8) {
-                final int c = (current >>> (bits - 8)) & 0xFF;
-                node = node.getChild(c);
-                bits -= node.getBits();
-                if (node.isTerminal()) {
-                    if (node.getSymbol() == Huffman.EOS) {
-                        throw new HPackException("EOS decoded");
-                    }
-                    out.append(node.getSymbol());
-                    node = root;
-                }
+
+            t = transitions[(state << 4) | (b >>> 4)];
+            if ((t & FLAG_FAIL) != 0) {
+                throw new HPackException("EOS decoded");
             }
-        }
+            if ((t & FLAG_EMIT) != 0) {
+                dst[len++] = (byte) (t >>> SYMBOL_SHIFT);
+            }
+            state = t & STATE_MASK;
 
-        while (bits > 0) {
-            final int c = (current << (8 - bits)) & 0xFF;
-            node = node.getChild(c);
-            if (node.isTerminal() && node.getBits() <= bits) {
-                bits -= node.getBits();
-                out.append(node.getSymbol());
-                node = this.root;
-            } else {
-                break;
+            t = transitions[(state << 4) | (b & 0x0F)];
+            if ((t & FLAG_FAIL) != 0) {
+                throw new HPackException("EOS decoded");
             }
+            if ((t & FLAG_EMIT) != 0) {
+                dst[len++] = (byte) (t >>> SYMBOL_SHIFT);
+            }
+            state = t & STATE_MASK;
         }
+        out.setLength(len);
 
         // Section 5.2. String Literal Representation
-        // Padding not corresponding to the most significant bits of the code
-        // for the EOS symbol (0xFF) MUST be treated as a decoding error.
-        final int mask = (1 << bits) - 1;
-        if ((current & mask) != mask) {
+        // Padding strictly longer than 7 bits or not corresponding to the most significant
+        // bits of the code for the EOS symbol MUST be treated as a decoding error.
+        if ((t & FLAG_ACCEPT) == 0) {
             throw new HPackException("Invalid padding");
         }
     }
 
-    private static HuffmanNode buildTree(final int[] codes, final byte[] lengths) {
-        final HuffmanNode root = new HuffmanNode();
+    private static int[] buildTransitions(final int[] codes, final byte[] lengths) {
+        // Binary code tree. Internal nodes are numbered from 0 (root); children of internal
+        // node n are held at 2n (bit 0) and 2n + 1 (bit 1). Positive values refer to
+        // internal nodes, negative values to leaves holding symbol -(value + 1).
+        final int[] children = new int[codes.length * 2];
+        final int[] depth = new int[codes.length];
+        final boolean[] allOnes = new boolean[codes.length];
+        allOnes[0] = true;
+        int nodeCount = 1;
         for (int symbol = 0; symbol < codes.length; symbol++) {
-
             final int code = codes[symbol];
-            int length = lengths[symbol];
-
-            HuffmanNode current = root;
-            while (length > 8) {
-                if (current.isTerminal()) {
+            final int length = lengths[symbol];
+            int node = 0;
+            for (int i = length - 1; i >= 0; i--) {
+                final int bit = (code >>> i) & 1;
+                final int slot = node * 2 + bit;
+                if (children[slot] < 0) {
                     throw new IllegalStateException("Invalid Huffman code: prefix not unique");
                 }
-                length -= 8;
-                final int i = (code >>> length) & 0xFF;
-                if (!current.hasChild(i)) {
-                    current.setChild(i, new HuffmanNode());
+                if (i == 0) {
+                    if (children[slot] != 0) {
+                        throw new IllegalStateException("Invalid Huffman code: prefix not unique");
+                    }
+                    children[slot] = -(symbol + 1);
+                } else {
+                    if (children[slot] == 0) {
+                        if (nodeCount > STATE_MASK) {
+                            throw new IllegalStateException("Invalid Huffman code: too many states");
+                        }
+                        depth[nodeCount] = depth[node] + 1;
+                        allOnes[nodeCount] = allOnes[node] && bit == 1;
+                        children[slot] = nodeCount++;
+                    }
+                    node = children[slot];
                 }
-                current = current.getChild(i);
             }
+        }
 
-            final HuffmanNode terminal = new HuffmanNode(symbol, length);
-            final int shift = 8 - length;
-            final int start = (code << shift) & 0xFF;
-            final int end = 1 << shift;
-            for (int i = start; i < start + end; i++) {
-                current.setChild(i, terminal);
+        final int[] transitions = new int[nodeCount << 4];
+        for (int state = 0; state < nodeCount; state++) {
+            for (int nibble = 0; nibble < 16; nibble++) {
+                int node = state;
+                int t = 0;
+                for (int i = 3; i >= 0; i--) {
+                    final int child = children[node * 2 + ((nibble >>> i) & 1)];
+                    if (child < 0) {
+                        final int symbol = -(child + 1);
+                        if (symbol == Huffman.EOS) {
+                            t |= FLAG_FAIL;
+                            break;
+                        }
+                        t |= FLAG_EMIT | ((symbol & SYMBOL_MASK) << SYMBOL_SHIFT);
+                        node = 0;
+                    } else if (child == 0) {
+                        t |= FLAG_FAIL;
+                        break;
+                    } else {
+                        node = child;
+                    }
+                }
+                if ((t & FLAG_FAIL) == 0) {
+                    t |= node;
+                    if (node == 0 || allOnes[node] && depth[node] < 8) {
+                        t |= FLAG_ACCEPT;
+                    }
+                }
+                transitions[(state << 4) | nibble] = t;
             }
         }
-        return root;
+        return transitions;
     }
 
-}
\ No newline at end of file
+}
@@ -27,27 +27,38 @@
 
 package org.apache.hc.core5.http2.hpack;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.util.Asserts;
 
+/**
+ * Encoder side dynamic table. Entries are kept in a ring buffer and indexed by name
+ * as well as by name and value in open-addressed hash indexes that map each key
+ * to the ring position of the most recent matching entry. Adding and evicting
+ * entries does not allocate unless the ring buffer or the indexes need to grow.
+ */
 final class OutboundDynamicTable {
 
     private final StaticTable staticTable;
-    private final FifoLinkedList headers;
-    private final Map<String, LinkedList<HPackEntry>> mapByName;
+    private final HPackHeaderIndex indexByName;
+    private final HPackHeaderIndex indexByNameValue;
+
+    private HPackHeader[] entries;
+    private int mask;
+    // Running count of added entries; its low bits give the next ring position
+    private int nextSeqNum;
+    private int count;
 
     private int maxSize;
     private int currentSize;
 
     OutboundDynamicTable(final StaticTable staticTable) {
         this.staticTable = staticTable;
-        this.headers = new FifoLinkedList();
-        this.mapByName = new HashMap<>();
+        this.indexByName = new HPackHeaderIndex(false, 64);
+        this.indexByNameValue = new HPackHeaderIndex(true, 64);
+        this.entries = new HPackHeader[64];
+        this.mask = this.entries.length - 1;
         this.maxSize = Integer.MAX_VALUE;
         this.currentSize = 0;
     }
@@ -74,66 +85,108 @@ int staticLength() {
     }
 
     int dynamicLength() {
-        return headers.size();
+        return count;
     }
 
     Header getDynamicEntry(final int index) {
-        return headers.get(index);
+        return getEntry(index);
+    }
+
+    private HPackHeader getEntry(final int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException();
+        }
+        return entries[(nextSeqNum - index - 1) & mask];
     }
 
     public int length() {
-        return staticTable.length() + headers.size();
+        return staticTable.length() + count;
     }
 
-    public Header getHeader(final int index) {
+    public HPackHeader getHeader(final int index) {
         if (index < 1 || index > length()) {
             throw new IndexOutOfBoundsException();
         }
         return index <= staticTable.length()
                         ? staticTable.get(index)
-                        : headers.get(index - staticTable.length() - 1);
+                        : getEntry(index - staticTable.length() - 1);
+    }
+
+    private int toIndex(final int pos) {
+        return staticTable.length() + ((nextSeqNum - 1 - pos) & mask) + 1;
+    }
+
+    /**
+     * Returns the index of the most recent entry with the given name and value
+     * or {@code 0} if there is no such entry in the dynamic table.
+     */
+    public int getIndex(final String name, final String value) {
+        final int pos = indexByNameValue.get(name, value);
+        return pos >= 0 ? toIndex(pos) : 0;
+    }
+
+    /**
+     * Returns the index of the most recent entry with the given name
+     * or {@code 0} if there is no such entry in the dynamic table.
+     */
+    public int getIndex(final String name) {
+        final int pos = indexByName.get(name, null);
+        return pos >= 0 ? toIndex(pos) : 0;
     }
 
     public void add(final HPackHeader header) {
         final int entrySize = header.getTotalSize();
         if (entrySize > this.maxSize) {
             clear();
-            this.mapByName.clear();
             return;
         }
-        final String key = header.getName();
-        final FifoLinkedList.InternalNode node = headers.addFirst(header);
-        LinkedList<HPackEntry> nodes = mapByName.get(key);
-        if (nodes == null) {
-            nodes = new LinkedList<>();
-            mapByName.put(key, nodes);
+        if (count == entries.length) {
+            expand();
         }
-        nodes.addFirst(node);
+        final int pos = nextSeqNum++ & mask;
+        entries[pos] = header;
+        count++;
+        indexByName.put(header, pos);
+        indexByNameValue.put(header, pos);
         currentSize += entrySize;
         evict();
     }
 
-    private void clear() {
-        currentSize = 0;
-        headers.clear();
+    private void expand() {
+        final HPackHeader[] oldEntries = entries;
+        final int oldMask = mask;
+        entries = new HPackHeader[oldEntries.length << 1];
+        mask = entries.length - 1;
+        // Re-index from the oldest to the most recent entry so that the most recent one wins
+        indexByName.clear();
+        indexByNameValue.clear();
+        for (int seqNum = nextSeqNum - count; seqNum != nextSeqNum; seqNum++) {
+            final int pos = seqNum & mask;
+            final HPackHeader header = oldEntries[seqNum & oldMask];
+            entries[pos] = header;
+            indexByName.put(header, pos);
+            indexByNameValue.put(header, pos);
+        }
     }
 
-    public List<HPackEntry> getByName(final String key) {
-        return this.mapByName.get(key);
+    private void clear() {
+        Arrays.fill(entries, null);
+        indexByName.clear();
+        indexByNameValue.clear();
+        count = 0;
+        currentSize = 0;
     }
 
     private void evict() {
         while (currentSize > maxSize) {
-            final FifoLinkedList.InternalNode node = headers.removeLast();
-            if (node != null) {
-                final HPackHeader header = node.getHeader();
+            if (count > 0) {
+                final int pos = (nextSeqNum - count) & mask;
+                final HPackHeader header = entries[pos];
+                entries[pos] = null;
+                count--;
                 currentSize -= header.getTotalSize();
-
-                final String key = header.getName();
-                final LinkedList<HPackEntry> nodes = mapByName.get(key);
-                if (nodes != null) {
-                    nodes.remove(node);
-                }
+                indexByName.remove(header, pos);
+                indexByNameValue.remove(header, pos);
             } else {
                 Asserts.check(currentSize == 0, "Current table size must be zero");
                 break;
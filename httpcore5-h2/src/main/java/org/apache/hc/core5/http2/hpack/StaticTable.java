@@ -27,11 +27,6 @@
 
 package org.apache.hc.core5.http2.hpack;
 
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-
 final class StaticTable {
 
     static final HPackHeader[] STANDARD_HEADERS = {
@@ -101,23 +96,18 @@ final class StaticTable {
     final static StaticTable INSTANCE = new StaticTable(STANDARD_HEADERS);
 
     private final HPackHeader[] headers;
-    private final ConcurrentMap<String, CopyOnWriteArrayList<HPackEntry>> mapByName;
+    private final HPackHeaderIndex indexByName;
+    private final HPackHeaderIndex indexByNameValue;
 
     StaticTable(final HPackHeader... headers) {
         this.headers = headers;
-        this.mapByName = new ConcurrentHashMap<>();
-
-        for (int i = 0; i < headers.length; i++) {
+        this.indexByName = new HPackHeaderIndex(false, headers.length);
+        this.indexByNameValue = new HPackHeaderIndex(true, headers.length);
+        // Index in reverse order so that the lowest index wins for repeated names
+        for (int i = headers.length - 1; i >= 0; i--) {
             final HPackHeader header = headers[i];
-
-            final String key = header.getName();
-            CopyOnWriteArrayList<HPackEntry> entries = this.mapByName.get(key);
-            if (entries == null) {
-                entries = new CopyOnWriteArrayList<>(new HPackEntry[] { new InternalEntry(header, i) });
-                this.mapByName.put(key, entries);
-            } else {
-                entries.add(new InternalEntry(header, i));
-            }
+            this.indexByName.put(header, i + 1);
+            this.indexByNameValue.put(header, i + 1);
         }
     }
 
@@ -129,30 +119,22 @@ public HPackHeader get(final int index) {
         return this.headers[index - 1];
     }
 
-    public List<HPackEntry> getByName(final String key) {
-        return this.mapByName.get(key);
+    /**
+     * Returns the index of the entry with the given name and value or {@code 0}
+     * if there is no such entry.
+     */
+    public int getIndex(final String name, final String value) {
+        final int index = indexByNameValue.get(name, value);
+        return index > 0 ? index : 0;
     }
 
-    static class InternalEntry implements HPackEntry {
-
-        private final HPackHeader header;
-        private final int index;
-
-        InternalEntry(final HPackHeader header, final int index) {
-            this.header = header;
-            this.index = index;
-        }
-
-        @Override
-        public int getIndex() {
-            return index + 1;
-        }
-
-        @Override
-        public HPackHeader getHeader() {
-            return header;
-        }
-
+    /**
+     * Returns the lowest index of an entry with the given name or {@code 0}
+     * if there is no such entry.
+     */
+    public int getIndex(final String name) {
+        final int index = indexByName.get(name, null);
+        return index > 0 ? index : 0;
     }
 
 }
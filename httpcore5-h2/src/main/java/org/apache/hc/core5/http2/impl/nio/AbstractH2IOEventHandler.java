@@ -36,12 +36,13 @@
 import org.apache.hc.core5.http.HttpException;
 import org.apache.hc.core5.http.ProtocolVersion;
 import org.apache.hc.core5.http.impl.nio.HttpConnectionEventHandler;
+import org.apache.hc.core5.http2.nio.H2StreamStats;
 import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.reactor.IOSession;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.Timeout;
 
-class AbstractH2IOEventHandler implements HttpConnectionEventHandler {
+class AbstractH2IOEventHandler implements HttpConnectionEventHandler, H2StreamStats {
 
     final AbstractH2StreamMultiplexer streamMultiplexer;
 
@@ -145,4 +146,14 @@ public SocketAddress getLocalAddress() {
         return streamMultiplexer.getLocalAddress();
     }
 
+    @Override
+    public int getActiveStreamCount() {
+        return streamMultiplexer.getActiveStreamCount();
+    }
+
+    @Override
+    public int getMaxConcurrentStreams() {
+        return streamMultiplexer.getMaxConcurrentStreams();
+    }
+
 }
@@ -32,14 +32,12 @@
 import java.nio.channels.SelectionKey;
 import java.nio.charset.CharacterCodingException;
 import java.util.Deque;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.CancellationException;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.SSLSession;
@@ -81,19 +79,22 @@
 import org.apache.hc.core5.http2.hpack.HPackEncoder;
 import org.apache.hc.core5.http2.impl.BasicH2TransportMetrics;
 import org.apache.hc.core5.http2.nio.AsyncPingHandler;
+import org.apache.hc.core5.http2.nio.H2StreamStats;
 import org.apache.hc.core5.http2.nio.command.PingCommand;
 import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.reactor.Command;
 import org.apache.hc.core5.reactor.ProtocolIOSession;
 import org.apache.hc.core5.reactor.ssl.TlsDetails;
 import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteBufferAllocator;
 import org.apache.hc.core5.util.ByteArrayBuffer;
 import org.apache.hc.core5.util.Identifiable;
 import org.apache.hc.core5.util.Timeout;
 
-abstract class AbstractH2StreamMultiplexer implements Identifiable, HttpConnection {
+abstract class AbstractH2StreamMultiplexer implements Identifiable, HttpConnection, H2StreamStats {
 
     private static final long LINGER_TIME = 1000; // 1 second
+    private static final long WINDOW_PROBE_DATA = 0x48325f50524f4245L; // H2_PROBE
 
     enum ConnectionHandshake { READY, ACTIVE, GRACEFUL_SHUTDOWN, SHUTDOWN}
     enum SettingsHandshake { READY, TRANSMITTED, ACKED }
@@ -111,19 +112,30 @@ enum SettingsHandshake { READY, TRANSMITTED, ACKED }
     private final Deque<RawFrame> outputQueue;
     private final HPackEncoder hPackEncoder;
     private final HPackDecoder hPackDecoder;
-    private final Map<Integer, H2Stream> streamMap;
+    private final H2StreamTable<H2Stream> streamMap;
+    private final H2StreamScheduler<H2Stream> streamScheduler;
+    private final H2StreamScheduler.OutputProducer<H2Stream> streamOutputProducer;
+    private final Queue<H2Stream> pushedStreams;
+    private final Queue<H2StreamChannelImpl> outputReadyChannels;
+    private final Queue<H2StreamChannelImpl> inputCapacityChannels;
     private final Queue<AsyncPingHandler> pingHandlers;
     private final AtomicInteger connInputWindow;
     private final AtomicInteger connOutputWindow;
     private final AtomicInteger outputRequests;
     private final AtomicInteger lastStreamId;
     private final H2StreamListener streamListener;
+    private final BandwidthDelayEstimator bdpEstimator;
 
     private ConnectionHandshake connState = ConnectionHandshake.READY;
     private SettingsHandshake localSettingState = SettingsHandshake.READY;
     private SettingsHandshake remoteSettingState = SettingsHandshake.READY;
-    private H2Config remoteConfig;
+    private volatile H2Config remoteConfig;
     private int lowMark;
+    private volatile int scheduledStreamId;
+    private volatile int scheduledQuota;
+    private boolean streamOutputPending;
+    private int connInputWindowSize;
+    private int streamInputWindowSize;
 
     private Continuation continuation;
 
@@ -137,7 +149,8 @@ enum SettingsHandshake { READY, TRANSMITTED, ACKED }
             final HttpProcessor httpProcessor,
             final CharCodingConfig charCodingConfig,
             final H2Config h2Config,
-            final H2StreamListener streamListener) {
+            final H2StreamListener streamListener,
+            final ByteBufferAllocator bufferAllocator) {
         this.ioSession = Args.notNull(ioSession, "IO session");
         this.frameFactory = Args.notNull(frameFactory, "Frame factory");
         this.idGenerator = Args.notNull(idGenerator, "Stream id generator");
@@ -146,15 +159,21 @@ enum SettingsHandshake { READY, TRANSMITTED, ACKED }
         this.inputMetrics = new BasicH2TransportMetrics();
         this.outputMetrics = new BasicH2TransportMetrics();
         this.connMetrics = new BasicHttpConnectionMetrics(inputMetrics, outputMetrics);
-        this.inputBuffer = new FrameInputBuffer(this.inputMetrics, this.localConfig.getMaxFrameSize());
-        this.outputBuffer = new FrameOutputBuffer(this.outputMetrics, this.localConfig.getMaxFrameSize());
+        this.inputBuffer = new FrameInputBuffer(this.inputMetrics, this.localConfig.getMaxFrameSize(), bufferAllocator);
+        this.outputBuffer = new FrameOutputBuffer(this.outputMetrics, this.localConfig.getMaxFrameSize(), bufferAllocator,
+                this.localConfig.getCorkThreshold(), this.localConfig.getCorkMaxFrames());
         this.outputQueue = new ConcurrentLinkedDeque<>();
         this.pingHandlers = new ConcurrentLinkedQueue<>();
         this.outputRequests = new AtomicInteger(0);
         this.lastStreamId = new AtomicInteger(0);
         this.hPackEncoder = new HPackEncoder(CharCodingSupport.createEncoder(charCodingConfig));
         this.hPackDecoder = new HPackDecoder(CharCodingSupport.createDecoder(charCodingConfig));
-        this.streamMap = new ConcurrentHashMap<>();
+        this.streamMap = new H2StreamTable<>();
+        this.streamScheduler = new DeficitRoundRobinScheduler<>(this.localConfig.isPrioritySchedulingEnabled());
+        this.streamOutputProducer = new StreamOutputProducer();
+        this.pushedStreams = new ConcurrentLinkedQueue<>();
+        this.outputReadyChannels = new ConcurrentLinkedQueue<>();
+        this.inputCapacityChannels = new ConcurrentLinkedQueue<>();
         this.connInputWindow = new AtomicInteger(localConfig.getInitialWindowSize());
         this.connOutputWindow = new AtomicInteger(H2Config.DEFAULT.getInitialWindowSize());
 
@@ -164,6 +183,11 @@ enum SettingsHandshake { READY, TRANSMITTED, ACKED }
         this.remoteConfig = H2Config.DEFAULT;
         this.lowMark = this.remoteConfig.getInitialWindowSize() / 2;
         this.streamListener = streamListener;
+        this.bdpEstimator = this.localConfig.isWindowAutoTuningEnabled() ? new BandwidthDelayEstimator(
+                this.localConfig.getInitialWindowSize(),
+                Math.max(this.localConfig.getMaxStreamWindowSize(), this.localConfig.getMaxConnectionWindowSize())) : null;
+        this.connInputWindowSize = this.localConfig.getInitialWindowSize();
+        this.streamInputWindowSize = this.localConfig.getInitialWindowSize();
     }
 
     @Override
@@ -229,7 +253,7 @@ private int updateOutputWindow(
     }
 
     private void commitFrameInternal(final RawFrame frame) throws IOException {
-        if (outputBuffer.isEmpty() && outputQueue.isEmpty()) {
+        if (outputBuffer.hasCapacity() && outputQueue.isEmpty()) {
             if (streamListener != null) {
                 streamListener.onFrameOutput(this, frame.getStreamId(), frame);
             }
@@ -336,12 +360,17 @@ private void streamDataFrame(
 
     private int streamData(
             final int streamId, final AtomicInteger streamOutputWindow, final ByteBuffer payload) throws IOException {
-        if (outputBuffer.isEmpty() && outputQueue.isEmpty()) {
-            final int capacity = Math.min(connOutputWindow.get(), streamOutputWindow.get());
+        if (outputBuffer.hasCapacity() && outputQueue.isEmpty()) {
+            int capacity = Math.min(connOutputWindow.get(), streamOutputWindow.get());
+            final boolean scheduled = streamId == scheduledStreamId;
+            if (scheduled) {
+                capacity = Math.min(capacity, scheduledQuota);
+            }
             if (capacity <= 0) {
                 return 0;
             }
-            final int frameSize = Math.max(localConfig.getMaxFrameSize(), remoteConfig.getMaxFrameSize());
+            // DATA frames must not exceed the maximum frame size of the opposite endpoint
+            final int frameSize = Math.min(localConfig.getMaxFrameSize(), remoteConfig.getMaxFrameSize());
             final int maxPayloadSize = Math.min(capacity, frameSize);
             final int chunk;
             if (payload.remaining() <= maxPayloadSize) {
@@ -358,6 +387,9 @@ private int streamData(
                 }
             }
             payload.position(payload.position() + chunk);
+            if (scheduled) {
+                scheduledQuota -= chunk;
+            }
             ioSession.setEvent(SelectionKey.OP_WRITE);
             return chunk;
         }
@@ -370,9 +402,25 @@ private void incrementInputCapacity(
             final int streamWinSize = inputWindow.get();
             final int remainingCapacity = Integer.MAX_VALUE - streamWinSize;
             final int chunk = Math.min(inputCapacity, remainingCapacity);
-            final RawFrame windowUpdateFrame = frameFactory.createWindowUpdate(streamId, chunk);
-            commitFrame(windowUpdateFrame);
-            updateInputWindow(streamId, inputWindow, chunk);
+            if (chunk > 0) {
+                final RawFrame windowUpdateFrame = frameFactory.createWindowUpdate(streamId, chunk);
+                commitFrame(windowUpdateFrame);
+                updateInputWindow(streamId, inputWindow, chunk);
+            }
+        }
+    }
+
+    private int windowUpdateThreshold(final int windowSize) {
+        return (int) ((long) windowSize * localConfig.getWindowUpdateThreshold() / 100);
+    }
+
+    private void flushInputCapacity() throws IOException {
+        for (;;) {
+            final H2StreamChannelImpl channel = inputCapacityChannels.poll();
+            if (channel == null) {
+                break;
+            }
+            channel.flushInputCapacity();
         }
     }
 
@@ -421,21 +469,28 @@ public final void onInput() throws HttpException, IOException {
         } else {
             RawFrame frame;
             while ((frame = inputBuffer.read(ioSession.channel())) != null) {
+                // Streams promised in the course of this pass must be known
+                // before the peer's response to the promise gets processed
+                registerPushedStreams();
                 if (streamListener != null) {
                     streamListener.onFrameInput(this, frame.getStreamId(), frame);
                 }
                 consumeFrame(frame);
             }
+            flushInputCapacity();
         }
     }
 
     public final void onOutput() throws HttpException, IOException {
+        // Frames produced in the course of this pass get held back and written out
+        // together once the pass is over or the cork threshold has been reached
         ioSession.getLock().lock();
         try {
             if (!outputBuffer.isEmpty()) {
                 outputBuffer.flush(ioSession.channel());
             }
-            while (outputBuffer.isEmpty()) {
+            outputBuffer.cork();
+            while (outputBuffer.hasCapacity()) {
                 final RawFrame frame = outputQueue.poll();
                 if (frame != null) {
                     if (streamListener != null) {
@@ -451,7 +506,7 @@ public final void onOutput() throws HttpException, IOException {
         }
 
         final int connWinSize = connInputWindow.get();
-        if (connWinSize < lowMark) {
+        if (bdpEstimator == null && connWinSize < lowMark) {
             final int delta = this.remoteConfig.getInitialWindowSize() - connWinSize;
             if (delta > 0) {
                 final RawFrame windowUpdateFrame = frameFactory.createWindowUpdate(0, delta);
@@ -459,26 +514,25 @@ public final void onOutput() throws HttpException, IOException {
                 updateInputWindow(0, connInputWindow, delta);
             }
         }
+        flushInputCapacity();
 
-        if (connState.compareTo(ConnectionHandshake.SHUTDOWN) < 0) {
+        // Output requests made in the course of the pass must keep the session
+        // interested in output events
+        final int pendingOutputRequests = outputRequests.get();
+        boolean outputPending = false;
+        if (connState.compareTo(ConnectionHandshake.SHUTDOWN) < 0
+                && connOutputWindow.get() > 0 && remoteSettingState == SettingsHandshake.ACKED) {
+            outputPending = produceOutput();
+        }
 
-            if (connOutputWindow.get() > 0 && remoteSettingState == SettingsHandshake.ACKED) {
-                produceOutput();
-            }
-            final int pendingOutputRequests = outputRequests.get();
-            boolean outputPending = false;
-            if (!streamMap.isEmpty() && connOutputWindow.get() > 0) {
-                for (final Iterator<Map.Entry<Integer, H2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-                    final Map.Entry<Integer, H2Stream> entry = it.next();
-                    final H2Stream stream = entry.getValue();
-                    if (!stream.isLocalClosed()
-                            && stream.getOutputWindow().get() > 0
-                            && stream.isOutputReady()) {
-                        outputPending = true;
-                        break;
-                    }
-                }
-            }
+        ioSession.getLock().lock();
+        try {
+            outputBuffer.uncork(ioSession.channel());
+        } finally {
+            ioSession.getLock().unlock();
+        }
+
+        if (connState.compareTo(ConnectionHandshake.SHUTDOWN) < 0) {
             ioSession.getLock().lock();
             try {
                 if (!outputPending && outputBuffer.isEmpty() && outputQueue.isEmpty()
@@ -496,12 +550,10 @@ public final void onOutput() throws HttpException, IOException {
             processPendingCommands();
         }
         if (connState.compareTo(ConnectionHandshake.GRACEFUL_SHUTDOWN) == 0) {
-            for (final Iterator<Map.Entry<Integer, H2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-                final Map.Entry<Integer, H2Stream> entry = it.next();
-                final H2Stream stream = entry.getValue();
+            for (final H2Stream stream : streamMap.values()) {
                 if (stream.isLocalClosed() && stream.isRemoteClosed()) {
                     stream.releaseResources();
-                    it.remove();
+                    removeStream(stream);
                 }
             }
             if (streamMap.isEmpty()) {
@@ -532,12 +584,10 @@ public final void onTimeout(final Timeout timeout) throws HttpException, IOExcep
                             "Timeout due to inactivity (" + timeout + ")");
         }
         commitFrame(goAway);
-        for (final Iterator<Map.Entry<Integer, H2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-            final Map.Entry<Integer, H2Stream> entry = it.next();
-            final H2Stream stream = entry.getValue();
+        for (final H2Stream stream : streamMap.values()) {
             stream.reset(new H2StreamResetException(H2Error.NO_ERROR, "Timeout due to inactivity (" + timeout + ")"));
         }
-        streamMap.clear();
+        clearStreams();
     }
 
     public final void onDisconnect() {
@@ -549,9 +599,7 @@ public final void onDisconnect() {
                 break;
             }
         }
-        for (final Iterator<Map.Entry<Integer, H2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-            final Map.Entry<Integer, H2Stream> entry = it.next();
-            final H2Stream stream = entry.getValue();
+        for (final H2Stream stream : streamMap.values()) {
             stream.cancel();
         }
         for (;;) {
@@ -566,6 +614,13 @@ public final void onDisconnect() {
                 break;
             }
         }
+        ioSession.getLock().lock();
+        try {
+            inputBuffer.release();
+            outputBuffer.release();
+        } finally {
+            ioSession.getLock().unlock();
+        }
     }
 
     private void processPendingCommands() throws IOException, HttpException {
@@ -577,12 +632,10 @@ private void processPendingCommands() throws IOException, HttpException {
             if (command instanceof ShutdownCommand) {
                 final ShutdownCommand shutdownCommand = (ShutdownCommand) command;
                 if (shutdownCommand.getType() == CloseMode.IMMEDIATE) {
-                    for (final Iterator<Map.Entry<Integer, H2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-                        final Map.Entry<Integer, H2Stream> entry = it.next();
-                        final H2Stream stream = entry.getValue();
+                    for (final H2Stream stream : streamMap.values()) {
                         stream.cancel();
                     }
-                    streamMap.clear();
+                    clearStreams();
                     connState = ConnectionHandshake.SHUTDOWN;
                 } else {
                     if (connState.compareTo(ConnectionHandshake.ACTIVE) <= 0) {
@@ -611,7 +664,7 @@ private void processPendingCommands() throws IOException, HttpException {
                         executableCommand, channel, httpProcessor, connMetrics);
 
                 final H2Stream stream = new H2Stream(channel, streamHandler, false);
-                streamMap.put(streamId, stream);
+                addStream(stream);
 
                 if (stream.isOutputReady()) {
                     stream.produceOutput();
@@ -656,15 +709,13 @@ public final void onException(final Exception cause) {
                     break;
                 }
             }
-            for (final Iterator<Map.Entry<Integer, H2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-                final Map.Entry<Integer, H2Stream> entry = it.next();
-                final H2Stream stream = entry.getValue();
+            for (final H2Stream stream : streamMap.values()) {
                 if (stream.isLocalClosed() && (stream.isRemoteClosed() || stream.isLocalReset())) {
                     stream.reset(cause);
                 }
                 stream.releaseResources();
             }
-            streamMap.clear();
+            clearStreams();
             if (!(cause instanceof ConnectionClosedException)) {
                 if (connState.compareTo(ConnectionHandshake.GRACEFUL_SHUTDOWN) <= 0) {
                     final H2Error errorCode;
@@ -725,7 +776,7 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                 }
 
                 if (stream.isTerminated()) {
-                    streamMap.remove(streamId);
+                    removeStream(stream);
                     stream.releaseResources();
                 }
             }
@@ -751,7 +802,7 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                     if (stream.isOutputReady()) {
                         stream.produceOutput();
                     }
-                    streamMap.put(streamId, stream);
+                    addStream(stream);
                 }
 
                 try {
@@ -767,8 +818,14 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                 }
 
                 if (stream.isTerminated()) {
-                    streamMap.remove(streamId);
+                    removeStream(stream);
                     stream.releaseResources();
+                } else {
+                    // Message headers may have unblocked stream output
+                    streamScheduler.add(stream);
+                    if (bdpEstimator != null) {
+                        tuneInputWindow(stream);
+                    }
                 }
             }
             break;
@@ -791,8 +848,14 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                 }
 
                 if (stream.isTerminated()) {
-                    streamMap.remove(streamId);
+                    removeStream(stream);
                     stream.releaseResources();
+                } else {
+                    // Message headers may have unblocked stream output
+                    streamScheduler.add(stream);
+                    if (bdpEstimator != null) {
+                        tuneInputWindow(stream);
+                    }
                 }
             }
             break;
@@ -819,6 +882,7 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                         } catch (final ArithmeticException ex) {
                             throw new H2ConnectionException(H2Error.FLOW_CONTROL_ERROR, ex.getMessage());
                         }
+                        streamScheduler.add(stream);
                     }
                 }
                 ioSession.setEvent(SelectionKey.OP_WRITE);
@@ -840,7 +904,7 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                     }
                     final int errorCode = payload.getInt();
                     stream.reset(new H2StreamResetException(errorCode, "Stream reset (" + errorCode + ")"));
-                    streamMap.remove(streamId);
+                    removeStream(stream);
                     stream.releaseResources();
                 }
             }
@@ -854,9 +918,16 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                     throw new H2ConnectionException(H2Error.FRAME_SIZE_ERROR, "Invalid PING frame payload");
                 }
                 if (frame.isFlagSet(FrameFlag.ACK)) {
-                    final AsyncPingHandler pingHandler = pingHandlers.poll();
-                    if (pingHandler != null) {
-                        pingHandler.consumeResponse(ping);
+                    if (bdpEstimator != null && bdpEstimator.isPingPending()
+                            && ping.getLong(ping.position()) == WINDOW_PROBE_DATA) {
+                        if (bdpEstimator.pingAcknowledged(System.nanoTime())) {
+                            growInputWindows(bdpEstimator.getWindowSize());
+                        }
+                    } else {
+                        final AsyncPingHandler pingHandler = pingHandlers.poll();
+                        if (pingHandler != null) {
+                            pingHandler.consumeResponse(ping);
+                        }
                     }
                 } else {
                     final ByteBuffer pong = ByteBuffer.allocate(ping.remaining());
@@ -930,7 +1001,7 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                 final H2StreamHandler streamHandler = createRemotelyInitiatedStream(
                         channel, httpProcessor, connMetrics, stream.getPushHandlerFactory());
                 final H2Stream promisedStream = new H2Stream(channel, streamHandler, true);
-                streamMap.put(promisedStreamId, promisedStream);
+                addStream(promisedStream);
 
                 try {
                     consumePushPromiseFrame(frame, payload, promisedStream);
@@ -953,24 +1024,20 @@ private void consumeFrame(final RawFrame frame) throws HttpException, IOExceptio
                 final int errorCode = payload.getInt();
                 if (errorCode == H2Error.NO_ERROR.getCode()) {
                     if (connState.compareTo(ConnectionHandshake.ACTIVE) <= 0) {
-                        for (final Iterator<Map.Entry<Integer, H2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-                            final Map.Entry<Integer, H2Stream> entry = it.next();
-                            final int activeStreamId = entry.getKey();
+                        for (final H2Stream stream : streamMap.values()) {
+                            final int activeStreamId = stream.getId();
                             if (!idGenerator.isSameSide(activeStreamId) && activeStreamId > processedLocalStreamId) {
-                                final H2Stream stream = entry.getValue();
                                 stream.cancel();
-                                it.remove();
+                                removeStream(stream);
                             }
                         }
                     }
                     connState = streamMap.isEmpty() ? ConnectionHandshake.SHUTDOWN : ConnectionHandshake.GRACEFUL_SHUTDOWN;
                 } else {
-                    for (final Iterator<Map.Entry<Integer, H2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-                        final Map.Entry<Integer, H2Stream> entry = it.next();
-                        final H2Stream stream = entry.getValue();
+                    for (final H2Stream stream : streamMap.values()) {
                         stream.reset(new H2StreamResetException(errorCode, "Connection terminated by the peer (" + errorCode + ")"));
                     }
-                    streamMap.clear();
+                    clearStreams();
                     connState = ConnectionHandshake.SHUTDOWN;
                 }
             }
@@ -985,11 +1052,24 @@ private void consumeDataFrame(final RawFrame frame, final H2Stream stream) throw
         if (payload != null) {
             final int frameLength = frame.getLength();
             final int streamWinSize = updateInputWindow(streamId, stream.getInputWindow(), -frameLength);
-            if (streamWinSize < lowMark && !stream.isRemoteClosed()) {
+            // Auto-tuned windows get replenished early enough to keep them close to their full size
+            final int tunedWindowSize = stream.getTunedWindowSize();
+            if (streamWinSize < Math.max(lowMark, tunedWindowSize - tunedWindowSize / 4) && !stream.isRemoteClosed()) {
                 stream.produceInputCapacityUpdate();
             }
             final int connWinSize = updateInputWindow(0, connInputWindow, -frameLength);
-            if (connWinSize < lowMark) {
+            if (bdpEstimator != null) {
+                if (connInputWindowSize - connWinSize > windowUpdateThreshold(connInputWindowSize)) {
+                    incrementInputCapacity(0, connInputWindow, connInputWindowSize - connWinSize);
+                }
+                if (bdpEstimator.dataReceived(frameLength)) {
+                    final ByteBuffer probe = ByteBuffer.allocate(8);
+                    probe.putLong(WINDOW_PROBE_DATA);
+                    probe.flip();
+                    commitFrame(frameFactory.createPing(probe));
+                    bdpEstimator.pingSent(System.nanoTime());
+                }
+            } else if (connWinSize < lowMark) {
                 final int chunk = Integer.MAX_VALUE - connWinSize;
                 if (chunk > 0) {
                     final RawFrame windowUpdateFrame = frameFactory.createWindowUpdate(0, chunk);
@@ -1063,6 +1143,9 @@ private void consumeHeaderFrame(final RawFrame frame, final H2Stream stream) thr
             if (frame.isFlagSet(FrameFlag.END_STREAM)) {
                 stream.setRemoteEndStream();
             }
+            if (stream.isRemoteInitiated()) {
+                stream.updatePriority(headers);
+            }
             stream.consumeHeader(headers);
         } else {
             continuation.copyPayload(payload);
@@ -1096,6 +1179,9 @@ private void consumeContinuationFrame(final RawFrame frame, final H2Stream strea
             if (continuation.type == FrameType.PUSH_PROMISE.getValue()) {
                 stream.consumePromise(headers);
             } else {
+                if (stream.isRemoteInitiated()) {
+                    stream.updatePriority(headers);
+                }
                 stream.consumeHeader(headers);
             }
             continuation = null;
@@ -1103,7 +1189,8 @@ private void consumeContinuationFrame(final RawFrame frame, final H2Stream strea
     }
 
     private void consumeSettingsFrame(final ByteBuffer payload) throws HttpException, IOException {
-        final H2Config.Builder configBuilder = H2Config.custom();
+        // Parameters not present in the frame retain their current values
+        final H2Config.Builder configBuilder = H2Config.copy(remoteConfig);
         while (payload.hasRemaining()) {
             final int code = payload.getShort();
             final H2Param param = H2Param.valueOf(code);
@@ -1134,14 +1221,15 @@ private void consumeSettingsFrame(final ByteBuffer payload) throws HttpException
                         if (delta != 0) {
                             updateOutputWindow(0, connOutputWindow, delta);
                             if (!streamMap.isEmpty()) {
-                                for (final Iterator<Map.Entry<Integer, H2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-                                    final Map.Entry<Integer, H2Stream> entry = it.next();
-                                    final H2Stream stream = entry.getValue();
+                                for (final H2Stream stream : streamMap.values()) {
                                     try {
                                         updateOutputWindow(stream.getId(), stream.getOutputWindow(), delta);
                                     } catch (final ArithmeticException ex) {
                                         throw new H2ConnectionException(H2Error.FLOW_CONTROL_ERROR, ex.getMessage());
                                     }
+                                    if (delta > 0) {
+                                        streamScheduler.add(stream);
+                                    }
                                 }
                             }
                         }
@@ -1167,21 +1255,137 @@ private void consumeSettingsFrame(final ByteBuffer payload) throws HttpException
         lowMark = remoteConfig.getInitialWindowSize() / 2;
     }
 
-    private void produceOutput() throws HttpException, IOException {
-        for (final Iterator<Map.Entry<Integer, H2Stream>> it = streamMap.entrySet().iterator(); it.hasNext(); ) {
-            final Map.Entry<Integer, H2Stream> entry = it.next();
-            final H2Stream stream = entry.getValue();
+    private void tuneInputWindow(final H2Stream stream) throws IOException {
+        if (stream.isRemoteClosed() || stream.isLocalReset()) {
+            return;
+        }
+        final int windowSize = stream.getTunedWindowSize() > 0 ? stream.getTunedWindowSize() : localConfig.getInitialWindowSize();
+        if (streamInputWindowSize > windowSize) {
+            incrementInputCapacity(stream.getId(), stream.getInputWindow(), streamInputWindowSize - windowSize);
+            stream.setTunedWindowSize(streamInputWindowSize);
+        } else {
+            stream.setTunedWindowSize(windowSize);
+        }
+    }
+
+    private void growInputWindows(final int windowSize) throws IOException {
+        final int newConnWindowSize = Math.min(windowSize, localConfig.getMaxConnectionWindowSize());
+        if (newConnWindowSize > connInputWindowSize) {
+            incrementInputCapacity(0, connInputWindow, newConnWindowSize - connInputWindowSize);
+            connInputWindowSize = newConnWindowSize;
+        }
+        final int newStreamWindowSize = Math.min(windowSize, localConfig.getMaxStreamWindowSize());
+        if (newStreamWindowSize > streamInputWindowSize) {
+            streamInputWindowSize = newStreamWindowSize;
+            for (final H2Stream stream : streamMap.values()) {
+                // Only streams the opposite endpoint has sent message headers on are eligible
+                if (stream.getTunedWindowSize() > 0) {
+                    tuneInputWindow(stream);
+                }
+            }
+        }
+    }
+
+    private void addStream(final H2Stream stream) {
+        streamMap.put(stream.getId(), stream);
+        streamScheduler.add(stream);
+    }
+
+    private void removeStream(final H2Stream stream) {
+        streamMap.remove(stream.getId());
+        streamScheduler.remove(stream);
+    }
+
+    private void clearStreams() {
+        streamMap.clear();
+        streamScheduler.clear();
+        pushedStreams.clear();
+        outputReadyChannels.clear();
+        inputCapacityChannels.clear();
+    }
+
+    private void registerPushedStreams() {
+        for (;;) {
+            final H2Stream stream = pushedStreams.poll();
+            if (stream == null) {
+                break;
+            }
+            addStream(stream);
+        }
+    }
+
+    /**
+     * Lets streams with output pending produce output.
+     *
+     * @return {@code true} if some streams are still able to produce more output.
+     */
+    private boolean produceOutput() throws HttpException, IOException {
+        registerPushedStreams();
+        for (;;) {
+            final H2StreamChannelImpl channel = outputReadyChannels.poll();
+            if (channel == null) {
+                break;
+            }
+            channel.outputScheduled.set(false);
+            final H2Stream stream = streamMap.get(channel.getId());
+            if (stream != null) {
+                streamScheduler.add(stream);
+            }
+        }
+        streamOutputPending = false;
+        final boolean exhausted = streamScheduler.produceOutput(streamOutputProducer, remoteConfig.getMaxFrameSize());
+        return exhausted || streamOutputPending;
+    }
+
+    private class StreamOutputProducer implements H2StreamScheduler.OutputProducer<H2Stream> {
+
+        @Override
+        public int produceOutput(final H2Stream stream, final int quota) throws HttpException, IOException {
+            int produced = 0;
             if (!stream.isLocalClosed() && stream.getOutputWindow().get() > 0) {
-                stream.produceOutput();
+                scheduledQuota = quota;
+                scheduledStreamId = stream.getId();
+                try {
+                    stream.produceOutput();
+                } finally {
+                    scheduledStreamId = 0;
+                }
+                produced = quota - scheduledQuota;
             }
             if (stream.isTerminated()) {
-                it.remove();
+                removeStream(stream);
                 stream.releaseResources();
+            } else if (!stream.isLocalClosed() && stream.getOutputWindow().get() > 0 && stream.isOutputReady()) {
+                streamOutputPending = true;
+            } else if (!stream.isLocalReset()) {
+                // Streams with no output to produce get taken off the schedule until
+                // they request output again or their window gets replenished.
+                // Locally reset streams stay on to get released once their linger time is over.
+                streamScheduler.remove(stream);
             }
-            if (!outputQueue.isEmpty()) {
-                break;
+            return produced;
+        }
+
+        @Override
+        public boolean hasCapacity() {
+            ioSession.getLock().lock();
+            try {
+                return outputBuffer.hasCapacity() && outputQueue.isEmpty();
+            } finally {
+                ioSession.getLock().unlock();
             }
         }
+
+    }
+
+    @Override
+    public int getActiveStreamCount() {
+        return streamMap.size();
+    }
+
+    @Override
+    public int getMaxConcurrentStreams() {
+        return remoteConfig.getMaxConcurrentStreams();
     }
 
     @Override
@@ -1290,18 +1494,41 @@ private class H2StreamChannelImpl implements H2StreamChannel {
         private volatile boolean localEndStream;
 
         private volatile long deadline;
+        private volatile H2Priority priority;
+        private volatile int tunedWindowSize;
+
+        private final AtomicBoolean outputScheduled;
+        private final AtomicInteger pendingInputCapacity;
+        private final AtomicBoolean inputCapacityScheduled;
 
         H2StreamChannelImpl(final int id, final boolean idle, final int initialInputWindowSize, final int initialOutputWindowSize) {
             this.id = id;
             this.idle = idle;
             this.inputWindow = new AtomicInteger(initialInputWindowSize);
             this.outputWindow = new AtomicInteger(initialOutputWindowSize);
+            this.priority = H2Priority.DEFAULT;
+            this.outputScheduled = new AtomicBoolean(false);
+            this.pendingInputCapacity = new AtomicInteger(0);
+            this.inputCapacityScheduled = new AtomicBoolean(false);
         }
 
         int getId() {
             return id;
         }
 
+        H2Priority getPriority() {
+            return priority;
+        }
+
+        void updatePriority(final List<? extends Header> headers) {
+            if (localConfig.isPrioritySchedulingEnabled()) {
+                final H2Priority newPriority = H2Priority.parse(headers);
+                if (newPriority != null) {
+                    priority = newPriority;
+                }
+            }
+        }
+
         AtomicInteger getOutputWindow() {
             return outputWindow;
         }
@@ -1310,6 +1537,14 @@ AtomicInteger getInputWindow() {
             return inputWindow;
         }
 
+        int getTunedWindowSize() {
+            return tunedWindowSize;
+        }
+
+        void setTunedWindowSize(final int tunedWindowSize) {
+            this.tunedWindowSize = tunedWindowSize;
+        }
+
         @Override
         public void submit(final List<Header> headers, final boolean endStream) throws IOException {
             ioSession.getLock().lock();
@@ -1320,6 +1555,9 @@ public void submit(final List<Header> headers, final boolean endStream) throws I
                 if (localEndStream) {
                     return;
                 }
+                if (idle) {
+                    updatePriority(headers);
+                }
                 idle = false;
                 commitHeaders(id, headers, endStream);
                 if (endStream) {
@@ -1328,6 +1566,13 @@ public void submit(final List<Header> headers, final boolean endStream) throws I
             } finally {
                 ioSession.getLock().unlock();
             }
+            scheduleOutput();
+        }
+
+        void scheduleOutput() {
+            if (outputScheduled.compareAndSet(false, true)) {
+                outputReadyChannels.add(this);
+            }
         }
 
         @Override
@@ -1345,7 +1590,8 @@ public void push(final List<Header> headers, final AsyncPushProducer pushProduce
             final H2StreamHandler streamHandler = new ServerPushH2StreamHandler(
                     channel, httpProcessor, connMetrics, pushProducer, context);
             final H2Stream stream = new H2Stream(channel, streamHandler, false);
-            streamMap.put(promisedStreamId, stream);
+            // The stream gets registered by the I/O dispatch thread
+            pushedStreams.add(stream);
 
             ioSession.getLock().lock();
             try {
@@ -1362,10 +1608,37 @@ public void push(final List<Header> headers, final AsyncPushProducer pushProduce
 
         @Override
         public void update(final int increment) throws IOException {
-            if (remoteEndStream) {
+            if (remoteEndStream || increment <= 0) {
                 return;
             }
-            incrementInputCapacity(id, inputWindow, increment);
+            // Small increments get held back until they add up to the window update
+            // threshold or the current I/O event is over
+            final int windowSize = tunedWindowSize;
+            final int threshold = windowUpdateThreshold(windowSize > 0 ? windowSize : localConfig.getInitialWindowSize());
+            for (;;) {
+                final int current = pendingInputCapacity.get();
+                final int capacity = (int) Math.min((long) current + increment, Integer.MAX_VALUE);
+                if (capacity >= threshold) {
+                    if (pendingInputCapacity.compareAndSet(current, 0)) {
+                        incrementInputCapacity(id, inputWindow, capacity);
+                        return;
+                    }
+                } else if (pendingInputCapacity.compareAndSet(current, capacity)) {
+                    if (inputCapacityScheduled.compareAndSet(false, true)) {
+                        inputCapacityChannels.add(this);
+                        requestSessionOutput();
+                    }
+                    return;
+                }
+            }
+        }
+
+        void flushInputCapacity() throws IOException {
+            inputCapacityScheduled.set(false);
+            final int capacity = pendingInputCapacity.getAndSet(0);
+            if (capacity > 0 && !remoteEndStream) {
+                incrementInputCapacity(id, inputWindow, capacity);
+            }
         }
 
         @Override
@@ -1375,7 +1648,11 @@ public int write(final ByteBuffer payload) throws IOException {
                 if (localEndStream) {
                     return 0;
                 }
-                return streamData(id, outputWindow, payload);
+                final int chunk = streamData(id, outputWindow, payload);
+                if (payload.hasRemaining() && id != scheduledStreamId) {
+                    scheduleOutput();
+                }
+                return chunk;
             } finally {
                 ioSession.getLock().unlock();
             }
@@ -1398,6 +1675,7 @@ public void endStream(final List<? extends Header> trailers) throws IOException
             } finally {
                 ioSession.getLock().unlock();
             }
+            scheduleOutput();
         }
 
         @Override
@@ -1407,6 +1685,7 @@ public void endStream() throws IOException {
 
         @Override
         public void requestOutput() {
+            scheduleOutput();
             requestSessionOutput();
         }
 
@@ -1443,6 +1722,7 @@ boolean localReset(final int code) throws IOException {
                 }
                 localEndStream = true;
                 deadline = System.currentTimeMillis() + LINGER_TIME;
+                scheduleOutput();
                 if (!idle) {
                     final RawFrame resetStream = frameFactory.createResetStream(id, code);
                     commitFrameInternal(resetStream);
@@ -1487,7 +1767,7 @@ public String toString() {
 
     }
 
-    private static class H2Stream {
+    private static class H2Stream extends H2StreamScheduler.Entry {
 
         private final H2StreamChannelImpl channel;
         private final H2StreamHandler handler;
@@ -1510,6 +1790,15 @@ boolean isRemoteInitiated() {
             return remoteInitiated;
         }
 
+        @Override
+        H2Priority getPriority() {
+            return channel.getPriority();
+        }
+
+        void updatePriority(final List<Header> headers) {
+            channel.updatePriority(headers);
+        }
+
         AtomicInteger getOutputWindow() {
             return channel.getOutputWindow();
         }
@@ -1518,6 +1807,14 @@ AtomicInteger getInputWindow() {
             return channel.getInputWindow();
         }
 
+        int getTunedWindowSize() {
+            return channel.getTunedWindowSize();
+        }
+
+        void setTunedWindowSize(final int tunedWindowSize) {
+            channel.setTunedWindowSize(tunedWindowSize);
+        }
+
         boolean isTerminated() {
             return channel.isLocalClosed() && (channel.isRemoteClosed() || channel.isResetDeadline());
         }
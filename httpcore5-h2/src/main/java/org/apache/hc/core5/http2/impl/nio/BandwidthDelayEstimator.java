@@ -0,0 +1,138 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http2.impl.nio;
+
+/**
+ * Estimates bandwidth-delay product of an HTTP/2 connection based on the amount of data
+ * received in the course of a PING round trip. A probe PING gets sent along with the first
+ * DATA frame received once the previous probe has been acknowledged. Whenever the data received
+ * in the course of a round trip gets close to the current estimate while the observed bandwidth
+ * is at its peak the receive window is likely to be the bottleneck and the estimate gets doubled,
+ * up to the given maximum.
+ * <p>
+ * Instances of this class are expected to be used by the I/O dispatch thread only.
+ * </p>
+ */
+final class BandwidthDelayEstimator {
+
+    private static final double RTT_ALPHA = 0.9;
+    private static final double BETA = 0.66;
+    private static final int GAMMA = 2;
+
+    private final int maxWindowSize;
+
+    private int windowSize;
+    private boolean pingPending;
+    private long pingSentTime;
+    private long sample;
+    private int sampleCount;
+    private double rtt;
+    private double maxBandwidth;
+
+    BandwidthDelayEstimator(final int initialWindowSize, final int maxWindowSize) {
+        this.windowSize = initialWindowSize;
+        this.maxWindowSize = Math.max(initialWindowSize, maxWindowSize);
+    }
+
+    /**
+     * Returns the current bandwidth-delay product estimate.
+     */
+    int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Returns smoothed round trip time in nanoseconds.
+     */
+    long getRoundTripTime() {
+        return (long) rtt;
+    }
+
+    boolean isPingPending() {
+        return pingPending;
+    }
+
+    /**
+     * Records the given amount of data received.
+     *
+     * @return {@code true} if a probe PING is to be sent.
+     */
+    boolean dataReceived(final int bytes) {
+        if (windowSize >= maxWindowSize) {
+            return false;
+        }
+        if (pingPending) {
+            sample += bytes;
+            return false;
+        }
+        pingPending = true;
+        pingSentTime = 0;
+        sample = bytes;
+        sampleCount++;
+        return true;
+    }
+
+    void pingSent(final long time) {
+        if (pingPending) {
+            pingSentTime = time;
+        }
+    }
+
+    /**
+     * Completes the current sample upon acknowledgement of the probe PING.
+     *
+     * @return {@code true} if the estimate has grown.
+     */
+    boolean pingAcknowledged(final long time) {
+        if (!pingPending) {
+            return false;
+        }
+        pingPending = false;
+        final long rttSample = Math.max(time - pingSentTime, 1L);
+        if (sampleCount < 10) {
+            rtt += (rttSample - rtt) / sampleCount;
+        } else {
+            rtt += (rttSample - rtt) * RTT_ALPHA;
+        }
+        // Data received in the course of the round trip may have been sent before the PING
+        final double bandwidth = sample / (rtt * 1.5);
+        if (bandwidth > maxBandwidth) {
+            maxBandwidth = bandwidth;
+        }
+        if (sample >= BETA * windowSize && bandwidth >= maxBandwidth && windowSize < maxWindowSize) {
+            windowSize = (int) Math.min(sample * GAMMA, maxWindowSize);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "[windowSize=" + windowSize + ", rtt=" + getRoundTripTime() + "]";
+    }
+
+}
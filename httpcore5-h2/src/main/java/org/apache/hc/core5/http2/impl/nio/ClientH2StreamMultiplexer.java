@@ -45,6 +45,7 @@
 import org.apache.hc.core5.http2.frame.FrameFactory;
 import org.apache.hc.core5.http2.frame.StreamIdGenerator;
 import org.apache.hc.core5.reactor.ProtocolIOSession;
+import org.apache.hc.core5.util.ByteBufferAllocator;
 
 /**
  * I/O event handler for events fired by {@link ProtocolIOSession} that implements
@@ -65,11 +66,24 @@ public ClientH2StreamMultiplexer(
             final HandlerFactory<AsyncPushConsumer> pushHandlerFactory,
             final H2Config h2Config,
             final CharCodingConfig charCodingConfig,
-            final H2StreamListener streamListener) {
-        super(ioSession, frameFactory, StreamIdGenerator.ODD, httpProcessor, charCodingConfig, h2Config, streamListener);
+            final H2StreamListener streamListener,
+            final ByteBufferAllocator bufferAllocator) {
+        super(ioSession, frameFactory, StreamIdGenerator.ODD, httpProcessor, charCodingConfig, h2Config, streamListener,
+                bufferAllocator);
         this.pushHandlerFactory = pushHandlerFactory;
     }
 
+    public ClientH2StreamMultiplexer(
+            final ProtocolIOSession ioSession,
+            final FrameFactory frameFactory,
+            final HttpProcessor httpProcessor,
+            final HandlerFactory<AsyncPushConsumer> pushHandlerFactory,
+            final H2Config h2Config,
+            final CharCodingConfig charCodingConfig,
+            final H2StreamListener streamListener) {
+        this(ioSession, frameFactory, httpProcessor, pushHandlerFactory, h2Config, charCodingConfig, streamListener, null);
+    }
+
     public ClientH2StreamMultiplexer(
             final ProtocolIOSession ioSession,
             final HttpProcessor httpProcessor,
@@ -0,0 +1,204 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http2.impl.nio;
+
+import java.io.IOException;
+
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Deficit round-robin {@link H2StreamScheduler}.
+ * <p>
+ * Each stream visited in a round is credited with a quantum of content bytes it may
+ * produce; streams that make progress are moved to the end of the round, streams that
+ * have nothing to send lose their credit. Streams that keep making progress are visited
+ * in consecutive rounds until the connection can accept no more output.
+ * </p>
+ * <p>
+ * With prioritization enabled streams are additionally grouped by
+ * {@link H2Priority RFC 9218 urgency}. Streams of lower urgency are served only
+ * once streams of higher urgency can make no more progress. Within the same urgency
+ * non-incremental streams are served one after another in the order they have been
+ * added ahead of incremental streams, which share the remaining output in the deficit
+ * round-robin fashion. With prioritization disabled all streams are treated as incremental
+ * streams of the default urgency.
+ * </p>
+ */
+final class DeficitRoundRobinScheduler<T extends H2StreamScheduler.Entry> implements H2StreamScheduler<T> {
+
+    private static final int QUEUE_COUNT = (H2Priority.MAX_URGENCY + 1) * 2;
+    private static final int DEFAULT_QUEUE = H2Priority.DEFAULT_URGENCY * 2 + 1;
+
+    private final boolean prioritized;
+    private final Entry[] heads;
+    private final Entry[] tails;
+    private final int[] counts;
+
+    private int size;
+
+    DeficitRoundRobinScheduler(final boolean prioritized) {
+        this.prioritized = prioritized;
+        this.heads = new Entry[QUEUE_COUNT];
+        this.tails = new Entry[QUEUE_COUNT];
+        this.counts = new int[QUEUE_COUNT];
+    }
+
+    private int queueOf(final Entry entry) {
+        if (!prioritized) {
+            return DEFAULT_QUEUE;
+        }
+        final H2Priority priority = entry.getPriority();
+        return priority.getUrgency() * 2 + (priority.isIncremental() ? 1 : 0);
+    }
+
+    private void link(final Entry entry, final int queue) {
+        entry.queue = queue;
+        entry.next = null;
+        entry.prev = tails[queue];
+        if (tails[queue] != null) {
+            tails[queue].next = entry;
+        } else {
+            heads[queue] = entry;
+        }
+        tails[queue] = entry;
+        counts[queue]++;
+    }
+
+    private void unlink(final Entry entry) {
+        final int queue = entry.queue;
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            heads[queue] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        } else {
+            tails[queue] = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.queue = -1;
+        counts[queue]--;
+    }
+
+    @Override
+    public void add(final T stream) {
+        Args.notNull(stream, "Stream");
+        if (stream.isScheduled()) {
+            return;
+        }
+        stream.deficit = 0;
+        link(stream, queueOf(stream));
+        size++;
+    }
+
+    @Override
+    public void remove(final T stream) {
+        if (stream == null || !stream.isScheduled()) {
+            return;
+        }
+        unlink(stream);
+        stream.deficit = 0;
+        size--;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < QUEUE_COUNT; i++) {
+            while (heads[i] != null) {
+                final Entry entry = heads[i];
+                unlink(entry);
+                entry.deficit = 0;
+            }
+        }
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean produceOutput(final OutputProducer<T> producer, final int quantum) throws HttpException, IOException {
+        Args.positive(quantum, "Quantum");
+        for (int queue = 0; queue < QUEUE_COUNT; queue++) {
+            final boolean incremental = (queue & 1) != 0;
+            boolean progress;
+            do {
+                progress = false;
+                int remaining = counts[queue];
+                Entry entry = heads[queue];
+                while (entry != null && remaining-- > 0) {
+                    if (!producer.hasCapacity()) {
+                        return true;
+                    }
+                    final Entry next = entry.next;
+                    final int target = queueOf(entry);
+                    if (target != queue) {
+                        // Priority has changed since the stream has been queued
+                        unlink(entry);
+                        entry.deficit = 0;
+                        link(entry, target);
+                    } else {
+                        final int quota;
+                        if (incremental) {
+                            entry.deficit += quantum;
+                            quota = entry.deficit;
+                        } else {
+                            quota = Integer.MAX_VALUE;
+                        }
+                        @SuppressWarnings("unchecked")
+                        final T stream = (T) entry;
+                        final int produced = producer.produceOutput(stream, quota);
+                        if (produced > 0) {
+                            progress = true;
+                            if (incremental) {
+                                entry.deficit = Math.max(entry.deficit - produced, 0);
+                                if (entry.queue == queue && entry.next != null) {
+                                    unlink(entry);
+                                    link(entry, queue);
+                                }
+                            }
+                        } else {
+                            entry.deficit = 0;
+                        }
+                    }
+                    if (next != null && next.queue != queue) {
+                        // The queue has been modified by the producer
+                        break;
+                    }
+                    entry = next;
+                }
+            } while (progress);
+        }
+        return false;
+    }
+
+}
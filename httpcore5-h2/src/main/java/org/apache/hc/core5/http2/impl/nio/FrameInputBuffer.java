@@ -40,6 +40,8 @@
 import org.apache.hc.core5.http2.frame.RawFrame;
 import org.apache.hc.core5.http2.impl.BasicH2TransportMetrics;
 import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteBufferAllocator;
+import org.apache.hc.core5.util.HeapByteBufferAllocator;
 
 /**
  * Frame input buffer for HTTP/2 non-blocking connections.
@@ -52,35 +54,63 @@ enum State { HEAD_EXPECTED, PAYLOAD_EXPECTED }
 
     private final BasicH2TransportMetrics metrics;
     private final int maxFramePayloadSize;
-    private final byte[] bytes;
-    private final ByteBuffer buffer;
+    private final int bufferLen;
+    private final ByteBufferAllocator allocator;
 
+    private ByteBuffer buffer;
     private State state;
     private int payloadLen;
     private int type;
     private int flags;
     private int streamId;
 
-    FrameInputBuffer(final BasicH2TransportMetrics metrics, final int bufferLen, final int maxFramePayloadSize) {
+    FrameInputBuffer(
+            final BasicH2TransportMetrics metrics,
+            final int bufferLen,
+            final int maxFramePayloadSize,
+            final ByteBufferAllocator allocator) {
         Args.notNull(metrics, "HTTP2 transport metrcis");
         Args.positive(maxFramePayloadSize, "Maximum payload size");
         this.metrics = metrics;
         this.maxFramePayloadSize = maxFramePayloadSize;
-        this.bytes = new byte[bufferLen];
-        this.buffer = ByteBuffer.wrap(bytes);
-        this.buffer.flip();
+        this.bufferLen = bufferLen;
+        this.allocator = allocator != null ? allocator : HeapByteBufferAllocator.INSTANCE;
+        this.buffer = allocateBuffer();
         this.state = State.HEAD_EXPECTED;
     }
 
+    FrameInputBuffer(final BasicH2TransportMetrics metrics, final int bufferLen, final int maxFramePayloadSize) {
+        this(metrics, bufferLen, maxFramePayloadSize, null);
+    }
+
+    /**
+     * @since 5.0
+     */
+    public FrameInputBuffer(
+            final BasicH2TransportMetrics metrics,
+            final int maxFramePayloadSize,
+            final ByteBufferAllocator allocator) {
+        this(metrics, FrameConsts.HEAD_LEN + maxFramePayloadSize, maxFramePayloadSize, allocator);
+    }
+
     public FrameInputBuffer(final BasicH2TransportMetrics metrics, final int maxFramePayloadSize) {
-        this(metrics, FrameConsts.HEAD_LEN + maxFramePayloadSize, maxFramePayloadSize);
+        this(metrics, maxFramePayloadSize, null);
     }
 
     public FrameInputBuffer(final int maxFramePayloadSize) {
         this(new BasicH2TransportMetrics(), maxFramePayloadSize);
     }
 
+    private ByteBuffer allocateBuffer() {
+        final ByteBuffer newBuffer = allocator.allocate(bufferLen);
+        newBuffer.flip();
+        return newBuffer;
+    }
+
     public void put(final ByteBuffer src) {
+        if (buffer == null) {
+            buffer = allocateBuffer();
+        }
         if (buffer.hasRemaining()) {
             buffer.compact();
         } else {
@@ -91,6 +121,9 @@ public void put(final ByteBuffer src) {
     }
 
     public RawFrame read(final ReadableByteChannel channel) throws IOException {
+        if (buffer == null) {
+            buffer = allocateBuffer();
+        }
         for (;;) {
             switch (state) {
                 case HEAD_EXPECTED:
@@ -120,7 +153,13 @@ public RawFrame read(final ReadableByteChannel channel) throws IOException {
                             }
                             buffer.reset();
                         }
-                        final ByteBuffer payload = payloadLen > 0 ? ByteBuffer.wrap(bytes, buffer.position(), payloadLen) : null;
+                        final ByteBuffer payload;
+                        if (payloadLen > 0) {
+                            payload = buffer.duplicate();
+                            payload.limit(buffer.position() + payloadLen);
+                        } else {
+                            payload = null;
+                        }
                         buffer.position(buffer.position() + payloadLen);
                         state = State.HEAD_EXPECTED;
                         metrics.incrementFramesTransferred();
@@ -151,7 +190,24 @@ public RawFrame read(final ReadableByteChannel channel) throws IOException {
     }
 
     public void reset() {
-        buffer.compact();
+        if (buffer != null) {
+            buffer.compact();
+        }
+        state = State.HEAD_EXPECTED;
+    }
+
+    /**
+     * Returns the underlying buffer back to the allocator discarding its content.
+     * A new buffer gets allocated on demand.
+     *
+     * @since 5.0
+     */
+    public void release() {
+        if (buffer != null) {
+            final ByteBuffer oldBuffer = buffer;
+            buffer = null;
+            allocator.release(oldBuffer);
+        }
         state = State.HEAD_EXPECTED;
     }
 
@@ -38,9 +38,17 @@
 import org.apache.hc.core5.http2.frame.RawFrame;
 import org.apache.hc.core5.http2.impl.BasicH2TransportMetrics;
 import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteBufferAllocator;
+import org.apache.hc.core5.util.HeapByteBufferAllocator;
 
 /**
  * Frame output buffer for HTTP/2 non-blocking connections.
+ * <p>
+ * Frames are normally written out as soon as they get committed. In the corked
+ * mode small frames are appended to the buffer instead and written out together
+ * once the cork byte or frame threshold has been reached, a frame too large to be
+ * held back has been committed or the buffer has been explicitly uncorked.
+ * </p>
  *
  * @since 5.0
  */
@@ -48,14 +56,52 @@ public final class FrameOutputBuffer {
 
     private final BasicH2TransportMetrics metrics;
     private final int maxFramePayloadSize;
-    private final ByteBuffer buffer;
-
-    public FrameOutputBuffer(final BasicH2TransportMetrics metrics, final int maxFramePayloadSize) {
+    private final ByteBufferAllocator allocator;
+    private final int corkThreshold;
+    private final int corkMaxFrames;
+    private final int bufferSize;
+
+    private ByteBuffer buffer;
+    private boolean corked;
+    private int corkedFrames;
+
+    /**
+     * @param corkThreshold maximum number of bytes held back in the corked mode.
+     *                      Zero disables corking.
+     * @param corkMaxFrames maximum number of frames held back in the corked mode.
+     *
+     * @since 5.0
+     */
+    public FrameOutputBuffer(
+            final BasicH2TransportMetrics metrics,
+            final int maxFramePayloadSize,
+            final ByteBufferAllocator allocator,
+            final int corkThreshold,
+            final int corkMaxFrames) {
         Args.notNull(metrics, "HTTP2 transport metrcis");
         Args.positive(maxFramePayloadSize, "Maximum payload size");
+        Args.notNegative(corkThreshold, "Cork threshold");
         this.metrics = metrics;
         this.maxFramePayloadSize = maxFramePayloadSize;
-        this.buffer = ByteBuffer.allocate(FrameConsts.HEAD_LEN + maxFramePayloadSize);
+        this.allocator = allocator != null ? allocator : HeapByteBufferAllocator.INSTANCE;
+        this.corkThreshold = corkThreshold;
+        this.corkMaxFrames = corkMaxFrames > 0 ? corkMaxFrames : Integer.MAX_VALUE;
+        this.bufferSize = FrameConsts.HEAD_LEN + maxFramePayloadSize + corkThreshold;
+        this.buffer = this.allocator.allocate(this.bufferSize);
+    }
+
+    /**
+     * @since 5.0
+     */
+    public FrameOutputBuffer(
+            final BasicH2TransportMetrics metrics,
+            final int maxFramePayloadSize,
+            final ByteBufferAllocator allocator) {
+        this(metrics, maxFramePayloadSize, allocator, 0, 0);
+    }
+
+    public FrameOutputBuffer(final BasicH2TransportMetrics metrics, final int maxFramePayloadSize) {
+        this(metrics, maxFramePayloadSize, null);
     }
 
     public FrameOutputBuffer(final int maxFramePayloadSize) {
@@ -69,16 +115,38 @@ public void write(final RawFrame frame, final WritableByteChannel channel) throw
         if (payload != null && payload.remaining() > maxFramePayloadSize) {
             throw new H2ConnectionException(H2Error.FRAME_SIZE_ERROR, "Frame size exceeds maximum");
         }
+        if (buffer == null) {
+            buffer = allocator.allocate(bufferSize);
+        }
 
-        buffer.putInt((payload != null ? payload.remaining() << 8 : 0) | (frame.getType() & 0xff));
-        buffer.put((byte) (frame.getFlags() & 0xff));
-        buffer.putInt(frame.getStreamId());
+        final int payloadLen = payload != null ? payload.remaining() : 0;
+        if (corked && buffer.position() + FrameConsts.HEAD_LEN + payloadLen <= corkThreshold) {
+            // Payload content gets copied as the caller is free to re-use the payload buffer
+            putHeader(frame, payloadLen);
+            if (payload != null) {
+                buffer.put(payload);
+            }
+            metrics.incrementFramesTransferred();
+            corkedFrames++;
+            if (corkedFrames >= corkMaxFrames) {
+                flush(channel);
+            }
+            return;
+        }
+
+        putHeader(frame, payloadLen);
 
         if (payload != null) {
             if (channel instanceof GatheringByteChannel) {
                 buffer.flip();
-                ((GatheringByteChannel) channel).write(new ByteBuffer[]{buffer, payload});
-                buffer.compact();
+                try {
+                    final long bytesWritten = ((GatheringByteChannel) channel).write(new ByteBuffer[]{buffer, payload});
+                    if (bytesWritten > 0) {
+                        metrics.incrementBytesTransferred(bytesWritten);
+                    }
+                } finally {
+                    buffer.compact();
+                }
                 if (payload.hasRemaining()) {
                     buffer.put(payload);
                 }
@@ -92,8 +160,56 @@ public void write(final RawFrame frame, final WritableByteChannel channel) throw
         metrics.incrementFramesTransferred();
     }
 
+    private void putHeader(final RawFrame frame, final int payloadLen) {
+        buffer.putInt((payloadLen << 8) | (frame.getType() & 0xff));
+        buffer.put((byte) (frame.getFlags() & 0xff));
+        buffer.putInt(frame.getStreamId());
+    }
+
+    /**
+     * Switches the buffer into the corked mode. Has no effect if the buffer
+     * has been created with zero cork threshold.
+     *
+     * @since 5.0
+     */
+    public void cork() {
+        if (corkThreshold > 0) {
+            corked = true;
+        }
+    }
+
+    /**
+     * Switches the buffer out of the corked mode and writes out frames held back
+     * so far.
+     *
+     * @since 5.0
+     */
+    public void uncork(final WritableByteChannel channel) throws IOException {
+        corked = false;
+        flush(channel);
+    }
+
+    /**
+     * @since 5.0
+     */
+    public boolean isCorked() {
+        return corked;
+    }
+
+    /**
+     * Determines whether or not another frame can be written to the buffer. This is
+     * the case when the buffer is empty or, in the corked mode, when the content
+     * held back so far is below the cork threshold.
+     *
+     * @since 5.0
+     */
+    public boolean hasCapacity() {
+        return buffer == null || buffer.position() == 0 || (corked && buffer.position() < corkThreshold);
+    }
+
     public void flush(final WritableByteChannel channel) throws IOException {
-        if (buffer.position() > 0) {
+        corkedFrames = 0;
+        if (buffer != null && buffer.position() > 0) {
             buffer.flip();
             try {
                 final int bytesWritten = channel.write(buffer);
@@ -107,7 +223,22 @@ public void flush(final WritableByteChannel channel) throws IOException {
     }
 
     public boolean isEmpty() {
-        return buffer.position() == 0;
+        return buffer == null || buffer.position() == 0;
+    }
+
+    /**
+     * Returns the underlying buffer back to the allocator discarding its content.
+     * A new buffer gets allocated on demand.
+     *
+     * @since 5.0
+     */
+    public void release() {
+        if (buffer != null) {
+            final ByteBuffer oldBuffer = buffer;
+            buffer = null;
+            corkedFrames = 0;
+            allocator.release(oldBuffer);
+        }
     }
 
     public H2TransportMetrics getMetrics() {
@@ -0,0 +1,164 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http2.impl.nio;
+
+import java.util.List;
+
+import org.apache.hc.core5.http.Header;
+
+/**
+ * Extensible prioritization scheme parameters as defined by RFC 9218: stream urgency
+ * ({@code u}) and incremental delivery ({@code i}) carried by the {@code priority}
+ * message header.
+ */
+final class H2Priority {
+
+    static final String HEADER = "priority";
+
+    static final int MAX_URGENCY = 7;
+    static final int DEFAULT_URGENCY = 3;
+
+    static final H2Priority DEFAULT = new H2Priority(DEFAULT_URGENCY, false);
+
+    private final int urgency;
+    private final boolean incremental;
+
+    H2Priority(final int urgency, final boolean incremental) {
+        this.urgency = urgency;
+        this.incremental = incremental;
+    }
+
+    int getUrgency() {
+        return urgency;
+    }
+
+    boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Parses priority parameters from all {@code priority} headers in the list.
+     * Returns {@code null} if no such header is present.
+     */
+    static H2Priority parse(final List<? extends Header> headers) {
+        if (headers == null) {
+            return null;
+        }
+        H2Priority priority = null;
+        for (int i = 0; i < headers.size(); i++) {
+            final Header header = headers.get(i);
+            if (HEADER.equalsIgnoreCase(header.getName())) {
+                priority = parse(header.getValue(), priority != null ? priority : DEFAULT);
+            }
+        }
+        return priority;
+    }
+
+    /**
+     * Parses a structured field dictionary. Unknown members and members with invalid
+     * values are ignored, in which case values from the given defaults apply.
+     */
+    static H2Priority parse(final CharSequence value, final H2Priority defaults) {
+        int urgency = defaults.urgency;
+        boolean incremental = defaults.incremental;
+        if (value == null) {
+            return defaults;
+        }
+        final int len = value.length();
+        int pos = 0;
+        while (pos < len) {
+            int end = pos;
+            while (end < len && value.charAt(end) != ',') {
+                end++;
+            }
+            int keyStart = pos;
+            int memberEnd = end;
+            while (keyStart < memberEnd && isWhitespace(value.charAt(keyStart))) {
+                keyStart++;
+            }
+            while (memberEnd > keyStart && isWhitespace(value.charAt(memberEnd - 1))) {
+                memberEnd--;
+            }
+            // Member parameters are of no interest
+            for (int i = keyStart; i < memberEnd; i++) {
+                if (value.charAt(i) == ';') {
+                    memberEnd = i;
+                    break;
+                }
+            }
+            int keyEnd = keyStart;
+            while (keyEnd < memberEnd && value.charAt(keyEnd) != '=') {
+                keyEnd++;
+            }
+            if (keyEnd - keyStart == 1) {
+                final char key = value.charAt(keyStart);
+                if (key == 'u') {
+                    if (keyEnd < memberEnd) {
+                        final int u = parseUrgency(value, keyEnd + 1, memberEnd);
+                        if (u >= 0) {
+                            urgency = u;
+                        }
+                    }
+                } else if (key == 'i') {
+                    if (keyEnd == memberEnd) {
+                        incremental = true;
+                    } else if (memberEnd - keyEnd == 3 && value.charAt(keyEnd + 1) == '?') {
+                        final char ch = value.charAt(keyEnd + 2);
+                        if (ch == '1') {
+                            incremental = true;
+                        } else if (ch == '0') {
+                            incremental = false;
+                        }
+                    }
+                }
+            }
+            pos = end + 1;
+        }
+        if (urgency == defaults.urgency && incremental == defaults.incremental) {
+            return defaults;
+        }
+        return new H2Priority(urgency, incremental);
+    }
+
+    private static int parseUrgency(final CharSequence value, final int from, final int to) {
+        if (to - from != 1) {
+            return -1;
+        }
+        final int u = value.charAt(from) - '0';
+        return u >= 0 && u <= MAX_URGENCY ? u : -1;
+    }
+
+    private static boolean isWhitespace(final char ch) {
+        return ch == ' ' || ch == '\t';
+    }
+
+    @Override
+    public String toString() {
+        return "u=" + urgency + (incremental ? ", i" : "");
+    }
+
+}
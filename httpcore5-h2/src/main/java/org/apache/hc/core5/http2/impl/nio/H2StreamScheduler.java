@@ -0,0 +1,108 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http2.impl.nio;
+
+import java.io.IOException;
+
+import org.apache.hc.core5.http.HttpException;
+
+/**
+ * Determines the order in which HTTP/2 streams sharing a connection get an opportunity
+ * to produce output. Stream schedulers are expected to be used by the I/O dispatch thread
+ * only. Stream priority however may change at any point and from any thread; schedulers
+ * are expected to pick up the change when the stream gets visited.
+ * <p>
+ * This is not a public extension point. Stream multiplexers always use
+ * {@link DeficitRoundRobinScheduler}; the only scheduling policy that can be selected
+ * is whether or not RFC 9218 priorities are taken into account
+ * (see {@link org.apache.hc.core5.http2.config.H2Config#isPrioritySchedulingEnabled()}).
+ * </p>
+ *
+ * @param <T> stream type.
+ */
+interface H2StreamScheduler<T extends H2StreamScheduler.Entry> {
+
+    /**
+     * Scheduling state of a stream.
+     */
+    abstract class Entry {
+
+        // Internal state of the scheduler
+        int queue = -1;
+        int deficit;
+        Entry prev;
+        Entry next;
+
+        abstract H2Priority getPriority();
+
+        boolean isScheduled() {
+            return queue >= 0;
+        }
+
+    }
+
+    /**
+     * Stream output producer driven by the scheduler.
+     */
+    interface OutputProducer<T> {
+
+        /**
+         * Gives the stream an opportunity to produce up to {@code quota} bytes
+         * of content.
+         *
+         * @return the number of content bytes produced by the stream.
+         */
+        int produceOutput(T stream, int quota) throws HttpException, IOException;
+
+        /**
+         * Determines whether or not the connection can accept more output
+         * in the current pass.
+         */
+        boolean hasCapacity();
+
+    }
+
+    void add(T stream);
+
+    void remove(T stream);
+
+    void clear();
+
+    int size();
+
+    /**
+     * Makes one output pass over streams in scheduling order. The producer may remove
+     * the stream it has been given from the scheduler.
+     *
+     * @param producer the stream output producer.
+     * @param quantum the number of content bytes a stream is entitled to produce per round.
+     * @return {@code true} if the pass has been cut short because the connection could
+     *  accept no more output, {@code false} otherwise.
+     */
+    boolean produceOutput(OutputProducer<T> producer, int quantum) throws HttpException, IOException;
+
+}
@@ -0,0 +1,202 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http2.impl.nio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Open-addressed hash table of HTTP/2 streams keyed by stream id. Stream ids are used as
+ * keys as is without boxing. Linear probing with backward shift deletion keeps lookups short
+ * without the need for tombstones.
+ * <p>
+ * The table is expected to be modified by the I/O dispatch thread only. {@link #size()} may
+ * be called by any thread.
+ * </p>
+ *
+ * @param <T> stream type.
+ */
+final class H2StreamTable<T> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private volatile int size;
+
+    H2StreamTable() {
+        this.keys = new int[MIN_CAPACITY];
+        this.values = new Object[MIN_CAPACITY];
+        this.mask = MIN_CAPACITY - 1;
+    }
+
+    private static int hash(final int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int indexOf(final int key) {
+        int i = hash(key) & mask;
+        for (;;) {
+            final int k = keys[i];
+            if (k == key) {
+                return i;
+            }
+            if (k == 0) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(final int streamId) {
+        if (streamId <= 0) {
+            return null;
+        }
+        final int i = indexOf(streamId);
+        return i >= 0 ? (T) values[i] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    T put(final int streamId, final T stream) {
+        Args.positive(streamId, "Stream id");
+        Args.notNull(stream, "Stream");
+        int i = hash(streamId) & mask;
+        for (;;) {
+            final int k = keys[i];
+            if (k == streamId) {
+                final T previous = (T) values[i];
+                values[i] = stream;
+                return previous;
+            }
+            if (k == 0) {
+                break;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = streamId;
+        values[i] = stream;
+        final int newSize = size + 1;
+        size = newSize;
+        if (newSize * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    T remove(final int streamId) {
+        if (streamId <= 0) {
+            return null;
+        }
+        int i = indexOf(streamId);
+        if (i < 0) {
+            return null;
+        }
+        final T previous = (T) values[i];
+        // Shift back subsequent entries of the probe sequence
+        int j = i;
+        for (;;) {
+            j = (j + 1) & mask;
+            final int k = keys[j];
+            if (k == 0) {
+                break;
+            }
+            final int home = hash(k) & mask;
+            // Move the entry unless its home slot lies cyclically in (i, j]
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = k;
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = 0;
+        values[i] = null;
+        size = size - 1;
+        return previous;
+    }
+
+    private void resize(final int capacity) {
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        for (int n = 0; n < oldKeys.length; n++) {
+            final int k = oldKeys[n];
+            if (k != 0) {
+                int i = hash(k) & mask;
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = k;
+                values[i] = oldValues[n];
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        if (keys.length > MIN_CAPACITY) {
+            keys = new int[MIN_CAPACITY];
+            values = new Object[MIN_CAPACITY];
+            mask = MIN_CAPACITY - 1;
+        } else {
+            Arrays.fill(keys, 0);
+            Arrays.fill(values, null);
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns a snapshot of streams in the table. The table may be modified while
+     * iterating over the snapshot.
+     */
+    @SuppressWarnings("unchecked")
+    List<T> values() {
+        final List<T> list = new ArrayList<>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                list.add((T) values[i]);
+            }
+        }
+        return list;
+    }
+
+}
@@ -45,6 +45,7 @@
 import org.apache.hc.core5.http2.frame.StreamIdGenerator;
 import org.apache.hc.core5.reactor.ProtocolIOSession;
 import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteBufferAllocator;
 
 /**
  * I/O event handler for events fired by {@link ProtocolIOSession} that implements
@@ -65,11 +66,25 @@ public ServerH2StreamMultiplexer(
             final HandlerFactory<AsyncServerExchangeHandler> exchangeHandlerFactory,
             final CharCodingConfig charCodingConfig,
             final H2Config h2Config,
-            final H2StreamListener streamListener) {
-        super(ioSession, frameFactory, StreamIdGenerator.EVEN, httpProcessor, charCodingConfig, h2Config, streamListener);
+            final H2StreamListener streamListener,
+            final ByteBufferAllocator bufferAllocator) {
+        super(ioSession, frameFactory, StreamIdGenerator.EVEN, httpProcessor, charCodingConfig, h2Config, streamListener,
+                bufferAllocator);
         this.exchangeHandlerFactory = Args.notNull(exchangeHandlerFactory, "Handler factory");
     }
 
+    public ServerH2StreamMultiplexer(
+            final ProtocolIOSession ioSession,
+            final FrameFactory frameFactory,
+            final HttpProcessor httpProcessor,
+            final HandlerFactory<AsyncServerExchangeHandler> exchangeHandlerFactory,
+            final CharCodingConfig charCodingConfig,
+            final H2Config h2Config,
+            final H2StreamListener streamListener) {
+        this(ioSession, frameFactory, httpProcessor, exchangeHandlerFactory, charCodingConfig, h2Config,
+                streamListener, null);
+    }
+
     public ServerH2StreamMultiplexer(
             final ProtocolIOSession ioSession,
             final HttpProcessor httpProcessor,
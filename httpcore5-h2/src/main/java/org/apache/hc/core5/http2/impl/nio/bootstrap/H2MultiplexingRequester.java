@@ -67,6 +67,7 @@
 import org.apache.hc.core5.http.protocol.HttpCoreContext;
 import org.apache.hc.core5.http2.nio.pool.H2ConnPool;
 import org.apache.hc.core5.net.URIAuthority;
+import org.apache.hc.core5.reactor.AbstractIOSessionPool;
 import org.apache.hc.core5.reactor.Command;
 import org.apache.hc.core5.reactor.IOEventHandlerFactory;
 import org.apache.hc.core5.reactor.IOReactorConfig;
@@ -119,6 +120,17 @@ public void setValidateAfterInactivity(final TimeValue timeValue) {
         connPool.setValidateAfterInactivity(timeValue);
     }
 
+    /**
+     * @see H2ConnPool#getMaxSessionsPerRoute()
+     */
+    public int getMaxSessionsPerRoute() {
+        return connPool.getMaxSessionsPerRoute();
+    }
+
+    public void setMaxSessionsPerRoute(final int max) {
+        connPool.setMaxSessionsPerRoute(max);
+    }
+
     public Cancellable execute(
             final AsyncClientExchangeHandler exchangeHandler,
             final HandlerFactory<AsyncPushConsumer> pushHandlerFactory,
@@ -161,14 +173,16 @@ public void sendRequest(
                         throw new ProtocolException("Request authority not specified");
                     }
                     final HttpHost target = new HttpHost(scheme, authority);
-                    connPool.getSession(target, timeout, new FutureCallback<IOSession>() {
+                    connPool.leaseSession(target, timeout, new FutureCallback<AbstractIOSessionPool.SessionLease>() {
 
                         @Override
-                        public void completed(final IOSession ioSession) {
+                        public void completed(final AbstractIOSessionPool.SessionLease lease) {
+                            final IOSession ioSession = lease.getSession();
                             ioSession.enqueue(new RequestExecutionCommand(new AsyncClientExchangeHandler() {
 
                                 @Override
                                 public void releaseResources() {
+                                    lease.release();
                                     exchangeHandler.releaseResources();
                                 }
 
@@ -72,6 +72,7 @@ public class H2MultiplexingRequesterBootstrap {
     private Callback<Exception> exceptionCallback;
     private IOSessionListener sessionListener;
     private H2StreamListener streamListener;
+    private int maxSessionsPerRoute;
 
     private H2MultiplexingRequesterBootstrap() {
         this.pushConsumerList = new ArrayList<>();
@@ -158,6 +159,16 @@ public final H2MultiplexingRequesterBootstrap setStreamListener(final H2StreamLi
         return this;
     }
 
+    /**
+     * Sets the maximum number of connections per host. Additional connections
+     * are opened when the concurrent streams of existing ones approach the limit
+     * set by the opposite endpoint.
+     */
+    public final H2MultiplexingRequesterBootstrap setMaxSessionsPerRoute(final int maxSessionsPerRoute) {
+        this.maxSessionsPerRoute = maxSessionsPerRoute;
+        return this;
+    }
+
     /**
      * Assigns {@link UriPatternType} for handler registration.
      */
@@ -206,8 +217,9 @@ public H2MultiplexingRequester create() {
                 new DefaultAsyncPushConsumerFactory(registry),
                 h2Config != null ? h2Config : H2Config.DEFAULT,
                 charCodingConfig != null ? charCodingConfig : CharCodingConfig.DEFAULT,
-                streamListener);
-        return new H2MultiplexingRequester(
+                streamListener,
+                ioReactorConfig != null ? ioReactorConfig.getBufferAllocator() : null);
+        final H2MultiplexingRequester requester = new H2MultiplexingRequester(
                 ioReactorConfig,
                 new IOEventHandlerFactory() {
 
@@ -222,6 +234,10 @@ public IOEventHandler createHandler(final ProtocolIOSession ioSession, final Obj
                 sessionListener,
                 DefaultAddressResolver.INSTANCE,
                 tlsStrategy != null ? tlsStrategy : new H2ClientTlsStrategy());
+        if (maxSessionsPerRoute > 0) {
+            requester.setMaxSessionsPerRoute(maxSessionsPerRoute);
+        }
+        return requester;
     }
 
 }
@@ -58,6 +58,7 @@
 import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
 import org.apache.hc.core5.pool.PoolReusePolicy;
 import org.apache.hc.core5.pool.StrictConnPool;
+import org.apache.hc.core5.pool.StripedConnPool;
 import org.apache.hc.core5.reactor.IOEventHandlerFactory;
 import org.apache.hc.core5.reactor.IOReactorConfig;
 import org.apache.hc.core5.reactor.IOSession;
@@ -289,6 +290,15 @@ public H2AsyncRequester create() {
             case LAX:
                 connPool = new LaxConnPool<>(
                         defaultMaxPerRoute > 0 ? defaultMaxPerRoute : 20,
+                        maxTotal > 0 ? maxTotal : 0,
+                        timeToLive,
+                        poolReusePolicy,
+                        connPoolListener);
+                break;
+            case STRIPED:
+                connPool = new StripedConnPool<>(
+                        defaultMaxPerRoute > 0 ? defaultMaxPerRoute : 20,
+                        maxTotal > 0 ? maxTotal : 50,
                         timeToLive,
                         poolReusePolicy,
                         connPoolListener);
@@ -311,13 +321,20 @@ public H2AsyncRequester create() {
                 httpProcessor != null ? httpProcessor : HttpProcessors.client(),
                 http1Config != null ? http1Config : Http1Config.DEFAULT,
                 charCodingConfig != null ? charCodingConfig : CharCodingConfig.DEFAULT,
-                http1StreamListener);
+                null,
+                null,
+                null,
+                null,
+                null,
+                http1StreamListener,
+                ioReactorConfig != null ? ioReactorConfig.getBufferAllocator() : null);
         final ClientH2StreamMultiplexerFactory http2StreamHandlerFactory = new ClientH2StreamMultiplexerFactory(
                 httpProcessor != null ? httpProcessor : H2Processors.client(),
                 new DefaultAsyncPushConsumerFactory(registry),
                 h2Config != null ? h2Config : H2Config.DEFAULT,
                 charCodingConfig != null ? charCodingConfig : CharCodingConfig.DEFAULT,
-                streamListener);
+                streamListener,
+                ioReactorConfig != null ? ioReactorConfig.getBufferAllocator() : null);
         final IOEventHandlerFactory ioEventHandlerFactory = new ClientHttpProtocolNegotiatorFactory(
                 http1StreamHandlerFactory,
                 http2StreamHandlerFactory,
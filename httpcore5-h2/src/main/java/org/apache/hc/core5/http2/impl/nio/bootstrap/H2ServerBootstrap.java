@@ -424,7 +424,8 @@ public AsyncServerExchangeHandler decorate(final AsyncServerExchangeHandler hand
                 handlerFactory,
                 h2Config != null ? h2Config : H2Config.DEFAULT,
                 charCodingConfig != null ? charCodingConfig : CharCodingConfig.DEFAULT,
-                h2StreamListener);
+                h2StreamListener,
+                ioReactorConfig != null ? ioReactorConfig.getBufferAllocator() : null);
         final ServerHttp1StreamDuplexerFactory http1StreamHandlerFactory = new ServerHttp1StreamDuplexerFactory(
                 httpProcessor != null ? httpProcessor : HttpProcessors.server(),
                 handlerFactory,
@@ -435,7 +436,8 @@ public AsyncServerExchangeHandler decorate(final AsyncServerExchangeHandler hand
                 DefaultHttpResponseWriterFactory.INSTANCE,
                 DefaultContentLengthStrategy.INSTANCE,
                 DefaultContentLengthStrategy.INSTANCE,
-                http1StreamListener);
+                http1StreamListener,
+                ioReactorConfig != null ? ioReactorConfig.getBufferAllocator() : null);
         final IOEventHandlerFactory ioEventHandlerFactory = new ServerHttpProtocolNegotiatorFactory(
                 http1StreamHandlerFactory,
                 http2StreamHandlerFactory,
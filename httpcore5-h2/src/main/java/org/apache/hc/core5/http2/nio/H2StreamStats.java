@@ -24,13 +24,25 @@
  * <http://www.apache.org/>.
  *
  */
+package org.apache.hc.core5.http2.nio;
 
-package org.apache.hc.core5.http2.hpack;
-
-interface HPackEntry {
+/**
+ * Statistics of message streams multiplexed over an HTTP/2 connection.
+ *
+ * @since 5.0
+ */
+public interface H2StreamStats {
 
-    int getIndex();
+    /**
+     * Returns the number of currently open streams.
+     */
+    int getActiveStreamCount();
 
-    HPackHeader getHeader();
+    /**
+     * Returns the maximum number of concurrent streams the opposite endpoint
+     * allows this endpoint to open as declared by its
+     * {@code SETTINGS_MAX_CONCURRENT_STREAMS} setting.
+     */
+    int getMaxConcurrentStreams();
 
 }
@@ -39,13 +39,16 @@
 import org.apache.hc.core5.http.impl.DefaultAddressResolver;
 import org.apache.hc.core5.http.nio.command.ShutdownCommand;
 import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http2.nio.H2StreamStats;
 import org.apache.hc.core5.http2.nio.command.PingCommand;
 import org.apache.hc.core5.http2.nio.support.BasicPingHandler;
 import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.reactor.AbstractIOSessionPool;
 import org.apache.hc.core5.reactor.Command;
 import org.apache.hc.core5.reactor.ConnectionInitiator;
+import org.apache.hc.core5.reactor.IOEventHandler;
 import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.reactor.ProtocolLayer;
 import org.apache.hc.core5.reactor.ssl.TransportSecurityLayer;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.TimeValue;
@@ -64,6 +67,7 @@ public final class H2ConnPool extends AbstractIOSessionPool<HttpHost> {
     private final TlsStrategy tlsStrategy;
 
     private volatile TimeValue validateAfterInactivity;
+    private volatile int maxSessionsPerRoute;
 
     public H2ConnPool(
             final ConnectionInitiator connectionInitiator,
@@ -73,6 +77,7 @@ public H2ConnPool(
         this.connectionInitiator = Args.notNull(connectionInitiator, "Connection initiator");
         this.addressResolver = addressResolver != null ? addressResolver : DefaultAddressResolver.INSTANCE;
         this.tlsStrategy = tlsStrategy;
+        this.maxSessionsPerRoute = 1;
     }
 
     public TimeValue getValidateAfterInactivity() {
@@ -83,6 +88,42 @@ public void setValidateAfterInactivity(final TimeValue timeValue) {
         this.validateAfterInactivity = timeValue;
     }
 
+    /**
+     * Returns the maximum number of connections that may be opened to the same host.
+     * Additional connections are opened only when the number of concurrent requests
+     * approaches the stream limit of all existing connections to that host.
+     * <p>
+     * Default: {@code 1}
+     * </p>
+     */
+    public int getMaxSessionsPerRoute() {
+        return maxSessionsPerRoute;
+    }
+
+    public void setMaxSessionsPerRoute(final int max) {
+        this.maxSessionsPerRoute = Args.positive(max, "Max sessions per route");
+    }
+
+    @Override
+    protected int getMaxSessionsPerEndpoint() {
+        return maxSessionsPerRoute;
+    }
+
+    @Override
+    protected boolean isSessionSaturated(final IOSession ioSession, final int leaseCount) {
+        if (ioSession instanceof ProtocolLayer) {
+            final IOEventHandler handler = ((ProtocolLayer) ioSession).getHandler();
+            if (handler instanceof H2StreamStats) {
+                final H2StreamStats streamStats = (H2StreamStats) handler;
+                final int maxStreams = streamStats.getMaxConcurrentStreams();
+                final int load = Math.max(leaseCount, streamStats.getActiveStreamCount());
+                // Consider the connection saturated once 90% of the streams are in use
+                return load >= maxStreams - maxStreams / 10;
+            }
+        }
+        return false;
+    }
+
     @Override
     protected void closeSession(
             final IOSession ioSession,
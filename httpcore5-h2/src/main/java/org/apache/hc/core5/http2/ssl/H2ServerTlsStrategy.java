@@ -28,6 +28,7 @@
 package org.apache.hc.core5.http2.ssl;
 
 import java.net.SocketAddress;
+import java.util.concurrent.Executor;
 
 import javax.net.ssl.SSLContext;
 
@@ -56,18 +57,36 @@ public class H2ServerTlsStrategy implements TlsStrategy {
     private final SSLBufferMode sslBufferMode;
     private final SSLSessionInitializer initializer;
     private final SSLSessionVerifier verifier;
+    private final Executor handshakeExecutor;
 
+    /**
+     * @param handshakeExecutor optional executor to run CPU intensive TLS handshake tasks
+     *                          off the I/O dispatch threads. May be {@code null}.
+     *
+     * @since 5.0
+     */
     public H2ServerTlsStrategy(
             final SSLContext sslContext,
             final SecurePortStrategy securePortStrategy,
             final SSLBufferMode sslBufferMode,
             final SSLSessionInitializer initializer,
-            final SSLSessionVerifier verifier) {
+            final SSLSessionVerifier verifier,
+            final Executor handshakeExecutor) {
         this.sslContext = Args.notNull(sslContext, "SSL context");
         this.securePortStrategy = securePortStrategy;
         this.sslBufferMode = sslBufferMode;
         this.initializer = initializer;
         this.verifier = verifier;
+        this.handshakeExecutor = handshakeExecutor;
+    }
+
+    public H2ServerTlsStrategy(
+            final SSLContext sslContext,
+            final SecurePortStrategy securePortStrategy,
+            final SSLBufferMode sslBufferMode,
+            final SSLSessionInitializer initializer,
+            final SSLSessionVerifier verifier) {
+        this(sslContext, securePortStrategy, sslBufferMode, initializer, verifier, null);
     }
 
     public H2ServerTlsStrategy(
@@ -108,7 +127,8 @@ public boolean upgrade(
                     sslBufferMode,
                     H2TlsSupport.enforceRequirements(attachment, initializer),
                     verifier,
-                    handshakeTimeout);
+                    handshakeTimeout,
+                    handshakeExecutor);
             return true;
         }
         return false;
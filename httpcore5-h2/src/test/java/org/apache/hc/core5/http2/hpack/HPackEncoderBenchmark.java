@@ -0,0 +1,122 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http2.hpack;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.util.ByteArrayBuffer;
+
+/**
+ * Measures HPACK encoding throughput for realistic request and response
+ * header sets encoded over a long lived connection with the default
+ * dynamic table size.
+ * <p>
+ * Usage: {@code HPackEncoderBenchmark [iterations] [rounds]}
+ * </p>
+ */
+public class HPackEncoderBenchmark {
+
+    private static final String[] PATHS = {
+            "/", "/index.html", "/css/main.css", "/js/app.js", "/img/logo.png",
+            "/api/v1/items?page=1", "/api/v1/items?page=2", "/api/v1/users/12345", "/favicon.ico"
+    };
+
+    private static final String[] CONTENT_TYPES = {
+            "text/html; charset=utf-8", "text/css", "application/javascript", "image/png", "application/json"
+    };
+
+    static List<List<Header>> createRequests() {
+        final List<List<Header>> requests = new ArrayList<>();
+        for (int i = 0; i < PATHS.length * 4; i++) {
+            requests.add(Arrays.<Header>asList(
+                    new HPackHeader(":method", i % 5 == 4 ? "POST" : "GET"),
+                    new HPackHeader(":scheme", "https"),
+                    new HPackHeader(":authority", "www.example.com"),
+                    new HPackHeader(":path", PATHS[i % PATHS.length]),
+                    new HPackHeader("user-agent",
+                            "Mozilla/5.0 (X11; Linux x86_64; rv:68.0) Gecko/20100101 Firefox/68.0"),
+                    new HPackHeader("accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8"),
+                    new HPackHeader("accept-language", "en-US,en;q=0.5"),
+                    new HPackHeader("accept-encoding", "gzip, deflate, br"),
+                    new HPackHeader("referer", "https://www.example.com/"),
+                    new HPackHeader("cookie", "session=a3fWa; theme=light"),
+                    new HPackHeader("x-request-id", "req-" + i)));
+        }
+        return requests;
+    }
+
+    static List<List<Header>> createResponses() {
+        final List<List<Header>> responses = new ArrayList<>();
+        for (int i = 0; i < PATHS.length * 4; i++) {
+            responses.add(Arrays.<Header>asList(
+                    new HPackHeader(":status", i % 7 == 6 ? "304" : "200"),
+                    new HPackHeader("date", "Tue, 15 Oct 2019 08:12:31 GMT"),
+                    new HPackHeader("server", "Apache-HttpCore/5.0"),
+                    new HPackHeader("content-type", CONTENT_TYPES[i % CONTENT_TYPES.length]),
+                    new HPackHeader("content-length", Integer.toString(1024 + i * 37)),
+                    new HPackHeader("cache-control", "private, max-age=0"),
+                    new HPackHeader("etag", "\"" + Integer.toHexString(0x5d8a3c + i) + "\""),
+                    new HPackHeader("vary", "Accept-Encoding"),
+                    new HPackHeader("set-cookie", "tracking=" + i + "; Path=/; HttpOnly")));
+        }
+        return responses;
+    }
+
+    public static void main(final String... args) throws Exception {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        final List<List<Header>> requests = createRequests();
+        final List<List<Header>> responses = createResponses();
+
+        System.out.printf("%8s %20s %20s%n", "round", "requests (msg/s)", "responses (msg/s)");
+        for (int round = 0; round < rounds; round++) {
+            final long req = run(requests, iterations);
+            final long resp = run(responses, iterations);
+            System.out.printf("%8d %20d %20d%n", round + 1, req, resp);
+        }
+    }
+
+    static long run(final List<List<Header>> messages, final int iterations) throws Exception {
+        final HPackEncoder encoder = new HPackEncoder(StandardCharsets.US_ASCII);
+        encoder.setMaxTableSize(4096);
+        final ByteArrayBuffer buffer = new ByteArrayBuffer(1024);
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            buffer.clear();
+            encoder.encodeHeaders(buffer, messages.get(i % messages.size()));
+        }
+        final long elapsed = System.nanoTime() - start;
+        return elapsed > 0 ? iterations * 1000000000L / elapsed : 0;
+    }
+
+}
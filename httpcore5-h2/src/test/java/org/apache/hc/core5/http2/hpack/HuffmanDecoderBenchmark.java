@@ -0,0 +1,104 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http2.hpack;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hc.core5.util.ByteArrayBuffer;
+
+/**
+ * Compares Huffman decoding throughput of the table driven {@link HuffmanDecoder}
+ * with the tree based {@link HuffmanTreeDecoder} on typical header values.
+ * <p>
+ * Usage: {@code HuffmanDecoderBenchmark [iterations] [rounds]}
+ * </p>
+ */
+public class HuffmanDecoderBenchmark {
+
+    private static final String[] VALUES = {
+            "www.example.com",
+            "/api/v1/items?page=1&size=50",
+            "Mozilla/5.0 (X11; Linux x86_64; rv:68.0) Gecko/20100101 Firefox/68.0",
+            "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8",
+            "gzip, deflate, br",
+            "en-US,en;q=0.5",
+            "Tue, 15 Oct 2019 08:12:31 GMT",
+            "application/json; charset=utf-8",
+            "session=a3fWa; theme=light; tracking=8f2c3e0a-6b1d-4c55-9a51-2f0c1e7d9b44",
+            "private, max-age=0, must-revalidate"
+    };
+
+    public static void main(final String... args) throws Exception {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        final ByteBuffer[] encoded = new ByteBuffer[VALUES.length];
+        long totalBytes = 0;
+        for (int i = 0; i < VALUES.length; i++) {
+            final ByteArrayBuffer buffer = new ByteArrayBuffer(128);
+            Huffman.ENCODER.encode(buffer, ByteBuffer.wrap(VALUES[i].getBytes(StandardCharsets.US_ASCII)));
+            encoded[i] = ByteBuffer.wrap(buffer.toByteArray());
+            totalBytes += buffer.length();
+        }
+        System.out.println("Values: " + VALUES.length + ", mean encoded length: " + totalBytes / VALUES.length);
+
+        final HuffmanTreeDecoder treeDecoder = new HuffmanTreeDecoder(Huffman.CODES, Huffman.LENGTHS);
+        System.out.printf("%8s %20s %20s%n", "round", "tree (MB/s)", "table (MB/s)");
+        for (int round = 0; round < rounds; round++) {
+            final ByteArrayBuffer out = new ByteArrayBuffer(256);
+            long start = System.nanoTime();
+            long bytes = 0;
+            for (int i = 0; i < iterations; i++) {
+                final ByteBuffer src = encoded[i % encoded.length];
+                src.rewind();
+                bytes += src.remaining();
+                out.clear();
+                treeDecoder.decode(out, src);
+            }
+            final double tree = mbPerSec(bytes, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            bytes = 0;
+            for (int i = 0; i < iterations; i++) {
+                final ByteBuffer src = encoded[i % encoded.length];
+                src.rewind();
+                bytes += src.remaining();
+                out.clear();
+                Huffman.DECODER.decode(out, src);
+            }
+            final double table = mbPerSec(bytes, System.nanoTime() - start);
+            System.out.printf("%8d %20.1f %20.1f%n", round + 1, tree, table);
+        }
+    }
+
+    private static double mbPerSec(final long bytes, final long nanos) {
+        return nanos > 0 ? (bytes * 1000.0) / nanos : 0;
+    }
+
+}
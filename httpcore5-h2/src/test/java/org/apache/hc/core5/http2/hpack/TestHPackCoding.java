@@ -159,6 +159,20 @@ public void testPlainStringDecodingReadOnly() throws Exception {
         Assert.assertEquals(4, srcRO.remaining());
     }
 
+    @Test
+    public void testPlainStringDecodingSlicedBuffer() throws Exception {
+
+        final ByteBuffer src = createByteBuffer(
+                0x50, 0x50, 0x0a, 0x63, 0x75, 0x73, 0x74, 0x6f, 0x6d, 0x2d, 0x6b, 0x65, 0x79);
+        src.position(2);
+
+        final ByteBuffer srcSlice = src.slice();
+        final ByteArrayBuffer buffer = new ByteArrayBuffer(16);
+        HPackDecoder.decodePlainString(buffer, srcSlice);
+        Assert.assertEquals("custom-key", new String(buffer.array(), 0, buffer.length(), StandardCharsets.US_ASCII));
+        Assert.assertFalse("Decoding completed", srcSlice.hasRemaining());
+    }
+
     @Test(expected = HPackException.class)
     public void testPlainStringDecodingTruncated() throws Exception {
 
@@ -637,7 +651,8 @@ public void testLiteralHeaderWithIndexingEncodingRFC7541Examples() throws Except
         final ByteArrayBuffer buf = new ByteArrayBuffer(128);
 
         final Header header = new BasicHeader("custom-key", "custom-header");
-        encoder.encodeLiteralHeader(buf, null, header, HPackRepresentation.WITH_INDEXING, false);
+        encoder.encodeLiteralHeader(buf, 0, 0, header.getName(), header.getValue(), header.isSensitive(),
+                HPackRepresentation.WITH_INDEXING, false);
 
         final byte[] expected = createByteArray(
                 0x40, 0x0a, 0x63, 0x75, 0x73, 0x74, 0x6f, 0x6d, 0x2d, 0x6b, 0x65, 0x79, 0x0d, 0x63, 0x75, 0x73,
@@ -655,17 +670,8 @@ public void testLiteralHeaderWithoutIndexingEncodingRFC7541Examples() throws Exc
         final ByteArrayBuffer buf = new ByteArrayBuffer(128);
 
         final Header header = new BasicHeader(":path", "/sample/path");
-        encoder.encodeLiteralHeader(buf, new HPackEntry() {
-            @Override
-            public int getIndex() {
-                return 4;
-            }
-
-            @Override
-            public HPackHeader getHeader() {
-                return new HPackHeader(header);
-            }
-        }, header, HPackRepresentation.WITHOUT_INDEXING, false);
+        encoder.encodeLiteralHeader(buf, 4, new HPackHeader(header).getNameLen(), header.getName(), header.getValue(),
+                header.isSensitive(), HPackRepresentation.WITHOUT_INDEXING, false);
 
         final byte[] expected = createByteArray(
                 0x04, 0x0c, 0x2f, 0x73, 0x61, 0x6d, 0x70, 0x6c, 0x65, 0x2f, 0x70, 0x61, 0x74, 0x68);
@@ -681,7 +687,8 @@ public void testLiteralHeaderNeverIndexedEncodingRFC7541Examples() throws Except
         final ByteArrayBuffer buf = new ByteArrayBuffer(128);
 
         final Header header = new BasicHeader("password", "secret", true);
-        encoder.encodeLiteralHeader(buf, null, header, HPackRepresentation.NEVER_INDEXED, false);
+        encoder.encodeLiteralHeader(buf, 0, 0, header.getName(), header.getValue(), header.isSensitive(),
+                HPackRepresentation.NEVER_INDEXED, false);
 
         final byte[] expected = createByteArray(
                 0x10, 0x08, 0x70, 0x61, 0x73, 0x73, 0x77, 0x6f, 0x72, 0x64, 0x06, 0x73, 0x65, 0x63, 0x72, 0x65, 0x74);
@@ -0,0 +1,155 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http2.hpack;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.apache.hc.core5.util.ByteArrayBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestHuffmanDecoder {
+
+    private static ByteBuffer fromHex(final String hex) {
+        final String s = hex.replace(" ", "");
+        final ByteBuffer buffer = ByteBuffer.allocate(s.length() / 2);
+        for (int i = 0; i < s.length(); i += 2) {
+            buffer.put((byte) Integer.parseInt(s.substring(i, i + 2), 16));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static String decode(final ByteBuffer src) throws HPackException {
+        final ByteArrayBuffer buffer = new ByteArrayBuffer(16);
+        Huffman.DECODER.decode(buffer, src);
+        return new String(buffer.array(), 0, buffer.length(), StandardCharsets.ISO_8859_1);
+    }
+
+    private static void assertRoundTrip(final String expected, final String hex) throws Exception {
+        Assert.assertEquals(expected, decode(fromHex(hex)));
+
+        final ByteArrayBuffer encoded = new ByteArrayBuffer(16);
+        Huffman.ENCODER.encode(encoded, ByteBuffer.wrap(expected.getBytes(StandardCharsets.ISO_8859_1)));
+        Assert.assertEquals(fromHex(hex), ByteBuffer.wrap(encoded.array(), 0, encoded.length()));
+    }
+
+    @Test
+    public void testDecodingRFC7541Examples() throws Exception {
+        // C.4 Request Examples with Huffman Coding
+        assertRoundTrip("www.example.com", "f1e3 c2e5 f23a 6ba0 ab90 f4ff");
+        assertRoundTrip("no-cache", "a8eb 1064 9cbf");
+        assertRoundTrip("custom-key", "25a8 49e9 5ba9 7d7f");
+        assertRoundTrip("custom-value", "25a8 49e9 5bb8 e8b4 bf");
+        // C.6 Response Examples with Huffman Coding
+        assertRoundTrip("302", "6402");
+        assertRoundTrip("307", "640e ff");
+        assertRoundTrip("private", "aec3 771a 4b");
+        assertRoundTrip("Mon, 21 Oct 2013 20:13:21 GMT",
+                "d07a be94 1054 d444 a820 0595 040b 8166 e082 a62d 1bff");
+        assertRoundTrip("Mon, 21 Oct 2013 20:13:22 GMT",
+                "d07a be94 1054 d444 a820 0595 040b 8166 e084 a62d 1bff");
+        assertRoundTrip("https://www.example.com", "9d29 ad17 1863 c78f 0b97 c8e9 ae82 ae43 d3");
+        assertRoundTrip("gzip", "9bd9 ab");
+        assertRoundTrip("foo=ASDJKHQKBZXOQWEOPIUAXQWEOIU; max-age=3600; version=1",
+                "94e7 821d d7f2 e6c7 b335 dfdf cd5b 3960 d5af 2708 7f36 72c1 ab27 0fb5 291f 9587 3160 65c0 03ed 4ee5 b106 3d50 07");
+    }
+
+    @Test
+    public void testDecodingEmpty() throws Exception {
+        Assert.assertEquals("", decode(ByteBuffer.allocate(0)));
+    }
+
+    @Test
+    public void testDecodingAppendsToBuffer() throws Exception {
+        final ByteArrayBuffer buffer = new ByteArrayBuffer(1);
+        buffer.append('>');
+        Huffman.DECODER.decode(buffer, fromHex("9bd9 ab"));
+        Assert.assertEquals(">gzip", new String(buffer.array(), 0, buffer.length(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testRoundTripAllSymbols() throws Exception {
+        final byte[] all = new byte[256];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = (byte) i;
+        }
+        final ByteArrayBuffer encoded = new ByteArrayBuffer(1024);
+        Huffman.ENCODER.encode(encoded, ByteBuffer.wrap(all));
+        final ByteArrayBuffer decoded = new ByteArrayBuffer(16);
+        Huffman.DECODER.decode(decoded, ByteBuffer.wrap(encoded.array(), 0, encoded.length()));
+        Assert.assertArrayEquals(all, decoded.toByteArray());
+    }
+
+    @Test
+    public void testDecodingMatchesTreeDecoder() throws Exception {
+        final HuffmanTreeDecoder treeDecoder = new HuffmanTreeDecoder(Huffman.CODES, Huffman.LENGTHS);
+        final Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            final byte[] raw = new byte[random.nextInt(64)];
+            for (int n = 0; n < raw.length; n++) {
+                raw[n] = (byte) (i % 2 == 0 ? 0x20 + random.nextInt(0x5f) : random.nextInt(256));
+            }
+            final ByteArrayBuffer encoded = new ByteArrayBuffer(128);
+            Huffman.ENCODER.encode(encoded, ByteBuffer.wrap(raw));
+
+            final ByteArrayBuffer decoded1 = new ByteArrayBuffer(16);
+            Huffman.DECODER.decode(decoded1, ByteBuffer.wrap(encoded.array(), 0, encoded.length()));
+            final ByteArrayBuffer decoded2 = new ByteArrayBuffer(16);
+            treeDecoder.decode(decoded2, ByteBuffer.wrap(encoded.array(), 0, encoded.length()));
+            Assert.assertArrayEquals(raw, decoded1.toByteArray());
+            Assert.assertArrayEquals(raw, decoded2.toByteArray());
+        }
+    }
+
+    @Test(expected = HPackException.class)
+    public void testDecodingEOS() throws Exception {
+        decode(fromHex("ffff ffff"));
+    }
+
+    @Test(expected = HPackException.class)
+    public void testDecodingPaddingNotEOSPrefix() throws Exception {
+        // 'a' (00011) followed by 000 padding
+        decode(fromHex("18"));
+    }
+
+    @Test(expected = HPackException.class)
+    public void testDecodingPaddingTooLong() throws Exception {
+        // 'a' (00011) followed by 11 bits of padding
+        decode(fromHex("1fff"));
+    }
+
+    @Test
+    public void testDecodingValidPadding() throws Exception {
+        // 'a' (00011) followed by 111 padding
+        Assert.assertEquals("a", decode(fromHex("1f")));
+    }
+
+}
@@ -66,5 +66,95 @@ public void testEviction() throws Exception {
         Assert.assertEquals(0, table.getCurrentSize());
     }
 
-}
+    @Test
+    public void testLookupByNameAndValue() throws Exception {
+
+        final OutboundDynamicTable table = new OutboundDynamicTable();
+
+        table.add(new HPackHeader("h", "1"));
+        table.add(new HPackHeader("h", "2"));
+        table.add(new HPackHeader("g", "1"));
+
+        Assert.assertEquals(62, table.getIndex("g", "1"));
+        Assert.assertEquals(63, table.getIndex("h", "2"));
+        Assert.assertEquals(64, table.getIndex("h", "1"));
+        Assert.assertEquals(0, table.getIndex("h", "3"));
+        Assert.assertEquals(0, table.getIndex("g", "2"));
+        Assert.assertEquals(63, table.getIndex("h"));
+        Assert.assertEquals(62, table.getIndex("g"));
+        Assert.assertEquals(0, table.getIndex("f"));
+
+        table.setMaxSize(68);
+        Assert.assertEquals(2, table.dynamicLength());
+        Assert.assertEquals(0, table.getIndex("h", "1"));
+        Assert.assertEquals(63, table.getIndex("h", "2"));
+        Assert.assertEquals(63, table.getIndex("h"));
+
+        table.setMaxSize(34);
+        Assert.assertEquals(0, table.getIndex("h", "2"));
+        Assert.assertEquals(0, table.getIndex("h"));
+        Assert.assertEquals(62, table.getIndex("g", "1"));
+
+        table.add(new HPackHeader("this-header-is-too-large-for-the-table", "1"));
+        Assert.assertEquals(0, table.dynamicLength());
+        Assert.assertEquals(0, table.getIndex("g", "1"));
+        Assert.assertEquals(0, table.getIndex("g"));
+    }
 
+    @Test
+    public void testLookupAfterWrapAroundAndExpansion() throws Exception {
+
+        final OutboundDynamicTable table = new OutboundDynamicTable();
+        table.setMaxSize(34 * 50);
+
+        for (int i = 0; i < 1000; i++) {
+            table.add(new HPackHeader(Character.toString((char) ('a' + i % 7)), Integer.toString(i % 10)));
+            Assert.assertEquals(Math.min(i + 1, 50), table.dynamicLength());
+            for (int n = 0; n < table.dynamicLength(); n++) {
+                final HPackHeader header = table.getHeader(62 + n);
+                int expected = 0;
+                for (int k = 0; k < table.dynamicLength(); k++) {
+                    final HPackHeader candidate = table.getHeader(62 + k);
+                    if (candidate.getName().equals(header.getName()) && candidate.getValue().equals(header.getValue())) {
+                        expected = 62 + k;
+                        break;
+                    }
+                }
+                Assert.assertEquals(expected, table.getIndex(header.getName(), header.getValue()));
+            }
+        }
+
+        table.setMaxSize(Integer.MAX_VALUE);
+        for (int i = 0; i < 300; i++) {
+            table.add(new HPackHeader("x-" + i, "v"));
+        }
+        Assert.assertEquals(350, table.dynamicLength());
+        for (int i = 0; i < 300; i++) {
+            Assert.assertEquals(62 + 299 - i, table.getIndex("x-" + i, "v"));
+            Assert.assertEquals(62 + 299 - i, table.getIndex("x-" + i));
+        }
+        Assert.assertEquals(0, table.getIndex("x-300"));
+    }
+
+    @Test
+    public void testStaticTableLookup() throws Exception {
+
+        final StaticTable table = StaticTable.INSTANCE;
+        Assert.assertEquals(2, table.getIndex(":method", "GET"));
+        Assert.assertEquals(3, table.getIndex(":method", "POST"));
+        Assert.assertEquals(0, table.getIndex(":method", "PUT"));
+        Assert.assertEquals(2, table.getIndex(":method"));
+        Assert.assertEquals(8, table.getIndex(":status"));
+        Assert.assertEquals(16, table.getIndex("accept-encoding", "gzip, deflate"));
+        Assert.assertEquals(1, table.getIndex(":authority", ""));
+        Assert.assertEquals(61, table.getIndex("www-authenticate"));
+        Assert.assertEquals(0, table.getIndex("x-custom"));
+        for (int i = 1; i <= table.length(); i++) {
+            final HPackHeader header = table.get(i);
+            final int index = table.getIndex(header.getName(), header.getValue());
+            Assert.assertEquals(i, index);
+            Assert.assertTrue(table.getIndex(header.getName()) <= i);
+        }
+    }
+
+}
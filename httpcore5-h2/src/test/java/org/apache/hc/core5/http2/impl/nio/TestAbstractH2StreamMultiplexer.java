@@ -0,0 +1,853 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.http2.impl.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.config.CharCodingConfig;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncServerExchangeHandler;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.HandlerFactory;
+import org.apache.hc.core5.http.nio.ResponseChannel;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http.protocol.HttpProcessorBuilder;
+import org.apache.hc.core5.http2.WritableByteChannelMock;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.http2.config.H2Param;
+import org.apache.hc.core5.http2.config.H2Setting;
+import org.apache.hc.core5.http2.frame.DefaultFrameFactory;
+import org.apache.hc.core5.http2.frame.FrameConsts;
+import org.apache.hc.core5.http2.frame.FrameFactory;
+import org.apache.hc.core5.http2.frame.FrameFlag;
+import org.apache.hc.core5.http2.frame.FrameType;
+import org.apache.hc.core5.http2.frame.RawFrame;
+import org.apache.hc.core5.http2.hpack.HPackEncoder;
+import org.apache.hc.core5.http2.nio.AsyncPingHandler;
+import org.apache.hc.core5.http2.nio.command.PingCommand;
+import org.apache.hc.core5.reactor.Command;
+import org.apache.hc.core5.reactor.ProtocolIOSession;
+import org.apache.hc.core5.util.ByteArrayBuffer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class TestAbstractH2StreamMultiplexer {
+
+    private static final FrameFactory FRAME_FACTORY = DefaultFrameFactory.INSTANCE;
+
+    /**
+     * Non-blocking channel with the opposite endpoint's frames on the inbound side
+     * and the frames written by the multiplexer on the outbound side.
+     */
+    static class DuplexChannelMock implements ByteChannel {
+
+        private final ByteBuffer inbound;
+        private final WritableByteChannelMock outbound;
+        private final FrameOutputBuffer frameEncoder;
+        private final WritableByteChannelMock frameBuffer;
+
+        private int outputLimit;
+        private int outputCount;
+
+        DuplexChannelMock() {
+            this.inbound = ByteBuffer.allocate(1024 * 1024);
+            this.inbound.flip();
+            this.outbound = new WritableByteChannelMock(1024);
+            this.frameEncoder = new FrameOutputBuffer(64 * 1024);
+            this.frameBuffer = new WritableByteChannelMock(1024);
+            this.outputLimit = Integer.MAX_VALUE;
+        }
+
+        /**
+         * Makes the channel accept no more than the given number of bytes until the next drain.
+         */
+        void limitOutput(final int limit) {
+            this.outputLimit = limit;
+        }
+
+        void feed(final RawFrame frame) throws IOException {
+            frameBuffer.reset();
+            frameEncoder.write(frame, frameBuffer);
+            inbound.compact();
+            inbound.put(frameBuffer.toByteArray());
+            inbound.flip();
+        }
+
+        /**
+         * Returns frames written by the multiplexer since the last call.
+         */
+        List<RawFrame> drain() throws IOException {
+            final ByteBuffer src = ByteBuffer.wrap(outbound.toByteArray());
+            outbound.reset();
+            outputLimit = Integer.MAX_VALUE;
+            outputCount = 0;
+            final List<RawFrame> frames = new ArrayList<>();
+            while (src.hasRemaining()) {
+                final int len = ((src.get(src.position()) & 0xff) << 16)
+                        | ((src.get(src.position() + 1) & 0xff) << 8)
+                        | (src.get(src.position() + 2) & 0xff);
+                final int type = src.get(src.position() + 3) & 0xff;
+                final int flags = src.get(src.position() + 4) & 0xff;
+                final int streamId = src.getInt(src.position() + 5) & 0x7fffffff;
+                src.position(src.position() + 9);
+                final ByteBuffer payload;
+                if (len > 0) {
+                    final byte[] b = new byte[len];
+                    src.get(b);
+                    payload = ByteBuffer.wrap(b);
+                } else {
+                    payload = null;
+                }
+                frames.add(new RawFrame(type, flags, streamId, payload));
+            }
+            return frames;
+        }
+
+        @Override
+        public int read(final ByteBuffer dst) {
+            if (!inbound.hasRemaining()) {
+                return 0;
+            }
+            final int chunk = Math.min(dst.remaining(), inbound.remaining());
+            final int limit = inbound.limit();
+            inbound.limit(inbound.position() + chunk);
+            dst.put(inbound);
+            inbound.limit(limit);
+            return chunk;
+        }
+
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            final int chunk = Math.min(src.remaining(), outputLimit - outputCount);
+            if (chunk <= 0) {
+                return 0;
+            }
+            final int limit = src.limit();
+            src.limit(src.position() + chunk);
+            try {
+                outbound.write(src);
+            } finally {
+                src.limit(limit);
+            }
+            outputCount += chunk;
+            return chunk;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+    /**
+     * Request consumer that leaves input capacity management to the test.
+     */
+    static class CapacityCapturingHandler implements AsyncServerExchangeHandler {
+
+        volatile CapacityChannel capacityChannel;
+        volatile int consumed;
+
+        @Override
+        public void handleRequest(
+                final HttpRequest request,
+                final EntityDetails entityDetails,
+                final ResponseChannel responseChannel,
+                final HttpContext context) {
+        }
+
+        @Override
+        public void updateCapacity(final CapacityChannel capacityChannel) {
+            this.capacityChannel = capacityChannel;
+        }
+
+        @Override
+        public void consume(final ByteBuffer src) {
+            consumed += src.remaining();
+            src.position(src.limit());
+        }
+
+        @Override
+        public void streamEnd(final List<? extends Header> trailers) {
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+
+        @Override
+        public void produce(final DataStreamChannel channel) {
+        }
+
+        @Override
+        public void failed(final Exception cause) {
+        }
+
+        @Override
+        public void releaseResources() {
+        }
+
+    }
+
+    /**
+     * Response producer that writes its content with a single write per output opportunity.
+     * Paused producers have no output available.
+     */
+    static class ResponseProducingHandler implements AsyncServerExchangeHandler {
+
+        private final ByteBuffer content;
+
+        volatile boolean paused;
+        volatile DataStreamChannel dataChannel;
+
+        ResponseProducingHandler(final int contentLength, final boolean paused) {
+            this.content = ByteBuffer.allocate(contentLength);
+            this.paused = paused;
+        }
+
+        @Override
+        public void handleRequest(
+                final HttpRequest request,
+                final EntityDetails entityDetails,
+                final ResponseChannel responseChannel,
+                final HttpContext context) throws HttpException, IOException {
+            responseChannel.sendResponse(
+                    new BasicHttpResponse(HttpStatus.SC_OK),
+                    new BasicEntityDetails(content.remaining(), ContentType.APPLICATION_OCTET_STREAM),
+                    context);
+        }
+
+        @Override
+        public void updateCapacity(final CapacityChannel capacityChannel) {
+        }
+
+        @Override
+        public void consume(final ByteBuffer src) {
+            src.position(src.limit());
+        }
+
+        @Override
+        public void streamEnd(final List<? extends Header> trailers) {
+        }
+
+        @Override
+        public synchronized int available() {
+            return paused ? 0 : content.remaining();
+        }
+
+        @Override
+        public synchronized void produce(final DataStreamChannel channel) throws IOException {
+            dataChannel = channel;
+            if (!paused && content.hasRemaining()) {
+                channel.write(content);
+                if (!content.hasRemaining()) {
+                    channel.endStream();
+                }
+            }
+        }
+
+        @Override
+        public void failed(final Exception cause) {
+        }
+
+        @Override
+        public void releaseResources() {
+        }
+
+    }
+
+    private DuplexChannelMock channel;
+    private Queue<Command> commands;
+    private ProtocolIOSession ioSession;
+    private CapacityCapturingHandler exchangeHandler;
+    private List<ResponseProducingHandler> responseHandlers;
+
+    @Before
+    public void setup() throws Exception {
+        channel = new DuplexChannelMock();
+        commands = new ConcurrentLinkedQueue<>();
+        exchangeHandler = new CapacityCapturingHandler();
+        responseHandlers = new ArrayList<>();
+        ioSession = Mockito.mock(ProtocolIOSession.class);
+        Mockito.when(ioSession.channel()).thenReturn(channel);
+        Mockito.when(ioSession.getLock()).thenReturn(new ReentrantLock());
+        Mockito.when(ioSession.poll()).thenAnswer(new Answer<Command>() {
+
+            @Override
+            public Command answer(final InvocationOnMock invocation) {
+                return commands.poll();
+            }
+
+        });
+    }
+
+    private ServerH2StreamMultiplexer createMultiplexer(final H2Config h2Config) throws Exception {
+        return createMultiplexer(h2Config, new HandlerFactory<AsyncServerExchangeHandler>() {
+
+            @Override
+            public AsyncServerExchangeHandler create(final HttpRequest request, final HttpContext context) {
+                return exchangeHandler;
+            }
+
+        });
+    }
+
+    /**
+     * Creates a multiplexer that responds to every request with the given amount of content.
+     * Response handlers are collected in the order of requests.
+     */
+    private ServerH2StreamMultiplexer createMultiplexer(
+            final H2Config h2Config, final int contentLength, final boolean paused) throws Exception {
+        return createMultiplexer(h2Config, new HandlerFactory<AsyncServerExchangeHandler>() {
+
+            @Override
+            public AsyncServerExchangeHandler create(final HttpRequest request, final HttpContext context) {
+                final ResponseProducingHandler handler = new ResponseProducingHandler(contentLength, paused);
+                responseHandlers.add(handler);
+                return handler;
+            }
+
+        });
+    }
+
+    private ServerH2StreamMultiplexer createMultiplexer(
+            final H2Config h2Config,
+            final HandlerFactory<AsyncServerExchangeHandler> handlerFactory) throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = new ServerH2StreamMultiplexer(
+                ioSession,
+                FRAME_FACTORY,
+                HttpProcessorBuilder.create().build(),
+                handlerFactory,
+                CharCodingConfig.DEFAULT,
+                h2Config,
+                null);
+        multiplexer.onConnect(null);
+        channel.feed(FRAME_FACTORY.createSettings());
+        channel.feed(FRAME_FACTORY.createSettingsAck());
+        multiplexer.onInput();
+        channel.drain();
+        return multiplexer;
+    }
+
+    private static RawFrame createRequestHeaders(final int streamId, final Header... extraHeaders) throws IOException {
+        final HPackEncoder encoder = new HPackEncoder(StandardCharsets.US_ASCII);
+        final ByteArrayBuffer buf = new ByteArrayBuffer(128);
+        final List<Header> headers = new ArrayList<>(Arrays.<Header>asList(
+                new BasicHeader(":method", "POST"),
+                new BasicHeader(":scheme", "http"),
+                new BasicHeader(":authority", "localhost"),
+                new BasicHeader(":path", "/")));
+        headers.addAll(Arrays.asList(extraHeaders));
+        encoder.encodeHeaders(buf, headers);
+        return FRAME_FACTORY.createHeaders(streamId, ByteBuffer.wrap(buf.array(), 0, buf.length()), true, false);
+    }
+
+    private static RawFrame createData(final int streamId, final int len) {
+        return FRAME_FACTORY.createData(streamId, ByteBuffer.allocate(len), false);
+    }
+
+    private static ByteBuffer createPingData(final long data) {
+        final ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putLong(data);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static List<RawFrame> select(final List<RawFrame> frames, final FrameType type) {
+        final List<RawFrame> selected = new ArrayList<>();
+        for (final RawFrame frame : frames) {
+            if (frame.getType() == type.getValue()) {
+                selected.add(frame);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns ids of streams that DATA frames with content have been sent for, in the order of frames.
+     */
+    private static List<Integer> dataStreamIds(final List<RawFrame> frames) {
+        final List<Integer> streamIds = new ArrayList<>();
+        for (final RawFrame frame : select(frames, FrameType.DATA)) {
+            final ByteBuffer payload = frame.getPayload();
+            if (payload != null && payload.hasRemaining()) {
+                streamIds.add(frame.getStreamId());
+            }
+        }
+        return streamIds;
+    }
+
+    private static int windowIncrement(final List<RawFrame> frames, final int streamId) {
+        int total = 0;
+        for (final RawFrame frame : select(frames, FrameType.WINDOW_UPDATE)) {
+            if (frame.getStreamId() == streamId) {
+                total += frame.getPayload().getInt(0);
+            }
+        }
+        return total;
+    }
+
+    private static H2Config tuningConfig() {
+        return H2Config.custom()
+                .setWindowAutoTuningEnabled(true)
+                .setMaxStreamWindowSize(1024 * 1024)
+                .setMaxConnectionWindowSize(1024 * 1024)
+                .build();
+    }
+
+    /**
+     * Sends request headers and three full size DATA frames and returns the probe PING sent in response.
+     */
+    private RawFrame receiveProbeSample(final ServerH2StreamMultiplexer multiplexer) throws Exception {
+        channel.feed(createRequestHeaders(1));
+        channel.feed(createData(1, 16384));
+        channel.feed(createData(1, 16384));
+        channel.feed(createData(1, 16384));
+        multiplexer.onInput();
+        final List<RawFrame> pings = select(channel.drain(), FrameType.PING);
+        Assert.assertEquals(1, pings.size());
+        return pings.get(0);
+    }
+
+    @Test
+    public void testWindowProbePing() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(tuningConfig());
+
+        final RawFrame probe = receiveProbeSample(multiplexer);
+        Assert.assertFalse(probe.isFlagSet(FrameFlag.ACK));
+        Assert.assertEquals(0, probe.getStreamId());
+        Assert.assertEquals(8, probe.getPayloadContent().remaining());
+
+        // No other probe while the first one is outstanding
+        channel.feed(createData(1, 1024));
+        multiplexer.onInput();
+        Assert.assertTrue(select(channel.drain(), FrameType.PING).isEmpty());
+        Assert.assertEquals(3 * 16384 + 1024, exchangeHandler.consumed);
+    }
+
+    @Test
+    public void testNoWindowProbePingWithoutTuning() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(H2Config.DEFAULT);
+
+        channel.feed(createRequestHeaders(1));
+        channel.feed(createData(1, 16384));
+        multiplexer.onInput();
+        Assert.assertTrue(select(channel.drain(), FrameType.PING).isEmpty());
+    }
+
+    @Test
+    public void testPingAckWithWindowProbePending() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(tuningConfig());
+
+        final AsyncPingHandler pingHandler = Mockito.mock(AsyncPingHandler.class);
+        Mockito.when(pingHandler.getData()).thenReturn(createPingData(0x1234L));
+        commands.add(new PingCommand(pingHandler));
+        multiplexer.onOutput();
+        final List<RawFrame> pings = select(channel.drain(), FrameType.PING);
+        Assert.assertEquals(1, pings.size());
+
+        final RawFrame probe = receiveProbeSample(multiplexer);
+
+        // ACK of the user PING while the probe is still outstanding
+        channel.feed(FRAME_FACTORY.createPingAck(createPingData(0x1234L)));
+        multiplexer.onInput();
+        final ArgumentCaptor<ByteBuffer> argumentCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
+        Mockito.verify(pingHandler).consumeResponse(argumentCaptor.capture());
+        Assert.assertEquals(0x1234L, argumentCaptor.getValue().getLong());
+
+        // ACK of the probe does not get passed on to user ping handlers
+        final AsyncPingHandler pingHandler2 = Mockito.mock(AsyncPingHandler.class);
+        Mockito.when(pingHandler2.getData()).thenReturn(createPingData(0x5678L));
+        commands.add(new PingCommand(pingHandler2));
+        multiplexer.onOutput();
+        channel.feed(FRAME_FACTORY.createPingAck(probe.getPayloadContent()));
+        multiplexer.onInput();
+        Mockito.verify(pingHandler2, Mockito.never()).consumeResponse(ArgumentMatchers.<ByteBuffer>any());
+
+        channel.feed(FRAME_FACTORY.createPingAck(createPingData(0x5678L)));
+        multiplexer.onInput();
+        Mockito.verify(pingHandler2).consumeResponse(ArgumentMatchers.<ByteBuffer>any());
+    }
+
+    @Test
+    public void testWindowGrowthGrantsConnectionAndEligibleStreams() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(tuningConfig());
+
+        final RawFrame probe = receiveProbeSample(multiplexer);
+
+        // Stream 3 is closed by the opposite endpoint and is not eligible
+        final RawFrame headers = createRequestHeaders(3);
+        channel.feed(FRAME_FACTORY.createHeaders(3, headers.getPayloadContent(), true, true));
+        channel.feed(FRAME_FACTORY.createPingAck(probe.getPayloadContent()));
+        multiplexer.onInput();
+        final List<RawFrame> frames = channel.drain();
+
+        // Window estimate doubles the sample of 3 * 16384 bytes
+        final int growth = 2 * 3 * 16384 - H2Config.DEFAULT.getInitialWindowSize();
+        Assert.assertEquals(growth, windowIncrement(frames, 0));
+        Assert.assertEquals(growth, windowIncrement(frames, 1));
+        Assert.assertEquals(0, windowIncrement(frames, 3));
+        Assert.assertEquals(2, select(frames, FrameType.WINDOW_UPDATE).size());
+
+        // Streams opened later get the grown window once they have sent headers
+        channel.feed(createRequestHeaders(5));
+        multiplexer.onInput();
+        Assert.assertEquals(growth, windowIncrement(channel.drain(), 5));
+    }
+
+    @Test
+    public void testConnectionWindowBoundedByTunedSize() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(tuningConfig());
+        final int tunedWindowSize = 2 * 3 * 16384;
+
+        channel.feed(createRequestHeaders(1));
+        channel.feed(createData(1, 16384));
+        channel.feed(createData(1, 16384));
+        channel.feed(createData(1, 16384));
+        multiplexer.onInput();
+        List<RawFrame> frames = channel.drain();
+        long connWindow = H2Config.DEFAULT.getInitialWindowSize() - 3 * 16384 + windowIncrement(frames, 0);
+        final RawFrame probe = select(frames, FrameType.PING).get(0);
+
+        channel.feed(FRAME_FACTORY.createPingAck(probe.getPayloadContent()));
+        multiplexer.onInput();
+        frames = channel.drain();
+        connWindow += windowIncrement(frames, 0);
+        Assert.assertEquals(tunedWindowSize, connWindow);
+
+        // Further probes are left unacknowledged so the tuned size stays the same
+        for (int i = 0; i < 32; i++) {
+            channel.feed(createData(1, 8192));
+            multiplexer.onInput();
+            exchangeHandler.capacityChannel.update(8192);
+            multiplexer.onOutput();
+            frames = channel.drain();
+            connWindow += windowIncrement(frames, 0) - 8192;
+            Assert.assertTrue("Connection window " + connWindow, connWindow <= tunedWindowSize);
+            Assert.assertTrue("Connection window " + connWindow, connWindow >= tunedWindowSize - tunedWindowSize / 4);
+        }
+    }
+
+    /**
+     * Opens stream 1 and lets the opposite endpoint use up enough of its window for
+     * the exchange handler to get asked to update input capacity.
+     */
+    private CapacityChannel openStream(final ServerH2StreamMultiplexer multiplexer) throws Exception {
+        channel.feed(createRequestHeaders(1));
+        channel.feed(createData(1, 16384));
+        channel.feed(createData(1, 16384));
+        channel.feed(createData(1, 16384));
+        multiplexer.onInput();
+        channel.drain();
+        Assert.assertNotNull(exchangeHandler.capacityChannel);
+        return exchangeHandler.capacityChannel;
+    }
+
+    @Test
+    public void testWindowUpdateHeldBackUntilEndOfOutputEvent() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(H2Config.DEFAULT);
+        final CapacityChannel capacityChannel = openStream(multiplexer);
+
+        capacityChannel.update(1024);
+        capacityChannel.update(2048);
+        Assert.assertTrue(select(channel.drain(), FrameType.WINDOW_UPDATE).isEmpty());
+
+        multiplexer.onOutput();
+        final List<RawFrame> frames = select(channel.drain(), FrameType.WINDOW_UPDATE);
+        Assert.assertEquals(1, frames.size());
+        Assert.assertEquals(1, frames.get(0).getStreamId());
+        Assert.assertEquals(3072, windowIncrement(frames, 1));
+    }
+
+    @Test
+    public void testWindowUpdateHeldBackUntilEndOfInputEvent() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(H2Config.DEFAULT);
+        final CapacityChannel capacityChannel = openStream(multiplexer);
+
+        capacityChannel.update(1024);
+        capacityChannel.update(1024);
+        Assert.assertTrue(select(channel.drain(), FrameType.WINDOW_UPDATE).isEmpty());
+
+        multiplexer.onInput();
+        final List<RawFrame> frames = select(channel.drain(), FrameType.WINDOW_UPDATE);
+        Assert.assertEquals(1, frames.size());
+        Assert.assertEquals(2048, windowIncrement(frames, 1));
+
+        // Nothing left to flush
+        multiplexer.onOutput();
+        Assert.assertTrue(select(channel.drain(), FrameType.WINDOW_UPDATE).isEmpty());
+    }
+
+    @Test
+    public void testWindowUpdateSentOnceThresholdReached() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(H2Config.DEFAULT);
+        final CapacityChannel capacityChannel = openStream(multiplexer);
+        final int threshold = H2Config.DEFAULT.getInitialWindowSize() * H2Config.DEFAULT.getWindowUpdateThreshold() / 100;
+
+        capacityChannel.update(1024);
+        Assert.assertTrue(select(channel.drain(), FrameType.WINDOW_UPDATE).isEmpty());
+        capacityChannel.update(threshold - 1024);
+        final List<RawFrame> frames = select(channel.drain(), FrameType.WINDOW_UPDATE);
+        Assert.assertEquals(1, frames.size());
+        Assert.assertEquals(threshold, windowIncrement(frames, 1));
+
+        multiplexer.onOutput();
+        Assert.assertTrue(select(channel.drain(), FrameType.WINDOW_UPDATE).isEmpty());
+    }
+
+    @Test
+    public void testWindowUpdateThresholdZero() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(H2Config.custom()
+                .setWindowUpdateThreshold(0)
+                .build());
+        final CapacityChannel capacityChannel = openStream(multiplexer);
+
+        capacityChannel.update(1);
+        capacityChannel.update(2);
+        capacityChannel.update(3);
+        final List<RawFrame> frames = select(channel.drain(), FrameType.WINDOW_UPDATE);
+        Assert.assertEquals(3, frames.size());
+        Assert.assertEquals(1, frames.get(0).getPayload().getInt(0));
+        Assert.assertEquals(2, frames.get(1).getPayload().getInt(0));
+        Assert.assertEquals(3, frames.get(2).getPayload().getInt(0));
+    }
+
+    @Test
+    public void testWindowUpdateThresholdFollowsTunedWindow() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(tuningConfig());
+
+        final RawFrame probe = receiveProbeSample(multiplexer);
+        channel.feed(FRAME_FACTORY.createPingAck(probe.getPayloadContent()));
+        multiplexer.onInput();
+        channel.drain();
+
+        // Above the threshold of the initial window but below that of the tuned one
+        final int tunedThreshold = 2 * 3 * 16384 / 4;
+        final int increment = H2Config.DEFAULT.getInitialWindowSize() / 4 + 1024;
+        Assert.assertTrue(increment < tunedThreshold);
+        exchangeHandler.capacityChannel.update(increment);
+        Assert.assertTrue(select(channel.drain(), FrameType.WINDOW_UPDATE).isEmpty());
+
+        exchangeHandler.capacityChannel.update(tunedThreshold - increment);
+        Assert.assertEquals(tunedThreshold, windowIncrement(channel.drain(), 1));
+    }
+
+    /**
+     * Opens streams whose responses are paused until the test resumes them. The opposite
+     * endpoint limits frames to the minimum size and raises the connection window so that
+     * it does not limit stream output.
+     */
+    private void openPausedStreams(
+            final ServerH2StreamMultiplexer multiplexer, final RawFrame... requestHeaders) throws Exception {
+        channel.feed(FRAME_FACTORY.createSettings(new H2Setting(H2Param.MAX_FRAME_SIZE, FrameConsts.MIN_FRAME_SIZE)));
+        channel.feed(FRAME_FACTORY.createWindowUpdate(0, 1024 * 1024));
+        for (final RawFrame frame : requestHeaders) {
+            channel.feed(frame);
+        }
+        multiplexer.onInput();
+        multiplexer.onOutput();
+        Assert.assertTrue(dataStreamIds(channel.drain()).isEmpty());
+        Assert.assertEquals(requestHeaders.length, responseHandlers.size());
+    }
+
+    private void resume(final ResponseProducingHandler handler) {
+        handler.paused = false;
+        handler.dataChannel.requestOutput();
+    }
+
+    @Test
+    public void testStreamOutputRoundRobin() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(H2Config.DEFAULT, 3 * 16384, true);
+        openPausedStreams(multiplexer, createRequestHeaders(1), createRequestHeaders(3), createRequestHeaders(5));
+
+        for (final ResponseProducingHandler handler : responseHandlers) {
+            resume(handler);
+        }
+        multiplexer.onOutput();
+        final List<RawFrame> frames = channel.drain();
+        Assert.assertEquals(Arrays.asList(1, 3, 5, 1, 3, 5, 1, 3, 5), dataStreamIds(frames));
+        for (final RawFrame frame : select(frames, FrameType.DATA)) {
+            Assert.assertTrue(frame.getPayload() == null || frame.getPayload().remaining() == 16384);
+        }
+    }
+
+    @Test
+    public void testStreamOutputUrgencyOrder() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(H2Config.custom()
+                .setPrioritySchedulingEnabled(true)
+                .build(), 3 * 16384, true);
+        openPausedStreams(multiplexer,
+                createRequestHeaders(1, new BasicHeader("priority", "u=5")),
+                createRequestHeaders(3, new BasicHeader("priority", "u=1, i")),
+                createRequestHeaders(5, new BasicHeader("priority", "u=1, i")));
+
+        for (final ResponseProducingHandler handler : responseHandlers) {
+            resume(handler);
+        }
+        multiplexer.onOutput();
+        // Incremental streams of higher urgency share output ahead of the stream of lower urgency
+        Assert.assertEquals(Arrays.asList(3, 5, 3, 5, 3, 5, 1, 1, 1), dataStreamIds(channel.drain()));
+    }
+
+    @Test
+    public void testStreamOutputUrgencyIgnoredWithoutPriorityScheduling() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(H2Config.DEFAULT, 2 * 16384, true);
+        openPausedStreams(multiplexer,
+                createRequestHeaders(1, new BasicHeader("priority", "u=5")),
+                createRequestHeaders(3, new BasicHeader("priority", "u=1")));
+
+        for (final ResponseProducingHandler handler : responseHandlers) {
+            resume(handler);
+        }
+        multiplexer.onOutput();
+        Assert.assertEquals(Arrays.asList(1, 3, 1, 3), dataStreamIds(channel.drain()));
+    }
+
+    /**
+     * Opens stream 1 and lets it use up its output window.
+     */
+    private void openBlockedStream(final ServerH2StreamMultiplexer multiplexer) throws Exception {
+        channel.feed(FRAME_FACTORY.createSettings(new H2Setting(H2Param.MAX_FRAME_SIZE, FrameConsts.MIN_FRAME_SIZE)));
+        channel.feed(FRAME_FACTORY.createWindowUpdate(0, 1024 * 1024));
+        channel.feed(createRequestHeaders(1));
+        multiplexer.onInput();
+        multiplexer.onOutput();
+        int total = 0;
+        for (final RawFrame frame : select(channel.drain(), FrameType.DATA)) {
+            total += frame.getPayload().remaining();
+        }
+        Assert.assertEquals(H2Config.DEFAULT.getInitialWindowSize(), total);
+        multiplexer.onOutput();
+        Assert.assertTrue(dataStreamIds(channel.drain()).isEmpty());
+    }
+
+    /**
+     * Asserts that stream 1 produces output again and that the session stays interested
+     * in output events while the stream has more output than the channel can accept.
+     */
+    private void assertOutputResumed(final ServerH2StreamMultiplexer multiplexer) throws Exception {
+        Mockito.verify(ioSession, Mockito.atLeastOnce()).setEvent(SelectionKey.OP_WRITE);
+        channel.limitOutput(FrameConsts.HEAD_LEN + FrameConsts.MIN_FRAME_SIZE);
+        multiplexer.onOutput();
+        Assert.assertEquals(Arrays.asList(1), dataStreamIds(channel.drain()));
+        Mockito.verify(ioSession, Mockito.never()).clearEvent(SelectionKey.OP_WRITE);
+
+        multiplexer.onOutput();
+        Assert.assertFalse(dataStreamIds(channel.drain()).isEmpty());
+    }
+
+    @Test
+    public void testOutputResumedByWindowUpdate() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(H2Config.DEFAULT, 8 * 16384, false);
+        openBlockedStream(multiplexer);
+        Mockito.clearInvocations(ioSession);
+
+        channel.feed(FRAME_FACTORY.createWindowUpdate(1, H2Config.DEFAULT.getInitialWindowSize()));
+        multiplexer.onInput();
+        assertOutputResumed(multiplexer);
+    }
+
+    @Test
+    public void testOutputResumedBySettingsWindowIncrease() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(H2Config.DEFAULT, 8 * 16384, false);
+        openBlockedStream(multiplexer);
+        Mockito.clearInvocations(ioSession);
+
+        channel.feed(FRAME_FACTORY.createSettings(
+                new H2Setting(H2Param.INITIAL_WINDOW_SIZE, 2 * H2Config.DEFAULT.getInitialWindowSize())));
+        multiplexer.onInput();
+        final List<RawFrame> frames = select(channel.drain(), FrameType.SETTINGS);
+        Assert.assertEquals(1, frames.size());
+        Assert.assertTrue(frames.get(0).isFlagSet(FrameFlag.ACK));
+        assertOutputResumed(multiplexer);
+    }
+
+    @Test
+    public void testOutputResumedByRequestOutputFromOtherThread() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(H2Config.DEFAULT, 3 * 16384, true);
+        openPausedStreams(multiplexer, createRequestHeaders(1));
+        Mockito.clearInvocations(ioSession);
+
+        final Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                resume(responseHandlers.get(0));
+            }
+
+        });
+        thread.start();
+        thread.join();
+        assertOutputResumed(multiplexer);
+    }
+
+    @Test
+    public void testOutputResumedAfterPartialWrite() throws Exception {
+        final ServerH2StreamMultiplexer multiplexer = createMultiplexer(H2Config.DEFAULT, 3 * 16384, true);
+        openPausedStreams(multiplexer, createRequestHeaders(1));
+        Mockito.clearInvocations(ioSession);
+
+        // Content written outside of an output event can be only partially accepted
+        final ResponseProducingHandler handler = responseHandlers.get(0);
+        handler.paused = false;
+        handler.produce(handler.dataChannel);
+        Assert.assertEquals(Arrays.asList(1), dataStreamIds(channel.drain()));
+        assertOutputResumed(multiplexer);
+    }
+
+}
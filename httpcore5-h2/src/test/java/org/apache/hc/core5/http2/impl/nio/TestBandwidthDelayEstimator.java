@@ -0,0 +1,103 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http2.impl.nio;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBandwidthDelayEstimator {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(40);
+
+    private static boolean roundTrip(
+            final BandwidthDelayEstimator estimator, final long time, final int frames, final int frameSize) {
+        return roundTrip(estimator, time, RTT, frames, frameSize);
+    }
+
+    private static boolean roundTrip(
+            final BandwidthDelayEstimator estimator, final long time, final long rtt, final int frames, final int frameSize) {
+        Assert.assertTrue(estimator.dataReceived(frameSize));
+        estimator.pingSent(time);
+        for (int i = 1; i < frames; i++) {
+            Assert.assertFalse(estimator.dataReceived(frameSize));
+        }
+        return estimator.pingAcknowledged(time + rtt);
+    }
+
+    @Test
+    public void testWindowGrowsWhenSaturated() throws Exception {
+        final BandwidthDelayEstimator estimator = new BandwidthDelayEstimator(65535, 1024 * 1024);
+        Assert.assertFalse(estimator.isPingPending());
+        long time = 0;
+        // The whole window gets received in the course of a round trip
+        Assert.assertTrue(roundTrip(estimator, time, 4, 16384));
+        Assert.assertEquals(4 * 16384 * 2, estimator.getWindowSize());
+        Assert.assertFalse(estimator.isPingPending());
+        Assert.assertEquals(RTT, estimator.getRoundTripTime());
+        time += RTT;
+        Assert.assertTrue(roundTrip(estimator, time, 8, 16384));
+        Assert.assertEquals(8 * 16384 * 2, estimator.getWindowSize());
+    }
+
+    @Test
+    public void testWindowDoesNotGrowWhenNotSaturated() throws Exception {
+        final BandwidthDelayEstimator estimator = new BandwidthDelayEstimator(65535, 1024 * 1024);
+        Assert.assertFalse(roundTrip(estimator, 0, 2, 16384));
+        Assert.assertEquals(65535, estimator.getWindowSize());
+    }
+
+    @Test
+    public void testWindowDoesNotGrowBelowPeakBandwidth() throws Exception {
+        final BandwidthDelayEstimator estimator = new BandwidthDelayEstimator(65535, 1024 * 1024);
+        Assert.assertTrue(roundTrip(estimator, 0, 4, 16384));
+        final int windowSize = estimator.getWindowSize();
+        // The window gets saturated but the round trip takes longer than before
+        Assert.assertFalse(roundTrip(estimator, RTT, RTT * 5, 8, 16384));
+        Assert.assertEquals(windowSize, estimator.getWindowSize());
+        Assert.assertEquals(RTT * 3, estimator.getRoundTripTime());
+    }
+
+    @Test
+    public void testWindowCappedAtMax() throws Exception {
+        final BandwidthDelayEstimator estimator = new BandwidthDelayEstimator(65535, 100000);
+        Assert.assertTrue(roundTrip(estimator, 0, 4, 16384));
+        Assert.assertEquals(100000, estimator.getWindowSize());
+        // No more probes once the maximum has been reached
+        Assert.assertFalse(estimator.dataReceived(16384));
+        Assert.assertFalse(estimator.isPingPending());
+    }
+
+    @Test
+    public void testUnsolicitedAck() throws Exception {
+        final BandwidthDelayEstimator estimator = new BandwidthDelayEstimator(65535, 1024 * 1024);
+        Assert.assertFalse(estimator.pingAcknowledged(RTT));
+        Assert.assertEquals(65535, estimator.getWindowSize());
+    }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http2.impl.nio;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestDeficitRoundRobinScheduler {
+
+    static class TestStream extends H2StreamScheduler.Entry {
+
+        final int id;
+        int remaining;
+        H2Priority priority = H2Priority.DEFAULT;
+
+        TestStream(final int id, final int remaining) {
+            this.id = id;
+            this.remaining = remaining;
+        }
+
+        TestStream(final int id, final int remaining, final int urgency, final boolean incremental) {
+            this(id, remaining);
+            this.priority = new H2Priority(urgency, incremental);
+        }
+
+        @Override
+        H2Priority getPriority() {
+            return priority;
+        }
+
+    }
+
+    static class TestProducer implements H2StreamScheduler.OutputProducer<TestStream> {
+
+        final H2StreamScheduler<TestStream> scheduler;
+        final List<Integer> served = new ArrayList<>();
+        int budget;
+
+        TestProducer(final H2StreamScheduler<TestStream> scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        public int produceOutput(final TestStream stream, final int quota) {
+            final int chunk = Math.min(Math.min(quota, stream.remaining), budget);
+            if (chunk > 0) {
+                served.add(stream.id);
+                stream.remaining -= chunk;
+                budget -= chunk;
+            }
+            if (stream.remaining == 0) {
+                scheduler.remove(stream);
+            }
+            return chunk;
+        }
+
+        @Override
+        public boolean hasCapacity() {
+            return budget > 0;
+        }
+
+        List<Integer> pass(final int budget) throws Exception {
+            this.budget = budget;
+            this.served.clear();
+            scheduler.produceOutput(this, 10);
+            return new ArrayList<>(served);
+        }
+
+    }
+
+    private static List<Integer> list(final Integer... ids) {
+        final List<Integer> list = new ArrayList<>();
+        for (final Integer id: ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    @Test
+    public void testRoundRobin() throws Exception {
+        final DeficitRoundRobinScheduler<TestStream> scheduler = new DeficitRoundRobinScheduler<>(false);
+        final TestProducer producer = new TestProducer(scheduler);
+        scheduler.add(new TestStream(1, 100));
+        scheduler.add(new TestStream(3, 100));
+        scheduler.add(new TestStream(5, 100));
+        Assert.assertEquals(3, scheduler.size());
+
+        Assert.assertEquals(list(1, 3, 5, 1, 3, 5), producer.pass(60));
+    }
+
+    @Test
+    public void testRotationAcrossPasses() throws Exception {
+        final DeficitRoundRobinScheduler<TestStream> scheduler = new DeficitRoundRobinScheduler<>(false);
+        final TestProducer producer = new TestProducer(scheduler);
+        scheduler.add(new TestStream(1, 100));
+        scheduler.add(new TestStream(3, 100));
+        scheduler.add(new TestStream(5, 100));
+
+        Assert.assertEquals(list(1), producer.pass(10));
+        Assert.assertEquals(list(3), producer.pass(10));
+        Assert.assertEquals(list(5), producer.pass(10));
+        Assert.assertEquals(list(1), producer.pass(10));
+    }
+
+    @Test
+    public void testSmallStreamNotStarved() throws Exception {
+        final DeficitRoundRobinScheduler<TestStream> scheduler = new DeficitRoundRobinScheduler<>(false);
+        final TestProducer producer = new TestProducer(scheduler);
+        final TestStream bulk1 = new TestStream(1, 100000);
+        final TestStream bulk2 = new TestStream(3, 100000);
+        final TestStream small = new TestStream(5, 5);
+        scheduler.add(bulk1);
+        scheduler.add(bulk2);
+        producer.pass(1000);
+        scheduler.add(small);
+
+        Assert.assertEquals(list(1, 3, 5), producer.pass(25));
+        Assert.assertEquals(0, small.remaining);
+        Assert.assertFalse(small.isScheduled());
+        Assert.assertEquals(2, scheduler.size());
+    }
+
+    @Test
+    public void testIdleStreamLosesCredit() throws Exception {
+        final DeficitRoundRobinScheduler<TestStream> scheduler = new DeficitRoundRobinScheduler<>(false);
+        final TestProducer producer = new TestProducer(scheduler);
+        final TestStream idle = new TestStream(1, 0);
+        scheduler.add(idle);
+        scheduler.add(new TestStream(3, 100));
+        idle.remaining = 0;
+
+        producer.pass(30);
+        Assert.assertEquals(0, idle.deficit);
+    }
+
+    @Test
+    public void testUrgency() throws Exception {
+        final DeficitRoundRobinScheduler<TestStream> scheduler = new DeficitRoundRobinScheduler<>(true);
+        final TestProducer producer = new TestProducer(scheduler);
+        scheduler.add(new TestStream(1, 100, 3, true));
+        scheduler.add(new TestStream(3, 100, 5, true));
+        scheduler.add(new TestStream(5, 25, 0, true));
+
+        Assert.assertEquals(list(5, 5, 5, 1, 1), producer.pass(45));
+        Assert.assertEquals(list(1, 1, 1), producer.pass(30));
+    }
+
+    @Test
+    public void testUrgencyIgnoredIfDisabled() throws Exception {
+        final DeficitRoundRobinScheduler<TestStream> scheduler = new DeficitRoundRobinScheduler<>(false);
+        final TestProducer producer = new TestProducer(scheduler);
+        scheduler.add(new TestStream(1, 100, 3, false));
+        scheduler.add(new TestStream(3, 100, 0, false));
+
+        Assert.assertEquals(list(1, 3, 1, 3), producer.pass(40));
+    }
+
+    @Test
+    public void testNonIncrementalServedInOrder() throws Exception {
+        final DeficitRoundRobinScheduler<TestStream> scheduler = new DeficitRoundRobinScheduler<>(true);
+        final TestProducer producer = new TestProducer(scheduler);
+        scheduler.add(new TestStream(1, 30, 3, false));
+        scheduler.add(new TestStream(3, 30, 3, false));
+        scheduler.add(new TestStream(5, 30, 3, true));
+
+        Assert.assertEquals(list(1, 3, 5), producer.pass(70));
+    }
+
+    @Test
+    public void testPriorityChange() throws Exception {
+        final DeficitRoundRobinScheduler<TestStream> scheduler = new DeficitRoundRobinScheduler<>(true);
+        final TestProducer producer = new TestProducer(scheduler);
+        final TestStream stream1 = new TestStream(1, 100, 3, true);
+        final TestStream stream2 = new TestStream(3, 100, 3, true);
+        scheduler.add(stream1);
+        scheduler.add(stream2);
+
+        Assert.assertEquals(list(1, 3), producer.pass(20));
+        stream2.priority = new H2Priority(1, true);
+        // Re-queued when visited, served ahead of stream1 from the next pass on
+        Assert.assertEquals(list(1, 1), producer.pass(20));
+        Assert.assertEquals(list(3, 3), producer.pass(20));
+    }
+
+    @Test
+    public void testRemoveAndClear() throws Exception {
+        final DeficitRoundRobinScheduler<TestStream> scheduler = new DeficitRoundRobinScheduler<>(true);
+        final TestProducer producer = new TestProducer(scheduler);
+        final TestStream stream1 = new TestStream(1, 100);
+        final TestStream stream2 = new TestStream(3, 100, 0, true);
+        final TestStream stream3 = new TestStream(5, 100);
+        scheduler.add(stream1);
+        scheduler.add(stream2);
+        scheduler.add(stream3);
+        scheduler.add(stream3);
+        Assert.assertEquals(3, scheduler.size());
+
+        scheduler.remove(stream2);
+        scheduler.remove(stream2);
+        Assert.assertEquals(2, scheduler.size());
+        Assert.assertFalse(stream2.isScheduled());
+        Assert.assertEquals(list(1, 5), producer.pass(200));
+
+        scheduler.clear();
+        Assert.assertEquals(0, scheduler.size());
+        Assert.assertFalse(stream1.isScheduled());
+        Assert.assertFalse(stream3.isScheduled());
+        Assert.assertEquals(list(), producer.pass(200));
+    }
+
+}
@@ -27,9 +27,14 @@
 
 package org.apache.hc.core5.http2.impl.nio;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import org.apache.hc.core5.http.ConnectionClosedException;
+import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http2.H2ConnectionException;
 import org.apache.hc.core5.http2.H2CorruptFrameException;
 import org.apache.hc.core5.http2.ReadableByteChannelMock;
@@ -38,7 +43,9 @@
 import org.apache.hc.core5.http2.frame.FrameFlag;
 import org.apache.hc.core5.http2.frame.FrameType;
 import org.apache.hc.core5.http2.frame.RawFrame;
+import org.apache.hc.core5.http2.hpack.HPackDecoder;
 import org.apache.hc.core5.http2.impl.BasicH2TransportMetrics;
+import org.apache.hc.core5.util.PooledByteBufferAllocator;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -271,5 +278,186 @@ public void testReadFrameExceedingLimit() throws Exception {
         inBuffer.read(readableChannel);
     }
 
-}
 
+    @Test
+    public void testReadWriteFramePooledBuffers() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator();
+        final WritableByteChannelMock writableChannel = new WritableByteChannelMock(1024);
+        final FrameOutputBuffer outbuffer = new FrameOutputBuffer(new BasicH2TransportMetrics(), 16 * 1024, allocator);
+
+        outbuffer.write(new RawFrame(FrameType.DATA.getValue(), 0, 1,
+                ByteBuffer.wrap(new byte[]{1,2,3,4,5})), writableChannel);
+        outbuffer.write(new RawFrame(FrameType.DATA.getValue(), FrameFlag.END_STREAM.getValue(), 1,
+                ByteBuffer.wrap(new byte[]{6,7,8})), writableChannel);
+        outbuffer.release();
+        Assert.assertTrue(outbuffer.isEmpty());
+
+        final FrameInputBuffer inBuffer = new FrameInputBuffer(new BasicH2TransportMetrics(), 16 * 1024, allocator);
+        final ReadableByteChannelMock readableChannel = new ReadableByteChannelMock(writableChannel.toByteArray());
+        final RawFrame frame1 = inBuffer.read(readableChannel);
+        Assert.assertNotNull(frame1);
+        Assert.assertEquals(1, frame1.getStreamId());
+        final ByteBuffer payload1 = frame1.getPayloadContent();
+        Assert.assertEquals(5, payload1.remaining());
+        Assert.assertEquals(1, payload1.get());
+        Assert.assertEquals(5, payload1.get(payload1.limit() - 1));
+
+        final RawFrame frame2 = inBuffer.read(readableChannel);
+        Assert.assertNotNull(frame2);
+        Assert.assertTrue(frame2.isFlagSet(FrameFlag.END_STREAM));
+        final ByteBuffer payload2 = frame2.getPayloadContent();
+        Assert.assertEquals(3, payload2.remaining());
+        Assert.assertEquals(6, payload2.get());
+        Assert.assertEquals(7, payload2.get());
+        Assert.assertEquals(8, payload2.get());
+
+        inBuffer.release();
+        final RawFrame frame3 = inBuffer.read(new ReadableByteChannelMock(writableChannel.toByteArray()));
+        Assert.assertNotNull(frame3);
+        Assert.assertEquals(5, frame3.getPayloadContent().remaining());
+    }
+
+    @Test
+    public void testReadHeadersFrameWithoutHuffman() throws Exception {
+        final WritableByteChannelMock writableChannel = new WritableByteChannelMock(1024);
+        final FrameOutputBuffer outbuffer = new FrameOutputBuffer(16 * 1024);
+
+        outbuffer.write(new RawFrame(FrameType.DATA.getValue(), 0, 1,
+                ByteBuffer.wrap(new byte[]{1,2,3,4,5})), writableChannel);
+        // RFC 7541, C.3.1: literal header fields without Huffman coding
+        final byte[] headerBlock = new byte[] {
+                (byte) 0x82, (byte) 0x86, (byte) 0x84, 0x41, 0x0f, 0x77, 0x77, 0x77, 0x2e, 0x65, 0x78, 0x61, 0x6d,
+                0x70, 0x6c, 0x65, 0x2e, 0x63, 0x6f, 0x6d};
+        outbuffer.write(new RawFrame(FrameType.HEADERS.getValue(), FrameFlag.END_HEADERS.getValue(), 3,
+                ByteBuffer.wrap(headerBlock)), writableChannel);
+
+        final FrameInputBuffer inBuffer = new FrameInputBuffer(16 * 1024);
+        final ReadableByteChannelMock readableChannel = new ReadableByteChannelMock(writableChannel.toByteArray());
+        final RawFrame frame1 = inBuffer.read(readableChannel);
+        Assert.assertNotNull(frame1);
+        Assert.assertEquals(FrameType.DATA.getValue(), frame1.getType());
+
+        final RawFrame frame2 = inBuffer.read(readableChannel);
+        Assert.assertNotNull(frame2);
+        Assert.assertEquals(FrameType.HEADERS.getValue(), frame2.getType());
+        final HPackDecoder decoder = new HPackDecoder(StandardCharsets.US_ASCII);
+        final List<Header> headers = decoder.decodeHeaders(frame2.getPayloadContent());
+        Assert.assertEquals(4, headers.size());
+        Assert.assertEquals(":method", headers.get(0).getName());
+        Assert.assertEquals("GET", headers.get(0).getValue());
+        Assert.assertEquals(":authority", headers.get(3).getName());
+        Assert.assertEquals("www.example.com", headers.get(3).getValue());
+    }
+
+    static class GatheringByteChannelMock extends WritableByteChannelMock implements GatheringByteChannel {
+
+        int writeCount;
+
+        GatheringByteChannelMock(final int initialSize) {
+            super(initialSize);
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+            writeCount++;
+            long total = 0;
+            for (int i = offset; i < offset + length; i++) {
+                total += super.write(srcs[i]);
+            }
+            return total;
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs) throws IOException {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            writeCount++;
+            return super.write(src);
+        }
+
+    }
+
+    @Test
+    public void testCorkedWrite() throws Exception {
+        final GatheringByteChannelMock writableChannel = new GatheringByteChannelMock(1024);
+        final FrameOutputBuffer outbuffer = new FrameOutputBuffer(new BasicH2TransportMetrics(), 16 * 1024, null, 1024, 10);
+
+        outbuffer.cork();
+        Assert.assertTrue(outbuffer.isCorked());
+        final byte[] payload = new byte[] {1, 2, 3};
+        final ByteBuffer src = ByteBuffer.wrap(payload);
+        outbuffer.write(new RawFrame(FrameType.DATA.getValue(), 0, 1, src), writableChannel);
+        // Payload content must be copied
+        payload[0] = 9;
+        outbuffer.write(new RawFrame(FrameType.PING.getValue(), 0, 0, ByteBuffer.wrap(new byte[8])), writableChannel);
+        Assert.assertTrue(outbuffer.hasCapacity());
+        Assert.assertFalse(outbuffer.isEmpty());
+        Assert.assertEquals(0, writableChannel.writeCount);
+        Assert.assertEquals(2, outbuffer.getMetrics().getFramesTransferred());
+        Assert.assertEquals(0, outbuffer.getMetrics().getBytesTransferred());
+
+        outbuffer.uncork(writableChannel);
+        Assert.assertFalse(outbuffer.isCorked());
+        Assert.assertTrue(outbuffer.isEmpty());
+        Assert.assertEquals(1, writableChannel.writeCount);
+        Assert.assertEquals(FrameConsts.HEAD_LEN * 2 + 11, outbuffer.getMetrics().getBytesTransferred());
+
+        final FrameInputBuffer inBuffer = new FrameInputBuffer(16 * 1024);
+        final ReadableByteChannelMock readableChannel = new ReadableByteChannelMock(writableChannel.toByteArray());
+        final RawFrame frame1 = inBuffer.read(readableChannel);
+        Assert.assertNotNull(frame1);
+        Assert.assertEquals(FrameType.DATA.getValue(), frame1.getType());
+        Assert.assertEquals(1, frame1.getPayloadContent().get());
+        final RawFrame frame2 = inBuffer.read(readableChannel);
+        Assert.assertNotNull(frame2);
+        Assert.assertEquals(FrameType.PING.getValue(), frame2.getType());
+        Assert.assertEquals(8, frame2.getPayloadContent().remaining());
+    }
+
+    @Test
+    public void testCorkedWriteLargeFrame() throws Exception {
+        final GatheringByteChannelMock writableChannel = new GatheringByteChannelMock(1024);
+        final FrameOutputBuffer outbuffer = new FrameOutputBuffer(new BasicH2TransportMetrics(), 16 * 1024, null, 1024, 10);
+
+        outbuffer.cork();
+        outbuffer.write(new RawFrame(FrameType.WINDOW_UPDATE.getValue(), 0, 0, ByteBuffer.wrap(new byte[4])), writableChannel);
+        Assert.assertEquals(0, writableChannel.writeCount);
+        outbuffer.write(new RawFrame(FrameType.DATA.getValue(), 0, 1, ByteBuffer.wrap(new byte[2048])), writableChannel);
+        Assert.assertTrue(outbuffer.isEmpty());
+        Assert.assertEquals(1, writableChannel.writeCount);
+        Assert.assertEquals(FrameConsts.HEAD_LEN * 2 + 4 + 2048, writableChannel.toByteArray().length);
+        Assert.assertEquals(FrameConsts.HEAD_LEN * 2 + 4 + 2048, outbuffer.getMetrics().getBytesTransferred());
+    }
+
+    @Test
+    public void testCorkedWriteFrameThreshold() throws Exception {
+        final GatheringByteChannelMock writableChannel = new GatheringByteChannelMock(1024);
+        final FrameOutputBuffer outbuffer = new FrameOutputBuffer(new BasicH2TransportMetrics(), 16 * 1024, null, 1024, 3);
+
+        outbuffer.cork();
+        for (int i = 0; i < 7; i++) {
+            outbuffer.write(new RawFrame(FrameType.PING.getValue(), 0, 0, ByteBuffer.wrap(new byte[8])), writableChannel);
+        }
+        Assert.assertEquals(2, writableChannel.writeCount);
+        Assert.assertFalse(outbuffer.isEmpty());
+        outbuffer.uncork(writableChannel);
+        Assert.assertEquals(3, writableChannel.writeCount);
+        Assert.assertEquals((FrameConsts.HEAD_LEN + 8) * 7, writableChannel.toByteArray().length);
+    }
+
+    @Test
+    public void testCorkingDisabled() throws Exception {
+        final GatheringByteChannelMock writableChannel = new GatheringByteChannelMock(1024);
+        final FrameOutputBuffer outbuffer = new FrameOutputBuffer(16 * 1024);
+
+        outbuffer.cork();
+        Assert.assertFalse(outbuffer.isCorked());
+        outbuffer.write(new RawFrame(FrameType.PING.getValue(), 0, 0, ByteBuffer.wrap(new byte[8])), writableChannel);
+        Assert.assertEquals(1, writableChannel.writeCount);
+        Assert.assertTrue(outbuffer.isEmpty());
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http2.impl.nio;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestH2Priority {
+
+    private static H2Priority parse(final String s) {
+        return H2Priority.parse(s, H2Priority.DEFAULT);
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        final H2Priority p1 = parse("u=5, i");
+        Assert.assertEquals(5, p1.getUrgency());
+        Assert.assertTrue(p1.isIncremental());
+
+        final H2Priority p2 = parse("u=0");
+        Assert.assertEquals(0, p2.getUrgency());
+        Assert.assertFalse(p2.isIncremental());
+
+        final H2Priority p3 = parse("i=?1,u=1");
+        Assert.assertEquals(1, p3.getUrgency());
+        Assert.assertTrue(p3.isIncremental());
+
+        final H2Priority p4 = parse("i=?0");
+        Assert.assertSame(H2Priority.DEFAULT, p4);
+
+        final H2Priority p5 = parse("u=2;foo=bar, i;x");
+        Assert.assertEquals(2, p5.getUrgency());
+        Assert.assertTrue(p5.isIncremental());
+    }
+
+    @Test
+    public void testParseInvalid() throws Exception {
+        Assert.assertSame(H2Priority.DEFAULT, parse(""));
+        Assert.assertSame(H2Priority.DEFAULT, parse("u=8"));
+        Assert.assertSame(H2Priority.DEFAULT, parse("u=-1"));
+        Assert.assertSame(H2Priority.DEFAULT, parse("u=12"));
+        Assert.assertSame(H2Priority.DEFAULT, parse("u"));
+        Assert.assertSame(H2Priority.DEFAULT, parse("i=1"));
+        Assert.assertSame(H2Priority.DEFAULT, parse("urgency=1, incremental"));
+        Assert.assertSame(H2Priority.DEFAULT, parse(" , ,"));
+    }
+
+    @Test
+    public void testParseLastMemberWins() throws Exception {
+        final H2Priority p = parse("u=1, i, u=6, i=?0");
+        Assert.assertEquals(6, p.getUrgency());
+        Assert.assertFalse(p.isIncremental());
+    }
+
+    @Test
+    public void testParseHeaders() throws Exception {
+        Assert.assertNull(H2Priority.parse(Collections.<Header>emptyList()));
+        Assert.assertNull(H2Priority.parse(Arrays.<Header>asList(
+                new BasicHeader(":method", "GET"),
+                new BasicHeader("accept", "*/*"))));
+        final H2Priority p = H2Priority.parse(Arrays.<Header>asList(
+                new BasicHeader(":method", "GET"),
+                new BasicHeader("priority", "u=1"),
+                new BasicHeader("Priority", "i")));
+        Assert.assertNotNull(p);
+        Assert.assertEquals(1, p.getUrgency());
+        Assert.assertTrue(p.isIncremental());
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http2.impl.nio;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestH2StreamTable {
+
+    @Test
+    public void testPutGetRemove() throws Exception {
+        final H2StreamTable<String> table = new H2StreamTable<>();
+        Assert.assertTrue(table.isEmpty());
+        Assert.assertNull(table.put(1, "one"));
+        Assert.assertNull(table.put(3, "three"));
+        Assert.assertNull(table.put(5, "five"));
+        Assert.assertEquals(3, table.size());
+        Assert.assertEquals("one", table.get(1));
+        Assert.assertEquals("three", table.get(3));
+        Assert.assertEquals("five", table.get(5));
+        Assert.assertNull(table.get(7));
+        Assert.assertNull(table.get(0));
+        Assert.assertNull(table.get(-1));
+
+        Assert.assertEquals("three", table.put(3, "drei"));
+        Assert.assertEquals(3, table.size());
+        Assert.assertEquals("drei", table.get(3));
+
+        Assert.assertEquals("drei", table.remove(3));
+        Assert.assertNull(table.remove(3));
+        Assert.assertEquals(2, table.size());
+        Assert.assertNull(table.get(3));
+        Assert.assertEquals("one", table.get(1));
+        Assert.assertEquals("five", table.get(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPutInvalidId() throws Exception {
+        final H2StreamTable<String> table = new H2StreamTable<>();
+        table.put(0, "zero");
+    }
+
+    @Test
+    public void testGrowAndClear() throws Exception {
+        final H2StreamTable<Integer> table = new H2StreamTable<>();
+        for (int i = 1; i <= 2001; i += 2) {
+            table.put(i, i);
+        }
+        Assert.assertEquals(1001, table.size());
+        for (int i = 1; i <= 2001; i += 2) {
+            Assert.assertEquals(Integer.valueOf(i), table.get(i));
+            Assert.assertNull(table.get(i + 1));
+        }
+        table.clear();
+        Assert.assertTrue(table.isEmpty());
+        Assert.assertNull(table.get(1));
+        table.put(1, 1);
+        Assert.assertEquals(Integer.valueOf(1), table.get(1));
+    }
+
+    @Test
+    public void testValuesSnapshot() throws Exception {
+        final H2StreamTable<Integer> table = new H2StreamTable<>();
+        for (int i = 2; i <= 40; i += 2) {
+            table.put(i, i);
+        }
+        final List<Integer> values = table.values();
+        Assert.assertEquals(20, values.size());
+        for (final Integer value : values) {
+            Assert.assertEquals(value, table.remove(value));
+        }
+        Assert.assertTrue(table.isEmpty());
+        Assert.assertTrue(table.values().isEmpty());
+    }
+
+    @Test
+    public void testRandomOperations() throws Exception {
+        final Random random = new Random(42);
+        final H2StreamTable<Integer> table = new H2StreamTable<>();
+        final Map<Integer, Integer> map = new HashMap<>();
+        for (int n = 0; n < 100000; n++) {
+            // Narrow key range to get plenty of collisions and wrap-arounds
+            final int key = 1 + random.nextInt(200);
+            switch (random.nextInt(3)) {
+                case 0:
+                    Assert.assertEquals(map.put(key, n), table.put(key, n));
+                    break;
+                case 1:
+                    Assert.assertEquals(map.remove(key), table.remove(key));
+                    break;
+                default:
+                    Assert.assertEquals(map.get(key), table.get(key));
+            }
+            Assert.assertEquals(map.size(), table.size());
+        }
+        for (final Map.Entry<Integer, Integer> entry : map.entrySet()) {
+            Assert.assertEquals(entry.getValue(), table.get(entry.getKey()));
+        }
+        Assert.assertEquals(map.size(), table.values().size());
+    }
+
+}
@@ -35,6 +35,8 @@ public class BenchmarkConfig {
     private final String identityStorePath;
     private final String trustStorePassword;
     private final String identityStorePassword;
+    private final int requestRate;
+    private final File latencyHistogramFile;
 
     private BenchmarkConfig(final URI uri,
                             final int requests,
@@ -58,7 +60,9 @@ private BenchmarkConfig(final URI uri,
                             final String trustStorePath,
                             final String identityStorePath,
                             final String trustStorePassword,
-                            final String identityStorePassword) {
+                            final String identityStorePassword,
+                            final int requestRate,
+                            final File latencyHistogramFile) {
         this.uri = uri;
         this.requests = requests;
         this.concurrencyLevel = concurrencyLevel;
@@ -82,6 +86,8 @@ private BenchmarkConfig(final URI uri,
         this.identityStorePath = identityStorePath;
         this.trustStorePassword = trustStorePassword;
         this.identityStorePassword = identityStorePassword;
+        this.requestRate = requestRate;
+        this.latencyHistogramFile = latencyHistogramFile;
     }
 
     public URI getUri() {
@@ -176,6 +182,24 @@ public TimeValue getTimeLimit() {
         return timeLimit;
     }
 
+    /**
+     * Returns the target number of requests per second across all workers. Zero or
+     * a negative value means each worker sends the next request as soon as
+     * the previous one completes.
+     *
+     * @since 5.0
+     */
+    public int getRequestRate() {
+        return requestRate;
+    }
+
+    /**
+     * @since 5.0
+     */
+    public File getLatencyHistogramFile() {
+        return latencyHistogramFile;
+    }
+
     @Override
     public String toString() {
         return "[" +
@@ -202,6 +226,8 @@ public String toString() {
                 ", identityStorePath='" + identityStorePath + '\'' +
                 ", trustStorePassword='" + trustStorePassword + '\'' +
                 ", identityStorePassword='" + identityStorePassword + '\'' +
+                ", requestRate=" + requestRate +
+                ", latencyHistogramFile=" + latencyHistogramFile +
                 ']';
     }
 
@@ -234,7 +260,9 @@ public static BenchmarkConfig.Builder copy(final BenchmarkConfig config) {
                 .setTrustStorePath(config.getTrustStorePath())
                 .setIdentityStorePath(config.getIdentityStorePath())
                 .setTrustStorePassword(config.getTrustStorePassword())
-                .setIdentityStorePassword(config.getIdentityStorePassword());
+                .setIdentityStorePassword(config.getIdentityStorePassword())
+                .setRequestRate(config.getRequestRate())
+                .setLatencyHistogramFile(config.getLatencyHistogramFile());
     }
 
 
@@ -264,6 +292,8 @@ public static class Builder {
         private String identityStorePath;
         private String trustStorePassword;
         private String identityStorePassword;
+        private int requestRate;
+        private File latencyHistogramFile;
 
         public Builder() {
             super();
@@ -390,6 +420,22 @@ public Builder setIdentityStorePassword(final String identityStorePassword) {
             return this;
         }
 
+        /**
+         * @since 5.0
+         */
+        public Builder setRequestRate(final int requestRate) {
+            this.requestRate = requestRate;
+            return this;
+        }
+
+        /**
+         * @since 5.0
+         */
+        public Builder setLatencyHistogramFile(final File latencyHistogramFile) {
+            this.latencyHistogramFile = latencyHistogramFile;
+            return this;
+        }
+
         public BenchmarkConfig build() {
             return new BenchmarkConfig(
                     uri,
@@ -414,7 +460,9 @@ public BenchmarkConfig build() {
                     trustStorePath,
                     identityStorePath,
                     trustStorePassword,
-                    identityStorePassword);
+                    identityStorePassword,
+                    requestRate,
+                    latencyHistogramFile);
         }
 
     }
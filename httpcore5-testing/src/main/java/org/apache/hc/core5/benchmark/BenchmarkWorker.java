@@ -44,6 +44,9 @@
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -57,7 +60,17 @@ class BenchmarkWorker implements ResourceHolder {
     private final Stats stats;
     private final BenchmarkConfig config;
     private final AtomicReference<AsyncClientEndpoint> endpointRef;
-
+    private final ScheduledExecutorService scheduler;
+    private final long intervalNanos;
+    private volatile long nextStartNanos;
+
+    /**
+     * Creates a worker that sends requests at a fixed rate. The worker aims to start
+     * requests at {@code firstStartNanos + n * intervalNanos}. Latencies are measured
+     * from those intended start times rather than from the actual ones, so that
+     * responses delayed by a slow server also account for the requests that could
+     * not be sent on schedule in the meantime.
+     */
     public BenchmarkWorker(
             final HttpAsyncRequester requester,
             final HttpHost host,
@@ -65,7 +78,10 @@ public BenchmarkWorker(
             final AtomicLong requestCount,
             final CountDownLatch completionLatch,
             final Stats stats,
-            final BenchmarkConfig config) {
+            final BenchmarkConfig config,
+            final ScheduledExecutorService scheduler,
+            final long firstStartNanos,
+            final long intervalNanos) {
         this.requester = requester;
         this.host = host;
         this.context = context;
@@ -74,6 +90,20 @@ public BenchmarkWorker(
         this.stats = stats;
         this.config = config;
         this.endpointRef = new AtomicReference<>(null);
+        this.scheduler = scheduler;
+        this.nextStartNanos = firstStartNanos;
+        this.intervalNanos = intervalNanos;
+    }
+
+    public BenchmarkWorker(
+            final HttpAsyncRequester requester,
+            final HttpHost host,
+            final HttpCoreContext context,
+            final AtomicLong requestCount,
+            final CountDownLatch completionLatch,
+            final Stats stats,
+            final BenchmarkConfig config) {
+        this(requester, host, context, requestCount, completionLatch, stats, config, null, 0, 0);
     }
 
     private AsyncRequestProducer createRequestProducer() {
@@ -161,7 +191,7 @@ public void releaseResources() {
         };
     }
 
-    private AsyncResponseConsumer<Void> createResponseConsumer() {
+    private AsyncResponseConsumer<Void> createResponseConsumer(final long startNanos) {
 
         return new AsyncResponseConsumer<Void>() {
 
@@ -222,6 +252,7 @@ public void consume(final ByteBuffer src) throws IOException {
 
             @Override
             public void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
+                stats.recordLatency(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
                 if (status == HttpStatus.SC_OK) {
                     stats.incSuccessCount();
                 } else {
@@ -259,82 +290,108 @@ public void releaseResources() {
 
     public void execute() {
         if (requestCount.decrementAndGet() >= 0) {
-            AsyncClientEndpoint endpoint = endpointRef.get();
-            if (endpoint != null && !endpoint.isConnected()) {
-                endpoint.releaseAndDiscard();
-                endpoint = null;
-            }
-            if (endpoint == null) {
-                requester.connect(host, config.getSocketTimeout(), null, new FutureCallback<AsyncClientEndpoint>() {
-
-                    @Override
-                    public void completed(final AsyncClientEndpoint endpoint) {
-                        endpointRef.set(endpoint);
-                        endpoint.execute(
-                                createRequestProducer(),
-                                createResponseConsumer(),
-                                context,
-                                new FutureCallback<Void>() {
-
-                                    @Override
-                                    public void completed(final Void result) {
-                                        execute();
-                                    }
-
-                                    @Override
-                                    public void failed(final Exception cause) {
-                                        execute();
-                                    }
-
-                                    @Override
-                                    public void cancelled() {
-                                        completionLatch.countDown();
-                                    }
-
-                                });
-                    }
+            if (scheduler != null) {
+                final long startNanos = nextStartNanos;
+                nextStartNanos = startNanos + intervalNanos;
+                final long delayNanos = startNanos - System.nanoTime();
+                if (delayNanos > 0) {
+                    try {
+                        scheduler.schedule(new Runnable() {
 
-                    @Override
-                    public void failed(final Exception cause) {
-                        stats.incFailureCount();
-                        if (config.getVerbosity() >= 1) {
-                            System.out.println("Connect error: " + cause.getMessage());
-                        }
-                        execute();
-                    }
+                            @Override
+                            public void run() {
+                                executeRequest(startNanos);
+                            }
 
-                    @Override
-                    public void cancelled() {
+                        }, delayNanos, TimeUnit.NANOSECONDS);
+                    } catch (final RejectedExecutionException ex) {
                         completionLatch.countDown();
                     }
-
-                });
+                } else {
+                    executeRequest(startNanos);
+                }
             } else {
-                endpoint.execute(
-                        createRequestProducer(),
-                        createResponseConsumer(),
-                        context,
-                        new FutureCallback<Void>() {
+                executeRequest(System.nanoTime());
+            }
+        } else {
+            completionLatch.countDown();
+        }
+    }
 
-                            @Override
-                            public void completed(final Void result) {
-                                execute();
-                            }
+    private void executeRequest(final long startNanos) {
+        AsyncClientEndpoint endpoint = endpointRef.get();
+        if (endpoint != null && !endpoint.isConnected()) {
+            endpoint.releaseAndDiscard();
+            endpoint = null;
+        }
+        if (endpoint == null) {
+            requester.connect(host, config.getSocketTimeout(), null, new FutureCallback<AsyncClientEndpoint>() {
+
+                @Override
+                public void completed(final AsyncClientEndpoint endpoint) {
+                    endpointRef.set(endpoint);
+                    endpoint.execute(
+                            createRequestProducer(),
+                            createResponseConsumer(startNanos),
+                            context,
+                            new FutureCallback<Void>() {
+
+                                @Override
+                                public void completed(final Void result) {
+                                    execute();
+                                }
+
+                                @Override
+                                public void failed(final Exception cause) {
+                                    execute();
+                                }
+
+                                @Override
+                                public void cancelled() {
+                                    completionLatch.countDown();
+                                }
+
+                            });
+                }
 
-                            @Override
-                            public void failed(final Exception cause) {
-                                execute();
-                            }
+                @Override
+                public void failed(final Exception cause) {
+                    stats.incFailureCount();
+                    if (config.getVerbosity() >= 1) {
+                        System.out.println("Connect error: " + cause.getMessage());
+                    }
+                    execute();
+                }
 
-                            @Override
-                            public void cancelled() {
-                                completionLatch.countDown();
-                            }
+                @Override
+                public void cancelled() {
+                    completionLatch.countDown();
+                }
 
-                        });
-            }
+            });
         } else {
-            completionLatch.countDown();
+            endpoint.execute(
+                    createRequestProducer(),
+                    createResponseConsumer(startNanos),
+                    context,
+                    new FutureCallback<Void>() {
+
+                        @Override
+                        public void completed(final Void result) {
+                            execute();
+                        }
+
+                        @Override
+                        public void failed(final Exception cause) {
+                            execute();
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            completionLatch.countDown();
+                        }
+
+                    });
         }
     }
 
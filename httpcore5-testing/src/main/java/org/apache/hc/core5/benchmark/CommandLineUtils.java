@@ -113,6 +113,16 @@ public static Options getOptions() {
         final Option http2opt = new Option("2", false, "Force HTTP/2");
         gopt.setRequired(false);
 
+        final Option ropt = new Option("r", true, "Send requests at a fixed rate (requests per second) " +
+                "instead of as fast as possible. Latencies are measured from the intended send time");
+        ropt.setRequired(false);
+        ropt.setArgName("rate");
+
+        final Option lopt = new Option("l", true, "File to write the latency histogram to " +
+                "in HdrHistogram percentile distribution format");
+        lopt.setRequired(false);
+        lopt.setArgName("histogram file");
+
         final Option hopt = new Option("h", false, "Display usage information");
         nopt.setRequired(false);
 
@@ -135,6 +145,8 @@ public static Options getOptions() {
         options.addOption(xopt);
         options.addOption(gopt);
         options.addOption(http2opt);
+        options.addOption(ropt);
+        options.addOption(lopt);
 
         options.addOption(hopt);
         return options;
@@ -234,6 +246,19 @@ public static BenchmarkConfig parseCommandLine(final CommandLine cmd) {
             builder.setForceHttp2(true);
         }
 
+        if (cmd.hasOption('r')) {
+            final String s = cmd.getOptionValue('r');
+            try {
+                builder.setRequestRate(Integer.parseInt(s));
+            } catch (final NumberFormatException ex) {
+                printError("Invalid request rate: " + s);
+            }
+        }
+
+        if (cmd.hasOption('l')) {
+            builder.setLatencyHistogramFile(new File(cmd.getOptionValue('l')));
+        }
+
         final String[] cmdargs = cmd.getArgs();
         if (cmdargs.length > 0) {
             try {
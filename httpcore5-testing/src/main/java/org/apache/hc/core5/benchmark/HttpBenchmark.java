@@ -4,6 +4,7 @@
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.PosixParser;
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
 import org.apache.hc.core5.function.Decorator;
 import org.apache.hc.core5.http.*;
 import org.apache.hc.core5.http.impl.Http1StreamListener;
@@ -39,14 +40,19 @@
 import javax.net.ssl.SSLContext;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.net.SocketAddress;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
@@ -82,6 +88,11 @@ public static void main(final String[] args) throws Exception {
         final Results results = httpBenchmark.execute();
         System.out.println();
         ResultFormatter.print(System.out, results);
+        if (config.getLatencyHistogramFile() != null) {
+            try (final PrintStream printStream = new PrintStream(config.getLatencyHistogramFile(), StandardCharsets.US_ASCII.name())) {
+                ResultFormatter.printHistogram(printStream, results);
+            }
+        }
     }
 
     public HttpBenchmark(final BenchmarkConfig config) {
@@ -167,6 +178,11 @@ public void enqueue(final Command command, final Command.Priority priority) {
                                 ioSession.enqueue(command, priority);
                             }
 
+                            @Override
+                            public void enqueue(final List<Command> commands, final Command.Priority priority) {
+                                ioSession.enqueue(commands, priority);
+                            }
+
                             @Override
                             public boolean hasCommands() {
                                 return ioSession.hasCommands();
@@ -322,6 +338,19 @@ public void startTls(final SSLContext sslContext,
                                         sslContext, endpoint, sslBufferMode, initializer, verifier, handshakeTimeout);
                             }
 
+                            @Override
+                            public void startTls(final SSLContext sslContext,
+                                                 final NamedEndpoint endpoint,
+                                                 final SSLBufferMode sslBufferMode,
+                                                 final SSLSessionInitializer initializer,
+                                                 final SSLSessionVerifier verifier,
+                                                 final Timeout handshakeTimeout,
+                                                 final Executor handshakeExecutor) throws UnsupportedOperationException {
+                                ioSession.startTls(
+                                        sslContext, endpoint, sslBufferMode, initializer, verifier, handshakeTimeout,
+                                        handshakeExecutor);
+                            }
+
                             @Override
                             public TlsDetails getTlsDetails() {
                                 return ioSession.getTlsDetails();
@@ -469,6 +498,15 @@ private Results doExecute(final HttpAsyncRequester requester, final Stats stats)
 
         final CountDownLatch completionLatch = new CountDownLatch(config.getConcurrencyLevel());
         final BenchmarkWorker[] workers = new BenchmarkWorker[config.getConcurrencyLevel()];
+
+        // In fixed rate mode each worker sends requests at an equal share of the total rate
+        // with start times staggered evenly across workers
+        final ScheduledExecutorService scheduler = config.getRequestRate() > 0 ?
+                Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("benchmark-scheduler", true)) : null;
+        final long intervalNanos = config.getRequestRate() > 0 ?
+                TimeUnit.SECONDS.toNanos(1) * workers.length / config.getRequestRate() : 0;
+        final long firstStartNanos = System.nanoTime();
+
         for (int i = 0; i < workers.length; i++) {
             final HttpCoreContext context = HttpCoreContext.create();
             context.setProtocolVersion(version);
@@ -479,7 +517,10 @@ private Results doExecute(final HttpAsyncRequester requester, final Stats stats)
                     requestCount,
                     completionLatch,
                     stats,
-                    config);
+                    config,
+                    scheduler,
+                    firstStartNanos + intervalNanos * i / workers.length,
+                    intervalNanos);
             workers[i] = worker;
         }
 
@@ -499,6 +540,10 @@ private Results doExecute(final HttpAsyncRequester requester, final Stats stats)
 
         final long endTime = System.currentTimeMillis();
 
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+
         for (int i = 0; i < workers.length; i++) {
             workers[i].releaseResources();
         }
@@ -517,7 +562,8 @@ private Results doExecute(final HttpAsyncRequester requester, final Stats stats)
                 stats.getKeepAliveCount(),
                 stats.getTotalBytesRecv(),
                 stats.getTotalBytesSent(),
-                stats.getTotalContentLength());
+                stats.getTotalContentLength(),
+                stats.getLatencyHistogram());
     }
 
 }
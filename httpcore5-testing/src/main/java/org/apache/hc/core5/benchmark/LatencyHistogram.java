@@ -0,0 +1,226 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.benchmark;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Lock-free log-linear histogram of latency values in microseconds.
+ * <p>
+ * Values are grouped into buckets of powers of two, each split into
+ * {@code 128} linear sub-buckets, which bounds the relative error of
+ * reported values to less than 1%. Values can be recorded concurrently
+ * from multiple threads and histograms can be merged with {@link #add(LatencyHistogram)}.
+ * </p>
+ *
+ * @since 5.0
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKET_HALF_BITS = SUB_BUCKET_BITS - 1;
+    private static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_HALF_BITS;
+    private static final int BUCKET_COUNT = 64 - SUB_BUCKET_BITS;
+    private static final int LENGTH = (BUCKET_COUNT + 1) * SUB_BUCKET_HALF_COUNT;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount;
+    private final AtomicLong totalValue;
+    private final AtomicLong minValue;
+    private final AtomicLong maxValue;
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(LENGTH);
+        this.totalCount = new AtomicLong();
+        this.totalValue = new AtomicLong();
+        this.minValue = new AtomicLong(Long.MAX_VALUE);
+        this.maxValue = new AtomicLong(0);
+    }
+
+    static int indexOf(final long value) {
+        final int bucket = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_HALF_BITS);
+        return (bucket << SUB_BUCKET_HALF_BITS) + (int) (value >>> bucket);
+    }
+
+    static long lowestEquivalentValue(final int index) {
+        final int bucket = Math.max(0, (index >> SUB_BUCKET_HALF_BITS) - 1);
+        final long subBucket = index - (bucket << SUB_BUCKET_HALF_BITS);
+        return subBucket << bucket;
+    }
+
+    static long highestEquivalentValue(final int index) {
+        final int bucket = Math.max(0, (index >> SUB_BUCKET_HALF_BITS) - 1);
+        return lowestEquivalentValue(index) + (1L << bucket) - 1;
+    }
+
+    private static void updateMin(final AtomicLong ref, final long value) {
+        for (;;) {
+            final long current = ref.get();
+            if (value >= current || ref.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    private static void updateMax(final AtomicLong ref, final long value) {
+        for (;;) {
+            final long current = ref.get();
+            if (value <= current || ref.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Records a single value. Negative values are recorded as zero.
+     *
+     * @param value the value in microseconds.
+     */
+    public void recordValue(final long value) {
+        recordValues(value, 1);
+    }
+
+    private void recordValues(final long value, final long count) {
+        final long v = Math.max(0, value);
+        counts.addAndGet(indexOf(v), count);
+        totalCount.addAndGet(count);
+        totalValue.addAndGet(v * count);
+        updateMin(minValue, v);
+        updateMax(maxValue, v);
+    }
+
+    /**
+     * Adds all values recorded by the other histogram to this histogram.
+     */
+    public void add(final LatencyHistogram other) {
+        Args.notNull(other, "Histogram");
+        for (int i = 0; i < LENGTH; i++) {
+            final long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalValue.addAndGet(other.totalValue.get());
+        if (other.totalCount.get() > 0) {
+            updateMin(minValue, other.minValue.get());
+            updateMax(maxValue, other.maxValue.get());
+        }
+    }
+
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    public long getMinValue() {
+        return totalCount.get() > 0 ? minValue.get() : 0;
+    }
+
+    public long getMaxValue() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        final long count = totalCount.get();
+        return count > 0 ? (double) totalValue.get() / count : 0;
+    }
+
+    /**
+     * Returns the value at or below which the given percentage of recorded values fall.
+     * The result is the highest value equivalent to the matching bucket and never exceeds
+     * the largest recorded value.
+     *
+     * @param percentile the percentile in the range [0, 100].
+     */
+    public long getValueAtPercentile(final double percentile) {
+        Args.check(percentile >= 0 && percentile <= 100, "Percentile must be in range [0, 100]");
+        final long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        final long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long total = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            total += counts.get(i);
+            if (total >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    /**
+     * Writes the recorded distribution in the plain text percentile format
+     * produced by HdrHistogram, one line per non-empty bucket, with values
+     * scaled by the given ratio.
+     *
+     * @param printStream the output stream.
+     * @param outputValueUnitScalingRatio the ratio recorded values get divided by, e.g. {@code 1000}
+     *                                    to output milliseconds.
+     */
+    public void outputPercentileDistribution(final PrintStream printStream, final double outputValueUnitScalingRatio) {
+        printStream.format(Locale.ROOT, "%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount", "1/(1-Percentile)");
+        final long count = totalCount.get();
+        long total = 0;
+        for (int i = 0; i < LENGTH && count > 0; i++) {
+            final long n = counts.get(i);
+            if (n > 0) {
+                total += n;
+                final double quantile = (double) total / count;
+                final long value = Math.min(highestEquivalentValue(i), maxValue.get());
+                if (quantile < 1.0) {
+                    printStream.format(Locale.ROOT, "%12.3f %2.12f %10d %14.2f%n",
+                            value / outputValueUnitScalingRatio, quantile, total, 1 / (1.0 - quantile));
+                } else {
+                    printStream.format(Locale.ROOT, "%12.3f %2.12f %10d%n",
+                            value / outputValueUnitScalingRatio, quantile, total);
+                }
+            }
+        }
+        printStream.format(Locale.ROOT, "#[Mean    = %12.3f, Min            = %12.3f]%n",
+                getMean() / outputValueUnitScalingRatio, getMinValue() / outputValueUnitScalingRatio);
+        printStream.format(Locale.ROOT, "#[Max     = %12.3f, Total count    = %12d]%n",
+                getMaxValue() / outputValueUnitScalingRatio, count);
+        printStream.format(Locale.ROOT, "#[Buckets = %12d, SubBuckets     = %12d]%n",
+                BUCKET_COUNT, SUB_BUCKET_HALF_COUNT * 2);
+    }
+
+    @Override
+    public String toString() {
+        return "[totalCount=" + getTotalCount() +
+                ", min=" + getMinValue() +
+                ", max=" + getMaxValue() +
+                ", mean=" + getMean() +
+                ']';
+    }
+
+}
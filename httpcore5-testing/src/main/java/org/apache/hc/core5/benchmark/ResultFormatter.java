@@ -36,6 +36,8 @@ private ResultFormatter() {
         // Do not allow utility class to be instantiated.
     }
 
+    static final double[] PERCENTILES = { 50, 66, 75, 80, 90, 95, 98, 99, 99.9, 99.99, 100 };
+
     static NumberFormat nf2 = NumberFormat.getInstance(Locale.ROOT);
     static NumberFormat nf3 = NumberFormat.getInstance(Locale.ROOT);
     static NumberFormat nf6 = NumberFormat.getInstance(Locale.ROOT);
@@ -71,6 +73,33 @@ public static void print(final PrintStream printStream, final Results results) {
                 (double) results.getTotalTimeMillis() / results.getSuccessCount()) + " [ms] (mean, across all concurrent requests)");
         printStream.println("Transfer rate:\t\t\t" +
             nf2.format((double) results.getTotalBytesRcvd() / 1024 / ((double) results.getTotalTimeMillis() / 1000)) + " [Kbytes/sec] received");
+        final LatencyHistogram latencyHistogram = results.getLatencyHistogram();
+        if (latencyHistogram != null && latencyHistogram.getTotalCount() > 0) {
+            printStream.println();
+            printStream.println("Latency:\t\t\t\t" + nf3.format(latencyHistogram.getMean() / 1000) + " [ms] (mean), " +
+                    nf3.format((double) latencyHistogram.getMinValue() / 1000) + " [ms] (min), " +
+                    nf3.format((double) latencyHistogram.getMaxValue() / 1000) + " [ms] (max)");
+            printStream.println("Percentage of the requests served within a certain time (ms)");
+            for (final double percentile : PERCENTILES) {
+                final String p = percentile == Math.rint(percentile) ? Integer.toString((int) percentile) : Double.toString(percentile);
+                printStream.println("  " + p + "%\t\t" + nf3.format((double) latencyHistogram.getValueAtPercentile(percentile) / 1000) +
+                        (percentile == 100 ? " (longest request)" : ""));
+            }
+        }
+    }
+
+    /**
+     * Writes the latency distribution of the results in a machine readable format
+     * with values in milliseconds.
+     *
+     * @see LatencyHistogram#outputPercentileDistribution(PrintStream, double)
+     * @since 5.0
+     */
+    public static void printHistogram(final PrintStream printStream, final Results results) {
+        final LatencyHistogram latencyHistogram = results.getLatencyHistogram();
+        if (latencyHistogram != null) {
+            latencyHistogram.outputPercentileDistribution(printStream, 1000);
+        }
     }
 
 }
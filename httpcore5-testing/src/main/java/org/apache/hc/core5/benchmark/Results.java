@@ -49,6 +49,7 @@ public final class Results {
     private final long totalBytesRcvd;
     private final long totalBytesSent;
     private final long totalContentBytesRecvd;
+    private final LatencyHistogram latencyHistogram;
 
     public Results(
             final String serverName,
@@ -64,7 +65,8 @@ public Results(
             final long keepAliveCount,
             final long totalBytesRcvd,
             final long totalBytesSent,
-            final long totalContentBytesRecvd) {
+            final long totalContentBytesRecvd,
+            final LatencyHistogram latencyHistogram) {
         this.serverName = serverName;
         this.protocolVersion = protocolVersion;
         this.hostName = hostName;
@@ -79,6 +81,27 @@ public Results(
         this.totalBytesRcvd = totalBytesRcvd;
         this.totalBytesSent = totalBytesSent;
         this.totalContentBytesRecvd = totalContentBytesRecvd;
+        this.latencyHistogram = latencyHistogram;
+    }
+
+    public Results(
+            final String serverName,
+            final ProtocolVersion protocolVersion,
+            final String hostName,
+            final int hostPort,
+            final String documentPath,
+            final long contentLength,
+            final int concurrencyLevel,
+            final long totalTimeMillis,
+            final long successCount,
+            final long failureCount,
+            final long keepAliveCount,
+            final long totalBytesRcvd,
+            final long totalBytesSent,
+            final long totalContentBytesRecvd) {
+        this(serverName, protocolVersion, hostName, hostPort, documentPath, contentLength, concurrencyLevel,
+                totalTimeMillis, successCount, failureCount, keepAliveCount, totalBytesRcvd, totalBytesSent,
+                totalContentBytesRecvd, null);
     }
 
     public String getServerName() {
@@ -137,6 +160,16 @@ public long getTotalContentBytesRecvd() {
         return totalContentBytesRecvd;
     }
 
+    /**
+     * Returns distribution of request latencies in microseconds or {@code null}
+     * if latencies have not been recorded.
+     *
+     * @since 5.0
+     */
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
@@ -153,6 +186,7 @@ public String toString() {
                 .append(", totalBytesRcvd=").append(totalBytesRcvd)
                 .append(", totalBytesSent=").append(totalBytesSent)
                 .append(", totalContentBytesRecvd=").append(totalContentBytesRecvd)
+                .append(", latency=").append(latencyHistogram)
                 .append("]");
         return builder.toString();
     }
@@ -48,6 +48,7 @@ public class Stats {
     private final AtomicLong totalContentLength = new AtomicLong();
     private final AtomicReference<String> serverNameRef = new AtomicReference<>();
     private final AtomicReference<ProtocolVersion> versionRef = new AtomicReference<>();
+    private final LatencyHistogram latencyHistogram = new LatencyHistogram();
 
     public void incSuccessCount() {
         this.successCount.incrementAndGet();
@@ -121,6 +122,20 @@ public void setVersion(final ProtocolVersion version) {
         this.versionRef.set(version);
     }
 
+    /**
+     * @since 5.0
+     */
+    public void recordLatency(final long latencyMicros) {
+        this.latencyHistogram.recordValue(latencyMicros);
+    }
+
+    /**
+     * @since 5.0
+     */
+    public LatencyHistogram getLatencyHistogram() {
+        return this.latencyHistogram;
+    }
+
     @Override
     public String toString() {
         return "Stats{" +
@@ -131,6 +146,7 @@ public String toString() {
                 ", totalBytesRecv=" + totalBytesRecv +
                 ", totalBytesSent=" + totalBytesSent +
                 ", contentLength=" + contentLength +
+                ", latency=" + latencyHistogram +
                 '}';
     }
 
@@ -32,6 +32,8 @@
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
 import java.nio.channels.SelectionKey;
+import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.Lock;
 
 import javax.net.ssl.SSLContext;
@@ -86,6 +88,14 @@ public void enqueue(final Command command, final Command.Priority priority) {
         }
     }
 
+    @Override
+    public void enqueue(final List<Command> commands, final Command.Priority priority) {
+        this.session.enqueue(commands, priority);
+        if (this.log.isDebugEnabled()) {
+            this.log.debug("Enqueued " + commands.size() + " commands with priority " + priority);
+        }
+    }
+
     @Override
     public boolean hasCommands() {
         return this.session.hasCommands();
@@ -254,6 +264,20 @@ public void startTls(final SSLContext sslContext,
         this.session.startTls(sslContext, endpoint, sslBufferMode, initializer, verifier, handshakeTimeout);
     }
 
+    @Override
+    public void startTls(final SSLContext sslContext,
+                         final NamedEndpoint endpoint,
+                         final SSLBufferMode sslBufferMode,
+                         final SSLSessionInitializer initializer,
+                         final SSLSessionVerifier verifier,
+                         final Timeout handshakeTimeout,
+                         final Executor handshakeExecutor) throws UnsupportedOperationException {
+        if (this.log.isDebugEnabled()) {
+            this.log.debug(this.session + " Start TLS");
+        }
+        this.session.startTls(sslContext, endpoint, sslBufferMode, initializer, verifier, handshakeTimeout, handshakeExecutor);
+    }
+
     @Override
     public TlsDetails getTlsDetails() {
         return this.session.getTlsDetails();
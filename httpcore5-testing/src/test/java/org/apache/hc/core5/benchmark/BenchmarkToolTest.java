@@ -142,6 +142,8 @@ public void testBasics() throws Exception {
         Assert.assertEquals(16, results.getContentLength());
         Assert.assertEquals(3, results.getConcurrencyLevel());
         Assert.assertEquals(100 * 16, results.getTotalContentBytesRecvd());
+        Assert.assertNotNull(results.getLatencyHistogram());
+        Assert.assertEquals(100, results.getLatencyHistogram().getTotalCount());
         if (versionPolicy == HttpVersionPolicy.FORCE_HTTP_2) {
             Assert.assertEquals(HttpVersion.HTTP_2, results.getProtocolVersion());
         }
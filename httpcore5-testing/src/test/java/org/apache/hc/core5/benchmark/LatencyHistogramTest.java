@@ -0,0 +1,145 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testIndexRoundTrip() throws Exception {
+        final long[] values = { 0, 1, 127, 128, 255, 256, 257, 1000, 65535, 1234567, Long.MAX_VALUE };
+        for (final long value : values) {
+            final int index = LatencyHistogram.indexOf(value);
+            Assert.assertTrue(LatencyHistogram.lowestEquivalentValue(index) <= value);
+            Assert.assertTrue(LatencyHistogram.highestEquivalentValue(index) >= value);
+            final double error = (double) (LatencyHistogram.highestEquivalentValue(index)
+                    - LatencyHistogram.lowestEquivalentValue(index)) / Math.max(1, value);
+            Assert.assertTrue(error < 0.01);
+        }
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordValue(i);
+        }
+        Assert.assertEquals(100, histogram.getTotalCount());
+        Assert.assertEquals(1, histogram.getMinValue());
+        Assert.assertEquals(100, histogram.getMaxValue());
+        Assert.assertEquals(50.5, histogram.getMean(), 0.001);
+        Assert.assertEquals(1, histogram.getValueAtPercentile(0));
+        Assert.assertEquals(50, histogram.getValueAtPercentile(50));
+        Assert.assertEquals(99, histogram.getValueAtPercentile(99));
+        Assert.assertEquals(100, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testPercentilesLargeValues() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 990; i++) {
+            histogram.recordValue(1000);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.recordValue(1000000);
+        }
+        Assert.assertEquals(1000, histogram.getValueAtPercentile(50), 10);
+        Assert.assertEquals(1000, histogram.getValueAtPercentile(99), 10);
+        Assert.assertEquals(1000000, histogram.getValueAtPercentile(99.9), 10000);
+        Assert.assertEquals(1000000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getTotalCount());
+        Assert.assertEquals(0, histogram.getMinValue());
+        Assert.assertEquals(0, histogram.getMaxValue());
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testAdd() throws Exception {
+        final LatencyHistogram histogram1 = new LatencyHistogram();
+        histogram1.recordValue(10);
+        histogram1.recordValue(20);
+        final LatencyHistogram histogram2 = new LatencyHistogram();
+        histogram2.recordValue(5);
+        histogram2.recordValue(30);
+        histogram1.add(histogram2);
+        histogram1.add(new LatencyHistogram());
+        Assert.assertEquals(4, histogram1.getTotalCount());
+        Assert.assertEquals(5, histogram1.getMinValue());
+        Assert.assertEquals(30, histogram1.getMaxValue());
+        Assert.assertEquals(10, histogram1.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int n = 0; n < 10000; n++) {
+                        histogram.recordValue(n);
+                    }
+                }
+
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(40000, histogram.getTotalCount());
+        Assert.assertEquals(0, histogram.getMinValue());
+        Assert.assertEquals(9999, histogram.getMaxValue());
+    }
+
+    @Test
+    public void testOutputPercentileDistribution() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(100);
+        histogram.recordValue(200);
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        histogram.outputPercentileDistribution(new PrintStream(buf, true, StandardCharsets.US_ASCII.name()), 1000);
+        final String[] lines = new String(buf.toByteArray(), StandardCharsets.US_ASCII).split("\r?\n");
+        Assert.assertEquals("       0.100 0.500000000000          1           2.00", lines[2]);
+        Assert.assertEquals("       0.200 1.000000000000          2", lines[3]);
+        Assert.assertEquals("#[Max     =        0.200, Total count    =            2]", lines[5]);
+    }
+
+}
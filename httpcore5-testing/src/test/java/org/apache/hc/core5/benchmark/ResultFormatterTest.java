@@ -79,4 +79,37 @@ public void testBasics() throws Exception {
         ));
      }
 
+    @Test
+    public void testLatencyPercentiles() throws Exception {
+        final LatencyHistogram latencyHistogram = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) {
+            latencyHistogram.recordValue(1000);
+        }
+        final Results results = new Results(
+                "TestServer/1.1",
+                HttpVersion.HTTP_1_1,
+                "localhost",
+                8080,
+                "/index.html",
+                2924,
+                5,
+                3399,
+                100,
+                0,
+                100,
+                313200,
+                0,
+                292400,
+                latencyHistogram);
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        ResultFormatter.print(new PrintStream(buf, true, StandardCharsets.US_ASCII.name()), results);
+        final String s = new String(buf.toByteArray(), StandardCharsets.US_ASCII).replace("\r\n", "\n");
+        Assert.assertThat(s, CoreMatchers.containsString(
+                "Latency:\t\t\t\t1.000 [ms] (mean), 1.000 [ms] (min), 1.000 [ms] (max)\n" +
+                        "Percentage of the requests served within a certain time (ms)\n" +
+                        "  50%\t\t1.000\n"));
+        Assert.assertThat(s, CoreMatchers.containsString("  99.9%\t\t1.000\n"));
+        Assert.assertThat(s, CoreMatchers.containsString("  100%\t\t1.000 (longest request)\n"));
+    }
+
 }
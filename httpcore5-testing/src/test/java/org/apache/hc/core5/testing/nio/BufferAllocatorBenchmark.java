@@ -0,0 +1,259 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.testing.nio;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.function.Supplier;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.Methods;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.AsyncRequesterBootstrap;
+import org.apache.hc.core5.http.impl.bootstrap.AsyncServerBootstrap;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncRequester;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncClientEndpoint;
+import org.apache.hc.core5.http.nio.AsyncServerExchangeHandler;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.apache.hc.core5.http.nio.entity.NoopEntityConsumer;
+import org.apache.hc.core5.http.nio.ssl.BasicClientTlsStrategy;
+import org.apache.hc.core5.http.nio.ssl.BasicServerTlsStrategy;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.apache.hc.core5.testing.SSLTestContexts;
+import org.apache.hc.core5.util.ByteBufferAllocator;
+import org.apache.hc.core5.util.PooledByteBufferAllocator;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Compares heap buffers with pooled direct buffers for HTTP/1.1 over TLS:
+ * the memory held per idle persistent connection (client and server side
+ * combined) and the throughput of request / response exchanges with an
+ * echoed payload.
+ * <p>
+ * Usage: {@code BufferAllocatorBenchmark [idle connections] [concurrency] [payload size] [seconds]}
+ * </p>
+ */
+public class BufferAllocatorBenchmark {
+
+    private static final Timeout TIMEOUT = Timeout.ofSeconds(30);
+
+    public static void main(final String... args) throws Exception {
+        final int idleConnections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        final int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        final int payloadSize = args.length > 2 ? Integer.parseInt(args[2]) : 16 * 1024;
+        final int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        System.out.printf("%-8s %16s %16s %12s %12s%n",
+                "buffers", "heap/conn (KB)", "direct/conn (KB)", "req/s", "MB/s");
+        for (int round = 0; round < 2; round++) {
+            run("heap", null, idleConnections, concurrency, payloadSize, seconds);
+            run("pooled", new PooledByteBufferAllocator(), idleConnections, concurrency, payloadSize, seconds);
+        }
+    }
+
+    private static void run(
+            final String name,
+            final ByteBufferAllocator allocator,
+            final int idleConnections,
+            final int concurrency,
+            final int payloadSize,
+            final int seconds) throws Exception {
+        final IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setSoTimeout(TIMEOUT)
+                .setIoThreadCount(2)
+                .setBufferAllocator(allocator)
+                .build();
+        final HttpAsyncServer server = AsyncServerBootstrap.bootstrap()
+                .setIOReactorConfig(ioReactorConfig)
+                .register("*", new Supplier<AsyncServerExchangeHandler>() {
+
+                    @Override
+                    public AsyncServerExchangeHandler get() {
+                        return new EchoHandler(2048);
+                    }
+
+                })
+                .setTlsStrategy(new BasicServerTlsStrategy(
+                        SSLTestContexts.createServerSSLContext(),
+                        SecureAllPortsStrategy.INSTANCE))
+                .create();
+        final HttpAsyncRequester requester = AsyncRequesterBootstrap.bootstrap()
+                .setIOReactorConfig(ioReactorConfig)
+                .setTlsStrategy(new BasicClientTlsStrategy(SSLTestContexts.createClientSSLContext()))
+                .setMaxTotal(idleConnections + concurrency)
+                .setDefaultMaxPerRoute(idleConnections + concurrency)
+                .create();
+        try {
+            server.start();
+            final Future<ListenerEndpoint> future = server.listen(new InetSocketAddress(0));
+            final InetSocketAddress address = (InetSocketAddress) future.get().getAddress();
+            final HttpHost target = new HttpHost(URIScheme.HTTPS.id, "localhost", address.getPort());
+            requester.start();
+
+            final byte[] payload = new byte[payloadSize];
+            new Random(0).nextBytes(payload);
+
+            // Warm up
+            final List<AsyncClientEndpoint> endpoints = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                endpoints.add(connect(requester, target));
+            }
+            exchange(endpoints, target, payload, 1);
+
+            final long heapBefore = usedHeap();
+            final long directBefore = usedDirect();
+            final List<AsyncClientEndpoint> idleEndpoints = new ArrayList<>();
+            for (int i = 0; i < idleConnections; i++) {
+                idleEndpoints.add(connect(requester, target));
+            }
+            exchange(idleEndpoints, target, payload, 0);
+            final long heapPerConn = (usedHeap() - heapBefore) / idleConnections;
+            final long directPerConn = (usedDirect() - directBefore) / idleConnections;
+            for (final AsyncClientEndpoint endpoint : idleEndpoints) {
+                endpoint.releaseAndDiscard();
+            }
+
+            final long count = exchange(endpoints, target, payload, seconds);
+            for (final AsyncClientEndpoint endpoint : endpoints) {
+                endpoint.releaseAndDiscard();
+            }
+
+            System.out.printf("%-8s %16.1f %16.1f %12.0f %12.1f%n",
+                    name,
+                    heapPerConn / 1024.0,
+                    directPerConn / 1024.0,
+                    (double) count / seconds,
+                    (double) count * payloadSize * 2 / seconds / (1024 * 1024));
+        } finally {
+            requester.close(CloseMode.IMMEDIATE);
+            server.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    private static AsyncClientEndpoint connect(
+            final HttpAsyncRequester requester, final HttpHost target) throws Exception {
+        return requester.connect(target, TIMEOUT).get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+    }
+
+    /**
+     * Executes request / response exchanges over all endpoints concurrently for the
+     * given number of seconds, or a single exchange per endpoint if {@code seconds} is
+     * {@code 0}. The payload is sent only if {@code seconds} is positive.
+     */
+    private static long exchange(
+            final List<AsyncClientEndpoint> endpoints,
+            final HttpHost target,
+            final byte[] payload,
+            final int seconds) throws Exception {
+        final AtomicBoolean running = new AtomicBoolean(seconds > 0);
+        final AtomicLong count = new AtomicLong();
+        final CountDownLatch latch = new CountDownLatch(endpoints.size());
+        for (final AsyncClientEndpoint endpoint : endpoints) {
+            execute(endpoint, target, seconds > 0 ? payload : null, running, count, latch);
+        }
+        if (seconds > 0) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+            running.set(false);
+        }
+        latch.await(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+        return count.get();
+    }
+
+    private static void execute(
+            final AsyncClientEndpoint endpoint,
+            final HttpHost target,
+            final byte[] payload,
+            final AtomicBoolean running,
+            final AtomicLong count,
+            final CountDownLatch latch) {
+        endpoint.execute(
+                new BasicRequestProducer(Methods.POST, target, "/echo",
+                        payload != null ? new BasicAsyncEntityProducer(payload, ContentType.APPLICATION_OCTET_STREAM) : null),
+                new BasicResponseConsumer<>(new NoopEntityConsumer()),
+                new FutureCallback<Message<HttpResponse, Void>>() {
+
+                    @Override
+                    public void completed(final Message<HttpResponse, Void> result) {
+                        count.incrementAndGet();
+                        if (running.get()) {
+                            execute(endpoint, target, payload, running, count, latch);
+                        } else {
+                            latch.countDown();
+                        }
+                    }
+
+                    @Override
+                    public void failed(final Exception ex) {
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        latch.countDown();
+                    }
+
+                });
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedDirect() {
+        for (final BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.testing.nio;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.core5.benchmark.LatencyHistogram;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.Methods;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncRequester;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.nio.AsyncClientEndpoint;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.NoopEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2RequesterBootstrap;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Measures latency of small responses sharing an HTTP/2 connection with a number of
+ * concurrent bulk downloads, with stream output scheduled in the round-robin fashion
+ * and according to RFC 9218 priorities. Small requests are sent with {@code u=1},
+ * bulk requests with {@code u=5, i} priority.
+ * <p>
+ * Usage: {@code H2StreamSchedulingBenchmark [seconds] [bulk streams] [bulk size KB]}
+ * </p>
+ */
+public class H2StreamSchedulingBenchmark {
+
+    private static final Timeout TIMEOUT = Timeout.ofSeconds(30);
+
+    public static void main(final String... args) throws Exception {
+        final int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        final int bulkStreams = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        final int bulkSize = args.length > 2 ? Integer.parseInt(args[2]) * 1024 : 4 * 1024 * 1024;
+
+        System.out.printf("%-12s %10s %10s %10s %10s %10s %12s%n",
+                "scheduling", "requests", "p50 (ms)", "p99 (ms)", "p99.9 (ms)", "max (ms)", "bulk (MB/s)");
+        for (int round = 0; round < 2; round++) {
+            run("round-robin", false, seconds, bulkStreams, bulkSize);
+            run("priority", true, seconds, bulkStreams, bulkSize);
+        }
+    }
+
+    private static void run(
+            final String name,
+            final boolean prioritySchedulingEnabled,
+            final int seconds,
+            final int bulkStreams,
+            final int bulkSize) throws Exception {
+        final byte[] bulkContent = new byte[bulkSize];
+        final IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setSoTimeout(TIMEOUT)
+                .setIoThreadCount(1)
+                .build();
+        final HttpAsyncServer server = H2ServerBootstrap.bootstrap()
+                .setIOReactorConfig(ioReactorConfig)
+                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                .setH2Config(H2Config.custom()
+                        .setPrioritySchedulingEnabled(prioritySchedulingEnabled)
+                        .build())
+                .register("*", new AsyncServerRequestHandler<Message<HttpRequest, Void>>() {
+
+                    @Override
+                    public AsyncRequestConsumer<Message<HttpRequest, Void>> prepare(
+                            final HttpRequest request,
+                            final EntityDetails entityDetails,
+                            final HttpContext context) throws HttpException {
+                        return new BasicRequestConsumer<>(entityDetails != null ? new NoopEntityConsumer() : null);
+                    }
+
+                    @Override
+                    public void handle(
+                            final Message<HttpRequest, Void> requestObject,
+                            final ResponseTrigger responseTrigger,
+                            final HttpContext context) throws HttpException, IOException {
+                        final boolean bulk = requestObject.getHead().getPath().startsWith("/bulk");
+                        responseTrigger.submitResponse(
+                                AsyncResponseBuilder.create(HttpStatus.SC_OK)
+                                        .setEntity(bulk ? bulkContent : new byte[] {'p', 'o', 'n', 'g'},
+                                                ContentType.APPLICATION_OCTET_STREAM)
+                                        .build(),
+                                context);
+                    }
+
+                })
+                .create();
+        final HttpAsyncRequester requester = H2RequesterBootstrap.bootstrap()
+                .setIOReactorConfig(ioReactorConfig)
+                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                .setH2Config(H2Config.custom()
+                        .setInitialWindowSize(1024 * 1024)
+                        .build())
+                .create();
+        try {
+            server.start();
+            final Future<ListenerEndpoint> future = server.listen(new InetSocketAddress(0));
+            final InetSocketAddress address = (InetSocketAddress) future.get().getAddress();
+            final HttpHost target = new HttpHost(URIScheme.HTTP.id, "localhost", address.getPort());
+            requester.start();
+
+            final AsyncClientEndpoint endpoint = requester.connect(target, TIMEOUT)
+                    .get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final AtomicLong bulkBytes = new AtomicLong();
+            for (int i = 0; i < bulkStreams; i++) {
+                download(endpoint, target, bulkSize, running, bulkBytes);
+            }
+            Thread.sleep(500);
+            bulkBytes.set(0);
+
+            final LatencyHistogram histogram = new LatencyHistogram();
+            final long start = System.nanoTime();
+            final long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+            while (System.nanoTime() < deadline) {
+                final long requestStart = System.nanoTime();
+                final BasicHttpRequest request = new BasicHttpRequest(Methods.GET, target, "/small");
+                request.setHeader("priority", "u=1");
+                final Future<Message<HttpResponse, Void>> resultFuture = endpoint.execute(
+                        new BasicRequestProducer(request, null),
+                        new BasicResponseConsumer<>(new NoopEntityConsumer()), null);
+                resultFuture.get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+                histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestStart));
+                Thread.sleep(1);
+            }
+            final long elapsed = System.nanoTime() - start;
+            running.set(false);
+
+            System.out.printf("%-12s %10d %10.3f %10.3f %10.3f %10.3f %12.1f%n",
+                    name,
+                    histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0,
+                    bulkBytes.get() * 1000.0 / TimeUnit.NANOSECONDS.toMillis(elapsed) / (1024 * 1024));
+            endpoint.releaseAndDiscard();
+        } finally {
+            requester.close(CloseMode.IMMEDIATE);
+            server.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    private static void download(
+            final AsyncClientEndpoint endpoint,
+            final HttpHost target,
+            final int bulkSize,
+            final AtomicBoolean running,
+            final AtomicLong bulkBytes) {
+        if (!running.get()) {
+            return;
+        }
+        final BasicHttpRequest request = new BasicHttpRequest(Methods.GET, target, "/bulk");
+        request.setHeader("priority", "u=5, i");
+        endpoint.execute(
+                new BasicRequestProducer(request, null),
+                new BasicResponseConsumer<>(new NoopEntityConsumer()),
+                new FutureCallback<Message<HttpResponse, Void>>() {
+
+                    @Override
+                    public void completed(final Message<HttpResponse, Void> result) {
+                        bulkBytes.addAndGet(bulkSize);
+                        download(endpoint, target, bulkSize, running, bulkBytes);
+                    }
+
+                    @Override
+                    public void failed(final Exception ex) {
+                    }
+
+                    @Override
+                    public void cancelled() {
+                    }
+
+                });
+    }
+
+}
@@ -0,0 +1,353 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.testing.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.Methods;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncRequester;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.nio.AsyncClientEndpoint;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.AbstractBinAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.entity.NoopEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2RequesterBootstrap;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Measures throughput of HTTP/2 downloads over a loopback connection with artificial latency
+ * with the static default receive window, a static large receive window and the receive window
+ * grown by window auto-tuning. Response content is consumed by a consumer that grants
+ * a fixed capacity increment at a time, the way a consumer with a bounded buffer would.
+ * <p>
+ * Usage: {@code H2WindowAutoTuningBenchmark [seconds] [one-way delay ms] [streams]}
+ * </p>
+ */
+public class H2WindowAutoTuningBenchmark {
+
+    private static final Timeout TIMEOUT = Timeout.ofSeconds(60);
+    private static final int CONTENT_SIZE = 64 * 1024 * 1024;
+    private static final int CAPACITY_INCREMENT = 64 * 1024;
+
+    public static void main(final String... args) throws Exception {
+        final int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        final int delay = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        final int streams = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        System.out.printf("%-16s %10s %12s%n", "window", "delay (ms)", "MB/s");
+        run("static 64KB", H2Config.DEFAULT, seconds, delay, streams);
+        run("static 16MB", H2Config.custom()
+                .setInitialWindowSize(16 * 1024 * 1024)
+                .build(), seconds, delay, streams);
+        run("auto-tuned", H2Config.custom()
+                .setWindowAutoTuningEnabled(true)
+                .build(), seconds, delay, streams);
+    }
+
+    private static void run(
+            final String name,
+            final H2Config h2Config,
+            final int seconds,
+            final int delay,
+            final int streams) throws Exception {
+        final byte[] content = new byte[CONTENT_SIZE];
+        final IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setSoTimeout(TIMEOUT)
+                .setIoThreadCount(1)
+                .build();
+        final HttpAsyncServer server = H2ServerBootstrap.bootstrap()
+                .setIOReactorConfig(ioReactorConfig)
+                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                .register("*", new AsyncServerRequestHandler<Message<HttpRequest, Void>>() {
+
+                    @Override
+                    public AsyncRequestConsumer<Message<HttpRequest, Void>> prepare(
+                            final HttpRequest request,
+                            final EntityDetails entityDetails,
+                            final HttpContext context) throws HttpException {
+                        return new BasicRequestConsumer<>(entityDetails != null ? new NoopEntityConsumer() : null);
+                    }
+
+                    @Override
+                    public void handle(
+                            final Message<HttpRequest, Void> requestObject,
+                            final ResponseTrigger responseTrigger,
+                            final HttpContext context) throws HttpException, IOException {
+                        responseTrigger.submitResponse(
+                                AsyncResponseBuilder.create(HttpStatus.SC_OK)
+                                        .setEntity(content, ContentType.APPLICATION_OCTET_STREAM)
+                                        .build(),
+                                context);
+                    }
+
+                })
+                .create();
+        final HttpAsyncRequester requester = H2RequesterBootstrap.bootstrap()
+                .setIOReactorConfig(ioReactorConfig)
+                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                .setH2Config(h2Config)
+                .create();
+        final DelayingProxy proxy = new DelayingProxy(delay);
+        try {
+            server.start();
+            final Future<ListenerEndpoint> future = server.listen(new InetSocketAddress(0));
+            final InetSocketAddress address = (InetSocketAddress) future.get().getAddress();
+            final int proxyPort = proxy.start(address.getPort());
+            final HttpHost target = new HttpHost(URIScheme.HTTP.id, "localhost", proxyPort);
+            requester.start();
+
+            final AsyncClientEndpoint endpoint = requester.connect(target, TIMEOUT)
+                    .get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final AtomicLong bytes = new AtomicLong();
+            for (int i = 0; i < streams; i++) {
+                download(endpoint, target, running, bytes);
+            }
+            final long start = System.nanoTime();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+            final long total = bytes.get();
+            final long elapsed = System.nanoTime() - start;
+            running.set(false);
+
+            System.out.printf("%-16s %10d %12.1f%n",
+                    name,
+                    delay,
+                    total * 1000.0 / TimeUnit.NANOSECONDS.toMillis(elapsed) / (1024 * 1024));
+            endpoint.releaseAndDiscard();
+        } finally {
+            requester.close(CloseMode.IMMEDIATE);
+            server.close(CloseMode.IMMEDIATE);
+            proxy.shutdown();
+        }
+    }
+
+    private static void download(
+            final AsyncClientEndpoint endpoint,
+            final HttpHost target,
+            final AtomicBoolean running,
+            final AtomicLong bytes) {
+        if (!running.get()) {
+            return;
+        }
+        endpoint.execute(
+                new BasicRequestProducer(new BasicHttpRequest(Methods.GET, target, "/"), null),
+                new BasicResponseConsumer<>(new CountingEntityConsumer(bytes)),
+                new FutureCallback<Message<HttpResponse, Long>>() {
+
+                    @Override
+                    public void completed(final Message<HttpResponse, Long> result) {
+                        download(endpoint, target, running, bytes);
+                    }
+
+                    @Override
+                    public void failed(final Exception ex) {
+                    }
+
+                    @Override
+                    public void cancelled() {
+                    }
+
+                });
+    }
+
+    static class CountingEntityConsumer extends AbstractBinAsyncEntityConsumer<Long> {
+
+        private final AtomicLong total;
+        private long count;
+
+        CountingEntityConsumer(final AtomicLong total) {
+            this.total = total;
+        }
+
+        @Override
+        protected void streamStart(final ContentType contentType) {
+        }
+
+        @Override
+        protected int capacityIncrement() {
+            return CAPACITY_INCREMENT;
+        }
+
+        @Override
+        protected void data(final ByteBuffer src, final boolean endOfStream) {
+            final int n = src.remaining();
+            src.position(src.limit());
+            count += n;
+            total.addAndGet(n);
+        }
+
+        @Override
+        protected Long generateContent() {
+            return count;
+        }
+
+        @Override
+        public void releaseResources() {
+        }
+
+    }
+
+    /**
+     * Plain TCP proxy that holds back every chunk of data for the given time in each direction.
+     */
+    static class DelayingProxy {
+
+        private final long delayNanos;
+        private volatile ServerSocket serverSocket;
+        private volatile boolean shutdown;
+
+        DelayingProxy(final int delayMillis) {
+            this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        }
+
+        int start(final int targetPort) throws IOException {
+            serverSocket = new ServerSocket(0);
+            final Thread acceptor = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        while (!shutdown) {
+                            final Socket client = serverSocket.accept();
+                            final Socket server = new Socket("localhost", targetPort);
+                            client.setTcpNoDelay(true);
+                            server.setTcpNoDelay(true);
+                            relay(client, server);
+                            relay(server, client);
+                        }
+                    } catch (final IOException ignore) {
+                    }
+                }
+
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+            return serverSocket.getLocalPort();
+        }
+
+        private void relay(final Socket source, final Socket destination) throws IOException {
+            final InputStream inputStream = source.getInputStream();
+            final OutputStream outputStream = destination.getOutputStream();
+            final BlockingQueue<Object[]> queue = new LinkedBlockingQueue<>();
+            final Thread reader = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    final byte[] buffer = new byte[64 * 1024];
+                    try {
+                        int n;
+                        while ((n = inputStream.read(buffer)) != -1) {
+                            queue.add(new Object[] {System.nanoTime() + delayNanos, Arrays.copyOf(buffer, n)});
+                        }
+                    } catch (final IOException ignore) {
+                    } finally {
+                        queue.add(new Object[] {0L, null});
+                    }
+                }
+
+            });
+            final Thread writer = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        for (;;) {
+                            final Object[] chunk = queue.take();
+                            final byte[] data = (byte[]) chunk[1];
+                            if (data == null) {
+                                break;
+                            }
+                            final long wait = (Long) chunk[0] - System.nanoTime();
+                            if (wait > 0) {
+                                TimeUnit.NANOSECONDS.sleep(wait);
+                            }
+                            outputStream.write(data);
+                        }
+                    } catch (final IOException | InterruptedException ignore) {
+                    } finally {
+                        try {
+                            destination.shutdownOutput();
+                        } catch (final IOException ignore) {
+                        }
+                    }
+                }
+
+            });
+            reader.setDaemon(true);
+            writer.setDaemon(true);
+            reader.start();
+            writer.start();
+        }
+
+        void shutdown() throws IOException {
+            shutdown = true;
+            final ServerSocket socket = serverSocket;
+            if (socket != null) {
+                socket.close();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,271 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.testing.nio;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpConnection;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.Methods;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncRequester;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.nio.AsyncClientEndpoint;
+import org.apache.hc.core5.http.nio.AsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.entity.NoopEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.http2.frame.FrameType;
+import org.apache.hc.core5.http2.frame.RawFrame;
+import org.apache.hc.core5.http2.impl.nio.H2StreamListener;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2RequesterBootstrap;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Counts WINDOW_UPDATE frames sent by the client while downloading content over a loopback
+ * connection with a consumer that releases input capacity in small increments as it consumes
+ * content, with and without coalescing of window updates.
+ * <p>
+ * Usage: {@code H2WindowUpdateCoalescingBenchmark [requests] [capacity increment]}
+ * </p>
+ */
+public class H2WindowUpdateCoalescingBenchmark {
+
+    private static final Timeout TIMEOUT = Timeout.ofSeconds(60);
+    private static final int CONTENT_SIZE = 16 * 1024 * 1024;
+
+    public static void main(final String... args) throws Exception {
+        final int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        final int capacityIncrement = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+
+        System.out.printf("%-12s %12s %16s %12s%n", "threshold", "increment", "WINDOW_UPDATEs", "MB/s");
+        run(0, requests, capacityIncrement);
+        run(H2Config.DEFAULT.getWindowUpdateThreshold(), requests, capacityIncrement);
+    }
+
+    private static void run(
+            final int threshold,
+            final int requests,
+            final int capacityIncrement) throws Exception {
+        final byte[] content = new byte[CONTENT_SIZE];
+        final IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setSoTimeout(TIMEOUT)
+                .setIoThreadCount(1)
+                .build();
+        final HttpAsyncServer server = H2ServerBootstrap.bootstrap()
+                .setIOReactorConfig(ioReactorConfig)
+                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                .register("*", new AsyncServerRequestHandler<Message<HttpRequest, Void>>() {
+
+                    @Override
+                    public AsyncRequestConsumer<Message<HttpRequest, Void>> prepare(
+                            final HttpRequest request,
+                            final EntityDetails entityDetails,
+                            final HttpContext context) throws HttpException {
+                        return new BasicRequestConsumer<>(entityDetails != null ? new NoopEntityConsumer() : null);
+                    }
+
+                    @Override
+                    public void handle(
+                            final Message<HttpRequest, Void> requestObject,
+                            final ResponseTrigger responseTrigger,
+                            final HttpContext context) throws HttpException, IOException {
+                        responseTrigger.submitResponse(
+                                AsyncResponseBuilder.create(HttpStatus.SC_OK)
+                                        .setEntity(content, ContentType.APPLICATION_OCTET_STREAM)
+                                        .build(),
+                                context);
+                    }
+
+                })
+                .create();
+        final AtomicLong windowUpdates = new AtomicLong();
+        final HttpAsyncRequester requester = H2RequesterBootstrap.bootstrap()
+                .setIOReactorConfig(ioReactorConfig)
+                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                .setH2Config(H2Config.custom()
+                        .setWindowUpdateThreshold(threshold)
+                        .build())
+                .setStreamListener(new H2StreamListener() {
+
+                    @Override
+                    public void onHeaderInput(
+                            final HttpConnection connection, final int streamId, final List<? extends Header> headers) {
+                    }
+
+                    @Override
+                    public void onHeaderOutput(
+                            final HttpConnection connection, final int streamId, final List<? extends Header> headers) {
+                    }
+
+                    @Override
+                    public void onFrameInput(final HttpConnection connection, final int streamId, final RawFrame frame) {
+                    }
+
+                    @Override
+                    public void onFrameOutput(final HttpConnection connection, final int streamId, final RawFrame frame) {
+                        if (frame.isType(FrameType.WINDOW_UPDATE)) {
+                            windowUpdates.incrementAndGet();
+                        }
+                    }
+
+                    @Override
+                    public void onInputFlowControl(
+                            final HttpConnection connection, final int streamId, final int delta, final int actualSize) {
+                    }
+
+                    @Override
+                    public void onOutputFlowControl(
+                            final HttpConnection connection, final int streamId, final int delta, final int actualSize) {
+                    }
+
+                })
+                .create();
+        try {
+            server.start();
+            final Future<ListenerEndpoint> future = server.listen(new InetSocketAddress(0));
+            final InetSocketAddress address = (InetSocketAddress) future.get().getAddress();
+            final HttpHost target = new HttpHost(URIScheme.HTTP.id, "localhost", address.getPort());
+            requester.start();
+
+            final AsyncClientEndpoint endpoint = requester.connect(target, TIMEOUT)
+                    .get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+
+            long total = 0;
+            final long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                final Future<Message<HttpResponse, Long>> resultFuture = endpoint.execute(
+                        new BasicRequestProducer(new BasicHttpRequest(Methods.GET, target, "/"), null),
+                        new BasicResponseConsumer<>(new ReleasingEntityConsumer(capacityIncrement)),
+                        null);
+                total += resultFuture.get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit()).getBody();
+            }
+            final long elapsed = System.nanoTime() - start;
+
+            System.out.printf("%-12s %12d %16d %12.1f%n",
+                    threshold + "%",
+                    capacityIncrement,
+                    windowUpdates.get(),
+                    total * 1000.0 / Math.max(1, TimeUnit.NANOSECONDS.toMillis(elapsed)) / (1024 * 1024));
+            endpoint.releaseAndDiscard();
+        } finally {
+            requester.close(CloseMode.IMMEDIATE);
+            server.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    /**
+     * Consumer that releases input capacity in fixed increments as it consumes content,
+     * the way a consumer reading content into a small buffer would.
+     */
+    static class ReleasingEntityConsumer implements AsyncEntityConsumer<Long> {
+
+        private final int capacityIncrement;
+        private volatile CapacityChannel capacityChannel;
+        private volatile FutureCallback<Long> resultCallback;
+        private long count;
+
+        ReleasingEntityConsumer(final int capacityIncrement) {
+            this.capacityIncrement = capacityIncrement;
+        }
+
+        @Override
+        public void streamStart(final EntityDetails entityDetails, final FutureCallback<Long> resultCallback) {
+            this.resultCallback = resultCallback;
+        }
+
+        @Override
+        public void updateCapacity(final CapacityChannel capacityChannel) throws IOException {
+            this.capacityChannel = capacityChannel;
+        }
+
+        @Override
+        public void consume(final ByteBuffer src) throws IOException {
+            while (src.hasRemaining()) {
+                final int chunk = Math.min(src.remaining(), capacityIncrement);
+                src.position(src.position() + chunk);
+                count += chunk;
+                if (capacityChannel != null) {
+                    capacityChannel.update(chunk);
+                }
+            }
+        }
+
+        @Override
+        public void streamEnd(final List<? extends Header> trailers) {
+            if (resultCallback != null) {
+                resultCallback.completed(count);
+            }
+        }
+
+        @Override
+        public void failed(final Exception cause) {
+            if (resultCallback != null) {
+                resultCallback.failed(cause);
+            }
+        }
+
+        @Override
+        public Long getContent() {
+            return count;
+        }
+
+        @Override
+        public void releaseResources() {
+        }
+
+    }
+
+}
@@ -48,6 +48,7 @@
 import org.apache.hc.core5.http.Message;
 import org.apache.hc.core5.http.Methods;
 import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.config.Http1Config;
 import org.apache.hc.core5.http.impl.bootstrap.AsyncRequesterBootstrap;
 import org.apache.hc.core5.http.impl.bootstrap.AsyncServerBootstrap;
 import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncRequester;
@@ -89,19 +90,25 @@ public class Http1ServerAndRequesterTest {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
-    @Parameterized.Parameters(name = "{0}")
+    @Parameterized.Parameters(name = "{0} release idle buffers: {1}")
     public static Collection<Object[]> protocols() {
         return Arrays.asList(new Object[][]{
-                { URIScheme.HTTP },
-                { URIScheme.HTTPS }
+                { URIScheme.HTTP, false },
+                { URIScheme.HTTPS, false },
+                { URIScheme.HTTP, true },
+                { URIScheme.HTTPS, true }
         });
     }
     private static final Timeout TIMEOUT = Timeout.ofSeconds(30);
 
     private final URIScheme scheme;
+    private final Http1Config http1Config;
 
-    public Http1ServerAndRequesterTest(final URIScheme scheme) {
+    public Http1ServerAndRequesterTest(final URIScheme scheme, final boolean releaseIdleBuffers) {
         this.scheme = scheme;
+        this.http1Config = Http1Config.custom()
+                .setReleaseIdleBuffers(releaseIdleBuffers)
+                .build();
     }
 
     private HttpAsyncServer server;
@@ -118,6 +125,7 @@ protected void before() throws Throwable {
                             IOReactorConfig.custom()
                                     .setSoTimeout(TIMEOUT)
                                     .build())
+                    .sethttp1Config(http1Config)
                     .register("*", new Supplier<AsyncServerExchangeHandler>() {
 
                         @Override
@@ -195,6 +203,7 @@ protected void before() throws Throwable {
                     .setIOReactorConfig(IOReactorConfig.custom()
                             .setSoTimeout(TIMEOUT)
                             .build())
+                    .sethttp1Config(http1Config)
                     .setTlsStrategy(new BasicClientTlsStrategy(SSLTestContexts.createClientSSLContext()))
                     .setStreamListener(LoggingHttp1StreamListener.INSTANCE_CLIENT)
                     .setConnPoolListener(LoggingConnPoolListener.INSTANCE)
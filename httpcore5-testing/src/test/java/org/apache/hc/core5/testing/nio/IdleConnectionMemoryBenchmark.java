@@ -0,0 +1,200 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.testing.nio;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.function.Supplier;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.Methods;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.config.Http1Config;
+import org.apache.hc.core5.http.impl.bootstrap.AsyncRequesterBootstrap;
+import org.apache.hc.core5.http.impl.bootstrap.AsyncServerBootstrap;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncRequester;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncClientEndpoint;
+import org.apache.hc.core5.http.nio.AsyncServerExchangeHandler;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.apache.hc.core5.http.nio.entity.NoopEntityConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.apache.hc.core5.util.ByteBufferAllocator;
+import org.apache.hc.core5.util.PooledByteBufferAllocator;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Measures the memory held per idle persistent HTTP/1.1 connection (client and
+ * server side combined) with and without release of idle session buffers,
+ * for both heap and pooled direct buffers. Each connection executes one
+ * request with a payload large enough to expand its session buffers before
+ * it goes idle. Direct buffers released by idle connections are retained by
+ * the pool for re-use, so the direct memory figure for pooled buffers includes
+ * the capacity retained by the pool.
+ * <p>
+ * Usage: {@code IdleConnectionMemoryBenchmark [idle connections] [payload size]}
+ * </p>
+ */
+public class IdleConnectionMemoryBenchmark {
+
+    private static final Timeout TIMEOUT = Timeout.ofSeconds(30);
+
+    public static void main(final String... args) throws Exception {
+        final int idleConnections = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        final int payloadSize = args.length > 1 ? Integer.parseInt(args[1]) : 32 * 1024;
+
+        System.out.printf("%-8s %-8s %16s %16s%n", "buffers", "release", "heap/conn (KB)", "direct/conn (KB)");
+        for (int round = 0; round < 2; round++) {
+            run("heap", null, false, idleConnections, payloadSize);
+            run("heap", null, true, idleConnections, payloadSize);
+            run("pooled", new PooledByteBufferAllocator(), false, idleConnections, payloadSize);
+            run("pooled", new PooledByteBufferAllocator(), true, idleConnections, payloadSize);
+        }
+    }
+
+    private static void run(
+            final String name,
+            final ByteBufferAllocator allocator,
+            final boolean releaseIdleBuffers,
+            final int idleConnections,
+            final int payloadSize) throws Exception {
+        final IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setSoTimeout(TIMEOUT)
+                .setIoThreadCount(2)
+                .setBufferAllocator(allocator)
+                .build();
+        final Http1Config http1Config = Http1Config.custom()
+                .setReleaseIdleBuffers(releaseIdleBuffers)
+                .build();
+        final HttpAsyncServer server = AsyncServerBootstrap.bootstrap()
+                .setIOReactorConfig(ioReactorConfig)
+                .sethttp1Config(http1Config)
+                .register("*", new Supplier<AsyncServerExchangeHandler>() {
+
+                    @Override
+                    public AsyncServerExchangeHandler get() {
+                        return new EchoHandler(2048);
+                    }
+
+                })
+                .create();
+        final HttpAsyncRequester requester = AsyncRequesterBootstrap.bootstrap()
+                .setIOReactorConfig(ioReactorConfig)
+                .sethttp1Config(http1Config)
+                .setMaxTotal(idleConnections)
+                .setDefaultMaxPerRoute(idleConnections)
+                .create();
+        try {
+            server.start();
+            final Future<ListenerEndpoint> future = server.listen(new InetSocketAddress(0));
+            final InetSocketAddress address = (InetSocketAddress) future.get().getAddress();
+            final HttpHost target = new HttpHost(URIScheme.HTTP.id, "localhost", address.getPort());
+            requester.start();
+
+            final byte[] payload = new byte[payloadSize];
+
+            final long heapBefore = usedHeap();
+            final long directBefore = usedDirect();
+            final List<AsyncClientEndpoint> endpoints = new ArrayList<>();
+            for (int i = 0; i < idleConnections; i++) {
+                endpoints.add(requester.connect(target, TIMEOUT).get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit()));
+            }
+            final CountDownLatch latch = new CountDownLatch(endpoints.size());
+            for (final AsyncClientEndpoint endpoint : endpoints) {
+                endpoint.execute(
+                        new BasicRequestProducer(Methods.POST, target, "/echo",
+                                new BasicAsyncEntityProducer(payload, ContentType.APPLICATION_OCTET_STREAM)),
+                        new BasicResponseConsumer<>(new NoopEntityConsumer()),
+                        new FutureCallback<Message<HttpResponse, Void>>() {
+
+                            @Override
+                            public void completed(final Message<HttpResponse, Void> result) {
+                                latch.countDown();
+                            }
+
+                            @Override
+                            public void failed(final Exception ex) {
+                                latch.countDown();
+                            }
+
+                            @Override
+                            public void cancelled() {
+                                latch.countDown();
+                            }
+
+                        });
+            }
+            latch.await(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+            final long heapPerConn = (usedHeap() - heapBefore) / idleConnections;
+            final long directPerConn = (usedDirect() - directBefore) / idleConnections;
+            for (final AsyncClientEndpoint endpoint : endpoints) {
+                endpoint.releaseAndDiscard();
+            }
+
+            System.out.printf("%-8s %-8s %16.1f %16.1f%n",
+                    name,
+                    releaseIdleBuffers ? "yes" : "no",
+                    heapPerConn / 1024.0,
+                    directPerConn / 1024.0);
+        } finally {
+            requester.close(CloseMode.IMMEDIATE);
+            server.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedDirect() {
+        for (final BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+}
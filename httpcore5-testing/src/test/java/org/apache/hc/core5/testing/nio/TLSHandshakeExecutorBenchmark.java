@@ -0,0 +1,219 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.testing.nio;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.core5.benchmark.LatencyHistogram;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.function.Supplier;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HeaderElements;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.Methods;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.AsyncRequesterBootstrap;
+import org.apache.hc.core5.http.impl.bootstrap.AsyncServerBootstrap;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncRequester;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.nio.AsyncClientEndpoint;
+import org.apache.hc.core5.http.nio.AsyncServerExchangeHandler;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityProducer;
+import org.apache.hc.core5.http.nio.ssl.BasicClientTlsStrategy;
+import org.apache.hc.core5.http.nio.ssl.BasicServerTlsStrategy;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.apache.hc.core5.testing.SSLTestContexts;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Measures request latency over an established TLS connection while the same server
+ * I/O dispatcher is busy with a storm of concurrent TLS handshakes, with delegated
+ * handshake tasks executed either by the I/O dispatch thread or by a separate executor.
+ * <p>
+ * Usage: {@code TLSHandshakeExecutorBenchmark [seconds] [concurrent handshakes] [handshake threads]}
+ * </p>
+ */
+public class TLSHandshakeExecutorBenchmark {
+
+    private static final Timeout TIMEOUT = Timeout.ofSeconds(30);
+
+    public static void main(final String... args) throws Exception {
+        final int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        final int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        final int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %12s%n",
+                "tasks", "requests", "p50 (ms)", "p99 (ms)", "p99.9 (ms)", "max (ms)", "handshakes");
+        for (int round = 0; round < 2; round++) {
+            run("inline", seconds, concurrency, null);
+            final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+            try {
+                run("executor", seconds, concurrency, executorService);
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    private static void run(
+            final String name,
+            final int seconds,
+            final int concurrency,
+            final ExecutorService handshakeExecutor) throws Exception {
+        final IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setSoTimeout(TIMEOUT)
+                .setIoThreadCount(1)
+                .build();
+        final HttpAsyncServer server = AsyncServerBootstrap.bootstrap()
+                .setIOReactorConfig(ioReactorConfig)
+                .register("*", new Supplier<AsyncServerExchangeHandler>() {
+
+                    @Override
+                    public AsyncServerExchangeHandler get() {
+                        return new EchoHandler(2048);
+                    }
+
+                })
+                .setTlsStrategy(new BasicServerTlsStrategy(
+                        SSLTestContexts.createServerSSLContext(),
+                        SecureAllPortsStrategy.INSTANCE,
+                        null,
+                        null,
+                        null,
+                        handshakeExecutor))
+                .create();
+        final HttpAsyncRequester probeRequester = AsyncRequesterBootstrap.bootstrap()
+                .setIOReactorConfig(ioReactorConfig)
+                .setTlsStrategy(new BasicClientTlsStrategy(SSLTestContexts.createClientSSLContext()))
+                .create();
+        final HttpAsyncRequester stormRequester = AsyncRequesterBootstrap.bootstrap()
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setSoTimeout(TIMEOUT)
+                        .setIoThreadCount(4)
+                        .build())
+                .setTlsStrategy(new BasicClientTlsStrategy(SSLTestContexts.createClientSSLContext()))
+                .setMaxTotal(concurrency)
+                .setDefaultMaxPerRoute(concurrency)
+                .create();
+        try {
+            server.start();
+            final Future<ListenerEndpoint> future = server.listen(new InetSocketAddress(0));
+            final InetSocketAddress address = (InetSocketAddress) future.get().getAddress();
+            final HttpHost target = new HttpHost(URIScheme.HTTPS.id, "localhost", address.getPort());
+            probeRequester.start();
+            stormRequester.start();
+
+            final AsyncClientEndpoint endpoint = probeRequester.connect(target, TIMEOUT)
+                    .get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final AtomicLong handshakes = new AtomicLong();
+            for (int i = 0; i < concurrency; i++) {
+                handshake(stormRequester, target, running, handshakes);
+            }
+
+            final LatencyHistogram histogram = new LatencyHistogram();
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            while (System.nanoTime() < deadline) {
+                final long start = System.nanoTime();
+                final Future<Message<HttpResponse, String>> resultFuture = endpoint.execute(
+                        new BasicRequestProducer(Methods.POST, target, "/ping",
+                                new StringAsyncEntityProducer("ping", ContentType.TEXT_PLAIN)),
+                        new BasicResponseConsumer<>(new StringAsyncEntityConsumer()), null);
+                resultFuture.get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+                histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                Thread.sleep(1);
+            }
+            running.set(false);
+            endpoint.releaseAndDiscard();
+
+            System.out.printf("%-10s %10d %10.3f %10.3f %10.3f %10.3f %12d%n",
+                    name,
+                    histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0,
+                    handshakes.get());
+        } finally {
+            stormRequester.close(CloseMode.IMMEDIATE);
+            probeRequester.close(CloseMode.IMMEDIATE);
+            server.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    private static void handshake(
+            final HttpAsyncRequester requester,
+            final HttpHost target,
+            final AtomicBoolean running,
+            final AtomicLong handshakes) {
+        if (!running.get()) {
+            return;
+        }
+        // Non-persistent connections force a new TLS handshake per request
+        final BasicHttpRequest request = new BasicHttpRequest(Methods.GET, target, "/");
+        request.setHeader(HttpHeaders.CONNECTION, HeaderElements.CLOSE);
+        requester.execute(
+                new BasicRequestProducer(request, null),
+                new BasicResponseConsumer<>(new StringAsyncEntityConsumer()),
+                TIMEOUT,
+                new FutureCallback<Message<HttpResponse, String>>() {
+
+                    @Override
+                    public void completed(final Message<HttpResponse, String> result) {
+                        handshakes.incrementAndGet();
+                        handshake(requester, target, running, handshakes);
+                    }
+
+                    @Override
+                    public void failed(final Exception ex) {
+                        handshake(requester, target, running, handshakes);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                    }
+
+                });
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.testing.nio;
+
+import java.net.InetSocketAddress;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.core5.function.Supplier;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.Methods;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.AsyncRequesterBootstrap;
+import org.apache.hc.core5.http.impl.bootstrap.AsyncServerBootstrap;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncRequester;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncServerExchangeHandler;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityProducer;
+import org.apache.hc.core5.http.nio.ssl.BasicClientTlsStrategy;
+import org.apache.hc.core5.http.nio.ssl.BasicServerTlsStrategy;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.apache.hc.core5.testing.SSLTestContexts;
+import org.apache.hc.core5.util.Timeout;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TLSHandshakeExecutorTest {
+
+    private static final Timeout TIMEOUT = Timeout.ofSeconds(30);
+
+    private ExecutorService executorService;
+    private AtomicInteger serverTaskCount;
+    private AtomicInteger clientTaskCount;
+    private HttpAsyncServer server;
+    private HttpAsyncRequester requester;
+
+    private Executor countingExecutor(final AtomicInteger count) {
+        return new Executor() {
+
+            @Override
+            public void execute(final Runnable command) {
+                count.incrementAndGet();
+                executorService.execute(command);
+            }
+
+        };
+    }
+
+    @Before
+    public void setup() throws Exception {
+        executorService = Executors.newFixedThreadPool(2);
+        serverTaskCount = new AtomicInteger();
+        clientTaskCount = new AtomicInteger();
+        server = AsyncServerBootstrap.bootstrap()
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setSoTimeout(TIMEOUT)
+                        .setIoThreadCount(1)
+                        .build())
+                .register("*", new Supplier<AsyncServerExchangeHandler>() {
+
+                    @Override
+                    public AsyncServerExchangeHandler get() {
+                        return new EchoHandler(2048);
+                    }
+
+                })
+                .setTlsStrategy(new BasicServerTlsStrategy(
+                        SSLTestContexts.createServerSSLContext(),
+                        SecureAllPortsStrategy.INSTANCE,
+                        null,
+                        null,
+                        null,
+                        countingExecutor(serverTaskCount)))
+                .create();
+        requester = AsyncRequesterBootstrap.bootstrap()
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setSoTimeout(TIMEOUT)
+                        .setIoThreadCount(1)
+                        .build())
+                .setTlsStrategy(new BasicClientTlsStrategy(
+                        SSLTestContexts.createClientSSLContext(),
+                        null,
+                        null,
+                        null,
+                        countingExecutor(clientTaskCount)))
+                .setMaxTotal(20)
+                .setDefaultMaxPerRoute(20)
+                .create();
+    }
+
+    @After
+    public void shutdown() throws Exception {
+        if (requester != null) {
+            requester.close(CloseMode.GRACEFUL);
+        }
+        if (server != null) {
+            server.close(CloseMode.GRACEFUL);
+        }
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentHandshakes() throws Exception {
+        server.start();
+        final Future<ListenerEndpoint> future = server.listen(new InetSocketAddress(0));
+        final ListenerEndpoint listener = future.get();
+        final InetSocketAddress address = (InetSocketAddress) listener.getAddress();
+        requester.start();
+
+        final HttpHost target = new HttpHost(URIScheme.HTTPS.id, "localhost", address.getPort());
+        final Queue<Future<Message<HttpResponse, String>>> queue = new LinkedList<>();
+        for (int i = 0; i < 20; i++) {
+            queue.add(requester.execute(
+                    new BasicRequestProducer(Methods.POST, target, "/stuff",
+                            new StringAsyncEntityProducer("some stuff " + i, ContentType.TEXT_PLAIN)),
+                    new BasicResponseConsumer<>(new StringAsyncEntityConsumer()), TIMEOUT, null));
+        }
+        while (!queue.isEmpty()) {
+            final Future<Message<HttpResponse, String>> resultFuture = queue.remove();
+            final Message<HttpResponse, String> message = resultFuture.get(TIMEOUT.getDuration(), TIMEOUT.getTimeUnit());
+            Assert.assertThat(message, CoreMatchers.notNullValue());
+            final HttpResponse response = message.getHead();
+            Assert.assertThat(response.getCode(), CoreMatchers.equalTo(HttpStatus.SC_OK));
+            Assert.assertThat(message.getBody(), CoreMatchers.startsWith("some stuff "));
+        }
+        Assert.assertThat(serverTaskCount.get() > 0, CoreMatchers.equalTo(true));
+        Assert.assertThat(clientTaskCount.get() > 0, CoreMatchers.equalTo(true));
+    }
+
+}
@@ -24,10 +24,11 @@ public class Http1Config {
     private final int maxHeaderCount;
     private final int maxEmptyLineCount;
     private final int initialWindowSize;
+    private final boolean releaseIdleBuffers;
 
     Http1Config(final int bufferSize, final int chunkSizeHint, final Timeout waitForContinueTimeout,
                 final int maxLineLength, final int maxHeaderCount, final int maxEmptyLineCount,
-                final int initialWindowSize) {
+                final int initialWindowSize, final boolean releaseIdleBuffers) {
         super();
         this.bufferSize = bufferSize;
         this.chunkSizeHint = chunkSizeHint;
@@ -36,6 +37,7 @@ public class Http1Config {
         this.maxHeaderCount = maxHeaderCount;
         this.maxEmptyLineCount = maxEmptyLineCount;
         this.initialWindowSize = initialWindowSize;
+        this.releaseIdleBuffers = releaseIdleBuffers;
     }
 
     public int getBufferSize() {
@@ -66,6 +68,16 @@ public int getInitialWindowSize() {
         return initialWindowSize;
     }
 
+    /**
+     * Determines whether or not connections should give up their session buffers
+     * while idle and re-acquire them on demand.
+     *
+     * @since 5.0
+     */
+    public boolean isReleaseIdleBuffers() {
+        return releaseIdleBuffers;
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
@@ -76,6 +88,7 @@ public String toString() {
                 .append(", maxHeaderCount=").append(maxHeaderCount)
                 .append(", maxEmptyLineCount=").append(maxEmptyLineCount)
                 .append(", initialWindowSize=").append(initialWindowSize)
+                .append(", releaseIdleBuffers=").append(releaseIdleBuffers)
                 .append("]");
         return builder.toString();
     }
@@ -92,7 +105,8 @@ public static Http1Config.Builder copy(final Http1Config config) {
                 .setWaitForContinueTimeout(config.getWaitForContinueTimeout())
                 .setMaxHeaderCount(config.getMaxHeaderCount())
                 .setMaxLineLength(config.getMaxLineLength())
-                .setMaxEmptyLineCount(config.maxEmptyLineCount);
+                .setMaxEmptyLineCount(config.maxEmptyLineCount)
+                .setReleaseIdleBuffers(config.isReleaseIdleBuffers());
     }
 
     public static class Builder {
@@ -104,6 +118,7 @@ public static class Builder {
         private int maxHeaderCount;
         private int maxEmptyLineCount;
         private int initialWindowSize;
+        private boolean releaseIdleBuffers;
 
         Builder() {
             this.bufferSize = -1;
@@ -113,6 +128,7 @@ public static class Builder {
             this.maxHeaderCount = -1;
             this.maxEmptyLineCount = 10;
             this.initialWindowSize = -1;
+            this.releaseIdleBuffers = false;
         }
 
         public Builder setBufferSize(final int bufferSize) {
@@ -150,6 +166,24 @@ public Builder setInitialWindowSize(final int initialWindowSize) {
             return this;
         }
 
+        /**
+         * Enables or disables release of session buffers by idle connections.
+         * <p>
+         * If enabled, persistent connections return their session input and output
+         * buffers to the buffer allocator once all pending data has been processed
+         * and allocate fresh ones on the next I/O event. This reduces the memory held
+         * by idle keep-alive connections at the cost of more frequent buffer
+         * allocation and works best in combination with a pooling
+         * {@link org.apache.hc.core5.util.ByteBufferAllocator}.
+         * </p>
+         *
+         * @since 5.0
+         */
+        public Builder setReleaseIdleBuffers(final boolean releaseIdleBuffers) {
+            this.releaseIdleBuffers = releaseIdleBuffers;
+            return this;
+        }
+
         public Http1Config build() {
             return new Http1Config(
                     bufferSize > 0 ? bufferSize : 8192,
@@ -158,7 +192,8 @@ public Http1Config build() {
                     maxLineLength,
                     maxHeaderCount,
                     maxEmptyLineCount,
-                    initialWindowSize > 0 ? initialWindowSize : 65535);
+                    initialWindowSize > 0 ? initialWindowSize : 65535,
+                    releaseIdleBuffers);
         }
 
     }
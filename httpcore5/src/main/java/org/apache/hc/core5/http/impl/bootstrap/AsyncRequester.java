@@ -38,6 +38,7 @@
 import org.apache.hc.core5.function.Decorator;
 import org.apache.hc.core5.function.Resolver;
 import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
 import org.apache.hc.core5.http.impl.DefaultAddressResolver;
 import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.reactor.ConnectionInitiator;
@@ -62,6 +63,7 @@ public class AsyncRequester extends AbstractConnectionInitiatorBase implements I
 
     private final DefaultConnectingIOReactor ioReactor;
     private final Resolver<HttpHost, InetSocketAddress> addressResolver;
+    private final boolean asyncNameResolution;
 
     @Internal
     public AsyncRequester(
@@ -81,6 +83,8 @@ public AsyncRequester(
                 sessionListener,
                 sessionShutdownCallback);
         this.addressResolver = addressResolver != null ? addressResolver : DefaultAddressResolver.INSTANCE;
+        this.asyncNameResolution = this.addressResolver == DefaultAddressResolver.INSTANCE
+                && ioReactorConfig != null && ioReactorConfig.getDnsResolver() != null;
     }
 
     @Override
@@ -95,7 +99,27 @@ public Future<IOSession> requestSession(
             final FutureCallback<IOSession> callback) {
         Args.notNull(host, "Host");
         Args.notNull(timeout, "Timeout");
-        return connect(host, addressResolver.resolve(host), null, timeout, attachment, callback);
+        final InetSocketAddress remoteAddress;
+        if (asyncNameResolution) {
+            // Leave name resolution to the DNS resolver of the I/O reactor
+            remoteAddress = InetSocketAddress.createUnresolved(host.getHostName(), getPort(host));
+        } else {
+            remoteAddress = addressResolver.resolve(host);
+        }
+        return connect(host, remoteAddress, null, timeout, attachment, callback);
+    }
+
+    private static int getPort(final HttpHost host) {
+        final int port = host.getPort();
+        if (port < 0) {
+            final String scheme = host.getSchemeName();
+            if (URIScheme.HTTP.same(scheme)) {
+                return 80;
+            } else if (URIScheme.HTTPS.same(scheme)) {
+                return 443;
+            }
+        }
+        return port;
     }
 
     @Override
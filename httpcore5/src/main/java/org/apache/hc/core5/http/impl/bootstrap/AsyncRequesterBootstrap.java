@@ -46,6 +46,7 @@
 import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
 import org.apache.hc.core5.pool.PoolReusePolicy;
 import org.apache.hc.core5.pool.StrictConnPool;
+import org.apache.hc.core5.pool.StripedConnPool;
 import org.apache.hc.core5.reactor.IOEventHandlerFactory;
 import org.apache.hc.core5.reactor.IOReactorConfig;
 import org.apache.hc.core5.reactor.IOSession;
@@ -216,6 +217,15 @@ public HttpAsyncRequester create() {
             case LAX:
                 connPool = new LaxConnPool<>(
                         defaultMaxPerRoute > 0 ? defaultMaxPerRoute : 20,
+                        maxTotal > 0 ? maxTotal : 0,
+                        timeToLive,
+                        poolReusePolicy,
+                        connPoolListener);
+                break;
+            case STRIPED:
+                connPool = new StripedConnPool<>(
+                        defaultMaxPerRoute > 0 ? defaultMaxPerRoute : 20,
+                        maxTotal > 0 ? maxTotal : 50,
                         timeToLive,
                         poolReusePolicy,
                         connPoolListener);
@@ -237,7 +247,10 @@ public HttpAsyncRequester create() {
                 connStrategy,
                 null,
                 null,
-                streamListener);
+                null,
+                null,
+                streamListener,
+                ioReactorConfig != null ? ioReactorConfig.getBufferAllocator() : null);
         final IOEventHandlerFactory ioEventHandlerFactory = new ClientHttp1IOEventHandlerFactory(
                 streamDuplexerFactory,
                 tlsStrategy != null ? tlsStrategy : new BasicClientTlsStrategy(),
@@ -407,7 +407,8 @@ public AsyncServerExchangeHandler decorate(final AsyncServerExchangeHandler hand
                 DefaultHttpResponseWriterFactory.INSTANCE,
                 DefaultContentLengthStrategy.INSTANCE,
                 DefaultContentLengthStrategy.INSTANCE,
-                streamListener);
+                streamListener,
+                ioReactorConfig != null ? ioReactorConfig.getBufferAllocator() : null);
         final IOEventHandlerFactory ioEventHandlerFactory = new ServerHttp1IOEventHandlerFactory(
                 streamHandlerFactory,
                 tlsStrategy,
@@ -53,6 +53,7 @@
 import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
 import org.apache.hc.core5.pool.PoolReusePolicy;
 import org.apache.hc.core5.pool.StrictConnPool;
+import org.apache.hc.core5.pool.StripedConnPool;
 import org.apache.hc.core5.util.Timeout;
 
 /**
@@ -176,6 +177,15 @@ public HttpRequester create() {
             case LAX:
                 connPool = new LaxConnPool<>(
                         defaultMaxPerRoute > 0 ? defaultMaxPerRoute : 20,
+                        maxTotal > 0 ? maxTotal : 0,
+                        timeToLive,
+                        poolReusePolicy,
+                        connPoolListener);
+                break;
+            case STRIPED:
+                connPool = new StripedConnPool<>(
+                        defaultMaxPerRoute > 0 ? defaultMaxPerRoute : 20,
+                        maxTotal > 0 ? maxTotal : 50,
                         timeToLive,
                         poolReusePolicy,
                         connPoolListener);
@@ -31,8 +31,10 @@
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -61,6 +63,7 @@
 import org.apache.hc.core5.http.nio.CapacityChannel;
 import org.apache.hc.core5.http.nio.ContentDecoder;
 import org.apache.hc.core5.http.nio.ContentEncoder;
+import org.apache.hc.core5.http.nio.FileContentEncoder;
 import org.apache.hc.core5.http.nio.NHttpMessageParser;
 import org.apache.hc.core5.http.nio.NHttpMessageWriter;
 import org.apache.hc.core5.http.nio.SessionInputBuffer;
@@ -75,6 +78,8 @@
 import org.apache.hc.core5.reactor.ProtocolIOSession;
 import org.apache.hc.core5.reactor.ssl.TlsDetails;
 import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.Asserts;
+import org.apache.hc.core5.util.ByteBufferAllocator;
 import org.apache.hc.core5.util.Identifiable;
 import org.apache.hc.core5.util.Timeout;
 
@@ -94,9 +99,10 @@ private enum ConnectionState { READY, ACTIVE, GRACEFUL_SHUTDOWN, SHUTDOWN}
     private final NHttpMessageWriter<OutgoingMessage> outgoingMessageWriter;
     private final ContentLengthStrategy incomingContentStrategy;
     private final ContentLengthStrategy outgoingContentStrategy;
-    private final ByteBuffer contentBuffer;
     private final AtomicInteger outputRequests;
 
+    private ByteBuffer contentBuffer;
+
     private volatile Message<IncomingMessage, ContentDecoder> incomingMessage;
     private volatile Message<OutgoingMessage, ContentEncoder> outgoingMessage;
     private volatile ConnectionState connState;
@@ -112,15 +118,18 @@ private enum ConnectionState { READY, ACTIVE, GRACEFUL_SHUTDOWN, SHUTDOWN}
             final NHttpMessageParser<IncomingMessage> incomingMessageParser,
             final NHttpMessageWriter<OutgoingMessage> outgoingMessageWriter,
             final ContentLengthStrategy incomingContentStrategy,
-            final ContentLengthStrategy outgoingContentStrategy) {
+            final ContentLengthStrategy outgoingContentStrategy,
+            final ByteBufferAllocator bufferAllocator) {
         this.ioSession = Args.notNull(ioSession, "I/O session");
         this.http1Config = http1Config != null ? http1Config : Http1Config.DEFAULT;
         final int bufferSize = this.http1Config.getBufferSize();
         this.inbuf = new SessionInputBufferImpl(bufferSize, bufferSize < 512 ? bufferSize : 512,
                 this.http1Config.getMaxLineLength(),
-                CharCodingSupport.createDecoder(charCodingConfig));
+                CharCodingSupport.createDecoder(charCodingConfig),
+                bufferAllocator);
         this.outbuf = new SessionOutputBufferImpl(bufferSize, bufferSize < 512 ? bufferSize : 512,
-                CharCodingSupport.createEncoder(charCodingConfig));
+                CharCodingSupport.createEncoder(charCodingConfig),
+                bufferAllocator);
         this.inTransportMetrics = new BasicHttpTransportMetrics();
         this.outTransportMetrics = new BasicHttpTransportMetrics();
         this.connMetrics = new BasicHttpConnectionMetrics(inTransportMetrics, outTransportMetrics);
@@ -130,7 +139,6 @@ private enum ConnectionState { READY, ACTIVE, GRACEFUL_SHUTDOWN, SHUTDOWN}
                 DefaultContentLengthStrategy.INSTANCE;
         this.outgoingContentStrategy = outgoingContentStrategy != null ? outgoingContentStrategy :
                 DefaultContentLengthStrategy.INSTANCE;
-        this.contentBuffer = ByteBuffer.allocate(this.http1Config.getBufferSize());
         this.outputRequests = new AtomicInteger(0);
         this.connState = ConnectionState.READY;
     }
@@ -303,6 +311,9 @@ public final void onInput() throws HttpException, IOException {
                 // over its declared capacity in order to avoid having
                 // unprocessed message body content stuck in the session
                 // input buffer
+                if (contentBuffer == null) {
+                    contentBuffer = ByteBuffer.allocate(http1Config.getBufferSize());
+                }
                 int bytesRead;
                 while ((bytesRead = contentDecoder.read(contentBuffer)) > 0) {
                     totalBytesRead += bytesRead;
@@ -329,6 +340,10 @@ public final void onInput() throws HttpException, IOException {
                 break;
             }
         }
+        if (http1Config.isReleaseIdleBuffers() && incomingMessage == null && !inbuf.hasData()) {
+            inbuf.release();
+            contentBuffer = null;
+        }
     }
 
     public final void onOutput() throws IOException, HttpException {
@@ -356,6 +371,9 @@ public final void onOutput() throws IOException, HttpException {
                     outputRequests.addAndGet(-pendingOutputRequests);
                 }
                 outputEnd = outgoingMessage == null && !outbuf.hasData();
+                if (outputEnd && http1Config.isReleaseIdleBuffers()) {
+                    outbuf.release();
+                }
             } finally {
                 ioSession.getLock().unlock();
             }
@@ -399,6 +417,13 @@ public final void onException(final Exception ex) {
 
     public final void onDisconnect() {
         disconnected();
+        ioSession.getLock().lock();
+        try {
+            inbuf.release();
+            outbuf.release();
+        } finally {
+            ioSession.getLock().unlock();
+        }
         for (;;) {
             final Command command = ioSession.poll();
             if (command != null) {
@@ -506,6 +531,38 @@ int streamOutput(final ByteBuffer src) throws IOException {
         }
     }
 
+    boolean isFileTransferSupported() {
+        ioSession.getLock().lock();
+        try {
+            // Direct transfer only makes sense if the content goes unmodified
+            // straight to the socket, that is, with identity or length delimited
+            // coding and no TLS layer or I/O session decorator in between.
+            return outgoingMessage != null
+                    && outgoingMessage.getBody() instanceof FileContentEncoder
+                    && ioSession.channel() instanceof SocketChannel;
+        } finally {
+            ioSession.getLock().unlock();
+        }
+    }
+
+    long streamTransfer(final FileChannel src, final long position, final long count) throws IOException {
+        ioSession.getLock().lock();
+        try {
+            if (outgoingMessage == null) {
+                throw new ClosedChannelException();
+            }
+            final ContentEncoder contentEncoder = outgoingMessage.getBody();
+            Asserts.check(contentEncoder instanceof FileContentEncoder, "File transfer not supported");
+            final long bytesWritten = ((FileContentEncoder) contentEncoder).transfer(src, position, count);
+            if (bytesWritten > 0) {
+                ioSession.setEvent(SelectionKey.OP_WRITE);
+            }
+            return bytesWritten;
+        } finally {
+            ioSession.getLock().unlock();
+        }
+    }
+
     enum MessageDelineation { NONE, CHUNK_CODED, MESSAGE_HEAD}
 
     MessageDelineation endOutputStream(final List<? extends Header> trailers) throws IOException {
@@ -29,6 +29,7 @@
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.hc.core5.http.HttpException;
@@ -60,12 +61,20 @@ private enum State {
     private CharArrayBuffer lineBuf;
     private final List<CharArrayBuffer> headerBufs;
     private int emptyLineCount;
+    private CharArrayBuffer headerBlock;
+    private int[] headerEnds;
+    private int headerCount;
 
     private final LineParser lineParser;
     private final Http1Config messageConstraints;
 
     /**
      * Creates an instance of AbstractMessageParser.
+     * <p>
+     * If the line parser is an instance of {@link LazyLineParser} header lines
+     * get read into a single per-message buffer and are exposed as views of that
+     * buffer without being copied or decoded upfront.
+     * </p>
      *
      * @param lineParser the line parser. If {@code null}
      *   {@link org.apache.hc.core5.http.message.LazyLineParser#INSTANCE} will be used.
@@ -90,6 +99,8 @@ LineParser getLineParser() {
     public void reset() {
         this.state = State.READ_HEAD_LINE;
         this.headerBufs.clear();
+        this.headerBlock = null;
+        this.headerCount = 0;
         this.emptyLineCount = 0;
         this.message = null;
     }
@@ -141,11 +152,87 @@ private void parseHeader() throws IOException {
         }
     }
 
+    private void parseHeaderLine(final int lineStart) throws IOException {
+        final CharArrayBuffer block = this.headerBlock;
+        final int lineEnd = block.length();
+        final char first = block.charAt(lineStart);
+        if ((first == ' ' || first == '\t') && this.headerCount > 0) {
+            // Handle folded header line by shifting its content next to the previous line
+            final int previousStart = this.headerCount > 1 ? this.headerEnds[this.headerCount - 2] : 0;
+            int i = lineStart;
+            while (i < lineEnd) {
+                final char ch = block.charAt(i);
+                if (ch != ' ' && ch != '\t') {
+                    break;
+                }
+                i++;
+            }
+            final int maxLineLen = this.messageConstraints.getMaxLineLength();
+            if (maxLineLen > 0 && lineStart - previousStart + 1 + lineEnd - i > maxLineLen) {
+                throw new MessageConstraintException("Maximum line length limit exceeded");
+            }
+            final char[] chars = block.array();
+            chars[lineStart] = ' ';
+            System.arraycopy(chars, i, chars, lineStart + 1, lineEnd - i);
+            block.setLength(lineStart + 1 + lineEnd - i);
+            this.headerEnds[this.headerCount - 1] = block.length();
+        } else {
+            if (this.headerEnds == null) {
+                this.headerEnds = new int[16];
+            } else if (this.headerCount == this.headerEnds.length) {
+                this.headerEnds = Arrays.copyOf(this.headerEnds, this.headerCount << 1);
+            }
+            this.headerEnds[this.headerCount++] = lineEnd;
+        }
+    }
+
+    private boolean readHeaderLine(
+            final SessionInputBuffer sessionBuffer, final boolean endOfStream) throws IOException {
+        if (this.headerBlock == null) {
+            this.headerBlock = new CharArrayBuffer(256);
+        }
+        final CharArrayBuffer block = this.headerBlock;
+        final int lineStart = block.length();
+        final boolean lineComplete = sessionBuffer.readLine(block, endOfStream);
+        final int maxLineLen = this.messageConstraints.getMaxLineLength();
+        if (maxLineLen > 0 &&
+                (block.length() - lineStart > maxLineLen ||
+                        (!lineComplete && sessionBuffer.length() > maxLineLen))) {
+            throw new MessageConstraintException("Maximum line length limit exceeded");
+        }
+        if (!lineComplete) {
+            return false;
+        }
+        if (block.length() > lineStart) {
+            final int maxHeaderCount = this.messageConstraints.getMaxHeaderCount();
+            if (maxHeaderCount > 0 && this.headerCount >= maxHeaderCount) {
+                throw new MessageConstraintException("Maximum header count exceeded");
+            }
+            parseHeaderLine(lineStart);
+        } else {
+            // A bare LF may have caused a trailing CR of the previous line to be discarded
+            if (this.headerCount > 0 && this.headerEnds[this.headerCount - 1] > block.length()) {
+                this.headerEnds[this.headerCount - 1] = block.length();
+            }
+            this.state = State.COMPLETED;
+        }
+        return true;
+    }
+
     @Override
     public T parse(
             final SessionInputBuffer sessionBuffer, final boolean endOfStream) throws IOException, HttpException {
         Args.notNull(sessionBuffer, "Session input buffer");
         while (this.state !=State.COMPLETED) {
+            if (this.state == State.READ_HEADERS && this.lineParser instanceof LazyLineParser) {
+                if (!readHeaderLine(sessionBuffer, endOfStream)) {
+                    break;
+                }
+                if (endOfStream && !sessionBuffer.hasData()) {
+                    this.state = State.COMPLETED;
+                }
+                continue;
+            }
             if (this.lineBuf == null) {
                 this.lineBuf = new CharArrayBuffer(64);
             } else {
@@ -187,6 +274,15 @@ public T parse(
             }
         }
         if (this.state ==State. COMPLETED) {
+            if (this.headerCount > 0) {
+                final LazyLineParser lazyLineParser = (LazyLineParser) this.lineParser;
+                int start = 0;
+                for (int i = 0; i < this.headerCount; i++) {
+                    final int end = this.headerEnds[i];
+                    this.message.addHeader(lazyLineParser.parseHeader(this.headerBlock, start, end));
+                    start = end;
+                }
+            }
             for (final CharArrayBuffer buffer : this.headerBufs) {
                 this.message.addHeader(this.lineParser.parseHeader(buffer));
             }
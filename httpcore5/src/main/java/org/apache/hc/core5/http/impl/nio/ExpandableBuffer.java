@@ -30,6 +30,9 @@
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 
+import org.apache.hc.core5.util.ByteBufferAllocator;
+import org.apache.hc.core5.util.HeapByteBufferAllocator;
+
 /**
  * A buffer that expand its capacity on demand. Internally, this class is backed
  * by an instance of {@link ByteBuffer}.
@@ -44,6 +47,9 @@ public enum Mode {
         INPUT, OUTPUT
     }
 
+    private final ByteBufferAllocator allocator;
+    private final int bufferSize;
+
     private Mode mode;
     private ByteBuffer buffer;
 
@@ -54,13 +60,31 @@ public enum Mode {
      * </p>
      *
      * @param bufferSize the buffer size.
+     * @param allocator the buffer allocator. If {@code null}
+     *   {@link HeapByteBufferAllocator#INSTANCE} will be used.
+     *
+     * @since 5.0
      */
-    protected ExpandableBuffer(final int bufferSize) {
+    protected ExpandableBuffer(final int bufferSize, final ByteBufferAllocator allocator) {
         super();
-        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.allocator = allocator != null ? allocator : HeapByteBufferAllocator.INSTANCE;
+        this.bufferSize = bufferSize;
+        this.buffer = this.allocator.allocate(bufferSize);
         this.mode = Mode.INPUT;
     }
 
+    /**
+     * Allocates buffer of the given size.
+     * <p>
+     * Sets the mode to input.
+     * </p>
+     *
+     * @param bufferSize the buffer size.
+     */
+    protected ExpandableBuffer(final int bufferSize) {
+        this(bufferSize, null);
+    }
+
     /**
      * Returns the current mode:
      * <p>
@@ -75,6 +99,10 @@ public Mode mode() {
     }
 
     public ByteBuffer buffer() {
+        if (this.buffer == null) {
+            this.buffer = this.allocator.allocate(this.bufferSize);
+            this.mode = Mode.INPUT;
+        }
         return this.buffer;
     }
 
@@ -83,7 +111,7 @@ public ByteBuffer buffer() {
      */
     protected void setOutputMode() {
         if (this.mode != Mode.OUTPUT) {
-            this.buffer.flip();
+            buffer().flip();
             this.mode = Mode.OUTPUT;
         }
     }
@@ -93,20 +121,21 @@ protected void setOutputMode() {
      */
     protected void setInputMode() {
         if (this.mode != Mode.INPUT) {
-            if (this.buffer.hasRemaining()) {
-                this.buffer.compact();
+            if (buffer().hasRemaining()) {
+                buffer().compact();
             } else {
-                this.buffer.clear();
+                buffer().clear();
             }
             this.mode = Mode.INPUT;
         }
     }
 
     private void expandCapacity(final int capacity) {
-        final ByteBuffer oldBuffer = this.buffer;
-        this.buffer = ByteBuffer.allocate(capacity);
+        final ByteBuffer oldBuffer = buffer();
+        this.buffer = this.allocator.allocate(capacity);
         oldBuffer.flip();
         this.buffer.put(oldBuffer);
+        this.allocator.release(oldBuffer);
     }
 
     /**
@@ -115,7 +144,7 @@ private void expandCapacity(final int capacity) {
      * @throws BufferOverflowException in case we get over the maximum allowed value
      */
     protected void expand() throws BufferOverflowException {
-        int newcapacity = (this.buffer.capacity() + 1) << 1;
+        int newcapacity = (buffer().capacity() + 1) << 1;
         if (newcapacity < 0) {
             final int vmBytes = Long.SIZE >> 3;
             final int javaBytes = 8; // this is to be checked when the JVM version changes
@@ -131,7 +160,7 @@ protected void expand() throws BufferOverflowException {
             // source of inspiration: https://bugs.openjdk.java.net/browse/JDK-8059914
             newcapacity = Integer.MAX_VALUE - headRoom;
 
-            if (newcapacity <= this.buffer.capacity()) {
+            if (newcapacity <= buffer().capacity()) {
                 throw new BufferOverflowException();
             }
         }
@@ -144,7 +173,7 @@ protected void expand() throws BufferOverflowException {
      * @param requiredCapacity the required capacity.
      */
     protected void ensureCapacity(final int requiredCapacity) {
-        if (requiredCapacity > this.buffer.capacity()) {
+        if (requiredCapacity > buffer().capacity()) {
             expandCapacity(requiredCapacity);
         }
     }
@@ -159,6 +188,9 @@ protected void ensureCapacity(final int requiredCapacity) {
      *   {@code false} otherwise.
      */
     public boolean hasData() {
+        if (this.buffer == null) {
+            return false;
+        }
         setOutputMode();
         return this.buffer.hasRemaining();
     }
@@ -172,6 +204,9 @@ public boolean hasData() {
      * @return buffer length.
      */
     public int length() {
+        if (this.buffer == null) {
+            return 0;
+        }
         setOutputMode();
         return this.buffer.remaining();
     }
@@ -183,7 +218,7 @@ public int length() {
      */
     public int capacity() {
         setInputMode();
-        return this.buffer.remaining();
+        return buffer().remaining();
     }
 
     /**
@@ -193,7 +228,27 @@ public int capacity() {
      * </p>
      */
     protected void clear() {
-        this.buffer.clear();
+        if (this.buffer != null) {
+            this.buffer.clear();
+        }
+        this.mode = Mode.INPUT;
+    }
+
+    /**
+     * Releases the underlying buffer back to the allocator discarding its content.
+     * A new buffer gets allocated on demand.
+     * <p>
+     * Sets the mode to input.
+     * </p>
+     *
+     * @since 5.0
+     */
+    protected void release() {
+        if (this.buffer != null) {
+            final ByteBuffer oldBuffer = this.buffer;
+            this.buffer = null;
+            this.allocator.release(oldBuffer);
+        }
         this.mode = Mode.INPUT;
     }
 
@@ -202,12 +257,16 @@ public String toString() {
         final StringBuilder sb = new StringBuilder();
         sb.append("[mode=");
         sb.append(this.mode);
-        sb.append(" pos=");
-        sb.append(this.buffer.position());
-        sb.append(" lim=");
-        sb.append(this.buffer.limit());
-        sb.append(" cap=");
-        sb.append(this.buffer.capacity());
+        if (this.buffer != null) {
+            sb.append(" pos=");
+            sb.append(this.buffer.position());
+            sb.append(" lim=");
+            sb.append(this.buffer.limit());
+            sb.append(" cap=");
+            sb.append(this.buffer.capacity());
+        } else {
+            sb.append(" released");
+        }
         sb.append("]");
         return sb.toString();
     }
@@ -27,6 +27,7 @@
 package org.apache.hc.core5.http.impl.nio;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 
 import org.apache.hc.core5.http.HttpException;
 import org.apache.hc.core5.http.HttpMessage;
@@ -47,6 +48,10 @@
 
     boolean abortGracefully() throws IOException;
 
+    boolean isFileTransferSupported();
+
+    long transfer(FileChannel src, long position, long count) throws IOException;
+
     Timeout getSocketTimeout();
 
     void setSocketTimeout(Timeout timeout);
@@ -29,6 +29,7 @@
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.List;
@@ -66,6 +67,7 @@
 import org.apache.hc.core5.reactor.ProtocolIOSession;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.Asserts;
+import org.apache.hc.core5.util.ByteBufferAllocator;
 import org.apache.hc.core5.util.Timeout;
 
 /**
@@ -103,7 +105,27 @@ public ServerHttp1StreamDuplexer(
             final ContentLengthStrategy incomingContentStrategy,
             final ContentLengthStrategy outgoingContentStrategy,
             final Http1StreamListener streamListener) {
-        super(ioSession, http1Config, charCodingConfig, incomingMessageParser, outgoingMessageWriter, incomingContentStrategy, outgoingContentStrategy);
+        this(ioSession, httpProcessor, exchangeHandlerFactory, scheme, http1Config, charCodingConfig,
+                connectionReuseStrategy, incomingMessageParser, outgoingMessageWriter,
+                incomingContentStrategy, outgoingContentStrategy, streamListener, null);
+    }
+
+    public ServerHttp1StreamDuplexer(
+            final ProtocolIOSession ioSession,
+            final HttpProcessor httpProcessor,
+            final HandlerFactory<AsyncServerExchangeHandler> exchangeHandlerFactory,
+            final String scheme,
+            final Http1Config http1Config,
+            final CharCodingConfig charCodingConfig,
+            final ConnectionReuseStrategy connectionReuseStrategy,
+            final NHttpMessageParser<HttpRequest> incomingMessageParser,
+            final NHttpMessageWriter<HttpResponse> outgoingMessageWriter,
+            final ContentLengthStrategy incomingContentStrategy,
+            final ContentLengthStrategy outgoingContentStrategy,
+            final Http1StreamListener streamListener,
+            final ByteBufferAllocator bufferAllocator) {
+        super(ioSession, http1Config, charCodingConfig, incomingMessageParser, outgoingMessageWriter,
+                incomingContentStrategy, outgoingContentStrategy, bufferAllocator);
         this.httpProcessor = Args.notNull(httpProcessor, "HTTP processor");
         this.exchangeHandlerFactory = Args.notNull(exchangeHandlerFactory, "Exchange handler factory");
         this.scheme = scheme;
@@ -155,6 +177,16 @@ public int write(final ByteBuffer src) throws IOException {
                 return streamOutput(src);
             }
 
+            @Override
+            public boolean isFileTransferSupported() {
+                return ServerHttp1StreamDuplexer.this.isFileTransferSupported();
+            }
+
+            @Override
+            public long transfer(final FileChannel src, final long position, final long count) throws IOException {
+                return streamTransfer(src, position, count);
+            }
+
             @Override
             public void complete(final List<? extends Header> trailers) throws IOException {
                 endOutputStream(trailers);
@@ -484,6 +516,20 @@ public int write(final ByteBuffer src) throws IOException {
             }
         }
 
+        @Override
+        public boolean isFileTransferSupported() {
+            synchronized (this) {
+                return direct && channel.isFileTransferSupported();
+            }
+        }
+
+        @Override
+        public long transfer(final FileChannel src, final long position, final long count) throws IOException {
+            synchronized (this) {
+                return direct ? channel.transfer(src, position, count) : 0;
+            }
+        }
+
         @Override
         public void complete(final List<? extends Header> trailers) throws IOException {
             synchronized (this) {
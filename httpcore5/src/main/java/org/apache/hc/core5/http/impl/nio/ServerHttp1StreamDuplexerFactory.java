@@ -46,6 +46,7 @@
 import org.apache.hc.core5.http.protocol.HttpProcessor;
 import org.apache.hc.core5.reactor.ProtocolIOSession;
 import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteBufferAllocator;
 
 /**
  * {@link ServerHttp1StreamDuplexer} factory.
@@ -66,6 +67,7 @@ public final class ServerHttp1StreamDuplexerFactory {
     private final ContentLengthStrategy incomingContentStrategy;
     private final ContentLengthStrategy outgoingContentStrategy;
     private final Http1StreamListener streamListener;
+    private final ByteBufferAllocator bufferAllocator;
 
     public ServerHttp1StreamDuplexerFactory(
             final HttpProcessor httpProcessor,
@@ -77,7 +79,8 @@ public ServerHttp1StreamDuplexerFactory(
             final NHttpMessageWriterFactory<HttpResponse> responseWriterFactory,
             final ContentLengthStrategy incomingContentStrategy,
             final ContentLengthStrategy outgoingContentStrategy,
-            final Http1StreamListener streamListener) {
+            final Http1StreamListener streamListener,
+            final ByteBufferAllocator bufferAllocator) {
         this.httpProcessor = Args.notNull(httpProcessor, "HTTP processor");
         this.exchangeHandlerFactory = Args.notNull(exchangeHandlerFactory, "Exchange handler factory");
         this.http1Config = http1Config != null ? http1Config : Http1Config.DEFAULT;
@@ -93,6 +96,23 @@ public ServerHttp1StreamDuplexerFactory(
         this.outgoingContentStrategy = outgoingContentStrategy != null ? outgoingContentStrategy :
                 DefaultContentLengthStrategy.INSTANCE;
         this.streamListener = streamListener;
+        this.bufferAllocator = bufferAllocator;
+    }
+
+    public ServerHttp1StreamDuplexerFactory(
+            final HttpProcessor httpProcessor,
+            final HandlerFactory<AsyncServerExchangeHandler> exchangeHandlerFactory,
+            final Http1Config http1Config,
+            final CharCodingConfig charCodingConfig,
+            final ConnectionReuseStrategy connectionReuseStrategy,
+            final NHttpMessageParserFactory<HttpRequest> requestParserFactory,
+            final NHttpMessageWriterFactory<HttpResponse> responseWriterFactory,
+            final ContentLengthStrategy incomingContentStrategy,
+            final ContentLengthStrategy outgoingContentStrategy,
+            final Http1StreamListener streamListener) {
+        this(httpProcessor, exchangeHandlerFactory, http1Config, charCodingConfig,
+                connectionReuseStrategy, requestParserFactory, responseWriterFactory,
+                incomingContentStrategy, outgoingContentStrategy, streamListener, null);
     }
 
     public ServerHttp1StreamDuplexerFactory(
@@ -128,7 +148,8 @@ public ServerHttp1StreamDuplexer create(final String scheme, final ProtocolIOSes
                 responseWriterFactory.create(),
                 incomingContentStrategy,
                 outgoingContentStrategy,
-                streamListener);
+                streamListener,
+                bufferAllocator);
     }
 
 }
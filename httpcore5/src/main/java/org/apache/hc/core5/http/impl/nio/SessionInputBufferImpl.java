@@ -40,6 +40,7 @@
 import org.apache.hc.core5.http.MessageConstraintException;
 import org.apache.hc.core5.http.nio.SessionInputBuffer;
 import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteBufferAllocator;
 import org.apache.hc.core5.util.CharArrayBuffer;
 
 /**
@@ -65,20 +66,42 @@ public class SessionInputBufferImpl extends ExpandableBuffer implements SessionI
      * @param charDecoder charDecoder to be used for decoding HTTP protocol elements.
      *   If {@code null} simple type cast will be used for byte to char conversion.
      * @param maxLineLen maximum line length.
+     * @param allocator buffer allocator. If {@code null} heap buffers will be used.
      *
-     * @since 4.4
+     * @since 5.0
      */
     public SessionInputBufferImpl(
             final int bufferSize,
             final int lineBuffersize,
             final int maxLineLen,
-            final CharsetDecoder charDecoder) {
-        super(bufferSize);
+            final CharsetDecoder charDecoder,
+            final ByteBufferAllocator allocator) {
+        super(bufferSize, allocator);
         this.lineBuffersize = Args.positive(lineBuffersize, "Line buffer size");
         this.maxLineLen = maxLineLen > 0 ? maxLineLen : 0;
         this.charDecoder = charDecoder;
     }
 
+    /**
+     *  Creates SessionInputBufferImpl instance.
+     *
+     * @param bufferSize input buffer size
+     * @param lineBuffersize buffer size for line operations. Has effect only if
+     *   {@code charDecoder} is not {@code null}.
+     * @param charDecoder charDecoder to be used for decoding HTTP protocol elements.
+     *   If {@code null} simple type cast will be used for byte to char conversion.
+     * @param maxLineLen maximum line length.
+     *
+     * @since 4.4
+     */
+    public SessionInputBufferImpl(
+            final int bufferSize,
+            final int lineBuffersize,
+            final int maxLineLen,
+            final CharsetDecoder charDecoder) {
+        this(bufferSize, lineBuffersize, maxLineLen, charDecoder, null);
+    }
+
     /**
      * @since 4.3
      */
@@ -116,6 +139,18 @@ public SessionInputBufferImpl(final int bufferSize) {
         this(bufferSize, 256);
     }
 
+    /**
+     * Releases the session buffer as well as the line buffer. New buffers
+     * get allocated on demand.
+     *
+     * @since 5.0
+     */
+    @Override
+    protected void release() {
+        super.release();
+        this.charbuffer = null;
+    }
+
     public void put(final ByteBuffer src) {
         if (src != null && src.hasRemaining()) {
             setInputMode();
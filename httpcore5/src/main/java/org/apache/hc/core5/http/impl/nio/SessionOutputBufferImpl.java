@@ -40,6 +40,7 @@
 import org.apache.hc.core5.http.Chars;
 import org.apache.hc.core5.http.nio.SessionOutputBuffer;
 import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteBufferAllocator;
 import org.apache.hc.core5.util.CharArrayBuffer;
 
 /**
@@ -65,18 +66,38 @@ public class SessionOutputBufferImpl extends ExpandableBuffer implements Session
      *   {@code charEncoder} is not {@code null}.
      * @param charEncoder charEncoder to be used for encoding HTTP protocol elements.
      *   If {@code null} simple type cast will be used for char to byte conversion.
+     * @param allocator buffer allocator. If {@code null} heap buffers will be used.
      *
-     * @since 4.3
+     * @since 5.0
      */
     public SessionOutputBufferImpl(
             final int bufferSize,
             final int lineBuffersize,
-            final CharsetEncoder charEncoder) {
-        super(bufferSize);
+            final CharsetEncoder charEncoder,
+            final ByteBufferAllocator allocator) {
+        super(bufferSize, allocator);
         this.lineBuffersize = Args.positive(lineBuffersize, "Line buffer size");
         this.charEncoder = charEncoder;
     }
 
+    /**
+     *  Creates SessionOutputBufferImpl instance.
+     *
+     * @param bufferSize input buffer size
+     * @param lineBuffersize buffer size for line operations. Has effect only if
+     *   {@code charEncoder} is not {@code null}.
+     * @param charEncoder charEncoder to be used for encoding HTTP protocol elements.
+     *   If {@code null} simple type cast will be used for char to byte conversion.
+     *
+     * @since 4.3
+     */
+    public SessionOutputBufferImpl(
+            final int bufferSize,
+            final int lineBuffersize,
+            final CharsetEncoder charEncoder) {
+        this(bufferSize, lineBuffersize, charEncoder, null);
+    }
+
     /**
      * @since 4.3
      */
@@ -103,6 +124,18 @@ public SessionOutputBufferImpl(final int bufferSize) {
         this(bufferSize, 256);
     }
 
+    /**
+     * Releases the session buffer as well as the line buffer. New buffers
+     * get allocated on demand.
+     *
+     * @since 5.0
+     */
+    @Override
+    protected void release() {
+        super.release();
+        this.charbuffer = null;
+    }
+
     @Override
     public int flush(final WritableByteChannel channel) throws IOException {
         Args.notNull(channel, "Channel");
@@ -0,0 +1,176 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.io.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.io.MappedBuffers;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * A self contained, repeatable entity that obtains its content from a file
+ * mapped into memory.
+ * <p>
+ * The file gets mapped in windows of the given size, each of which is unmapped as
+ * soon as its content has been read or the content stream has been closed.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.IMMUTABLE_CONDITIONAL)
+public class MappedFileEntity extends AbstractHttpEntity {
+
+    public static final int DEFAULT_WINDOW_SIZE = 8 * 1024 * 1024;
+
+    private final File file;
+    private final int windowSize;
+
+    public MappedFileEntity(final File file, final int windowSize, final ContentType contentType, final String contentEncoding) {
+        super(contentType, contentEncoding);
+        this.file = Args.notNull(file, "File");
+        this.windowSize = Args.positive(windowSize, "Window size");
+    }
+
+    public MappedFileEntity(final File file, final ContentType contentType) {
+        this(file, DEFAULT_WINDOW_SIZE, contentType, null);
+    }
+
+    @Override
+    public final boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public final long getContentLength() {
+        return this.file.length();
+    }
+
+    @Override
+    public final InputStream getContent() throws IOException {
+        return new MappedFileInputStream(new RandomAccessFile(this.file, "r"), this.windowSize);
+    }
+
+    @Override
+    public final boolean isStreaming() {
+        return false;
+    }
+
+    @Override
+    public final void close() throws IOException {
+        // do nothing
+    }
+
+    static class MappedFileInputStream extends InputStream {
+
+        private final RandomAccessFile accessFile;
+        private final int windowSize;
+
+        private MappedByteBuffer window;
+        private long position;
+        private boolean closed;
+
+        MappedFileInputStream(final RandomAccessFile accessFile, final int windowSize) {
+            this.accessFile = accessFile;
+            this.windowSize = windowSize;
+        }
+
+        private boolean nextWindow() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (window != null && window.hasRemaining()) {
+                return true;
+            }
+            unmapWindow();
+            final FileChannel fileChannel = accessFile.getChannel();
+            final long remaining = fileChannel.size() - position;
+            if (remaining <= 0) {
+                return false;
+            }
+            final int size = (int) Math.min(windowSize, remaining);
+            window = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            position += size;
+            return true;
+        }
+
+        private void unmapWindow() {
+            if (window != null) {
+                MappedBuffers.unmap(window);
+                window = null;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextWindow()) {
+                return -1;
+            }
+            return window.get() & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextWindow()) {
+                return -1;
+            }
+            final int chunk = Math.min(len, window.remaining());
+            window.get(b, off, chunk);
+            return chunk;
+        }
+
+        @Override
+        public int available() throws IOException {
+            if (closed) {
+                return 0;
+            }
+            final long remaining = (window != null ? window.remaining() : 0) + accessFile.length() - position;
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0, remaining));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                unmapWindow();
+                accessFile.close();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.message;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+import org.apache.hc.core5.http.FormattedHeader;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.util.CharArrayBuffer;
+
+/**
+ * Header represented by a region of a buffer shared by all header lines
+ * of a message head. Neither the header name nor the header value are
+ * decoded unless accessed. A case insensitive hash code of the header name gets
+ * computed upfront in order to speed up name lookups.
+ *
+ * @since 5.0
+ */
+class BufferedHeaderView implements FormattedHeader, Serializable {
+
+    private static final long serialVersionUID = 4651226312016213744L;
+
+    private final CharArrayBuffer block;
+    private final int start;
+    private final int nameStart;
+    private final int nameEnd;
+    private final int valuePos;
+    private final int end;
+    private final int nameHash;
+
+    private String name;
+    private CharArrayBuffer buffer;
+
+    /**
+     * Creates a new header from a region of the given buffer.
+     *
+     * @param block the buffer containing header lines.
+     * @param start the beginning of the header line (inclusive).
+     * @param end the end of the header line (exclusive).
+     * @throws ParseException in case of a parse error
+     */
+    BufferedHeaderView(final CharArrayBuffer block, final int start, final int end) throws ParseException {
+        super();
+        final int colon = block.indexOf(':', start, end);
+        if (colon <= start) {
+            throw new ParseException("Invalid header", block, start, end - start);
+        }
+        if (TokenParser.isWhitespace(block.charAt(colon - 1))) {
+            throw new ParseException("Invalid header", block, start, end - start, colon - 1 - start);
+        }
+        int i = start;
+        while (i < colon && TokenParser.isWhitespace(block.charAt(i))) {
+            i++;
+        }
+        if (i == colon) {
+            throw new ParseException("Invalid header", block, start, end - start, colon - start);
+        }
+        final int hash = nameHash(block, i, colon);
+        this.block = block;
+        this.start = start;
+        this.nameStart = i;
+        this.nameEnd = colon;
+        this.valuePos = colon + 1;
+        this.end = end;
+        this.nameHash = hash;
+    }
+
+    private static char toLowerCase(final char ch) {
+        if (ch < 0x80) {
+            return ch >= 'A' && ch <= 'Z' ? (char) (ch + ('a' - 'A')) : ch;
+        }
+        // Same folding as String#equalsIgnoreCase
+        return Character.toLowerCase(Character.toUpperCase(ch));
+    }
+
+    /**
+     * Computes the hash code of a header name ignoring case. Names that are equal
+     * ignoring case have the same hash code. Only the length and a few characters
+     * of the name get sampled in order to keep the hash cheap to compute.
+     */
+    static int nameHash(final CharSequence s, final int from, final int to) {
+        final int len = to - from;
+        if (len <= 0) {
+            return 0;
+        }
+        int hash = toLowerCase(s.charAt(from));
+        hash = 31 * hash + toLowerCase(s.charAt(from + (len >> 1)));
+        hash = 31 * hash + toLowerCase(s.charAt(to - 1));
+        return 31 * hash + len;
+    }
+
+    /**
+     * Returns the case insensitive hash code of the header name as computed
+     * by {@link #nameHash(CharSequence, int, int)}.
+     */
+    int getNameHash() {
+        return this.nameHash;
+    }
+
+    /**
+     * Determines whether or not this header has the given name ignoring case
+     * without decoding the header name.
+     */
+    boolean isNamed(final String s) {
+        if (s == null || s.length() != this.nameEnd - this.nameStart) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            final char ch1 = this.block.charAt(this.nameStart + i);
+            final char ch2 = s.charAt(i);
+            if (ch1 != ch2 && toLowerCase(ch1) != toLowerCase(ch2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        if (this.name == null) {
+            this.name = this.block.substring(this.nameStart, this.nameEnd);
+        }
+        return this.name;
+    }
+
+    @Override
+    public String getValue() {
+        return this.block.substringTrimmed(this.valuePos, this.end);
+    }
+
+    @Override
+    public boolean isSensitive() {
+        return false;
+    }
+
+    @Override
+    public int getValuePos() {
+        return this.valuePos - this.start;
+    }
+
+    @Override
+    public CharArrayBuffer getBuffer() {
+        if (this.buffer == null) {
+            final CharArrayBuffer lineBuffer = new CharArrayBuffer(this.end - this.start);
+            lineBuffer.append(this.block, this.start, this.end - this.start);
+            this.buffer = lineBuffer;
+        }
+        return this.buffer;
+    }
+
+    /**
+     * Serializes this header as a {@link BasicHeader} rather than together with
+     * the entire buffer it is a view of.
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return new BasicHeader(getName(), getValue());
+    }
+
+    @Override
+    public String toString() {
+        return this.block.substring(this.start, this.end);
+    }
+
+}
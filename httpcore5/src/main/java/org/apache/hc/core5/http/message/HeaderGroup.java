@@ -7,7 +7,12 @@
 import org.apache.hc.core5.util.LangUtils;
 
 import java.io.Serializable;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * A class for combining a set of headers.
@@ -24,11 +29,28 @@ public class HeaderGroup implements MessageHeaders, Serializable {
 
     private static final Header[] EMPTY = new Header[]{};
 
+    /**
+     * Number of headers at which name lookups start using the hash index
+     */
+    static final int INDEX_THRESHOLD = 12;
+
     /**
      * The list of headers for this group, in the order in which they were added
      */
     private final List<Header> headers;
 
+    /**
+     * Case insensitive name index over {@link #headers} built lazily once the group
+     * grows past {@link #INDEX_THRESHOLD}. Buckets hold the position of the first
+     * and the last header of a chain, chains link header positions in insertion order.
+     * The index is kept up to date when headers get added or replaced and is discarded
+     * when headers get removed.
+     */
+    private transient int[] bucketHeads;
+    private transient int[] bucketTails;
+    private transient int[] chain;
+    private transient int[] hashes;
+
     /**
      * Constructor for HeaderGroup.
      */
@@ -41,6 +63,7 @@ public HeaderGroup() {
      */
     public void clear() {
         headers.clear();
+        discardIndex();
     }
 
     /**
@@ -54,6 +77,9 @@ public void addHeader(final Header header) {
             return;
         }
         headers.add(header);
+        if (this.bucketHeads != null) {
+            indexHeader(this.headers.size() - 1);
+        }
     }
 
     /**
@@ -69,7 +95,8 @@ public boolean removeHeader(final Header header) {
         for (int i = 0; i < this.headers.size(); i++) {
             final Header current = this.headers.get(i);
             if (headerEquals(header, current)) {
-                this.headers.remove(current);
+                this.headers.remove(i);
+                discardIndex();
                 return true;
             }
         }
@@ -81,6 +108,101 @@ private boolean headerEquals(final Header header1, final Header header2) {
                 && LangUtils.equals(header1.getValue(), header2.getValue());
     }
 
+    private static boolean isNamed(final Header header, final String name) {
+        if (header instanceof BufferedHeaderView) {
+            return ((BufferedHeaderView) header).isNamed(name);
+        }
+        return header.getName().equalsIgnoreCase(name);
+    }
+
+    private static int nameHash(final Header header) {
+        if (header instanceof BufferedHeaderView) {
+            return ((BufferedHeaderView) header).getNameHash();
+        }
+        return nameHash(header.getName());
+    }
+
+    private static int nameHash(final String name) {
+        return name != null ? BufferedHeaderView.nameHash(name, 0, name.length()) : 0;
+    }
+
+    private void discardIndex() {
+        this.bucketHeads = null;
+        this.bucketTails = null;
+        this.chain = null;
+        this.hashes = null;
+    }
+
+    private void buildIndex() {
+        final int size = this.headers.size();
+        int capacity = 16;
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+        this.bucketHeads = new int[capacity];
+        this.bucketTails = new int[capacity];
+        Arrays.fill(this.bucketHeads, -1);
+        this.chain = new int[capacity];
+        this.hashes = new int[capacity];
+        for (int i = 0; i < size; i++) {
+            indexHeader(i);
+        }
+    }
+
+    private void indexHeader(final int pos) {
+        if (pos >= this.bucketHeads.length) {
+            // Rebuild with more buckets on the next lookup
+            discardIndex();
+            return;
+        }
+        final int hash = nameHash(this.headers.get(pos));
+        final int bucket = hash & (this.bucketHeads.length - 1);
+        this.hashes[pos] = hash;
+        this.chain[pos] = -1;
+        if (this.bucketHeads[bucket] < 0) {
+            this.bucketHeads[bucket] = pos;
+        } else {
+            this.chain[this.bucketTails[bucket]] = pos;
+        }
+        this.bucketTails[bucket] = pos;
+    }
+
+    /**
+     * Returns the hash of the given name if lookups are to use the name index.
+     */
+    private int lookupHash(final String name) {
+        if (this.bucketHeads == null) {
+            if (this.headers.size() < INDEX_THRESHOLD) {
+                return 0;
+            }
+            buildIndex();
+        }
+        return nameHash(name);
+    }
+
+    /**
+     * Returns the position of the first header with the given name following the given
+     * position or {@code -1} if there is none.
+     */
+    private int nextHeader(final int pos, final String name, final int hash) {
+        if (this.bucketHeads != null) {
+            int i = pos < 0 ? this.bucketHeads[hash & (this.bucketHeads.length - 1)] : this.chain[pos];
+            while (i >= 0) {
+                if (this.hashes[i] == hash && isNamed(this.headers.get(i), name)) {
+                    return i;
+                }
+                i = this.chain[i];
+            }
+            return -1;
+        }
+        for (int i = pos + 1; i < this.headers.size(); i++) {
+            if (isNamed(this.headers.get(i), name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Removes all headers that match the given header.
      *
@@ -115,14 +237,14 @@ public void setHeader(final Header header) {
         if (header == null) {
             return;
         }
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header current = this.headers.get(i);
-            if (current.getName().equalsIgnoreCase(header.getName())) {
-                this.headers.set(i, header);
-                return;
-            }
+        final String name = header.getName();
+        final int i = nextHeader(-1, name, lookupHash(name));
+        if (i >= 0) {
+            // The replacement has the same name and therefore keeps its index entry valid
+            this.headers.set(i, header);
+            return;
         }
-        this.headers.add(header);
+        addHeader(header);
     }
 
     /**
@@ -182,14 +304,12 @@ public Header getCondensedHeader(final String name) {
     @Override
     public Header[] getHeaders(final String name) {
         List<Header> headersFound = null;
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                if (headersFound == null) {
-                    headersFound = new ArrayList<>();
-                }
-                headersFound.add(header);
+        final int hash = lookupHash(name);
+        for (int i = nextHeader(-1, name, hash); i >= 0; i = nextHeader(i, name, hash)) {
+            if (headersFound == null) {
+                headersFound = new ArrayList<>();
             }
+            headersFound.add(this.headers.get(i));
         }
         return headersFound != null ? headersFound.toArray(new Header[headersFound.size()]) : EMPTY;
     }
@@ -204,13 +324,8 @@ public Header[] getHeaders(final String name) {
      */
     @Override
     public Header getFirstHeader(final String name) {
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                return header;
-            }
-        }
-        return null;
+        final int i = nextHeader(-1, name, lookupHash(name));
+        return i >= 0 ? this.headers.get(i) : null;
     }
 
     /**
@@ -224,19 +339,15 @@ public Header getFirstHeader(final String name) {
      */
     @Override
     public Header getHeader(final String name) throws ProtocolException {
-        int count = 0;
-        Header singleHeader = null;
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                singleHeader = header;
-                count++;
-            }
+        final int hash = lookupHash(name);
+        final int i = nextHeader(-1, name, hash);
+        if (i < 0) {
+            return null;
         }
-        if (count > 1) {
+        if (nextHeader(i, name, hash) >= 0) {
             throw new ProtocolException("Multiple headers '%s'' found", name);
         }
-        return singleHeader;
+        return this.headers.get(i);
     }
 
     /**
@@ -249,10 +360,18 @@ public Header getHeader(final String name) throws ProtocolException {
      */
     @Override
     public Header getLastHeader(final String name) {
+        if (this.headers.size() >= INDEX_THRESHOLD) {
+            final int hash = lookupHash(name);
+            int last = -1;
+            for (int i = nextHeader(-1, name, hash); i >= 0; i = nextHeader(i, name, hash)) {
+                last = i;
+            }
+            return last >= 0 ? this.headers.get(last) : null;
+        }
         // start at the end of the list and work backwards
         for (int i = headers.size() - 1; i >= 0; i--) {
             final Header header = headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
+            if (isNamed(header, name)) {
                 return header;
             }
         }
@@ -281,14 +400,7 @@ public Header[] getHeaders() {
      */
     @Override
     public boolean containsHeader(final String name) {
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return nextHeader(-1, name, lookupHash(name)) >= 0;
     }
 
     /**
@@ -301,11 +413,9 @@ public boolean containsHeader(final String name) {
     @Override
     public int countHeaders(final String name) {
         int count = 0;
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                count++;
-            }
+        final int hash = lookupHash(name);
+        for (int i = nextHeader(-1, name, hash); i >= 0; i = nextHeader(i, name, hash)) {
+            count++;
         }
         return count;
     }
@@ -318,7 +428,7 @@ public int countHeaders(final String name) {
      */
     @Override
     public Iterator<Header> headerIterator() {
-        return new BasicListHeaderIterator(this.headers, null);
+        return new IndexAwareHeaderIterator(null);
     }
 
     /**
@@ -331,7 +441,7 @@ public Iterator<Header> headerIterator() {
      */
     @Override
     public Iterator<Header> headerIterator(final String name) {
-        return new BasicListHeaderIterator(this.headers, name);
+        return new IndexAwareHeaderIterator(name);
     }
 
     /**
@@ -342,13 +452,13 @@ public Iterator<Header> headerIterator(final String name) {
      * @since 5.0
      */
     public boolean removeHeaders(final String name) {
-        if (name == null) {
+        if (name == null || !containsHeader(name)) {
             return false;
         }
         boolean removed = false;
         for (final Iterator<Header> iterator = headerIterator(); iterator.hasNext(); ) {
             final Header header = iterator.next();
-            if (header.getName().equalsIgnoreCase(name)) {
+            if (isNamed(header, name)) {
                 iterator.remove();
                 removed = true;
             }
@@ -361,4 +471,18 @@ public String toString() {
         return this.headers.toString();
     }
 
+    private class IndexAwareHeaderIterator extends BasicListHeaderIterator {
+
+        IndexAwareHeaderIterator(final String name) {
+            super(headers, name);
+        }
+
+        @Override
+        public void remove() throws UnsupportedOperationException {
+            super.remove();
+            discardIndex();
+        }
+
+    }
+
 }
@@ -55,4 +55,22 @@ public Header parseHeader(final CharArrayBuffer buffer) throws ParseException {
         return new BufferedHeader(buffer, true);
     }
 
+    /**
+     * Parses a header line represented by a region of the given buffer. The buffer
+     * may contain several header lines and must not be modified in the given region
+     * once it has been passed to this method. Neither the header name nor the header
+     * value get decoded until accessed.
+     *
+     * @param buffer the buffer containing header lines.
+     * @param start the beginning of the header line (inclusive).
+     * @param end the end of the header line (exclusive).
+     * @return the header.
+     * @throws ParseException in case of a parse error.
+     */
+    public Header parseHeader(final CharArrayBuffer buffer, final int start, final int end) throws ParseException {
+        Args.notNull(buffer, "Char array buffer");
+        Args.check(start >= 0 && start <= end && end <= buffer.length(), "Invalid header line boundaries");
+        return new BufferedHeaderView(buffer, start, end);
+    }
+
 }
@@ -30,12 +30,14 @@
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.nio.AsyncEntityProducer;
 import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.FileDataStreamChannel;
 import org.apache.hc.core5.io.Closer;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.Asserts;
@@ -43,30 +45,61 @@
 /**
  * {@link AsyncEntityProducer} implementation that generates data stream
  * from content of a {@link File}.
+ * <p>
+ * Content gets transferred directly from the file to the underlying network
+ * channel whenever the data channel supports it (see {@link FileDataStreamChannel}),
+ * otherwise it is copied through an intermediate buffer.
+ * </p>
  *
  * @since 5.0
  */
 public final class FileEntityProducer implements AsyncEntityProducer {
 
     private final File file;
-    private final ByteBuffer byteBuffer;
+    private final long offset;
     private final long length;
+    private final int bufferSize;
     private final ContentType contentType;
     private final boolean chunked;
     private final AtomicReference<Exception> exception;
     private final AtomicReference<RandomAccessFile> accessFileRef;
+    private ByteBuffer byteBuffer;
+    private long position;
+    private long remaining;
     private boolean eof;
 
-    public FileEntityProducer(final File file, final int bufferSize, final ContentType contentType, final boolean chunked) {
+    /**
+     * Creates a producer of a region of the given file.
+     *
+     * @param file the file.
+     * @param offset the position within the file of the first byte to be sent.
+     * @param length the number of bytes to be sent.
+     * @param bufferSize the size of the buffer used if the content cannot be
+     *   transferred directly from the file.
+     * @param contentType the content type.
+     * @param chunked whether or not the content should be chunk coded.
+     */
+    public FileEntityProducer(
+            final File file,
+            final long offset,
+            final long length,
+            final int bufferSize,
+            final ContentType contentType,
+            final boolean chunked) {
         this.file = Args.notNull(file, "File");
-        this.length = file.length();
-        this.byteBuffer = ByteBuffer.allocate(bufferSize);
+        this.offset = Args.notNegative(offset, "Offset");
+        this.length = Args.notNegative(length, "Length");
+        this.bufferSize = Args.positive(bufferSize, "Buffer size");
         this.contentType = contentType;
         this.chunked = chunked;
         this.accessFileRef = new AtomicReference<>(null);
         this.exception = new AtomicReference<>(null);
     }
 
+    public FileEntityProducer(final File file, final int bufferSize, final ContentType contentType, final boolean chunked) {
+        this(file, 0, Args.notNull(file, "File").length(), bufferSize, contentType, chunked);
+    }
+
     public FileEntityProducer(final File file, final ContentType contentType, final boolean chunked) {
         this(file, 8192, contentType, chunked);
     }
@@ -121,19 +154,50 @@ public void produce(final DataStreamChannel channel) throws IOException {
         if (accessFile == null) {
             accessFile = new RandomAccessFile(file, "r");
             Asserts.check(accessFileRef.getAndSet(accessFile) == null, "Illegal producer state");
+            position = offset;
+            remaining = length;
         }
-        if (!eof) {
-            final int bytesRead = accessFile.getChannel().read(byteBuffer);
-            if (bytesRead < 0) {
+        final FileChannel fileChannel = accessFile.getChannel();
+        if (channel instanceof FileDataStreamChannel
+                && (byteBuffer == null || byteBuffer.position() == 0)
+                && ((FileDataStreamChannel) channel).isFileTransferSupported()) {
+            if (remaining > 0) {
+                final long bytesTransferred = ((FileDataStreamChannel) channel).transfer(fileChannel, position, remaining);
+                position += bytesTransferred;
+                remaining -= bytesTransferred;
+            }
+            if (remaining <= 0 || position >= fileChannel.size()) {
                 eof = true;
             }
+        } else {
+            if (byteBuffer == null) {
+                byteBuffer = ByteBuffer.allocate(bufferSize);
+            }
+            if (!eof && byteBuffer.hasRemaining()) {
+                if (remaining > 0) {
+                    final int limit = byteBuffer.limit();
+                    if (remaining < byteBuffer.remaining()) {
+                        byteBuffer.limit(byteBuffer.position() + (int) remaining);
+                    }
+                    final int bytesRead = fileChannel.read(byteBuffer, position);
+                    byteBuffer.limit(limit);
+                    if (bytesRead < 0) {
+                        eof = true;
+                    } else {
+                        position += bytesRead;
+                        remaining -= bytesRead;
+                    }
+                } else {
+                    eof = true;
+                }
+            }
+            if (byteBuffer.position() > 0) {
+                byteBuffer.flip();
+                channel.write(byteBuffer);
+                byteBuffer.compact();
+            }
         }
-        if (byteBuffer.position() > 0) {
-            byteBuffer.flip();
-            channel.write(byteBuffer);
-            byteBuffer.compact();
-        }
-        if (eof && byteBuffer.position() == 0) {
+        if (eof && (byteBuffer == null || byteBuffer.position() == 0)) {
             channel.endStream();
             releaseResources();
         }
@@ -153,6 +217,9 @@ public Exception getException() {
     @Override
     public void releaseResources() {
         eof = false;
+        if (byteBuffer != null) {
+            byteBuffer.clear();
+        }
         Closer.closeQuietly(accessFileRef.getAndSet(null));
     }
 
@@ -0,0 +1,164 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.nio.AsyncEntityConsumer;
+import org.apache.hc.core5.io.Closer;
+import org.apache.hc.core5.io.MappedBuffers;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.Asserts;
+
+/**
+ * {@link AsyncEntityConsumer} implementation that writes entity content
+ * into a {@link File} mapped into memory.
+ * <p>
+ * If the content length is known in advance the file gets pre-sized to the content
+ * length. Content is written into windows of the given size, which are unmapped
+ * as soon as they have been filled up or the resources of the consumer have been
+ * released. Memory consumption is therefore bounded by the window size irrespective
+ * of the content length. Any content previously present in the file is discarded.
+ * </p>
+ *
+ * @since 5.0
+ */
+public class MappedFileEntityConsumer extends AbstractBinDataConsumer implements AsyncEntityConsumer<File> {
+
+    public static final int DEFAULT_WINDOW_SIZE = 8 * 1024 * 1024;
+
+    private final File file;
+    private final int windowSize;
+
+    private volatile FutureCallback<File> resultCallback;
+    private volatile File content;
+
+    private RandomAccessFile accessFile;
+    private MappedByteBuffer window;
+    private long contentLength;
+    private long position;
+
+    public MappedFileEntityConsumer(final File file, final int windowSize) {
+        this.file = Args.notNull(file, "File");
+        this.windowSize = Args.positive(windowSize, "Window size");
+    }
+
+    public MappedFileEntityConsumer(final File file) {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    @Override
+    public synchronized void streamStart(
+            final EntityDetails entityDetails,
+            final FutureCallback<File> resultCallback) throws HttpException, IOException {
+        Args.notNull(resultCallback, "Result callback");
+        this.resultCallback = resultCallback;
+        this.contentLength = entityDetails != null ? entityDetails.getContentLength() : -1;
+        this.position = 0;
+        this.accessFile = new RandomAccessFile(file, "rw");
+        this.accessFile.setLength(contentLength > 0 ? contentLength : 0);
+    }
+
+    @Override
+    protected int capacityIncrement() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    protected synchronized void data(final ByteBuffer src, final boolean endOfStream) throws IOException {
+        Asserts.notNull(accessFile, "File");
+        while (src.hasRemaining()) {
+            if (window == null || !window.hasRemaining()) {
+                unmapWindow();
+                final long size = contentLength > position ? Math.min(windowSize, contentLength - position) : windowSize;
+                window = accessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, position, size);
+            }
+            final int chunk = Math.min(src.remaining(), window.remaining());
+            final int limit = src.limit();
+            src.limit(src.position() + chunk);
+            window.put(src);
+            src.limit(limit);
+            position += chunk;
+        }
+    }
+
+    @Override
+    protected void completed() throws IOException {
+        synchronized (this) {
+            unmapWindow();
+            if (accessFile != null) {
+                // Discard unused portion of the last window
+                if (accessFile.length() != position) {
+                    accessFile.setLength(position);
+                }
+                accessFile.close();
+                accessFile = null;
+            }
+        }
+        content = file;
+        if (resultCallback != null) {
+            resultCallback.completed(content);
+        }
+        releaseResources();
+    }
+
+    private void unmapWindow() {
+        if (window != null) {
+            MappedBuffers.unmap(window);
+            window = null;
+        }
+    }
+
+    @Override
+    public final void failed(final Exception cause) {
+        if (resultCallback != null) {
+            resultCallback.failed(cause);
+        }
+        releaseResources();
+    }
+
+    @Override
+    public final File getContent() {
+        return content;
+    }
+
+    @Override
+    public synchronized void releaseResources() {
+        unmapWindow();
+        Closer.closeQuietly(accessFile);
+        accessFile = null;
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.io.Closer;
+import org.apache.hc.core5.io.MappedBuffers;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * {@link AsyncEntityProducer} implementation that generates data stream
+ * from content of a {@link File} mapped into memory.
+ * <p>
+ * The file gets mapped in windows of the given size, which are passed directly to
+ * the data channel and unmapped as soon as their content has been written out or
+ * the resources of the producer have been released. Memory consumption is therefore
+ * bounded by the window size irrespective of the file size.
+ * </p>
+ *
+ * @since 5.0
+ */
+public final class MappedFileEntityProducer implements AsyncEntityProducer {
+
+    public static final int DEFAULT_WINDOW_SIZE = 8 * 1024 * 1024;
+
+    private final File file;
+    private final long offset;
+    private final long length;
+    private final int windowSize;
+    private final ContentType contentType;
+    private final boolean chunked;
+    private final AtomicReference<Exception> exception;
+
+    private RandomAccessFile accessFile;
+    private MappedByteBuffer window;
+    private long position;
+    private long remaining;
+
+    /**
+     * Creates a producer of a region of the given file.
+     *
+     * @param file the file.
+     * @param offset the position within the file of the first byte to be sent.
+     * @param length the number of bytes to be sent.
+     * @param windowSize the maximum size of a mapped window.
+     * @param contentType the content type.
+     * @param chunked whether or not the content should be chunk coded.
+     */
+    public MappedFileEntityProducer(
+            final File file,
+            final long offset,
+            final long length,
+            final int windowSize,
+            final ContentType contentType,
+            final boolean chunked) {
+        this.file = Args.notNull(file, "File");
+        this.offset = Args.notNegative(offset, "Offset");
+        this.length = Args.notNegative(length, "Length");
+        this.windowSize = Args.positive(windowSize, "Window size");
+        this.contentType = contentType;
+        this.chunked = chunked;
+        this.exception = new AtomicReference<>(null);
+    }
+
+    public MappedFileEntityProducer(final File file, final int windowSize, final ContentType contentType, final boolean chunked) {
+        this(file, 0, Args.notNull(file, "File").length(), windowSize, contentType, chunked);
+    }
+
+    public MappedFileEntityProducer(final File file, final ContentType contentType, final boolean chunked) {
+        this(file, DEFAULT_WINDOW_SIZE, contentType, chunked);
+    }
+
+    public MappedFileEntityProducer(final File file, final ContentType contentType) {
+        this(file, contentType, false);
+    }
+
+    public MappedFileEntityProducer(final File file) {
+        this(file, ContentType.APPLICATION_OCTET_STREAM);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType != null ? contentType.toString() : null;
+    }
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }
+
+    @Override
+    public int available() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return null;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    @Override
+    public Set<String> getTrailerNames() {
+        return null;
+    }
+
+    @Override
+    public synchronized void produce(final DataStreamChannel channel) throws IOException {
+        if (accessFile == null) {
+            accessFile = new RandomAccessFile(file, "r");
+            position = offset;
+            remaining = length;
+        }
+        if (window == null || !window.hasRemaining()) {
+            unmapWindow();
+            final FileChannel fileChannel = accessFile.getChannel();
+            final long available = fileChannel.size() - position;
+            if (remaining > 0 && available > 0) {
+                final int size = (int) Math.min(windowSize, Math.min(remaining, available));
+                window = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                position += size;
+                remaining -= size;
+            } else {
+                // Premature end of file if there is content remaining
+                remaining = 0;
+            }
+        }
+        if (window != null) {
+            channel.write(window);
+        }
+        if (remaining <= 0 && (window == null || !window.hasRemaining())) {
+            channel.endStream();
+            releaseResources();
+        }
+    }
+
+    private void unmapWindow() {
+        if (window != null) {
+            MappedBuffers.unmap(window);
+            window = null;
+        }
+    }
+
+    @Override
+    public void failed(final Exception cause) {
+        if (exception.compareAndSet(null, cause)) {
+            releaseResources();
+        }
+    }
+
+    public Exception getException() {
+        return exception.get();
+    }
+
+    @Override
+    public synchronized void releaseResources() {
+        unmapWindow();
+        Closer.closeQuietly(accessFile);
+        accessFile = null;
+    }
+
+}
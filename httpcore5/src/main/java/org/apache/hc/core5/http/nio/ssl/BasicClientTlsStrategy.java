@@ -28,6 +28,7 @@
 package org.apache.hc.core5.http.nio.ssl;
 
 import java.net.SocketAddress;
+import java.util.concurrent.Executor;
 
 import javax.net.ssl.SSLContext;
 
@@ -53,16 +54,33 @@ public class BasicClientTlsStrategy implements TlsStrategy {
     private final SSLBufferMode sslBufferMode;
     private final SSLSessionInitializer initializer;
     private final SSLSessionVerifier verifier;
+    private final Executor handshakeExecutor;
 
+    /**
+     * @param handshakeExecutor optional executor to run CPU intensive TLS handshake tasks
+     *                          off the I/O dispatch threads. May be {@code null}.
+     *
+     * @since 5.0
+     */
     public BasicClientTlsStrategy(
             final SSLContext sslContext,
             final SSLBufferMode sslBufferMode,
             final SSLSessionInitializer initializer,
-            final SSLSessionVerifier verifier) {
+            final SSLSessionVerifier verifier,
+            final Executor handshakeExecutor) {
         this.sslContext = Args.notNull(sslContext, "SSL context");
         this.sslBufferMode = sslBufferMode;
         this.initializer = initializer;
         this.verifier = verifier;
+        this.handshakeExecutor = handshakeExecutor;
+    }
+
+    public BasicClientTlsStrategy(
+            final SSLContext sslContext,
+            final SSLBufferMode sslBufferMode,
+            final SSLSessionInitializer initializer,
+            final SSLSessionVerifier verifier) {
+        this(sslContext, sslBufferMode, initializer, verifier, null);
     }
 
     public BasicClientTlsStrategy(
@@ -97,7 +115,7 @@ public boolean upgrade(
         final String scheme = host != null ? host.getSchemeName() : null;
         if (URIScheme.HTTPS.same(scheme)) {
             tlsSession.startTls(sslContext, host, sslBufferMode,
-                    TlsSupport.enforceStrongSecurity(initializer), verifier, handshakeTimeout);
+                    TlsSupport.enforceStrongSecurity(initializer), verifier, handshakeTimeout, handshakeExecutor);
             return true;
         }
         return false;
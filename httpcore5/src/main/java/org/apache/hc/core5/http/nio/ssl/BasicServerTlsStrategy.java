@@ -28,6 +28,7 @@
 package org.apache.hc.core5.http.nio.ssl;
 
 import java.net.SocketAddress;
+import java.util.concurrent.Executor;
 
 import javax.net.ssl.SSLContext;
 
@@ -53,18 +54,36 @@ public class BasicServerTlsStrategy implements TlsStrategy {
     private final SSLBufferMode sslBufferMode;
     private final SSLSessionInitializer initializer;
     private final SSLSessionVerifier verifier;
+    private final Executor handshakeExecutor;
 
+    /**
+     * @param handshakeExecutor optional executor to run CPU intensive TLS handshake tasks
+     *                          off the I/O dispatch threads. May be {@code null}.
+     *
+     * @since 5.0
+     */
     public BasicServerTlsStrategy(
             final SSLContext sslContext,
             final SecurePortStrategy securePortStrategy,
             final SSLBufferMode sslBufferMode,
             final SSLSessionInitializer initializer,
-            final SSLSessionVerifier verifier) {
+            final SSLSessionVerifier verifier,
+            final Executor handshakeExecutor) {
         this.sslContext = Args.notNull(sslContext, "SSL context");
         this.securePortStrategy = securePortStrategy;
         this.sslBufferMode = sslBufferMode;
         this.initializer = initializer;
         this.verifier = verifier;
+        this.handshakeExecutor = handshakeExecutor;
+    }
+
+    public BasicServerTlsStrategy(
+            final SSLContext sslContext,
+            final SecurePortStrategy securePortStrategy,
+            final SSLBufferMode sslBufferMode,
+            final SSLSessionInitializer initializer,
+            final SSLSessionVerifier verifier) {
+        this(sslContext, securePortStrategy, sslBufferMode, initializer, verifier, null);
     }
 
     public BasicServerTlsStrategy(
@@ -100,7 +119,7 @@ public boolean upgrade(
             final Timeout handshakeTimeout) {
         if (securePortStrategy != null && securePortStrategy.isSecure(localAddress)) {
             tlsSession.startTls(sslContext, host, sslBufferMode,
-                    TlsSupport.enforceStrongSecurity(initializer), verifier, handshakeTimeout);
+                    TlsSupport.enforceStrongSecurity(initializer), verifier, handshakeTimeout, handshakeExecutor);
             return true;
         }
         return false;
@@ -27,17 +27,22 @@
 
 package org.apache.hc.core5.http.protocol;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.message.BufferedHeader;
+import org.apache.hc.core5.util.CharArrayBuffer;
 
 /**
  * Generates a date in the format required by the HTTP protocol.
+ * <p>
+ * The current date is formatted at most once per second and published
+ * to all threads without locking.
+ * </p>
  *
  * @since 4.0
  */
@@ -53,31 +58,119 @@ public class HttpDateGenerator {
     public static final TimeZone GMT = TimeZone.getTimeZone("GMT");
 
     /** Singleton instance. */
-    public static final HttpDateGenerator INSTANCE = new HttpDateGenerator(PATTERN_RFC1123, Locale.US, GMT);
+    public static final HttpDateGenerator INSTANCE = new HttpDateGenerator();
 
-    private final DateFormat dateformat;
-    private long dateAsMillis = 0L;
-    private String dateAsText = null;
+    private static final String[] DAYS = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
+
+    private static final String[] MONTHS = {
+            "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private static final class CurrentDate {
+
+        final long second;
+        final String text;
+        final Header header;
+
+        CurrentDate(final long second) {
+            final CharArrayBuffer buffer = new CharArrayBuffer(HttpHeaders.DATE.length() + 31);
+            buffer.append(HttpHeaders.DATE);
+            buffer.append(": ");
+            formatDate(second * GRANULARITY_MILLIS, buffer);
+            this.second = second;
+            this.text = buffer.substring(HttpHeaders.DATE.length() + 2, buffer.length());
+            this.header = BufferedHeader.create(buffer);
+        }
+
+    }
+
+    private final AtomicReference<CurrentDate> currentDateRef;
 
     HttpDateGenerator() {
         super();
-        this.dateformat = new SimpleDateFormat(PATTERN_RFC1123, Locale.US);
-        this.dateformat.setTimeZone(GMT);
+        this.currentDateRef = new AtomicReference<>();
+    }
+
+    private CurrentDate currentDate() {
+        final long second = System.currentTimeMillis() / GRANULARITY_MILLIS;
+        final CurrentDate currentDate = this.currentDateRef.get();
+        if (currentDate != null && currentDate.second == second) {
+            return currentDate;
+        }
+        // Threads racing to refresh the date may each format it, only the first one gets published
+        final CurrentDate newDate = new CurrentDate(second);
+        if (this.currentDateRef.compareAndSet(currentDate, newDate)) {
+            return newDate;
+        }
+        final CurrentDate latestDate = this.currentDateRef.get();
+        return latestDate != null && latestDate.second >= second ? latestDate : newDate;
+    }
+
+    public String getCurrentDate() {
+        return currentDate().text;
     }
 
-    private HttpDateGenerator(final String pattern, final Locale locale, final TimeZone timeZone) {
-        this.dateformat = new SimpleDateFormat(pattern, locale);
-        this.dateformat.setTimeZone(timeZone);
+    /**
+     * Returns a {@code Date} header with the current date. The header is a
+     * {@link org.apache.hc.core5.http.FormattedHeader} shared by all callers
+     * within the same second that message writers can write out without
+     * re-formatting. Its buffer must not be modified.
+     *
+     * @since 5.0
+     */
+    public Header getCurrentDateHeader() {
+        return currentDate().header;
     }
 
-    public synchronized String getCurrentDate() {
-        final long now = System.currentTimeMillis();
-        if (now - this.dateAsMillis > GRANULARITY_MILLIS) {
-            // Generate new date string
-            this.dateAsText = this.dateformat.format(new Date(now));
-            this.dateAsMillis = now;
+    /**
+     * Formats the given time in RFC 1123 format in the GMT time zone.
+     */
+    static void formatDate(final long millis, final CharArrayBuffer buffer) {
+        long days = millis / MILLIS_PER_DAY;
+        long millisOfDay = millis % MILLIS_PER_DAY;
+        if (millisOfDay < 0) {
+            days--;
+            millisOfDay += MILLIS_PER_DAY;
         }
-        return this.dateAsText;
+        final int secondOfDay = (int) (millisOfDay / 1000);
+        // 1 January 1970 was a Thursday
+        final int dayOfWeek = (int) (((days + 4) % 7 + 7) % 7);
+
+        // Civil date from the number of days since the epoch (proleptic Gregorian calendar)
+        final long z = days + 719468;
+        final long era = (z >= 0 ? z : z - 146096) / 146097;
+        final int dayOfEra = (int) (z - era * 146097);
+        final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final int mp = (5 * dayOfYear + 2) / 153;
+        final int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        final int month = mp < 10 ? mp + 3 : mp - 9;
+        final long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        buffer.append(DAYS[dayOfWeek]);
+        buffer.append(", ");
+        appendTwoDigits(day, buffer);
+        buffer.append(' ');
+        buffer.append(MONTHS[month - 1]);
+        buffer.append(' ');
+        final String yearText = Long.toString(year);
+        for (int i = yearText.length(); i < 4; i++) {
+            buffer.append('0');
+        }
+        buffer.append(yearText);
+        buffer.append(' ');
+        appendTwoDigits(secondOfDay / 3600, buffer);
+        buffer.append(':');
+        appendTwoDigits(secondOfDay / 60 % 60, buffer);
+        buffer.append(':');
+        appendTwoDigits(secondOfDay % 60, buffer);
+        buffer.append(" GMT");
+    }
+
+    private static void appendTwoDigits(final int n, final CharArrayBuffer buffer) {
+        buffer.append((char) ('0' + n / 10));
+        buffer.append((char) ('0' + n % 10));
     }
 
 }
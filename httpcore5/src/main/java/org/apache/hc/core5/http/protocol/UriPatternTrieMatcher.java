@@ -0,0 +1,262 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.protocol;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Maintains a map of objects keyed by a request URI pattern with the same
+ * pattern formats and the same best match semantics as {@link UriPatternMatcher}.
+ * <p>
+ * Patterns may have three formats:
+ * </p>
+ * <ul>
+ * <li>{@code *}</li>
+ * <li>{@code *<uri>}</li>
+ * <li>{@code <uri>*}</li>
+ * </ul>
+ * <p>
+ * Prefix and suffix patterns get compiled into immutable character tries
+ * that are rebuilt and republished whenever the set of patterns changes.
+ * Lookups do not lock and take time proportional to the length of the request
+ * path rather than to the number of registered patterns. This class is
+ * intended for registries with many patterns that rarely change.
+ * </p>
+ *
+ * @param <T> The type of registered objects.
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class UriPatternTrieMatcher<T> implements LookupRegistry<T> {
+
+    private static final char[] NO_KEYS = new char[0];
+
+    private static final class Node<T> {
+
+        char[] keys = NO_KEYS;
+        Node<T>[] children;
+        String pattern;
+        T object;
+        int order;
+
+        Node<T> child(final char ch) {
+            final int i = Arrays.binarySearch(this.keys, ch);
+            return i >= 0 ? this.children[i] : null;
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<T> addChild(final char ch) {
+            int i = Arrays.binarySearch(this.keys, ch);
+            if (i >= 0) {
+                return this.children[i];
+            }
+            i = -(i + 1);
+            final int len = this.keys.length;
+            final char[] newKeys = new char[len + 1];
+            final Node<T>[] newChildren = new Node[len + 1];
+            System.arraycopy(this.keys, 0, newKeys, 0, i);
+            System.arraycopy(this.keys, i, newKeys, i + 1, len - i);
+            if (len > 0) {
+                System.arraycopy(this.children, 0, newChildren, 0, i);
+                System.arraycopy(this.children, i, newChildren, i + 1, len - i);
+            }
+            final Node<T> node = new Node<>();
+            newKeys[i] = ch;
+            newChildren[i] = node;
+            this.keys = newKeys;
+            this.children = newChildren;
+            return node;
+        }
+
+    }
+
+    private static final class Snapshot<T> {
+
+        final Map<String, T> exact;
+        final Node<T> prefixRoot;
+        final Node<T> suffixRoot;
+
+        Snapshot(final Map<String, T> map) {
+            this.exact = new HashMap<>(map);
+            this.prefixRoot = new Node<>();
+            this.suffixRoot = new Node<>();
+            int order = 0;
+            for (final Entry<String, T> entry : map.entrySet()) {
+                final String pattern = entry.getKey();
+                final int len = pattern.length();
+                if (pattern.endsWith("*")) {
+                    Node<T> node = this.prefixRoot;
+                    for (int i = 0; i < len - 1; i++) {
+                        node = node.addChild(pattern.charAt(i));
+                    }
+                    mark(node, pattern, entry.getValue(), order);
+                }
+                if (pattern.startsWith("*")) {
+                    Node<T> node = this.suffixRoot;
+                    for (int i = len - 1; i > 0; i--) {
+                        node = node.addChild(pattern.charAt(i));
+                    }
+                    mark(node, pattern, entry.getValue(), order);
+                }
+                order++;
+            }
+        }
+
+        private static <T> void mark(final Node<T> node, final String pattern, final T object, final int order) {
+            node.pattern = pattern;
+            node.object = object;
+            node.order = order;
+        }
+
+    }
+
+    private final Map<String, T> map;
+    private volatile Snapshot<T> snapshot;
+
+    public UriPatternTrieMatcher() {
+        super();
+        this.map = new LinkedHashMap<>();
+        this.snapshot = new Snapshot<>(this.map);
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this matcher.
+     *
+     * @return  a set view of the mappings contained in this matcher.
+     *
+     * @see Map#entrySet()
+     */
+    public synchronized Set<Entry<String, T>> entrySet() {
+        return new HashSet<>(map.entrySet());
+    }
+
+    /**
+     * Registers the given object for URIs matching the given pattern.
+     *
+     * @param pattern
+     *            the pattern to register the handler for.
+     * @param obj
+     *            the object.
+     */
+    @Override
+    public synchronized void register(final String pattern, final T obj) {
+        Args.notNull(pattern, "URI request pattern");
+        this.map.put(pattern, obj);
+        this.snapshot = new Snapshot<>(this.map);
+    }
+
+    /**
+     * Removes registered object, if exists, for the given pattern.
+     *
+     * @param pattern
+     *            the pattern to unregister.
+     */
+    @Override
+    public synchronized void unregister(final String pattern) {
+        if (pattern == null) {
+            return;
+        }
+        if (this.map.containsKey(pattern)) {
+            this.map.remove(pattern);
+            this.snapshot = new Snapshot<>(this.map);
+        }
+    }
+
+    /**
+     * Looks up an object matching the given request path.
+     *
+     * @param path
+     *            the request path
+     * @return object or {@code null} if no match is found.
+     */
+    @Override
+    public T lookup(final String path) {
+        Args.notNull(path, "Request path");
+        final Snapshot<T> current = this.snapshot;
+        // direct match?
+        final T obj = current.exact.get(path);
+        if (obj != null) {
+            return obj;
+        }
+        // longest prefix pattern match
+        Node<T> prefixMatch = current.prefixRoot.pattern != null ? current.prefixRoot : null;
+        Node<T> node = current.prefixRoot;
+        for (int i = 0; i < path.length(); i++) {
+            node = node.child(path.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.pattern != null) {
+                prefixMatch = node;
+            }
+        }
+        // longest suffix pattern match
+        Node<T> suffixMatch = current.suffixRoot.pattern != null ? current.suffixRoot : null;
+        node = current.suffixRoot;
+        for (int i = path.length() - 1; i >= 0; i--) {
+            node = node.child(path.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.pattern != null) {
+                suffixMatch = node;
+            }
+        }
+        if (prefixMatch == null) {
+            return suffixMatch != null ? suffixMatch.object : null;
+        }
+        if (suffixMatch == null) {
+            return prefixMatch.object;
+        }
+        final int prefixLen = prefixMatch.pattern.length();
+        final int suffixLen = suffixMatch.pattern.length();
+        if (prefixLen != suffixLen) {
+            return prefixLen > suffixLen ? prefixMatch.object : suffixMatch.object;
+        }
+        // Of equally long patterns the last one ending with a wildcard wins
+        if (suffixMatch.pattern.endsWith("*") && suffixMatch.order > prefixMatch.order) {
+            return suffixMatch.object;
+        }
+        return prefixMatch.object;
+    }
+
+    @Override
+    public String toString() {
+        return this.map.toString();
+    }
+
+}
@@ -32,7 +32,7 @@
  */
 public enum UriPatternType {
 
-    REGEX, URI_PATTERN, URI_PATTERN_IN_ORDER;
+    REGEX, URI_PATTERN, URI_PATTERN_IN_ORDER, URI_PATTERN_TRIE;
 
     public static <T> LookupRegistry<T> newMatcher(final UriPatternType type) {
         if (type == null) {
@@ -45,6 +45,8 @@ public static <T> LookupRegistry<T> newMatcher(final UriPatternType type) {
             return new UriPatternMatcher<>();
         case URI_PATTERN_IN_ORDER:
             return new UriPatternOrderedMatcher<>();
+        case URI_PATTERN_TRIE:
+            return new UriPatternTrieMatcher<>();
         default:
             return new UriPatternMatcher<>();
         }
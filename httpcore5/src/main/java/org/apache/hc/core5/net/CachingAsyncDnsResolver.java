@@ -0,0 +1,219 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.net;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * {@link AsyncDnsResolver} decorator that caches results of name resolution.
+ * <p>
+ * Successful lookups are cached for the configured time-to-live. Lookups failing
+ * with {@link UnknownHostException} are cached for the negative time-to-live,
+ * so that repeated requests to a non-existent host do not each hit the resolver.
+ * Concurrent requests for a host name that is being resolved share the same
+ * lookup.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public final class CachingAsyncDnsResolver implements AsyncDnsResolver {
+
+    private static final class Entry {
+
+        final List<BasicFuture<InetAddress[]>> waiters;
+        InetAddress[] addresses;
+        Exception cause;
+        boolean done;
+        long expiryMillis;
+
+        Entry() {
+            this.waiters = new ArrayList<>(1);
+        }
+
+    }
+
+    private final AsyncDnsResolver resolver;
+    private final TimeValue timeToLive;
+    private final TimeValue negativeTimeToLive;
+    private final ConcurrentMap<String, Entry> cache;
+
+    /**
+     * @param resolver the resolver to cache results of.
+     * @param timeToLive time to live of successfully resolved addresses.
+     * @param negativeTimeToLive time to live of unknown host failures.
+     *   {@link TimeValue#ZERO_MILLISECONDS} disables negative caching.
+     */
+    public CachingAsyncDnsResolver(
+            final AsyncDnsResolver resolver,
+            final TimeValue timeToLive,
+            final TimeValue negativeTimeToLive) {
+        this.resolver = Args.notNull(resolver, "DNS resolver");
+        this.timeToLive = Args.notNull(timeToLive, "Time to live");
+        this.negativeTimeToLive = Args.notNull(negativeTimeToLive, "Negative time to live");
+        this.cache = new ConcurrentHashMap<>();
+    }
+
+    public CachingAsyncDnsResolver(final AsyncDnsResolver resolver) {
+        this(resolver, TimeValue.ofSeconds(30), TimeValue.ofSeconds(10));
+    }
+
+    @Override
+    public Future<InetAddress[]> resolve(final String host, final FutureCallback<InetAddress[]> callback) {
+        Args.notNull(host, "Host");
+        for (;;) {
+            final Entry entry = cache.get(host);
+            if (entry != null) {
+                final BasicFuture<InetAddress[]> future = new BasicFuture<>(callback);
+                final boolean cached;
+                synchronized (entry) {
+                    if (!entry.done) {
+                        entry.waiters.add(future);
+                        return future;
+                    }
+                    cached = entry.expiryMillis > System.currentTimeMillis();
+                }
+                if (cached) {
+                    complete(future, entry.addresses, entry.cause);
+                    return future;
+                }
+                cache.remove(host, entry);
+            }
+            final Entry newEntry = new Entry();
+            final BasicFuture<InetAddress[]> future = new BasicFuture<>(callback);
+            newEntry.waiters.add(future);
+            if (cache.putIfAbsent(host, newEntry) == null) {
+                resolver.resolve(host, new FutureCallback<InetAddress[]>() {
+
+                    @Override
+                    public void completed(final InetAddress[] result) {
+                        done(host, newEntry, result, null, timeToLive);
+                    }
+
+                    @Override
+                    public void failed(final Exception ex) {
+                        done(host, newEntry, null, ex, ex instanceof UnknownHostException ? negativeTimeToLive : null);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        cache.remove(host, newEntry);
+                        final List<BasicFuture<InetAddress[]>> waiters;
+                        synchronized (newEntry) {
+                            newEntry.done = true;
+                            waiters = new ArrayList<>(newEntry.waiters);
+                            newEntry.waiters.clear();
+                        }
+                        for (final BasicFuture<InetAddress[]> waiter : waiters) {
+                            waiter.cancel();
+                        }
+                    }
+
+                });
+                return future;
+            }
+        }
+    }
+
+    private void done(
+            final String host,
+            final Entry entry,
+            final InetAddress[] addresses,
+            final Exception cause,
+            final TimeValue ttl) {
+        final List<BasicFuture<InetAddress[]>> waiters;
+        synchronized (entry) {
+            entry.addresses = addresses;
+            entry.cause = cause;
+            entry.done = true;
+            entry.expiryMillis = ttl != null ? System.currentTimeMillis() + ttl.toMillis() : 0;
+            waiters = new ArrayList<>(entry.waiters);
+            entry.waiters.clear();
+        }
+        if (ttl == null || ttl.toMillis() <= 0) {
+            cache.remove(host, entry);
+        }
+        for (final BasicFuture<InetAddress[]> waiter : waiters) {
+            complete(waiter, addresses, cause);
+        }
+    }
+
+    private static void complete(
+            final BasicFuture<InetAddress[]> future,
+            final InetAddress[] addresses,
+            final Exception cause) {
+        if (cause != null) {
+            future.failed(cause);
+        } else {
+            future.completed(addresses);
+        }
+    }
+
+    /**
+     * Removes all expired entries from the cache.
+     */
+    public void purgeExpired() {
+        final long now = System.currentTimeMillis();
+        for (final Iterator<Map.Entry<String, Entry>> it = cache.entrySet().iterator(); it.hasNext(); ) {
+            final Entry entry = it.next().getValue();
+            synchronized (entry) {
+                if (entry.done && entry.expiryMillis <= now) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "CachingAsyncDnsResolver [ttl=" + timeToLive + ", negativeTtl=" + negativeTimeToLive + "]";
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.net;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * {@link AsyncDnsResolver} that performs name resolution using the system resolver
+ * ({@link InetAddress#getAllByName(String)}). As the system resolver is blocking, lookups
+ * are executed by a dedicated executor so that the calling thread (usually an I/O
+ * dispatch thread or an application callback) is never blocked.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public final class SystemAsyncDnsResolver implements AsyncDnsResolver {
+
+    private final ExecutorService executorService;
+
+    public SystemAsyncDnsResolver(final ExecutorService executorService) {
+        this.executorService = Args.notNull(executorService, "Executor service");
+    }
+
+    public SystemAsyncDnsResolver(final int threadCount) {
+        this(Executors.newFixedThreadPool(
+                Args.positive(threadCount, "Thread count"),
+                new DefaultThreadFactory("dns-resolver", true)));
+    }
+
+    public SystemAsyncDnsResolver() {
+        this(2);
+    }
+
+    @Override
+    public Future<InetAddress[]> resolve(final String host, final FutureCallback<InetAddress[]> callback) {
+        Args.notNull(host, "Host");
+        final BasicFuture<InetAddress[]> future = new BasicFuture<>(callback);
+        try {
+            executorService.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    if (future.isCancelled()) {
+                        return;
+                    }
+                    try {
+                        future.completed(InetAddress.getAllByName(host));
+                    } catch (final UnknownHostException | SecurityException ex) {
+                        future.failed(ex);
+                    }
+                }
+
+            });
+        } catch (final RejectedExecutionException ex) {
+            future.failed(ex);
+        }
+        return future;
+    }
+
+    /**
+     * Shuts down the internal executor.
+     */
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+}
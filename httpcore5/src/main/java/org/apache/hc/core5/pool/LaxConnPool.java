@@ -29,12 +29,15 @@
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.Experimental;
@@ -55,6 +58,13 @@
 
 /**
  * Connection pool with higher concurrency but with lax connection limit guarantees.
+ * <p>
+ * The total number of connections across all routes can optionally be capped.
+ * When the cap is reached, idle connections of other routes get closed to make
+ * room for new ones. Routes whose requests could not be served because of the
+ * cap are woken up in the order they ran out of capacity as soon as some
+ * becomes available.
+ * </p>
  *
  * @param <T> route
  * @param <C> connection object
@@ -69,26 +79,48 @@
     private final ConnPoolListener<T> connPoolListener;
     private final PoolReusePolicy policy;
     private final ConcurrentMap<T, PerRoutePool<T, C>> routeToPool;
+    private final AtomicInteger allocatedTotal;
+    private final Queue<PerRoutePool<T, C>> starvedRoutes;
     private final AtomicBoolean isShutDown;
 
     private volatile int defaultMaxPerRoute;
+    private volatile int maxTotal;
 
     /**
+     * @param maxTotal the maximum total number of connections or {@code 0}
+     *   if the total number of connections is not to be limited.
+     *
      * @since 5.0
      */
     public LaxConnPool(
             final int defaultMaxPerRoute,
+            final int maxTotal,
             final TimeValue timeToLive,
             final PoolReusePolicy policy,
             final ConnPoolListener<T> connPoolListener) {
         super();
         Args.positive(defaultMaxPerRoute, "Max per route value");
+        Args.notNegative(maxTotal, "Max total value");
         this.timeToLive = TimeValue.defaultsToNegativeOneMillisecond(timeToLive);
         this.connPoolListener = connPoolListener;
         this.policy = policy != null ? policy : PoolReusePolicy.LIFO;
         this.routeToPool = new ConcurrentHashMap<>();
+        this.allocatedTotal = new AtomicInteger(0);
+        this.starvedRoutes = new ConcurrentLinkedQueue<>();
         this.isShutDown = new AtomicBoolean(false);
         this.defaultMaxPerRoute = defaultMaxPerRoute;
+        this.maxTotal = maxTotal;
+    }
+
+    /**
+     * @since 5.0
+     */
+    public LaxConnPool(
+            final int defaultMaxPerRoute,
+            final TimeValue timeToLive,
+            final PoolReusePolicy policy,
+            final ConnPoolListener<T> connPoolListener) {
+        this(defaultMaxPerRoute, 0, timeToLive, policy, connPoolListener);
     }
 
     public LaxConnPool(final int defaultMaxPerRoute) {
@@ -107,6 +139,7 @@ public void close(final CloseMode closeMode) {
                 routePool.shutdown(closeMode);
             }
             routeToPool.clear();
+            starvedRoutes.clear();
         }
     }
 
@@ -169,13 +202,85 @@ public void validatePendingRequests() {
         }
     }
 
+    /**
+     * Reserves capacity for a new connection, closing an idle connection
+     * of any route if the total limit has been reached.
+     */
+    boolean allocate() {
+        for (;;) {
+            final int max = maxTotal;
+            final int current = allocatedTotal.get();
+            if (max <= 0 || current < max) {
+                if (allocatedTotal.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            } else if (!evictIdle()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Gives back capacity of a closed connection and lets the route that
+     * has been waiting the longest for it make use of it.
+     */
+    void deallocate() {
+        allocatedTotal.decrementAndGet();
+        wakeUpStarved();
+    }
+
+    /**
+     * Registers the route as waiting for capacity. The route is expected to have
+     * queued its request already. Capacity given back by another thread after
+     * the route's last attempt to allocate it but before the route got registered
+     * would otherwise be missed, so it gets handed to the longest waiting route.
+     */
+    void starved(final PerRoutePool<T, C> routePool) {
+        if (routePool.starved.compareAndSet(false, true)) {
+            starvedRoutes.add(routePool);
+        }
+        if (allocate()) {
+            deallocate();
+        }
+    }
+
+    void wakeUpStarved() {
+        final PerRoutePool<T, C> routePool = starvedRoutes.poll();
+        if (routePool != null) {
+            routePool.starved.set(false);
+            routePool.servePendingRequests();
+            if (!routePool.pending.isEmpty()) {
+                starved(routePool);
+            }
+        }
+    }
+
+    private boolean evictIdle() {
+        for (final PerRoutePool<T, C> routePool : routeToPool.values()) {
+            if (routePool.evictIdle()) {
+                allocatedTotal.decrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the maximum total number of connections. {@code 0} disables the limit.
+     */
     @Override
     public void setMaxTotal(final int max) {
+        Args.notNegative(max, "Max value");
+        maxTotal = max;
     }
 
+    /**
+     * Returns the maximum total number of connections or {@code 0}
+     * if the total number of connections is not limited.
+     */
     @Override
     public int getMaxTotal() {
-        return 0;
+        return maxTotal;
     }
 
     @Override
@@ -215,6 +320,9 @@ public PoolStats getTotalStats() {
             availableTotal += routePool.getAvailableCount();
             maxTotal += routePool.getMax();
         }
+        if (this.maxTotal > 0) {
+            maxTotal = this.maxTotal;
+        }
         return new PoolStats(leasedTotal, pendingTotal, availableTotal, maxTotal);
     }
 
@@ -236,7 +344,10 @@ public Set<T> getRoutes() {
 
     public void enumAvailable(final Callback<PoolEntry<T, C>> callback) {
         for (final PerRoutePool<T, C> routePool : routeToPool.values()) {
-            routePool.enumAvailable(callback);
+            final int removed = routePool.enumAvailable(callback);
+            for (int i = 0; i < removed; i++) {
+                deallocate();
+            }
         }
     }
 
@@ -342,12 +453,13 @@ public boolean cancel() {
         private final T route;
         private final TimeValue timeToLive;
         private final PoolReusePolicy policy;
-        private final ConnPoolStats<T> connPoolStats;
+        private final LaxConnPool<T, C> connPool;
         private final ConnPoolListener<T> connPoolListener;
         private final ConcurrentMap<PoolEntry<T, C>, Boolean> leased;
         private final Deque<PoolEntry<T, C>> available;
         private final Deque<LeaseRequest<T, C>> pending;
         private final AtomicBoolean terminated;
+        private final AtomicBoolean starved;
 
         private volatile int max;
 
@@ -356,18 +468,19 @@ public boolean cancel() {
                 final int max,
                 final TimeValue timeToLive,
                 final PoolReusePolicy policy,
-                final ConnPoolStats<T> connPoolStats,
+                final LaxConnPool<T, C> connPool,
                 final ConnPoolListener<T> connPoolListener) {
             super();
             this.route = route;
             this.timeToLive = timeToLive;
             this.policy = policy;
-            this.connPoolStats = connPoolStats;
+            this.connPool = connPool;
             this.connPoolListener = connPoolListener;
             this.leased = new ConcurrentHashMap<>();
             this.available = new ConcurrentLinkedDeque<>();
             this.pending = new ConcurrentLinkedDeque<>();
             this.terminated = new AtomicBoolean(false);
+            this.starved = new AtomicBoolean(false);
             this.max = max;
         }
 
@@ -392,13 +505,13 @@ private void addLeased(final PoolEntry<T, C> entry) {
             if (leased.putIfAbsent(entry, Boolean.TRUE) != null) {
                 throw new IllegalStateException("Pool entry already present in the set of leased entries");
             } else if (connPoolListener != null) {
-                connPoolListener.onLease(route, connPoolStats);
+                connPoolListener.onLease(route, connPool);
             }
         }
 
         private void removeLeased(final PoolEntry<T, C> entry) {
             if (connPoolListener != null) {
-                connPoolListener.onRelease(route, connPoolStats);
+                connPoolListener.onRelease(route, connPool);
             }
             if (!leased.remove(entry, Boolean.TRUE)) {
                 throw new IllegalStateException("Pool entry is not present in the set of leased entries");
@@ -429,12 +542,15 @@ public Future<PoolEntry<T, C>> lease(
                 addLeased(availableEntry);
                 future.completed(availableEntry);
             } else {
-                if (pending.isEmpty() && leased.size() < max) {
+                if (pending.isEmpty() && leased.size() < max && connPool.allocate()) {
                     final PoolEntry<T, C> entry = new PoolEntry<>(route, timeToLive);
                     addLeased(entry);
                     future.completed(entry);
                 } else {
                     pending.add(new LeaseRequest<>(state, requestTimeout, future));
+                    if (leased.size() < max) {
+                        connPool.starved(this);
+                    }
                 }
             }
             return future;
@@ -456,7 +572,22 @@ public void release(final PoolEntry<T, C> releasedEntry, final boolean reusable)
                     default:
                         throw new IllegalStateException("Unexpected ConnPoolPolicy value: " + policy);
                 }
+                if (!servePendingRequests()) {
+                    // No one is waiting on this route, so let a route starved
+                    // by the total limit close this connection to make room
+                    connPool.wakeUpStarved();
+                }
+            } else {
+                connPool.deallocate();
+                servePendingRequests();
             }
+        }
+
+        /**
+         * Serves the next pending request, if any. Returns {@code false} if
+         * there were no requests waiting.
+         */
+        boolean servePendingRequests() {
             LeaseRequest<T, C> leaseRequest;
             while ((leaseRequest = pending.poll()) != null) {
                 if (leaseRequest.isDone()) {
@@ -473,13 +604,30 @@ public void release(final PoolEntry<T, C> releasedEntry, final boolean reusable)
                         addLeased(availableEntry);
                         leaseRequest.completed(availableEntry);
                     } else if (leased.size() < max) {
-                        final PoolEntry<T, C> newEntry = new PoolEntry<>(route, timeToLive);
-                        addLeased(newEntry);
-                        leaseRequest.completed(newEntry);
+                        if (connPool.allocate()) {
+                            final PoolEntry<T, C> newEntry = new PoolEntry<>(route, timeToLive);
+                            addLeased(newEntry);
+                            leaseRequest.completed(newEntry);
+                        } else {
+                            pending.addFirst(leaseRequest);
+                            connPool.starved(this);
+                        }
+                    } else {
+                        pending.addFirst(leaseRequest);
                     }
-                    break;
+                    return true;
                 }
             }
+            return false;
+        }
+
+        boolean evictIdle() {
+            final PoolEntry<T, C> lastUsed = available.pollLast();
+            if (lastUsed != null) {
+                lastUsed.discardConnection(CloseMode.GRACEFUL);
+                return true;
+            }
+            return false;
         }
 
         public void validatePendingRequests() {
@@ -525,14 +673,16 @@ public int getAvailableCount() {
             return available.size();
         }
 
-        public void enumAvailable(final Callback<PoolEntry<T, C>> callback) {
+        public int enumAvailable(final Callback<PoolEntry<T, C>> callback) {
+            int removed = 0;
             for (final Iterator<PoolEntry<T, C>> it = available.iterator(); it.hasNext(); ) {
                 final PoolEntry<T, C> entry = it.next();
                 callback.execute(entry);
-                if (!entry.hasConnection()) {
-                    it.remove();
+                if (!entry.hasConnection() && available.removeFirstOccurrence(entry)) {
+                    removed++;
                 }
             }
+            return removed;
         }
 
         public void enumLeased(final Callback<PoolEntry<T, C>> callback) {
@@ -41,6 +41,12 @@ public enum PoolConcurrencyPolicy {
     /**
      * Strict connection max limit guarantees.
      */
-    STRICT
+    STRICT,
+
+    /**
+     * Strict connection max limit guarantees with higher concurrency
+     * than {@link #STRICT}.
+     */
+    STRIPED
 
 }
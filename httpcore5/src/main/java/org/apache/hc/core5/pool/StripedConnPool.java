@@ -0,0 +1,773 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.pool;
+
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.Experimental;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.function.Callback;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.io.ModalCloseable;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.Asserts;
+import org.apache.hc.core5.util.Deadline;
+import org.apache.hc.core5.util.DeadlineTimeoutException;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Connection pool with strict connection limit guarantees and higher
+ * concurrency than {@link StrictConnPool}.
+ * <p>
+ * The total and per route connection limits are enforced with atomic
+ * permit counters. Idle connections are kept in lock-free per route
+ * stacks, so leasing a connection while the pool has spare capacity does
+ * not acquire any lock. Only when the pool is exhausted are lease requests
+ * queued behind a per route lock, which is also taken by the threads that
+ * return capacity to the pool in order to hand it over to the pending
+ * requests.
+ * </p>
+ *
+ * @param <T> route
+ * @param <C> connection object
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+@Experimental
+public class StripedConnPool<T, C extends ModalCloseable> implements ManagedConnPool<T, C> {
+
+    private final TimeValue timeToLive;
+    private final ConnPoolListener<T> connPoolListener;
+    private final PoolReusePolicy policy;
+    private final ConcurrentMap<T, PerRoutePool<T, C>> routeToPool;
+    private final ConcurrentMap<T, Integer> maxPerRoute;
+    private final AtomicInteger allocatedTotal;
+    private final AtomicInteger pendingTotal;
+    private final Queue<LeaseRequest<T, C>> completedRequests;
+    private final AtomicBoolean isShutDown;
+
+    private volatile int defaultMaxPerRoute;
+    private volatile int maxTotal;
+
+    /**
+     * @since 5.0
+     */
+    public StripedConnPool(
+            final int defaultMaxPerRoute,
+            final int maxTotal,
+            final TimeValue timeToLive,
+            final PoolReusePolicy policy,
+            final ConnPoolListener<T> connPoolListener) {
+        super();
+        Args.positive(defaultMaxPerRoute, "Max per route value");
+        Args.positive(maxTotal, "Max total value");
+        this.timeToLive = TimeValue.defaultsToNegativeOneMillisecond(timeToLive);
+        this.connPoolListener = connPoolListener;
+        this.policy = policy != null ? policy : PoolReusePolicy.LIFO;
+        this.routeToPool = new ConcurrentHashMap<>();
+        this.maxPerRoute = new ConcurrentHashMap<>();
+        this.allocatedTotal = new AtomicInteger(0);
+        this.pendingTotal = new AtomicInteger(0);
+        this.completedRequests = new ConcurrentLinkedQueue<>();
+        this.isShutDown = new AtomicBoolean(false);
+        this.defaultMaxPerRoute = defaultMaxPerRoute;
+        this.maxTotal = maxTotal;
+    }
+
+    public StripedConnPool(final int defaultMaxPerRoute, final int maxTotal) {
+        this(defaultMaxPerRoute, maxTotal, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, null);
+    }
+
+    public boolean isShutdown() {
+        return this.isShutDown.get();
+    }
+
+    @Override
+    public void close(final CloseMode closeMode) {
+        if (this.isShutDown.compareAndSet(false, true)) {
+            for (final PerRoutePool<T, C> pool : this.routeToPool.values()) {
+                pool.lock.lock();
+                try {
+                    LeaseRequest<T, C> request;
+                    while ((request = pool.pending.poll()) != null) {
+                        this.pendingTotal.decrementAndGet();
+                        request.getFuture().cancel();
+                    }
+                    pool.shutdown(closeMode);
+                } finally {
+                    pool.lock.unlock();
+                }
+            }
+            this.routeToPool.clear();
+            this.completedRequests.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        close(CloseMode.GRACEFUL);
+    }
+
+    private PerRoutePool<T, C> getPool(final T route) {
+        PerRoutePool<T, C> pool = this.routeToPool.get(route);
+        if (pool == null) {
+            final PerRoutePool<T, C> newPool = new PerRoutePool<>(route);
+            pool = this.routeToPool.putIfAbsent(route, newPool);
+            if (pool == null) {
+                pool = newPool;
+            }
+        }
+        return pool;
+    }
+
+    @Override
+    public Future<PoolEntry<T, C>> lease(
+            final T route, final Object state,
+            final Timeout requestTimeout,
+            final FutureCallback<PoolEntry<T, C>> callback) {
+        Args.notNull(route, "Route");
+        Args.notNull(requestTimeout, "Request timeout");
+        Asserts.check(!this.isShutDown.get(), "Connection pool shut down");
+        final BasicFuture<PoolEntry<T, C>> future = new BasicFuture<>(callback);
+        final PerRoutePool<T, C> pool = getPool(route);
+        if (this.pendingTotal.get() == 0) {
+            // Fast path: no one is waiting, so the request can be served
+            // without taking the route lock
+            final PoolEntry<T, C> entry = allocate(pool, state);
+            if (entry != null) {
+                future.completed(entry);
+                return future;
+            }
+        }
+        final LeaseRequest<T, C> request = new LeaseRequest<>(route, state, requestTimeout, future);
+        pool.lock.lock();
+        try {
+            pool.pending.add(request);
+            this.pendingTotal.incrementAndGet();
+            processPendingRequests(pool);
+        } finally {
+            pool.lock.unlock();
+        }
+        fireCallbacks();
+        return future;
+    }
+
+    public Future<PoolEntry<T, C>> lease(final T route, final Object state) {
+        return lease(route, state, Timeout.DISABLED, null);
+    }
+
+    @Override
+    public void release(final PoolEntry<T, C> entry, final boolean reusable) {
+        if (entry == null) {
+            return;
+        }
+        if (this.isShutDown.get()) {
+            return;
+        }
+        final PerRoutePool<T, C> pool = this.routeToPool.get(entry.getRoute());
+        if (pool == null || !pool.removeLeased(entry)) {
+            throw new IllegalStateException("Pool entry is not present in the set of leased entries");
+        }
+        if (this.connPoolListener != null) {
+            this.connPoolListener.onRelease(entry.getRoute(), this);
+        }
+        if (reusable && entry.hasConnection()) {
+            pool.addAvailable(entry, this.policy);
+        } else {
+            entry.discardConnection(CloseMode.GRACEFUL);
+            deallocate(pool);
+        }
+        if (this.pendingTotal.get() > 0) {
+            if (!pool.pending.isEmpty()) {
+                pool.lock.lock();
+                try {
+                    processPendingRequests(pool);
+                } finally {
+                    pool.lock.unlock();
+                }
+            }
+            // Requests pending on other routes can only make progress
+            // if there is spare total capacity or an idle connection
+            // that can be closed to free some up
+            if (!pool.available.isEmpty() || this.allocatedTotal.get() < this.maxTotal) {
+                processPendingRequests();
+            }
+        }
+        fireCallbacks();
+    }
+
+    /**
+     * Leases an idle connection or allocates a new pool entry if the total
+     * and per route limits permit. Returns {@code null} if the pool is
+     * exhausted.
+     */
+    private PoolEntry<T, C> allocate(final PerRoutePool<T, C> pool, final Object state) {
+        for (;;) {
+            final PoolEntry<T, C> entry = pool.getFree(state);
+            if (entry == null) {
+                break;
+            }
+            if (entry.getExpiryDeadline().isExpired()) {
+                entry.discardConnection(CloseMode.GRACEFUL);
+                deallocate(pool);
+            } else {
+                leased(pool, entry);
+                return entry;
+            }
+        }
+        final int max = getMax(pool.route);
+        while (!pool.tryAllocate(max)) {
+            // Shrink the route pool by closing an idle connection whose
+            // state did not match
+            if (!evictIdle(pool)) {
+                return null;
+            }
+        }
+        while (!tryAllocateTotal()) {
+            // Free up capacity by closing the least recently used idle
+            // connection of any route
+            if (!evictIdle()) {
+                pool.allocated.decrementAndGet();
+                return null;
+            }
+        }
+        final PoolEntry<T, C> entry = new PoolEntry<>(pool.route, this.timeToLive);
+        leased(pool, entry);
+        return entry;
+    }
+
+    private boolean tryAllocateTotal() {
+        for (;;) {
+            final int current = this.allocatedTotal.get();
+            if (current >= this.maxTotal) {
+                return false;
+            }
+            if (this.allocatedTotal.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void deallocate(final PerRoutePool<T, C> pool) {
+        pool.allocated.decrementAndGet();
+        this.allocatedTotal.decrementAndGet();
+    }
+
+    private void leased(final PerRoutePool<T, C> pool, final PoolEntry<T, C> entry) {
+        pool.addLeased(entry);
+        if (this.connPoolListener != null) {
+            this.connPoolListener.onLease(entry.getRoute(), this);
+        }
+    }
+
+    private boolean evictIdle(final PerRoutePool<T, C> pool) {
+        final PoolEntry<T, C> lastUsed = pool.available.pollLast();
+        if (lastUsed != null) {
+            lastUsed.discardConnection(CloseMode.GRACEFUL);
+            deallocate(pool);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean evictIdle() {
+        for (final PerRoutePool<T, C> pool : this.routeToPool.values()) {
+            if (evictIdle(pool)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Serves pending requests of the given route in order of arrival.
+     * Must be called while holding the route lock.
+     */
+    private void processPendingRequests(final PerRoutePool<T, C> pool) {
+        LeaseRequest<T, C> request;
+        while ((request = pool.pending.peek()) != null) {
+            if (request.getFuture().isCancelled()) {
+                removePending(pool, request);
+                continue;
+            }
+            final Deadline deadline = request.getDeadline();
+            if (deadline.isExpired()) {
+                request.failed(DeadlineTimeoutException.from(deadline));
+            } else {
+                final PoolEntry<T, C> entry = allocate(pool, request.getState());
+                if (entry == null) {
+                    return;
+                }
+                request.completed(entry);
+            }
+            removePending(pool, request);
+            this.completedRequests.add(request);
+        }
+    }
+
+    private void processPendingRequests() {
+        for (final PerRoutePool<T, C> pool : this.routeToPool.values()) {
+            if (!pool.pending.isEmpty()) {
+                pool.lock.lock();
+                try {
+                    processPendingRequests(pool);
+                } finally {
+                    pool.lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void removePending(final PerRoutePool<T, C> pool, final LeaseRequest<T, C> request) {
+        if (pool.pending.remove(request)) {
+            this.pendingTotal.decrementAndGet();
+        }
+    }
+
+    private void fireCallbacks() {
+        LeaseRequest<T, C> request;
+        while ((request = this.completedRequests.poll()) != null) {
+            final BasicFuture<PoolEntry<T, C>> future = request.getFuture();
+            final Exception ex = request.getException();
+            final PoolEntry<T, C> result = request.getResult();
+            boolean successfullyCompleted = false;
+            if (ex != null) {
+                future.failed(ex);
+            } else if (result != null) {
+                if (future.completed(result)) {
+                    successfullyCompleted = true;
+                }
+            } else {
+                future.cancel();
+            }
+            if (!successfullyCompleted) {
+                release(result, true);
+            }
+        }
+    }
+
+    public void validatePendingRequests() {
+        final long now = System.currentTimeMillis();
+        for (final PerRoutePool<T, C> pool : this.routeToPool.values()) {
+            if (pool.pending.isEmpty()) {
+                continue;
+            }
+            pool.lock.lock();
+            try {
+                final Iterator<LeaseRequest<T, C>> it = pool.pending.iterator();
+                while (it.hasNext()) {
+                    final LeaseRequest<T, C> request = it.next();
+                    final BasicFuture<PoolEntry<T, C>> future = request.getFuture();
+                    if (future.isCancelled() && !request.isDone()) {
+                        removePending(pool, request);
+                    } else {
+                        final Deadline deadline = request.getDeadline();
+                        if (deadline.isBefore(now)) {
+                            request.failed(DeadlineTimeoutException.from(deadline));
+                        }
+                        if (request.isDone()) {
+                            removePending(pool, request);
+                            this.completedRequests.add(request);
+                        }
+                    }
+                }
+            } finally {
+                pool.lock.unlock();
+            }
+        }
+        fireCallbacks();
+    }
+
+    private int getMax(final T route) {
+        final Integer v = this.maxPerRoute.get(route);
+        if (v != null) {
+            return v.intValue();
+        }
+        return this.defaultMaxPerRoute;
+    }
+
+    @Override
+    public void setMaxTotal(final int max) {
+        Args.positive(max, "Max value");
+        this.maxTotal = max;
+    }
+
+    @Override
+    public int getMaxTotal() {
+        return this.maxTotal;
+    }
+
+    @Override
+    public void setDefaultMaxPerRoute(final int max) {
+        Args.positive(max, "Max value");
+        this.defaultMaxPerRoute = max;
+    }
+
+    @Override
+    public int getDefaultMaxPerRoute() {
+        return this.defaultMaxPerRoute;
+    }
+
+    @Override
+    public void setMaxPerRoute(final T route, final int max) {
+        Args.notNull(route, "Route");
+        if (max > -1) {
+            this.maxPerRoute.put(route, Integer.valueOf(max));
+        } else {
+            this.maxPerRoute.remove(route);
+        }
+    }
+
+    @Override
+    public int getMaxPerRoute(final T route) {
+        Args.notNull(route, "Route");
+        return getMax(route);
+    }
+
+    @Override
+    public PoolStats getTotalStats() {
+        int leasedTotal = 0;
+        int availableTotal = 0;
+        for (final PerRoutePool<T, C> pool : this.routeToPool.values()) {
+            leasedTotal += pool.getLeasedCount();
+            availableTotal += pool.getAvailableCount();
+        }
+        return new PoolStats(leasedTotal, this.pendingTotal.get(), availableTotal, this.maxTotal);
+    }
+
+    @Override
+    public PoolStats getStats(final T route) {
+        Args.notNull(route, "Route");
+        final PerRoutePool<T, C> pool = getPool(route);
+        return new PoolStats(
+                pool.getLeasedCount(),
+                pool.getPendingCount(),
+                pool.getAvailableCount(),
+                getMax(route));
+    }
+
+    @Override
+    public Set<T> getRoutes() {
+        return new HashSet<>(this.routeToPool.keySet());
+    }
+
+    /**
+     * Enumerates all available connections.
+     */
+    public void enumAvailable(final Callback<PoolEntry<T, C>> callback) {
+        for (final PerRoutePool<T, C> pool : this.routeToPool.values()) {
+            for (final Iterator<PoolEntry<T, C>> it = pool.available.iterator(); it.hasNext(); ) {
+                final PoolEntry<T, C> entry = it.next();
+                callback.execute(entry);
+                if (!entry.hasConnection() && pool.available.removeFirstOccurrence(entry)) {
+                    deallocate(pool);
+                }
+            }
+        }
+        processPendingRequests();
+        fireCallbacks();
+    }
+
+    /**
+     * Enumerates all leased connections.
+     */
+    public void enumLeased(final Callback<PoolEntry<T, C>> callback) {
+        for (final PerRoutePool<T, C> pool : this.routeToPool.values()) {
+            for (final PoolEntry<T, C> entry : pool.leased.keySet()) {
+                callback.execute(entry);
+            }
+        }
+        processPendingRequests();
+        fireCallbacks();
+    }
+
+    @Override
+    public void closeIdle(final TimeValue idleTime) {
+        final long deadline = System.currentTimeMillis() - (TimeValue.isPositive(idleTime) ? idleTime.toMillis() : 0);
+        enumAvailable(new Callback<PoolEntry<T, C>>() {
+
+            @Override
+            public void execute(final PoolEntry<T, C> entry) {
+                if (entry.getUpdated() <= deadline) {
+                    entry.discardConnection(CloseMode.GRACEFUL);
+                }
+            }
+
+        });
+    }
+
+    @Override
+    public void closeExpired() {
+        final long now = System.currentTimeMillis();
+        enumAvailable(new Callback<PoolEntry<T, C>>() {
+
+            @Override
+            public void execute(final PoolEntry<T, C> entry) {
+                if (entry.getExpiryDeadline().isBefore(now)) {
+                    entry.discardConnection(CloseMode.GRACEFUL);
+                }
+            }
+
+        });
+    }
+
+    @Override
+    public String toString() {
+        final PoolStats totalStats = getTotalStats();
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[leased: ");
+        buffer.append(totalStats.getLeased());
+        buffer.append("][available: ");
+        buffer.append(totalStats.getAvailable());
+        buffer.append("][pending: ");
+        buffer.append(totalStats.getPending());
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+    static class LeaseRequest<T, C extends ModalCloseable> {
+
+        private final T route;
+        private final Object state;
+        private final Deadline deadline;
+        private final BasicFuture<PoolEntry<T, C>> future;
+        private final AtomicBoolean completed;
+        private volatile PoolEntry<T, C> result;
+        private volatile Exception ex;
+
+        LeaseRequest(
+                final T route,
+                final Object state,
+                final Timeout requestTimeout,
+                final BasicFuture<PoolEntry<T, C>> future) {
+            super();
+            this.route = route;
+            this.state = state;
+            this.deadline = Deadline.calculate(requestTimeout);
+            this.future = future;
+            this.completed = new AtomicBoolean(false);
+        }
+
+        public T getRoute() {
+            return this.route;
+        }
+
+        public Object getState() {
+            return this.state;
+        }
+
+        public Deadline getDeadline() {
+            return this.deadline;
+        }
+
+        public boolean isDone() {
+            return this.completed.get();
+        }
+
+        public void failed(final Exception ex) {
+            if (this.completed.compareAndSet(false, true)) {
+                this.ex = ex;
+            }
+        }
+
+        public void completed(final PoolEntry<T, C> result) {
+            if (this.completed.compareAndSet(false, true)) {
+                this.result = result;
+            }
+        }
+
+        public BasicFuture<PoolEntry<T, C>> getFuture() {
+            return this.future;
+        }
+
+        public PoolEntry<T, C> getResult() {
+            return this.result;
+        }
+
+        public Exception getException() {
+            return this.ex;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder buffer = new StringBuilder();
+            buffer.append("[");
+            buffer.append(this.route);
+            buffer.append("][");
+            buffer.append(this.state);
+            buffer.append("]");
+            return buffer.toString();
+        }
+
+    }
+
+    static class PerRoutePool<T, C extends ModalCloseable> {
+
+        private final T route;
+        private final ConcurrentMap<PoolEntry<T, C>, Boolean> leased;
+        private final Deque<PoolEntry<T, C>> available;
+        private final Deque<LeaseRequest<T, C>> pending;
+        private final AtomicInteger allocated;
+        private final Lock lock;
+
+        PerRoutePool(final T route) {
+            super();
+            this.route = route;
+            this.leased = new ConcurrentHashMap<>();
+            this.available = new ConcurrentLinkedDeque<>();
+            this.pending = new ConcurrentLinkedDeque<>();
+            this.allocated = new AtomicInteger(0);
+            this.lock = new ReentrantLock();
+        }
+
+        public final T getRoute() {
+            return route;
+        }
+
+        public int getLeasedCount() {
+            return this.leased.size();
+        }
+
+        public int getAvailableCount() {
+            return this.available.size();
+        }
+
+        public int getPendingCount() {
+            return this.pending.size();
+        }
+
+        public int getAllocatedCount() {
+            return this.allocated.get();
+        }
+
+        boolean tryAllocate(final int max) {
+            for (;;) {
+                final int current = this.allocated.get();
+                if (current >= max) {
+                    return false;
+                }
+                if (this.allocated.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Claims an idle entry whose state matches the given one or, failing
+         * that, an idle entry without state. Concurrent claims of the same
+         * entry are resolved by the deque, which lets exactly one of them
+         * unlink it.
+         */
+        PoolEntry<T, C> getFree(final Object state) {
+            if (this.available.isEmpty()) {
+                return null;
+            }
+            if (state != null) {
+                for (final PoolEntry<T, C> entry : this.available) {
+                    if (state.equals(entry.getState()) && this.available.removeFirstOccurrence(entry)) {
+                        return entry;
+                    }
+                }
+            }
+            for (final PoolEntry<T, C> entry : this.available) {
+                if (entry.getState() == null && this.available.removeFirstOccurrence(entry)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        void addLeased(final PoolEntry<T, C> entry) {
+            if (this.leased.putIfAbsent(entry, Boolean.TRUE) != null) {
+                throw new IllegalStateException("Pool entry already present in the set of leased entries");
+            }
+        }
+
+        boolean removeLeased(final PoolEntry<T, C> entry) {
+            return this.leased.remove(entry, Boolean.TRUE);
+        }
+
+        void addAvailable(final PoolEntry<T, C> entry, final PoolReusePolicy policy) {
+            switch (policy) {
+                case LIFO:
+                    this.available.addFirst(entry);
+                    break;
+                case FIFO:
+                    this.available.addLast(entry);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected ConnPoolPolicy value: " + policy);
+            }
+        }
+
+        void shutdown(final CloseMode closeMode) {
+            PoolEntry<T, C> availableEntry;
+            while ((availableEntry = this.available.poll()) != null) {
+                availableEntry.discardConnection(closeMode);
+            }
+            for (final PoolEntry<T, C> entry : this.leased.keySet()) {
+                entry.discardConnection(closeMode);
+            }
+            this.leased.clear();
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder buffer = new StringBuilder();
+            buffer.append("[route: ");
+            buffer.append(this.route);
+            buffer.append("][leased: ");
+            buffer.append(this.leased.size());
+            buffer.append("][available: ");
+            buffer.append(this.available.size());
+            buffer.append("][pending: ");
+            buffer.append(this.pending.size());
+            buffer.append("]");
+            return buffer.toString();
+        }
+
+    }
+
+}
@@ -27,13 +27,17 @@
 package org.apache.hc.core5.reactor;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.ThreadingBehavior;
@@ -55,11 +59,13 @@
 public abstract class AbstractIOSessionPool<T> implements ModalCloseable {
 
     private final ConcurrentMap<T, PoolEntry> sessionPool;
+    private final ConcurrentMap<IOSession, AtomicInteger> leaseCounts;
     private final AtomicBoolean closed;
 
     public AbstractIOSessionPool() {
         super();
         this.sessionPool = new ConcurrentHashMap<>();
+        this.leaseCounts = new ConcurrentHashMap<>();
         this.closed = new AtomicBoolean(false);
     }
 
@@ -76,6 +82,31 @@ protected abstract void closeSession(
             IOSession ioSession,
             CloseMode closeMode);
 
+    /**
+     * Returns the maximum number of sessions that may be opened to the same
+     * endpoint. Additional sessions are only opened when all existing ones are
+     * {@link #isSessionSaturated(IOSession, int) saturated}.
+     * <p>
+     * Default: {@code 1}
+     * </p>
+     */
+    protected int getMaxSessionsPerEndpoint() {
+        return 1;
+    }
+
+    /**
+     * Determines whether the given session has reached or is about to reach the
+     * limit of concurrent requests it can handle and additional sessions should
+     * be opened to the same endpoint.
+     *
+     * @param ioSession the I/O session.
+     * @param leaseCount the number of {@link SessionLease leases} of the session
+     *   handed out by this pool and not yet released.
+     */
+    protected boolean isSessionSaturated(final IOSession ioSession, final int leaseCount) {
+        return false;
+    }
+
     @Override
     public final void close(final CloseMode closeMode) {
         if (closed.compareAndSet(false, true)) {
@@ -85,6 +116,10 @@ public final void close(final CloseMode closeMode) {
                         closeSession(poolEntry.session, closeMode);
                         poolEntry.session = null;
                     }
+                    for (final IOSession extraSession : poolEntry.extraSessions) {
+                        closeSession(extraSession, closeMode);
+                    }
+                    poolEntry.extraSessions.clear();
                     if (poolEntry.sessionFuture != null) {
                         poolEntry.sessionFuture.cancel(true);
                         poolEntry.sessionFuture = null;
@@ -100,6 +135,7 @@ public final void close(final CloseMode closeMode) {
                 }
             }
             sessionPool.clear();
+            leaseCounts.clear();
         }
     }
 
@@ -120,15 +156,54 @@ PoolEntry getPoolEntry(final T endpoint) {
         return poolEntry;
     }
 
+    /**
+     * Obtains a session to the given endpoint. The session is not accounted for
+     * when distributing requests across multiple sessions to the same endpoint.
+     *
+     * @see #leaseSession(Object, Timeout, FutureCallback)
+     */
     public final Future<IOSession> getSession(
             final T endpoint,
             final Timeout connectTimeout,
             final FutureCallback<IOSession> callback) {
+        final ComplexFuture<IOSession> future = new ComplexFuture<>(callback);
+        future.setDependency(leaseSession(endpoint, connectTimeout, new FutureCallback<SessionLease>() {
+
+            @Override
+            public void completed(final SessionLease lease) {
+                lease.release();
+                future.completed(lease.getSession());
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+                future.failed(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel();
+            }
+
+        }));
+        return future;
+    }
+
+    /**
+     * Leases a session to the given endpoint. The session counts as being in use by
+     * the caller until the lease gets {@link SessionLease#release() released}. Pools
+     * that open multiple sessions to the same endpoint rely on this to route new requests
+     * to the least loaded session.
+     */
+    public final Future<SessionLease> leaseSession(
+            final T endpoint,
+            final Timeout connectTimeout,
+            final FutureCallback<SessionLease> callback) {
         Args.notNull(endpoint, "Endpoint");
         Asserts.check(!closed.get(), "Connection pool shut down");
-        final ComplexFuture<IOSession> future = new ComplexFuture<>(callback);
+        final ComplexFuture<SessionLease> future = new ComplexFuture<>(callback);
         final PoolEntry poolEntry = getPoolEntry(endpoint);
-        getSessionInternal(poolEntry, false, endpoint, connectTimeout, new FutureCallback<IOSession>() {
+        getSessionInternal(poolEntry, null, endpoint, connectTimeout, new FutureCallback<IOSession>() {
 
             @Override
             public void completed(final IOSession ioSession) {
@@ -137,14 +212,14 @@ public void completed(final IOSession ioSession) {
                     @Override
                     public void execute(final Boolean result) {
                         if (result) {
-                            future.completed(ioSession);
+                            completeLease(future, ioSession);
                         } else {
-                            getSessionInternal(poolEntry, true, endpoint, connectTimeout,
+                            getSessionInternal(poolEntry, ioSession, endpoint, connectTimeout,
                                 new FutureCallback<IOSession>() {
 
                                 @Override
                                 public void completed(final IOSession ioSession) {
-                                    future.completed(ioSession);
+                                    completeLease(future, ioSession);
                                 }
 
                                 @Override
@@ -178,71 +253,158 @@ public void cancelled() {
         return future;
     }
 
+    private void completeLease(final ComplexFuture<SessionLease> future, final IOSession ioSession) {
+        final AtomicInteger leaseCount = leaseCounts.get(ioSession);
+        // The session may have been evicted from the pool in the meantime
+        final SessionLease lease = new SessionLease(ioSession, leaseCount != null ? leaseCount : new AtomicInteger(0));
+        if (!future.completed(lease)) {
+            // Nobody is going to use the session
+            lease.release();
+        }
+    }
+
+    /**
+     * Returns the number of unreleased leases of the given session.
+     */
+    int getLeaseCount(final IOSession ioSession) {
+        final AtomicInteger leaseCount = leaseCounts.get(ioSession);
+        return leaseCount != null ? leaseCount.get() : 0;
+    }
+
     private void getSessionInternal(
             final PoolEntry poolEntry,
-            final boolean requestNew,
+            final IOSession staleSession,
             final T namedEndpoint,
             final Timeout connectTimeout,
             final FutureCallback<IOSession> callback) {
         synchronized (poolEntry) {
-            if (poolEntry.session != null && requestNew) {
-                closeSession(poolEntry.session, CloseMode.GRACEFUL);
-                poolEntry.session = null;
-            }
-            if (poolEntry.session != null && poolEntry.session.isClosed()) {
-                poolEntry.session = null;
+            if (staleSession != null) {
+                if (poolEntry.session == staleSession) {
+                    closeSession(staleSession, CloseMode.GRACEFUL);
+                    poolEntry.session = null;
+                } else if (poolEntry.extraSessions.remove(staleSession)) {
+                    closeSession(staleSession, CloseMode.GRACEFUL);
+                }
+                leaseCounts.remove(staleSession);
             }
+            purgeClosed(poolEntry);
             if (poolEntry.session != null) {
-                callback.completed(poolEntry.session);
+                callback.completed(selectSession(poolEntry, namedEndpoint, connectTimeout));
             } else {
                 poolEntry.requestQueue.add(callback);
                 if (poolEntry.sessionFuture == null) {
-                    poolEntry.sessionFuture = connectSession(
-                            namedEndpoint,
-                            connectTimeout,
-                            new FutureCallback<IOSession>() {
+                    connectSession(poolEntry, namedEndpoint, connectTimeout);
+                }
+            }
+        }
+    }
 
-                                @Override
-                                public void completed(final IOSession result) {
-                                    synchronized (poolEntry) {
-                                        poolEntry.session = result;
-                                        poolEntry.sessionFuture = null;
-                                        for (;;) {
-                                            final FutureCallback<IOSession> callback = poolEntry.requestQueue.poll();
-                                            if (callback != null) {
-                                                callback.completed(result);
-                                            } else {
-                                                break;
-                                            }
-                                        }
-                                    }
-                                }
+    private void purgeClosed(final PoolEntry poolEntry) {
+        for (final Iterator<IOSession> it = poolEntry.extraSessions.iterator(); it.hasNext(); ) {
+            final IOSession extraSession = it.next();
+            if (extraSession.isClosed()) {
+                leaseCounts.remove(extraSession);
+                it.remove();
+            }
+        }
+        if (poolEntry.session != null && poolEntry.session.isClosed()) {
+            leaseCounts.remove(poolEntry.session);
+            poolEntry.session = null;
+        }
+        if (poolEntry.session == null && !poolEntry.extraSessions.isEmpty()) {
+            poolEntry.session = poolEntry.extraSessions.remove(0);
+        }
+    }
 
-                                @Override
-                                public void failed(final Exception ex) {
-                                    synchronized (poolEntry) {
-                                        poolEntry.session = null;
-                                        poolEntry.sessionFuture = null;
-                                        for (;;) {
-                                            final FutureCallback<IOSession> callback = poolEntry.requestQueue.poll();
-                                            if (callback != null) {
-                                                callback.failed(ex);
-                                            } else {
-                                                break;
-                                            }
-                                        }
-                                    }
+    /**
+     * Picks the least loaded session of the pool entry and starts opening
+     * an additional one if that session is saturated.
+     */
+    private IOSession selectSession(
+            final PoolEntry poolEntry,
+            final T namedEndpoint,
+            final Timeout connectTimeout) {
+        IOSession ioSession = poolEntry.session;
+        AtomicInteger leaseCount = getLeaseCounter(ioSession);
+        for (final IOSession extraSession : poolEntry.extraSessions) {
+            final AtomicInteger extraLeaseCount = getLeaseCounter(extraSession);
+            if (extraLeaseCount.get() < leaseCount.get()) {
+                ioSession = extraSession;
+                leaseCount = extraLeaseCount;
+            }
+        }
+        if (poolEntry.sessionFuture == null
+                && poolEntry.extraSessions.size() + 1 < getMaxSessionsPerEndpoint()
+                && isSessionSaturated(ioSession, leaseCount.get())) {
+            connectSession(poolEntry, namedEndpoint, connectTimeout);
+        }
+        leaseCount.incrementAndGet();
+        return ioSession;
+    }
+
+    private AtomicInteger getLeaseCounter(final IOSession ioSession) {
+        AtomicInteger leaseCount = leaseCounts.get(ioSession);
+        if (leaseCount == null) {
+            final AtomicInteger newLeaseCount = new AtomicInteger(0);
+            leaseCount = leaseCounts.putIfAbsent(ioSession, newLeaseCount);
+            if (leaseCount == null) {
+                leaseCount = newLeaseCount;
+            }
+        }
+        return leaseCount;
+    }
+
+    private void connectSession(
+            final PoolEntry poolEntry,
+            final T namedEndpoint,
+            final Timeout connectTimeout) {
+        poolEntry.sessionFuture = connectSession(
+                namedEndpoint,
+                connectTimeout,
+                new FutureCallback<IOSession>() {
+
+                    @Override
+                    public void completed(final IOSession result) {
+                        synchronized (poolEntry) {
+                            if (poolEntry.session == null) {
+                                poolEntry.session = result;
+                            } else {
+                                poolEntry.extraSessions.add(result);
+                            }
+                            poolEntry.sessionFuture = null;
+                            for (;;) {
+                                final FutureCallback<IOSession> callback = poolEntry.requestQueue.poll();
+                                if (callback != null) {
+                                    getLeaseCounter(result).incrementAndGet();
+                                    callback.completed(result);
+                                } else {
+                                    break;
                                 }
+                            }
+                        }
+                    }
 
-                                @Override
-                                public void cancelled() {
-                                    failed(new ConnectionClosedException("Connection request cancelled"));
+                    @Override
+                    public void failed(final Exception ex) {
+                        synchronized (poolEntry) {
+                            poolEntry.sessionFuture = null;
+                            for (;;) {
+                                final FutureCallback<IOSession> callback = poolEntry.requestQueue.poll();
+                                if (callback != null) {
+                                    callback.failed(ex);
+                                } else {
+                                    break;
                                 }
+                            }
+                        }
+                    }
 
-                            });
-                }
-            }
-        }
+                    @Override
+                    public void cancelled() {
+                        failed(new ConnectionClosedException("Connection request cancelled"));
+                    }
+
+                });
     }
 
     public final void enumAvailable(final Callback<IOSession> callback) {
@@ -251,9 +413,10 @@ public final void enumAvailable(final Callback<IOSession> callback) {
                 synchronized (poolEntry) {
                     if (poolEntry.session != null) {
                         callback.execute(poolEntry.session);
-                        if (poolEntry.session.isClosed()) {
-                            poolEntry.session = null;
+                        for (final IOSession extraSession : poolEntry.extraSessions) {
+                            callback.execute(extraSession);
                         }
+                        purgeClosed(poolEntry);
                     }
                 }
             }
@@ -265,10 +428,21 @@ public final void closeIdle(final TimeValue idleTime) {
         for (final PoolEntry poolEntry: sessionPool.values()) {
             if (poolEntry.session != null) {
                 synchronized (poolEntry) {
+                    // Surplus sessions get retired first
+                    for (final Iterator<IOSession> it = poolEntry.extraSessions.iterator(); it.hasNext(); ) {
+                        final IOSession extraSession = it.next();
+                        if (extraSession.getLastReadTime() <= deadline) {
+                            closeSession(extraSession, CloseMode.GRACEFUL);
+                            leaseCounts.remove(extraSession);
+                            it.remove();
+                        }
+                    }
                     if (poolEntry.session != null && poolEntry.session.getLastReadTime() <= deadline) {
                         closeSession(poolEntry.session, CloseMode.GRACEFUL);
+                        leaseCounts.remove(poolEntry.session);
                         poolEntry.session = null;
                     }
+                    purgeClosed(poolEntry);
                 }
             }
         }
@@ -286,14 +460,59 @@ public String toString() {
         return buffer.toString();
     }
 
+    /**
+     * Session handed out by {@link #leaseSession(Object, Timeout, FutureCallback)}.
+     *
+     * @since 5.0
+     */
+    public static final class SessionLease {
+
+        private final IOSession session;
+        private final AtomicInteger leaseCount;
+        private final AtomicBoolean released;
+
+        SessionLease(final IOSession session, final AtomicInteger leaseCount) {
+            this.session = session;
+            this.leaseCount = leaseCount;
+            this.released = new AtomicBoolean(false);
+        }
+
+        public IOSession getSession() {
+            return session;
+        }
+
+        /**
+         * Signals that the session is no longer used by the lease holder.
+         * Releasing a lease more than once has no effect.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                for (;;) {
+                    final int current = leaseCount.get();
+                    if (current <= 0 || leaseCount.compareAndSet(current, current - 1)) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "[session=" + session + ", released=" + released + "]";
+        }
+
+    }
+
     static class PoolEntry {
 
         final Queue<FutureCallback<IOSession>> requestQueue;
+        final List<IOSession> extraSessions;
         volatile Future<IOSession> sessionFuture;
         volatile IOSession session;
 
         PoolEntry() {
             this.requestQueue = new ArrayDeque<>();
+            this.extraSessions = new ArrayList<>();
         }
 
     }
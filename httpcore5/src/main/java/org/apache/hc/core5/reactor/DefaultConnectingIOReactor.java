@@ -34,6 +34,7 @@
 import org.apache.hc.core5.function.Callback;
 import org.apache.hc.core5.function.Decorator;
 import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.net.AsyncDnsResolver;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.TimeValue;
 
@@ -55,6 +56,18 @@ public class DefaultConnectingIOReactor extends AbstractIOReactorBase {
 
     private final static ThreadFactory THREAD_FACTORY = new DefaultThreadFactory("I/O client dispatch", true);
 
+    /**
+     * Creates an instance of DefaultConnectingIOReactor.
+     * <p>
+     * If a DNS resolver is given, or one is configured with
+     * {@link IOReactorConfig#getDnsResolver()}, connection requests without a remote address
+     * or with an unresolved {@link java.net.InetSocketAddress} are resolved asynchronously by
+     * the resolver before the connection is initiated. Otherwise host names are resolved on
+     * the calling thread.
+     * </p>
+     *
+     * @since 5.0
+     */
     public DefaultConnectingIOReactor(
             final IOEventHandlerFactory eventHandlerFactory,
             final IOReactorConfig ioReactorConfig,
@@ -62,7 +75,8 @@ public DefaultConnectingIOReactor(
             final Decorator<ProtocolIOSession> ioSessionDecorator,
             final Callback<Exception> exceptionCallback,
             final IOSessionListener sessionListener,
-            final Callback<IOSession> sessionShutdownCallback) {
+            final Callback<IOSession> sessionShutdownCallback,
+            final AsyncDnsResolver dnsResolver) {
         Args.notNull(eventHandlerFactory, "Event handler factory");
         this.workerCount = ioReactorConfig != null ? ioReactorConfig.getIoThreadCount() : IOReactorConfig.DEFAULT.getIoThreadCount();
         this.workers = new SingleCoreIOReactor[workerCount];
@@ -74,12 +88,25 @@ public DefaultConnectingIOReactor(
                     ioReactorConfig != null ? ioReactorConfig : IOReactorConfig.DEFAULT,
                     ioSessionDecorator,
                     sessionListener,
-                    sessionShutdownCallback);
+                    sessionShutdownCallback,
+                    dnsResolver != null ? dnsResolver : ioReactorConfig != null ? ioReactorConfig.getDnsResolver() : null);
             this.workers[i] = dispatcher;
             threads[i] = (threadFactory != null ? threadFactory : THREAD_FACTORY).newThread(new IOReactorWorker(dispatcher));
         }
         this.ioReactor = new MultiCoreIOReactor(this.workers, threads);
-        this.workerSelector =  IOWorkers.newSelector(workers);
+        this.workerSelector =  IOWorkers.newSelector(workers, ioReactorConfig != null ? ioReactorConfig.getIoWorkerSelector() : null);
+    }
+
+    public DefaultConnectingIOReactor(
+            final IOEventHandlerFactory eventHandlerFactory,
+            final IOReactorConfig ioReactorConfig,
+            final ThreadFactory threadFactory,
+            final Decorator<ProtocolIOSession> ioSessionDecorator,
+            final Callback<Exception> exceptionCallback,
+            final IOSessionListener sessionListener,
+            final Callback<IOSession> sessionShutdownCallback) {
+        this(eventHandlerFactory, ioReactorConfig, threadFactory, ioSessionDecorator, exceptionCallback,
+                sessionListener, sessionShutdownCallback, null);
     }
 
     public DefaultConnectingIOReactor(
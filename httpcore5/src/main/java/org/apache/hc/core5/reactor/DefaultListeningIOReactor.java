@@ -92,7 +92,8 @@ public DefaultListeningIOReactor(
                     ioReactorConfig != null ? ioReactorConfig : IOReactorConfig.DEFAULT,
                     ioSessionDecorator,
                     sessionListener,
-                    sessionShutdownCallback);
+                    sessionShutdownCallback,
+                    null);
             this.workers[i] = dispatcher;
             threads[i + 1] = (dispatchThreadFactory != null ? dispatchThreadFactory : DISPATCH_THREAD_FACTORY).newThread(new IOReactorWorker(dispatcher));
         }
@@ -111,7 +112,7 @@ public void execute(final SocketChannel channel) {
 
         this.ioReactor = new MultiCoreIOReactor(ioReactors, threads);
 
-        workerSelector = IOWorkers.newSelector(workers);
+        workerSelector = IOWorkers.newSelector(workers, ioReactorConfig != null ? ioReactorConfig.getIoWorkerSelector() : null);
     }
 
     /**
@@ -182,7 +183,7 @@ IOWorkers.Selector getWorkerSelector() {
 
     private void enqueueChannel(final SocketChannel socketChannel) {
         try {
-            workerSelector.next().enqueueChannel(socketChannel);
+            workerSelector.next(null).enqueueChannel(socketChannel);
         } catch (final IOReactorShutdownException ex) {
             initiateShutdown();
         }
@@ -32,7 +32,9 @@
 
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.net.AsyncDnsResolver;
 import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteBufferAllocator;
 import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 
@@ -44,6 +46,8 @@
 @Contract(threading = ThreadingBehavior.IMMUTABLE)
 public final class IOReactorConfig {
 
+    private static final TimeValue DEFAULT_CONNECTION_ATTEMPT_DELAY = TimeValue.ofMilliseconds(250);
+
     public static final IOReactorConfig DEFAULT = new Builder().build();
 
     private final TimeValue selectInterval;
@@ -59,6 +63,11 @@ public final class IOReactorConfig {
     private final SocketAddress socksProxyAddress;
     private final String socksProxyUsername;
     private final String socksProxyPassword;
+    private final int timeoutWheelSize;
+    private final IOWorkerSelector ioWorkerSelector;
+    private final ByteBufferAllocator bufferAllocator;
+    private final AsyncDnsResolver dnsResolver;
+    private final TimeValue connectionAttemptDelay;
 
     IOReactorConfig(
             final TimeValue selectInterval,
@@ -73,7 +82,12 @@ public final class IOReactorConfig {
             final int backlogSize,
             final SocketAddress socksProxyAddress,
             final String socksProxyUsername,
-            final String socksProxyPassword) {
+            final String socksProxyPassword,
+            final int timeoutWheelSize,
+            final IOWorkerSelector ioWorkerSelector,
+            final ByteBufferAllocator bufferAllocator,
+            final AsyncDnsResolver dnsResolver,
+            final TimeValue connectionAttemptDelay) {
         super();
         this.selectInterval = selectInterval;
         this.ioThreadCount = ioThreadCount;
@@ -88,6 +102,11 @@ public final class IOReactorConfig {
         this.socksProxyAddress = socksProxyAddress;
         this.socksProxyUsername = socksProxyUsername;
         this.socksProxyPassword = socksProxyPassword;
+        this.timeoutWheelSize = timeoutWheelSize;
+        this.ioWorkerSelector = ioWorkerSelector;
+        this.bufferAllocator = bufferAllocator;
+        this.dnsResolver = dnsResolver;
+        this.connectionAttemptDelay = connectionAttemptDelay;
     }
 
     /**
@@ -234,6 +253,89 @@ public String getSocksProxyPassword() {
         return this.socksProxyPassword;
     }
 
+    /**
+     * Determines the number of slots of the timing wheel used by I/O dispatch threads
+     * to track session timeouts. When enabled, timeout checks cost time proportional
+     * to the number of expiring sessions instead of the number of active sessions,
+     * which greatly reduces overhead with large numbers of idle sessions.
+     * The value is rounded up to the next power of two.
+     * <p>
+     * Default: {@code 0} (timing wheel disabled; all sessions are checked
+     * once per {@link #getSelectInterval() select interval})
+     * </p>
+     *
+     * @since 5.0
+     */
+    public int getTimeoutWheelSize() {
+        return this.timeoutWheelSize;
+    }
+
+    /**
+     * Determines the strategy used to assign new I/O sessions to I/O dispatch threads.
+     * <p>
+     * Default: {@code null} (round-robin)
+     * </p>
+     *
+     * @see IOWorkerSelectors
+     * @since 5.0
+     */
+    public IOWorkerSelector getIoWorkerSelector() {
+        return this.ioWorkerSelector;
+    }
+
+    /**
+     * Determines the allocator of the network and application buffers used by I/O sessions
+     * for TLS/SSL transport. The default bootstraps also pass it on to the HTTP/1.1 and
+     * HTTP/2 protocol handler factories for their session buffers.
+     * <p>
+     * Default: {@code null} (heap buffers)
+     * </p>
+     *
+     * @see org.apache.hc.core5.util.PooledByteBufferAllocator
+     * @since 5.0
+     */
+    public ByteBufferAllocator getBufferAllocator() {
+        return this.bufferAllocator;
+    }
+
+    /**
+     * Determines the resolver used by connecting I/O reactors to resolve host names
+     * of session requests asynchronously. The default requesters hand host names
+     * over unresolved when it is set.
+     * <p>
+     * Connection attempts to multiple addresses of the same host are raced as
+     * described in RFC 8305 only when host names are resolved by this resolver.
+     * Without it each session request connects to a single address, so an
+     * unreachable first address fails the request once the connect timeout
+     * expires, as before.
+     * </p>
+     * <p>
+     * Default: {@code null} (host names are resolved on the calling thread)
+     * </p>
+     *
+     * @see org.apache.hc.core5.net.CachingAsyncDnsResolver
+     * @see #getConnectionAttemptDelay()
+     * @since 5.0
+     */
+    public AsyncDnsResolver getDnsResolver() {
+        return this.dnsResolver;
+    }
+
+    /**
+     * Determines the delay after which a connection attempt to the next address of
+     * a host gets started while previous attempts are still pending (Connection
+     * Attempt Delay of RFC 8305). Only applies when a {@link #getDnsResolver() DNS
+     * resolver} is set.
+     * <p>
+     * Default: {@code 250} milliseconds
+     * </p>
+     *
+     * @since 5.0
+     */
+    public TimeValue getConnectionAttemptDelay() {
+        return this.connectionAttemptDelay;
+    }
+
     public static Builder custom() {
         return new Builder();
     }
@@ -253,7 +355,12 @@ public static Builder copy(final IOReactorConfig config) {
             .setBacklogSize(config.getBacklogSize())
             .setSocksProxyAddress(config.getSocksProxyAddress())
             .setSocksProxyUsername(config.getSocksProxyUsername())
-            .setSocksProxyPassword(config.getSocksProxyPassword());
+            .setSocksProxyPassword(config.getSocksProxyPassword())
+            .setTimeoutWheelSize(config.getTimeoutWheelSize())
+            .setIoWorkerSelector(config.getIoWorkerSelector())
+            .setBufferAllocator(config.getBufferAllocator())
+            .setDnsResolver(config.getDnsResolver())
+            .setConnectionAttemptDelay(config.getConnectionAttemptDelay());
     }
 
     public static class Builder {
@@ -298,6 +405,11 @@ public static void setDefaultMaxIoThreadCount(final int defaultMaxIoThreadCount)
         private SocketAddress socksProxyAddress;
         private String socksProxyUsername;
         private String socksProxyPassword;
+        private int timeoutWheelSize;
+        private IOWorkerSelector ioWorkerSelector;
+        private ByteBufferAllocator bufferAllocator;
+        private AsyncDnsResolver dnsResolver;
+        private TimeValue connectionAttemptDelay;
 
         Builder() {
             this.selectInterval = TimeValue.ofSeconds(1);
@@ -313,6 +425,11 @@ public static void setDefaultMaxIoThreadCount(final int defaultMaxIoThreadCount)
             this.socksProxyAddress = null;
             this.socksProxyUsername = null;
             this.socksProxyPassword = null;
+            this.timeoutWheelSize = 0;
+            this.ioWorkerSelector = null;
+            this.bufferAllocator = null;
+            this.dnsResolver = null;
+            this.connectionAttemptDelay = DEFAULT_CONNECTION_ATTEMPT_DELAY;
         }
 
         public Builder setSelectInterval(final TimeValue selectInterval) {
@@ -390,6 +507,31 @@ public Builder setSocksProxyPassword(final String socksProxyPassword) {
             return this;
         }
 
+        public Builder setTimeoutWheelSize(final int timeoutWheelSize) {
+            this.timeoutWheelSize = timeoutWheelSize;
+            return this;
+        }
+
+        public Builder setIoWorkerSelector(final IOWorkerSelector ioWorkerSelector) {
+            this.ioWorkerSelector = ioWorkerSelector;
+            return this;
+        }
+
+        public Builder setBufferAllocator(final ByteBufferAllocator bufferAllocator) {
+            this.bufferAllocator = bufferAllocator;
+            return this;
+        }
+
+        public Builder setDnsResolver(final AsyncDnsResolver dnsResolver) {
+            this.dnsResolver = dnsResolver;
+            return this;
+        }
+
+        public Builder setConnectionAttemptDelay(final TimeValue connectionAttemptDelay) {
+            this.connectionAttemptDelay = connectionAttemptDelay;
+            return this;
+        }
+
         public IOReactorConfig build() {
             return new IOReactorConfig(
                     selectInterval != null ? selectInterval : TimeValue.ofSeconds(1),
@@ -400,7 +542,12 @@ public IOReactorConfig build() {
                     soKeepAlive,
                     tcpNoDelay,
                     sndBufSize, rcvBufSize, backlogSize,
-                    socksProxyAddress, socksProxyUsername, socksProxyPassword);
+                    socksProxyAddress, socksProxyUsername, socksProxyPassword,
+                    timeoutWheelSize,
+                    ioWorkerSelector,
+                    bufferAllocator,
+                    dnsResolver,
+                    connectionAttemptDelay != null ? connectionAttemptDelay : DEFAULT_CONNECTION_ATTEMPT_DELAY);
         }
 
     }
@@ -419,6 +566,11 @@ public String toString() {
                 .append(", rcvBufSize=").append(this.rcvBufSize)
                 .append(", backlogSize=").append(this.backlogSize)
                 .append(", socksProxyAddress=").append(this.socksProxyAddress)
+                .append(", timeoutWheelSize=").append(this.timeoutWheelSize)
+                .append(", ioWorkerSelector=").append(this.ioWorkerSelector)
+                .append(", bufferAllocator=").append(this.bufferAllocator)
+                .append(", dnsResolver=").append(this.dnsResolver)
+                .append(", connectionAttemptDelay=").append(this.connectionAttemptDelay)
                 .append("]");
         return builder.toString();
     }
@@ -29,6 +29,7 @@
 
 import java.net.SocketAddress;
 import java.nio.channels.ByteChannel;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
 
 import org.apache.hc.core5.io.ModalCloseable;
@@ -72,6 +73,14 @@ public interface IOSession extends ModalCloseable, Identifiable {
      */
     void enqueue(Command command, Command.Priority priority);
 
+    /**
+     * Inserts a batch of {@link Command}s into the command queue preserving their order.
+     * The I/O dispatcher gets notified only once for the entire batch.
+     *
+     * @since 5.0
+     */
+    void enqueue(List<Command> commands, Command.Priority priority);
+
     /**
      * Tests if there enqueued commands pending execution.
      *
@@ -33,12 +33,15 @@
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.apache.hc.core5.function.Callback;
 import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.io.Closer;
 import org.apache.hc.core5.util.Args;
@@ -54,6 +57,9 @@ class IOSessionImpl implements IOSession {
     private final Lock lock;
     private final String id;
     private final AtomicInteger status;
+    private final Callback<SelectionKey> socketTimeoutCallback;
+    private final Callback<IOSessionImpl> commandCallback;
+    private final AtomicBoolean commandsScheduled;
 
     private volatile Timeout socketTimeout;
     private volatile long lastReadTime;
@@ -65,11 +71,22 @@ class IOSessionImpl implements IOSession {
      *
      * @param key the selection key.
      * @param socketChannel the socket channel
+     * @param socketTimeoutCallback callback to be notified of socket timeout changes. May be {@code null}.
+     * @param commandCallback callback to be notified once new commands have been enqueued, which is
+     *   expected to call {@link #processScheduledCommands()} from the I/O dispatch thread. May be
+     *   {@code null}, in which case the session requests output events from the enqueuing thread.
      */
-    public IOSessionImpl(final SelectionKey key, final SocketChannel socketChannel) {
+    public IOSessionImpl(
+            final SelectionKey key,
+            final SocketChannel socketChannel,
+            final Callback<SelectionKey> socketTimeoutCallback,
+            final Callback<IOSessionImpl> commandCallback) {
         super();
         this.key = Args.notNull(key, "Selection key");
         this.channel = Args.notNull(socketChannel, "Socket channel");
+        this.socketTimeoutCallback = socketTimeoutCallback;
+        this.commandCallback = commandCallback;
+        this.commandsScheduled = new AtomicBoolean(false);
         this.commandQueue = new ConcurrentLinkedDeque<>();
         this.lock = new ReentrantLock();
         this.socketTimeout = Timeout.DISABLED;
@@ -81,6 +98,30 @@ public IOSessionImpl(final SelectionKey key, final SocketChannel socketChannel)
         this.lastEventTime = currentTimeMillis;
     }
 
+    /**
+     * Creates new instance of IOSessionImpl.
+     *
+     * @param key the selection key.
+     * @param socketChannel the socket channel
+     * @param socketTimeoutCallback callback to be notified of socket timeout changes. May be {@code null}.
+     */
+    public IOSessionImpl(
+            final SelectionKey key,
+            final SocketChannel socketChannel,
+            final Callback<SelectionKey> socketTimeoutCallback) {
+        this(key, socketChannel, socketTimeoutCallback, null);
+    }
+
+    /**
+     * Creates new instance of IOSessionImpl.
+     *
+     * @param key the selection key.
+     * @param socketChannel the socket channel
+     */
+    public IOSessionImpl(final SelectionKey key, final SocketChannel socketChannel) {
+        this(key, socketChannel, null, null);
+    }
+
     @Override
     public String getId() {
         return id;
@@ -98,7 +139,52 @@ public void enqueue(final Command command, final Command.Priority priority) {
         } else {
             commandQueue.add(command);
         }
-        setEvent(SelectionKey.OP_WRITE);
+        scheduleCommands();
+    }
+
+    @Override
+    public void enqueue(final List<Command> commands, final Command.Priority priority) {
+        Args.notNull(commands, "Commands");
+        if (commands.isEmpty()) {
+            return;
+        }
+        if (priority == Command.Priority.IMMEDIATE) {
+            for (int i = commands.size() - 1; i >= 0; i--) {
+                commandQueue.addFirst(commands.get(i));
+            }
+        } else {
+            commandQueue.addAll(commands);
+        }
+        scheduleCommands();
+    }
+
+    private void scheduleCommands() {
+        if (commandCallback != null) {
+            // Only the first of commands enqueued in a row notifies the I/O dispatcher
+            if (commandsScheduled.compareAndSet(false, true)) {
+                commandCallback.execute(this);
+            }
+        } else {
+            setEvent(SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Requests output events for the session on behalf of commands enqueued since
+     * the session was last scheduled. Must be called from the I/O dispatch thread.
+     */
+    void processScheduledCommands() {
+        commandsScheduled.set(false);
+        if (commandQueue.isEmpty() || isStatusClosed() || !key.isValid()) {
+            return;
+        }
+        // Let the outermost session layer such as TLS decide upon the event mask
+        final Object attachment = key.attachment();
+        if (attachment instanceof IOSession) {
+            ((IOSession) attachment).setEvent(SelectionKey.OP_WRITE);
+        } else {
+            setEvent(SelectionKey.OP_WRITE);
+        }
     }
 
     @Override
@@ -147,7 +233,12 @@ public void setEvent(final int op) {
         }
         lock.lock();
         try {
-            this.key.interestOps(this.key.interestOps() | op);
+            final int ops = this.key.interestOps();
+            if ((ops & op) == op) {
+                // No change in interest ops, no need to wake up the selector
+                return;
+            }
+            this.key.interestOps(ops | op);
         } finally {
             lock.unlock();
         }
@@ -177,6 +268,9 @@ public Timeout getSocketTimeout() {
     public void setSocketTimeout(final Timeout timeout) {
         this.socketTimeout = Timeout.defaultsToDisabled(timeout);
         this.lastEventTime = System.currentTimeMillis();
+        if (this.socketTimeoutCallback != null && !isStatusClosed()) {
+            this.socketTimeoutCallback.execute(this.key);
+        }
     }
 
     @Override
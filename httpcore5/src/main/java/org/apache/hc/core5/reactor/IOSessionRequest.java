@@ -28,6 +28,7 @@
 package org.apache.hc.core5.reactor;
 
 import java.net.SocketAddress;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -44,9 +45,19 @@
 final class IOSessionRequest implements Future<IOSession> {
 
     final NamedEndpoint remoteEndpoint;
-    final SocketAddress remoteAddress;
+    volatile SocketAddress remoteAddress;
+    /**
+     * Ordered list of alternative addresses of the remote endpoint to race connection
+     * attempts against or {@code null} if only {@link #remoteAddress} is to be tried.
+     */
+    volatile List<SocketAddress> remoteAddresses;
     final SocketAddress localAddress;
     final Timeout timeout;
+    /**
+     * Time the request was made at. The connect timeout is counted from this point,
+     * including the time spent on name resolution.
+     */
+    final long creationTimeMillis;
     final Object attachment;
     final BasicFuture<IOSession> future;
 
@@ -64,6 +75,7 @@ public IOSessionRequest(
         this.remoteAddress = remoteAddress;
         this.localAddress = localAddress;
         this.timeout = timeout;
+        this.creationTimeMillis = System.currentTimeMillis();
         this.attachment = attachment;
         this.future = new BasicFuture<>(callback);
         this.closeableRef = new AtomicReference<>(null);
@@ -121,7 +133,7 @@ public IOSession get(final long timeout, final TimeUnit unit) throws Interrupted
     public String toString() {
         return "[" +
                 "remoteEndpoint=" + remoteEndpoint +
-                ", remoteAddress=" + remoteAddress +
+                ", remoteAddress=" + (remoteAddresses != null ? remoteAddresses : remoteAddress) +
                 ", localAddress=" + localAddress +
                 ", attachment=" + attachment +
                 ']';
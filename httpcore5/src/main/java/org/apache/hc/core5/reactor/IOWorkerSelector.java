@@ -0,0 +1,54 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+import org.apache.hc.core5.net.NamedEndpoint;
+
+/**
+ * Strategy for assigning new I/O sessions to I/O dispatch workers of
+ * a multi-core I/O reactor.
+ * <p>
+ * Implementations must be thread-safe.
+ * </p>
+ *
+ * @see IOWorkerSelectors
+ * @since 5.0
+ */
+public interface IOWorkerSelector {
+
+    /**
+     * Selects the worker a new I/O session is to be assigned to.
+     *
+     * @param workers load counters of the I/O dispatch workers.
+     * @param endpoint remote endpoint of an outgoing connection or {@code null}
+     *   for incoming connections.
+     * @return the index of the selected worker.
+     */
+    int select(IOWorkerStats[] workers, NamedEndpoint endpoint);
+
+}
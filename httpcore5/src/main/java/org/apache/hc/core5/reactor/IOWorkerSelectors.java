@@ -0,0 +1,174 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.core5.net.NamedEndpoint;
+
+/**
+ * Standard {@link IOWorkerSelector} implementations.
+ *
+ * @since 5.0
+ */
+public final class IOWorkerSelectors {
+
+    private IOWorkerSelectors() {
+        // Do not allow utility class to be instantiated.
+    }
+
+    /**
+     * Assigns sessions to workers in a round-robin fashion.
+     */
+    public static IOWorkerSelector roundRobin() {
+        return new RoundRobinSelector();
+    }
+
+    /**
+     * Assigns sessions to the worker with the lowest load, that is, the fewest
+     * active sessions and pending events combined. Pending connection requests
+     * count towards the load so that bursts of new connections get spread out
+     * before they become active.
+     */
+    public static IOWorkerSelector leastLoaded() {
+        return new LeastLoadedSelector();
+    }
+
+    /**
+     * Picks two workers at random and assigns sessions to the one with fewer
+     * pending events, breaking ties by the number of active sessions.
+     */
+    public static IOWorkerSelector powerOfTwoChoices() {
+        return new PowerOfTwoChoicesSelector();
+    }
+
+    /**
+     * Assigns connections to the same endpoint to the same worker for better
+     * cache locality. Incoming connections are assigned in a round-robin fashion.
+     */
+    public static IOWorkerSelector routeAffinity() {
+        return new RouteAffinitySelector();
+    }
+
+    static final class RoundRobinSelector implements IOWorkerSelector {
+
+        private final AtomicInteger idx = new AtomicInteger(0);
+
+        @Override
+        public int select(final IOWorkerStats[] workers, final NamedEndpoint endpoint) {
+            return (idx.getAndIncrement() & Integer.MAX_VALUE) % workers.length;
+        }
+
+        @Override
+        public String toString() {
+            return "round-robin";
+        }
+
+    }
+
+    static final class LeastLoadedSelector implements IOWorkerSelector {
+
+        private final AtomicInteger idx = new AtomicInteger(0);
+
+        @Override
+        public int select(final IOWorkerStats[] workers, final NamedEndpoint endpoint) {
+            // Rotate the starting point so that ties do not always go to the first worker
+            final int offset = (idx.getAndIncrement() & Integer.MAX_VALUE) % workers.length;
+            int selected = offset;
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < workers.length; i++) {
+                final int n = (offset + i) % workers.length;
+                final int count = workers[n].getActiveSessionCount() + workers[n].getPendingEventCount();
+                if (count < min) {
+                    min = count;
+                    selected = n;
+                }
+            }
+            return selected;
+        }
+
+        @Override
+        public String toString() {
+            return "least-loaded";
+        }
+
+    }
+
+    static final class PowerOfTwoChoicesSelector implements IOWorkerSelector {
+
+        @Override
+        public int select(final IOWorkerStats[] workers, final NamedEndpoint endpoint) {
+            if (workers.length == 1) {
+                return 0;
+            }
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final int n1 = random.nextInt(workers.length);
+            int n2 = random.nextInt(workers.length - 1);
+            if (n2 >= n1) {
+                n2++;
+            }
+            final int pending1 = workers[n1].getPendingEventCount();
+            final int pending2 = workers[n2].getPendingEventCount();
+            if (pending1 != pending2) {
+                return pending1 < pending2 ? n1 : n2;
+            }
+            return workers[n1].getActiveSessionCount() <= workers[n2].getActiveSessionCount() ? n1 : n2;
+        }
+
+        @Override
+        public String toString() {
+            return "power-of-two-choices";
+        }
+
+    }
+
+    static final class RouteAffinitySelector implements IOWorkerSelector {
+
+        private final AtomicInteger idx = new AtomicInteger(0);
+
+        @Override
+        public int select(final IOWorkerStats[] workers, final NamedEndpoint endpoint) {
+            if (endpoint == null) {
+                return (idx.getAndIncrement() & Integer.MAX_VALUE) % workers.length;
+            }
+            int hash = endpoint.getHostName().toLowerCase(Locale.ROOT).hashCode() * 31 + endpoint.getPort();
+            // Spread the bits as host name hash codes tend to differ in the low bits only
+            hash ^= (hash >>> 16);
+            return (hash & Integer.MAX_VALUE) % workers.length;
+        }
+
+        @Override
+        public String toString() {
+            return "route-affinity";
+        }
+
+    }
+
+}
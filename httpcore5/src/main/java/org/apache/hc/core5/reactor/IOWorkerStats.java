@@ -0,0 +1,53 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+/**
+ * Load counters of an individual I/O dispatch worker that can be used
+ * by {@link IOWorkerSelector}s to balance I/O sessions across workers.
+ * <p>
+ * Counters are updated concurrently by the worker and may be slightly stale.
+ * </p>
+ *
+ * @since 5.0
+ */
+public interface IOWorkerStats {
+
+    /**
+     * Returns the number of I/O sessions currently managed by the worker.
+     */
+    int getActiveSessionCount();
+
+    /**
+     * Returns the number of events the worker has yet to process: channels and
+     * connection requests queued for the worker plus I/O events reported ready
+     * by its last select operation.
+     */
+    int getPendingEventCount();
+
+}
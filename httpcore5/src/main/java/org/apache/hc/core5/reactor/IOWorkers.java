@@ -28,11 +28,13 @@
 
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.hc.core5.net.NamedEndpoint;
+
 final class IOWorkers {
 
     interface Selector {
 
-        SingleCoreIOReactor next();
+        SingleCoreIOReactor next(NamedEndpoint endpoint);
 
     }
 
@@ -42,6 +44,12 @@ static Selector newSelector(final SingleCoreIOReactor[] dispatchers) {
                         : new GenericSelector(dispatchers);
     }
 
+    static Selector newSelector(final SingleCoreIOReactor[] dispatchers, final IOWorkerSelector workerSelector) {
+        return workerSelector != null
+                        ? new StrategySelector(dispatchers, workerSelector)
+                        : newSelector(dispatchers);
+    }
+
     private static boolean isPowerOfTwo(final int val) {
         return (val & -val) == val;
     }
@@ -62,7 +70,7 @@ private static final class PowerOfTwoSelector implements Selector {
         }
 
         @Override
-        public SingleCoreIOReactor next() {
+        public SingleCoreIOReactor next(final NamedEndpoint endpoint) {
             final SingleCoreIOReactor dispatcher = dispatchers[idx.getAndIncrement() & (dispatchers.length - 1)];
             validate(dispatcher);
             return dispatcher;
@@ -79,11 +87,34 @@ private static final class GenericSelector implements Selector {
         }
 
         @Override
-        public SingleCoreIOReactor next() {
+        public SingleCoreIOReactor next(final NamedEndpoint endpoint) {
             final SingleCoreIOReactor dispatcher = dispatchers[idx.getAndIncrement() % dispatchers.length];
             validate(dispatcher);
             return dispatcher;
         }
     }
 
+    private static final class StrategySelector implements Selector {
+
+        private final SingleCoreIOReactor[] dispatchers;
+        private final IOWorkerSelector workerSelector;
+
+        StrategySelector(final SingleCoreIOReactor[] dispatchers, final IOWorkerSelector workerSelector) {
+            this.dispatchers = dispatchers;
+            this.workerSelector = workerSelector;
+        }
+
+        @Override
+        public SingleCoreIOReactor next(final NamedEndpoint endpoint) {
+            final int n = workerSelector.select(dispatchers, endpoint);
+            if (n < 0 || n >= dispatchers.length) {
+                throw new IllegalStateException("I/O worker selector " + workerSelector
+                        + " returned invalid worker index " + n + " (" + dispatchers.length + " workers)");
+            }
+            final SingleCoreIOReactor dispatcher = dispatchers[n];
+            validate(dispatcher);
+            return dispatcher;
+        }
+    }
+
 }
@@ -36,6 +36,12 @@
 
 abstract class InternalChannel implements ModalCloseable {
 
+    // Timing wheel linkage; accessed by the I/O reactor thread only
+    InternalChannel wheelPrev;
+    InternalChannel wheelNext;
+    int wheelSlot = -1;
+    long wheelDeadline;
+
     abstract void onIOEvent(final int ops) throws IOException;
 
     abstract void onTimeout(Timeout timeout) throws IOException;
@@ -46,6 +52,12 @@ abstract class InternalChannel implements ModalCloseable {
 
     abstract long getLastEventTime();
 
+    /**
+     * Determines whether the channel is still attached to the I/O reactor
+     * and subject to timeout checks.
+     */
+    abstract boolean isActive();
+
     final void handleIOEvent(final int ops) {
         try {
             onIOEvent(ops);
@@ -57,6 +69,20 @@ final void handleIOEvent(final int ops) {
         }
     }
 
+    /**
+     * Returns the time the channel is due to time out or {@link Long#MAX_VALUE}
+     * if its timeout is disabled.
+     */
+    final long getDeadline() {
+        final Timeout timeout = getTimeout();
+        if (timeout.isDisabled()) {
+            return Long.MAX_VALUE;
+        }
+        final long lastEventTime = getLastEventTime();
+        final long timeoutMillis = timeout.toMillis();
+        return timeoutMillis > Long.MAX_VALUE - lastEventTime ? Long.MAX_VALUE : lastEventTime + timeoutMillis;
+    }
+
     final boolean checkTimeout(final long currentTimeMillis) {
         final Timeout timeout = getTimeout();
         if (!timeout.isDisabled()) {
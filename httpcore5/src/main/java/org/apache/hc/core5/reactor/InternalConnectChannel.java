@@ -43,18 +43,30 @@ final class InternalConnectChannel extends InternalChannel {
     private final IOSessionRequest sessionRequest;
     private final long creationTimeMillis;
     private final InternalDataChannelFactory dataChannelFactory;
+    private final InternalConnectRace connectRace;
 
     InternalConnectChannel(
             final SelectionKey key,
             final SocketChannel socketChannel,
             final IOSessionRequest sessionRequest,
-            final InternalDataChannelFactory dataChannelFactory) {
+            final InternalDataChannelFactory dataChannelFactory,
+            final InternalConnectRace connectRace) {
         super();
         this.key = key;
         this.socketChannel = socketChannel;
         this.sessionRequest = sessionRequest;
-        this.creationTimeMillis = System.currentTimeMillis();
+        // Connection attempts share the connect timeout of the session request
+        this.creationTimeMillis = sessionRequest.creationTimeMillis;
         this.dataChannelFactory = dataChannelFactory;
+        this.connectRace = connectRace;
+    }
+
+    InternalConnectChannel(
+            final SelectionKey key,
+            final SocketChannel socketChannel,
+            final IOSessionRequest sessionRequest,
+            final InternalDataChannelFactory dataChannelFactory) {
+        this(key, socketChannel, sessionRequest, dataChannelFactory, null);
     }
 
     @Override
@@ -66,6 +78,11 @@ void onIOEvent(final int readyOps) throws IOException {
             //check out connectTimeout
             final long now = System.currentTimeMillis();
             if (checkTimeout(now)) {
+                if (connectRace != null && !connectRace.connected(this)) {
+                    // Another attempt has already won
+                    close();
+                    return;
+                }
                 final InternalDataChannel dataChannel = dataChannelFactory.create(
                         key,
                         socketChannel,
@@ -88,15 +105,27 @@ long getLastEventTime() {
         return creationTimeMillis;
     }
 
+    @Override
+    boolean isActive() {
+        return key.isValid() && key.attachment() == this;
+    }
+
     @Override
     void onTimeout(final Timeout timeout) throws IOException {
         sessionRequest.failed(SocketTimeoutExceptionFactory.create(timeout));
         close();
+        if (connectRace != null) {
+            connectRace.close(CloseMode.IMMEDIATE);
+        }
     }
 
     @Override
     void onException(final Exception cause) {
-        sessionRequest.failed(cause);
+        if (connectRace != null) {
+            connectRace.failed(this, cause);
+        } else {
+            sessionRequest.failed(cause);
+        }
     }
 
     @Override
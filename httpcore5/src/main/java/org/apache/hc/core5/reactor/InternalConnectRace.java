@@ -0,0 +1,198 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hc.core5.function.Callback;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.io.Closer;
+import org.apache.hc.core5.io.ModalCloseable;
+
+/**
+ * Tracks staggered connection attempts to multiple addresses of the same endpoint
+ * made on behalf of a single {@link IOSessionRequest} (RFC 8305 style connection
+ * racing). The first attempt to complete wins and all other attempts are closed.
+ * <p>
+ * Attempts are started and completed by the I/O reactor thread. The race can be
+ * closed by any thread when the session request gets cancelled.
+ * </p>
+ */
+final class InternalConnectRace implements ModalCloseable {
+
+    final IOSessionRequest sessionRequest;
+
+    private final List<SocketAddress> addresses;
+    private final Callback<InternalConnectRace> attemptCallback;
+    private final List<InternalConnectChannel> attempts;
+    private int nextIndex;
+    private Exception lastFailure;
+    private long nextAttemptTimeMillis;
+    private boolean done;
+
+    /**
+     * @param attemptCallback callback invoked by the I/O reactor thread to start the next
+     *   attempt immediately when a pending attempt fails.
+     */
+    InternalConnectRace(
+            final IOSessionRequest sessionRequest,
+            final List<SocketAddress> addresses,
+            final Callback<InternalConnectRace> attemptCallback) {
+        this.sessionRequest = sessionRequest;
+        this.addresses = addresses;
+        this.attemptCallback = attemptCallback;
+        this.attempts = new ArrayList<>(addresses.size());
+    }
+
+    synchronized boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Returns the next address to attempt or {@code null} if all addresses have been tried.
+     */
+    synchronized SocketAddress nextAddress() {
+        if (done || nextIndex >= addresses.size()) {
+            return null;
+        }
+        return addresses.get(nextIndex++);
+    }
+
+    synchronized boolean hasMoreAddresses() {
+        return !done && nextIndex < addresses.size();
+    }
+
+    synchronized long getNextAttemptTime() {
+        return nextAttemptTimeMillis;
+    }
+
+    synchronized void setNextAttemptTime(final long nextAttemptTimeMillis) {
+        this.nextAttemptTimeMillis = nextAttemptTimeMillis;
+    }
+
+    /**
+     * Registers a pending attempt. Returns {@code false} if the race is already over,
+     * in which case the caller is expected to close the channel.
+     */
+    synchronized boolean add(final InternalConnectChannel channel) {
+        if (done) {
+            return false;
+        }
+        attempts.add(channel);
+        return true;
+    }
+
+    /**
+     * Records failure of an attempt that could not be started. Fails the session request
+     * if there are no addresses left to try and no other attempts pending.
+     *
+     * @return {@code true} if the race can go on.
+     */
+    boolean attemptFailed(final Exception cause) {
+        synchronized (this) {
+            lastFailure = cause;
+            if (done) {
+                return false;
+            }
+            if (nextIndex < addresses.size() || !attempts.isEmpty()) {
+                return true;
+            }
+            done = true;
+        }
+        sessionRequest.failed(cause);
+        return false;
+    }
+
+    /**
+     * Records failure of a pending attempt and starts the next one right away, if any.
+     */
+    void failed(final InternalConnectChannel channel, final Exception cause) {
+        synchronized (this) {
+            attempts.remove(channel);
+        }
+        if (attemptFailed(cause) && hasMoreAddresses()) {
+            attemptCallback.execute(this);
+        }
+    }
+
+    synchronized Exception getLastFailure() {
+        return lastFailure;
+    }
+
+    synchronized int getActiveAttempts() {
+        return attempts.size();
+    }
+
+    /**
+     * Declares the given channel the winner of the race and closes all other attempts.
+     *
+     * @return {@code false} if the race has already been decided.
+     */
+    boolean connected(final InternalConnectChannel channel) {
+        final List<InternalConnectChannel> losers;
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            done = true;
+            attempts.remove(channel);
+            losers = new ArrayList<>(attempts);
+            attempts.clear();
+        }
+        for (final InternalConnectChannel loser : losers) {
+            Closer.closeQuietly(loser);
+        }
+        return true;
+    }
+
+    @Override
+    public void close(final CloseMode closeMode) {
+        final List<InternalConnectChannel> channels;
+        synchronized (this) {
+            done = true;
+            channels = new ArrayList<>(attempts);
+            attempts.clear();
+        }
+        for (final InternalConnectChannel channel : channels) {
+            channel.close(closeMode);
+        }
+    }
+
+    @Override
+    public void close() {
+        close(CloseMode.GRACEFUL);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "[addresses=" + addresses + ", attempted=" + nextIndex + ", active=" + attempts.size() + "]";
+    }
+
+}
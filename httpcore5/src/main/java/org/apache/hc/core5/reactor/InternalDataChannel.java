@@ -31,7 +31,9 @@
 import java.net.SocketAddress;
 import java.nio.channels.ByteChannel;
 import java.nio.channels.SelectionKey;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
@@ -48,6 +50,7 @@
 import org.apache.hc.core5.reactor.ssl.SSLSessionVerifier;
 import org.apache.hc.core5.reactor.ssl.TlsDetails;
 import org.apache.hc.core5.util.Asserts;
+import org.apache.hc.core5.util.ByteBufferAllocator;
 import org.apache.hc.core5.util.Timeout;
 
 final class InternalDataChannel extends InternalChannel implements ProtocolIOSession {
@@ -60,13 +63,16 @@ final class InternalDataChannel extends InternalChannel implements ProtocolIOSes
     private final AtomicReference<IOEventHandler> handlerRef;
     private final AtomicBoolean connected;
     private final AtomicBoolean closed;
+    private final ByteBufferAllocator bufferAllocator;
 
     InternalDataChannel(
             final IOSession ioSession,
             final NamedEndpoint initialEndpoint,
             final IOSessionListener sessionListener,
-            final Queue<InternalDataChannel> closedSessions) {
+            final Queue<InternalDataChannel> closedSessions,
+            final ByteBufferAllocator bufferAllocator) {
         this.ioSession = ioSession;
+        this.bufferAllocator = bufferAllocator;
         this.initialEndpoint = initialEndpoint;
         this.closedSessions = closedSessions;
         this.sessionListener = sessionListener;
@@ -182,6 +188,11 @@ Timeout getTimeout() {
         return ioSession.getSocketTimeout();
     }
 
+    @Override
+    boolean isActive() {
+        return !closed.get() && !ioSession.isClosed();
+    }
+
     @Override
     void onTimeout(final Timeout timeout) throws IOException {
         final IOEventHandler handler = ensureHandler();
@@ -220,6 +231,18 @@ public void startTls(
             final SSLSessionInitializer initializer,
             final SSLSessionVerifier verifier,
             final Timeout handshakeTimeout) {
+        startTls(sslContext, endpoint, sslBufferMode, initializer, verifier, handshakeTimeout, null);
+    }
+
+    @Override
+    public void startTls(
+            final SSLContext sslContext,
+            final NamedEndpoint endpoint,
+            final SSLBufferMode sslBufferMode,
+            final SSLSessionInitializer initializer,
+            final SSLSessionVerifier verifier,
+            final Timeout handshakeTimeout,
+            final Executor handshakeExecutor) {
         if (!tlsSessionRef.compareAndSet(null, new SSLIOSession(
                 endpoint != null ? endpoint : initialEndpoint,
                 ioSession,
@@ -259,7 +282,9 @@ public void execute(final SSLIOSession sslSession) {
                     }
 
                 },
-                handshakeTimeout))) {
+                handshakeTimeout,
+                handshakeExecutor,
+                bufferAllocator))) {
             throw new IllegalStateException("TLS already activated");
         }
     }
@@ -318,6 +343,11 @@ public void enqueue(final Command command, final Command.Priority priority) {
         getSessionImpl().enqueue(command, priority);
     }
 
+    @Override
+    public void enqueue(final List<Command> commands, final Command.Priority priority) {
+        getSessionImpl().enqueue(commands, priority);
+    }
+
     @Override
     public boolean hasCommands() {
         return getSessionImpl().hasCommands();
@@ -28,6 +28,7 @@
 package org.apache.hc.core5.reactor;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
@@ -36,21 +37,31 @@
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.function.Callback;
 import org.apache.hc.core5.function.Decorator;
+import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.io.Closer;
+import org.apache.hc.core5.io.ModalCloseable;
+import org.apache.hc.core5.io.SocketTimeoutExceptionFactory;
+import org.apache.hc.core5.net.AsyncDnsResolver;
 import org.apache.hc.core5.net.NamedEndpoint;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.Timeout;
 
-class SingleCoreIOReactor extends AbstractSingleCoreIOReactor implements ConnectionInitiator {
+class SingleCoreIOReactor extends AbstractSingleCoreIOReactor implements ConnectionInitiator, IOWorkerStats {
 
     private static final int MAX_CHANNEL_REQUESTS = 10000;
 
@@ -59,11 +70,25 @@ class SingleCoreIOReactor extends AbstractSingleCoreIOReactor implements Connect
     private final Decorator<ProtocolIOSession> ioSessionDecorator;
     private final IOSessionListener sessionListener;
     private final Callback<IOSession> sessionShutdownCallback;
+    private final AsyncDnsResolver dnsResolver;
     private final Queue<InternalDataChannel> closedSessions;
     private final Queue<SocketChannel> channelQueue;
     private final Queue<IOSessionRequest> requestQueue;
+    private final Set<IOSessionRequest> pendingResolutions;
+    private final Queue<IOSessionImpl> commandSessions;
+    private final AtomicBoolean wakeupPending;
+    private final Callback<IOSessionImpl> commandCallback;
     private final AtomicBoolean shutdownInitiated;
+    private final AtomicInteger activeSessionCount;
+    private final AtomicInteger pendingRequestCount;
+    private volatile int readyCount;
     private final long selectTimeoutMillis;
+    private final TimeoutWheel timeoutWheel;
+    private final Queue<SelectionKey> timeoutUpdateQueue;
+    private final Callback<SelectionKey> socketTimeoutCallback;
+    private final List<InternalChannel> expiredChannels;
+    private final List<InternalConnectRace> pendingRaces;
+    private final Callback<InternalConnectRace> connectAttemptCallback;
     private volatile long lastTimeoutCheckMillis;
 
     SingleCoreIOReactor(
@@ -72,18 +97,67 @@ class SingleCoreIOReactor extends AbstractSingleCoreIOReactor implements Connect
             final IOReactorConfig reactorConfig,
             final Decorator<ProtocolIOSession> ioSessionDecorator,
             final IOSessionListener sessionListener,
-            final Callback<IOSession> sessionShutdownCallback) {
+            final Callback<IOSession> sessionShutdownCallback,
+            final AsyncDnsResolver dnsResolver) {
         super(exceptionCallback);
         this.eventHandlerFactory = Args.notNull(eventHandlerFactory, "Event handler factory");
         this.reactorConfig = Args.notNull(reactorConfig, "I/O reactor config");
         this.ioSessionDecorator = ioSessionDecorator;
         this.sessionListener = sessionListener;
         this.sessionShutdownCallback = sessionShutdownCallback;
+        this.dnsResolver = dnsResolver;
         this.shutdownInitiated = new AtomicBoolean(false);
+        this.activeSessionCount = new AtomicInteger(0);
+        this.pendingRequestCount = new AtomicInteger(0);
         this.closedSessions = new ConcurrentLinkedQueue<>();
         this.channelQueue = new ConcurrentLinkedQueue<>();
         this.requestQueue = new ConcurrentLinkedQueue<>();
+        this.pendingResolutions = Collections.newSetFromMap(new ConcurrentHashMap<IOSessionRequest, Boolean>());
+        this.commandSessions = new ConcurrentLinkedQueue<>();
+        this.wakeupPending = new AtomicBoolean(false);
+        this.commandCallback = new Callback<IOSessionImpl>() {
+
+            @Override
+            public void execute(final IOSessionImpl ioSession) {
+                commandSessions.add(ioSession);
+                // Wake up the selector at most once per batch of sessions with new commands
+                if (wakeupPending.compareAndSet(false, true)) {
+                    selector.wakeup();
+                }
+            }
+
+        };
         this.selectTimeoutMillis = this.reactorConfig.getSelectInterval().toMillis();
+        this.pendingRaces = new ArrayList<>();
+        this.connectAttemptCallback = new Callback<InternalConnectRace>() {
+
+            @Override
+            public void execute(final InternalConnectRace connectRace) {
+                startConnectAttempt(connectRace);
+            }
+
+        };
+        if (this.reactorConfig.getTimeoutWheelSize() > 0) {
+            this.timeoutWheel = new TimeoutWheel(
+                    this.reactorConfig.getTimeoutWheelSize(),
+                    Math.max(this.selectTimeoutMillis, 1),
+                    System.currentTimeMillis());
+            this.timeoutUpdateQueue = new ConcurrentLinkedQueue<>();
+            this.socketTimeoutCallback = new Callback<SelectionKey>() {
+
+                @Override
+                public void execute(final SelectionKey key) {
+                    timeoutUpdateQueue.add(key);
+                }
+
+            };
+            this.expiredChannels = new ArrayList<>();
+        } else {
+            this.timeoutWheel = null;
+            this.timeoutUpdateQueue = null;
+            this.socketTimeoutCallback = null;
+            this.expiredChannels = null;
+        }
     }
 
     void enqueueChannel(final SocketChannel socketChannel) throws IOReactorShutdownException {
@@ -91,6 +165,7 @@ void enqueueChannel(final SocketChannel socketChannel) throws IOReactorShutdownE
         if (getStatus().compareTo(IOReactorStatus.ACTIVE) > 0) {
             throw new IOReactorShutdownException("I/O reactor has been shut down");
         }
+        this.pendingRequestCount.incrementAndGet();
         this.channelQueue.add(socketChannel);
         this.selector.wakeup();
     }
@@ -99,6 +174,9 @@ void enqueueChannel(final SocketChannel socketChannel) throws IOReactorShutdownE
     void doTerminate() {
         closePendingChannels();
         closePendingConnectionRequests();
+        closePendingConnectRaces();
+        closePendingResolutions();
+        this.commandSessions.clear();
         processClosedSessions();
     }
 
@@ -106,7 +184,10 @@ void doTerminate() {
     void doExecute() throws IOException {
         while (!Thread.currentThread().isInterrupted()) {
 
-            final int readyCount = this.selector.select(this.selectTimeoutMillis);
+            final int readyCount = this.selector.select(getSelectTimeout());
+            this.readyCount = readyCount;
+
+            processScheduledCommands();
 
             if (getStatus().compareTo(IOReactorStatus.SHUTTING_DOWN) >= 0) {
                 if (this.shutdownInitiated.compareAndSet(false, true)) {
@@ -123,6 +204,8 @@ void doExecute() throws IOException {
                 processEvents(this.selector.selectedKeys());
             }
 
+            processPendingConnectRaces();
+
             validateActiveChannels();
 
             // Process closed sessions
@@ -160,8 +243,111 @@ private void validateActiveChannels() {
         final long currentTimeMillis = System.currentTimeMillis();
         if ((currentTimeMillis - this.lastTimeoutCheckMillis) >= this.selectTimeoutMillis) {
             this.lastTimeoutCheckMillis = currentTimeMillis;
-            for (final SelectionKey key : this.selector.keys()) {
-                checkTimeout(key, currentTimeMillis);
+            if (!this.pendingResolutions.isEmpty()) {
+                checkPendingResolutions(currentTimeMillis);
+            }
+            if (this.timeoutWheel != null) {
+                processTimeoutUpdates();
+                processExpiredChannels(currentTimeMillis);
+            } else {
+                for (final SelectionKey key : this.selector.keys()) {
+                    checkTimeout(key, currentTimeMillis);
+                }
+            }
+        }
+    }
+
+    private void scheduleTimeout(final InternalChannel channel) {
+        final long deadlineMillis = channel.getDeadline();
+        if (deadlineMillis == Long.MAX_VALUE) {
+            this.timeoutWheel.cancel(channel);
+        } else {
+            this.timeoutWheel.schedule(channel, deadlineMillis);
+        }
+    }
+
+    private void processTimeoutUpdates() {
+        for (;;) {
+            final SelectionKey key = this.timeoutUpdateQueue.poll();
+            if (key == null) {
+                break;
+            }
+            final InternalChannel channel = (InternalChannel) key.attachment();
+            if (channel != null && channel.isActive()) {
+                scheduleTimeout(channel);
+            }
+        }
+    }
+
+    private void processExpiredChannels(final long currentTimeMillis) {
+        this.timeoutWheel.expire(currentTimeMillis, this.expiredChannels);
+        try {
+            for (final InternalChannel channel : this.expiredChannels) {
+                if (channel.isActive()) {
+                    // Session activity may have pushed the deadline back since the channel was scheduled
+                    channel.checkTimeout(currentTimeMillis);
+                    if (channel.isActive()) {
+                        scheduleTimeout(channel);
+                    }
+                }
+            }
+        } finally {
+            this.expiredChannels.clear();
+        }
+    }
+
+    @Override
+    public int getActiveSessionCount() {
+        return this.activeSessionCount.get();
+    }
+
+    @Override
+    public int getPendingEventCount() {
+        return this.pendingRequestCount.get() + this.readyCount;
+    }
+
+    private long getSelectTimeout() {
+        if (this.pendingRaces.isEmpty()) {
+            return this.selectTimeoutMillis;
+        }
+        final long currentTimeMillis = System.currentTimeMillis();
+        long timeoutMillis = this.selectTimeoutMillis;
+        for (final InternalConnectRace connectRace : this.pendingRaces) {
+            timeoutMillis = Math.min(timeoutMillis, connectRace.getNextAttemptTime() - currentTimeMillis);
+        }
+        return Math.max(timeoutMillis, 1);
+    }
+
+    private void processPendingConnectRaces() {
+        if (this.pendingRaces.isEmpty()) {
+            return;
+        }
+        final long currentTimeMillis = System.currentTimeMillis();
+        for (int i = 0; i < this.pendingRaces.size(); ) {
+            final InternalConnectRace connectRace = this.pendingRaces.get(i);
+            if (connectRace.hasMoreAddresses() && connectRace.getNextAttemptTime() <= currentTimeMillis) {
+                startConnectAttempt(connectRace);
+            }
+            if (connectRace.hasMoreAddresses()) {
+                i++;
+            } else {
+                this.pendingRaces.remove(i);
+            }
+        }
+    }
+
+    private void processScheduledCommands() {
+        // Reset the flag before draining the queue so that sessions scheduled from now on wake up the selector
+        this.wakeupPending.set(false);
+        for (;;) {
+            final IOSessionImpl ioSession = this.commandSessions.poll();
+            if (ioSession == null) {
+                break;
+            }
+            try {
+                ioSession.processScheduledCommands();
+            } catch (final CancelledKeyException ex) {
+                // The session has been closed concurrently
             }
         }
     }
@@ -179,6 +365,7 @@ private void processEvents(final Set<SelectionKey> selectedKeys) {
     private void processPendingChannels() throws IOException {
         SocketChannel socketChannel;
         for (int i = 0; i < MAX_CHANNEL_REQUESTS && (socketChannel = this.channelQueue.poll()) != null; i++) {
+            this.pendingRequestCount.decrementAndGet();
             try {
                 prepareSocket(socketChannel.socket());
                 socketChannel.configureBlocking(false);
@@ -197,12 +384,17 @@ private void processPendingChannels() throws IOException {
             } catch (final ClosedChannelException ex) {
                 return;
             }
-            final IOSession ioSession = new IOSessionImpl(key, socketChannel);
-            final InternalDataChannel dataChannel = new InternalDataChannel(ioSession, null, sessionListener, closedSessions);
+            final IOSession ioSession = new IOSessionImpl(key, socketChannel, socketTimeoutCallback, commandCallback);
+            final InternalDataChannel dataChannel = new InternalDataChannel(ioSession, null, sessionListener, closedSessions,
+                    reactorConfig.getBufferAllocator());
+            this.activeSessionCount.incrementAndGet();
             final ProtocolIOSession protocolSession = ioSessionDecorator != null ? ioSessionDecorator.decorate(dataChannel) : dataChannel;
             dataChannel.upgrade(this.eventHandlerFactory.createHandler(protocolSession, null));
             dataChannel.setSocketTimeout(this.reactorConfig.getSoTimeout());
             key.attach(dataChannel);
+            if (this.timeoutWheel != null) {
+                scheduleTimeout(dataChannel);
+            }
             dataChannel.handleIOEvent(SelectionKey.OP_CONNECT);
         }
     }
@@ -213,6 +405,10 @@ private void processClosedSessions() {
             if (dataChannel == null) {
                 break;
             }
+            this.activeSessionCount.decrementAndGet();
+            if (this.timeoutWheel != null) {
+                this.timeoutWheel.cancel(dataChannel);
+            }
             try {
                 dataChannel.disconnected();
             } catch (final CancelledKeyException ex) {
@@ -237,14 +433,24 @@ public Future<IOSession> connect(
             final Object attachment,
             final FutureCallback<IOSession> callback) throws IOReactorShutdownException {
         Args.notNull(remoteEndpoint, "Remote endpoint");
+        final SocketAddress targetAddress;
+        if (remoteAddress != null) {
+            targetAddress = remoteAddress;
+        } else if (this.dnsResolver != null) {
+            // Defer name resolution to the DNS resolver
+            targetAddress = InetSocketAddress.createUnresolved(remoteEndpoint.getHostName(), remoteEndpoint.getPort());
+        } else {
+            targetAddress = new InetSocketAddress(remoteEndpoint.getHostName(), remoteEndpoint.getPort());
+        }
         final IOSessionRequest sessionRequest = new IOSessionRequest(
                 remoteEndpoint,
-                remoteAddress != null ? remoteAddress : new InetSocketAddress(remoteEndpoint.getHostName(), remoteEndpoint.getPort()),
+                targetAddress,
                 localAddress,
                 timeout,
                 attachment,
                 callback);
 
+        this.pendingRequestCount.incrementAndGet();
         this.requestQueue.add(sessionRequest);
         this.selector.wakeup();
 
@@ -278,7 +484,19 @@ private void validateAddress(final SocketAddress address) throws UnknownHostExce
     private void processPendingConnectionRequests() {
         IOSessionRequest sessionRequest;
         for (int i = 0; i < MAX_CHANNEL_REQUESTS && (sessionRequest = this.requestQueue.poll()) != null; i++) {
+            this.pendingRequestCount.decrementAndGet();
             if (!sessionRequest.isCancelled()) {
+                if (this.dnsResolver != null && isUnresolved(sessionRequest.remoteAddress)) {
+                    resolveAddress(sessionRequest);
+                    continue;
+                }
+                if (sessionRequest.remoteAddresses != null && this.reactorConfig.getSocksProxyAddress() == null) {
+                    final InternalConnectRace connectRace = new InternalConnectRace(
+                            sessionRequest, sessionRequest.remoteAddresses, this.connectAttemptCallback);
+                    sessionRequest.assign(connectRace);
+                    startConnectAttempt(connectRace);
+                    continue;
+                }
                 final SocketChannel socketChannel;
                 try {
                     socketChannel = SocketChannel.open();
@@ -287,7 +505,7 @@ private void processPendingConnectionRequests() {
                     return;
                 }
                 try {
-                    processConnectionRequest(socketChannel, sessionRequest);
+                    processConnectionRequest(socketChannel, sessionRequest, sessionRequest.remoteAddress, null);
                 } catch (final IOException | SecurityException ex) {
                     Closer.closeQuietly(socketChannel);
                     sessionRequest.failed(ex);
@@ -296,9 +514,149 @@ private void processPendingConnectionRequests() {
         }
     }
 
-    private void processConnectionRequest(final SocketChannel socketChannel, final IOSessionRequest sessionRequest) throws IOException {
+    private void checkPendingResolutions(final long currentTimeMillis) {
+        for (final Iterator<IOSessionRequest> it = this.pendingResolutions.iterator(); it.hasNext(); ) {
+            final IOSessionRequest sessionRequest = it.next();
+            if (sessionRequest.isDone()) {
+                it.remove();
+                continue;
+            }
+            final Timeout timeout = sessionRequest.timeout;
+            if (timeout != null && !timeout.isDisabled()
+                    && currentTimeMillis > sessionRequest.creationTimeMillis + timeout.toMillis()) {
+                if (this.pendingResolutions.remove(sessionRequest)) {
+                    // Whatever the resolver reports back later gets ignored
+                    sessionRequest.failed(SocketTimeoutExceptionFactory.create(timeout));
+                }
+            }
+        }
+    }
+
+    private static boolean isUnresolved(final SocketAddress address) {
+        return address instanceof InetSocketAddress && ((InetSocketAddress) address).isUnresolved();
+    }
+
+    private void resolveAddress(final IOSessionRequest sessionRequest) {
+        final InetSocketAddress unresolved = (InetSocketAddress) sessionRequest.remoteAddress;
+        // The request is tracked until the resolver reports back so that the connect timeout
+        // can be enforced while name resolution is still pending
+        this.pendingResolutions.add(sessionRequest);
+        final Future<InetAddress[]> future = this.dnsResolver.resolve(unresolved.getHostString(), new FutureCallback<InetAddress[]>() {
+
+            @Override
+            public void completed(final InetAddress[] result) {
+                if (!pendingResolutions.remove(sessionRequest)) {
+                    return;
+                }
+                if (result == null || result.length == 0) {
+                    sessionRequest.failed(new UnknownHostException(unresolved.getHostString()));
+                    return;
+                }
+                final List<SocketAddress> addresses = interleaveAddresses(result, unresolved.getPort());
+                sessionRequest.remoteAddress = addresses.get(0);
+                sessionRequest.remoteAddresses = addresses.size() > 1 ? addresses : null;
+                if (getStatus().compareTo(IOReactorStatus.ACTIVE) > 0) {
+                    sessionRequest.cancel();
+                    return;
+                }
+                pendingRequestCount.incrementAndGet();
+                requestQueue.add(sessionRequest);
+                selector.wakeup();
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+                if (pendingResolutions.remove(sessionRequest)) {
+                    sessionRequest.failed(ex);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                if (pendingResolutions.remove(sessionRequest)) {
+                    sessionRequest.cancel();
+                }
+            }
+
+        });
+        sessionRequest.assign(new ModalCloseable() {
+
+            @Override
+            public void close(final CloseMode closeMode) {
+                future.cancel(true);
+            }
+
+            @Override
+            public void close() {
+                future.cancel(true);
+            }
+
+        });
+    }
+
+    /**
+     * Orders resolved addresses for connection racing as recommended by RFC 8305:
+     * addresses of the preferred family (that of the first address) alternate
+     * with those of the other family.
+     */
+    static List<SocketAddress> interleaveAddresses(final InetAddress[] addresses, final int port) {
+        final List<SocketAddress> preferred = new ArrayList<>(addresses.length);
+        final List<SocketAddress> other = new ArrayList<>(addresses.length);
+        final Class<?> preferredFamily = addresses[0].getClass();
+        for (final InetAddress address : addresses) {
+            final InetSocketAddress socketAddress = new InetSocketAddress(address, port);
+            if (address.getClass() == preferredFamily) {
+                preferred.add(socketAddress);
+            } else {
+                other.add(socketAddress);
+            }
+        }
+        final List<SocketAddress> result = new ArrayList<>(addresses.length);
+        for (int i = 0; i < Math.max(preferred.size(), other.size()); i++) {
+            if (i < preferred.size()) {
+                result.add(preferred.get(i));
+            }
+            if (i < other.size()) {
+                result.add(other.get(i));
+            }
+        }
+        return result;
+    }
+
+    private void startConnectAttempt(final InternalConnectRace connectRace) {
+        for (;;) {
+            final SocketAddress remoteAddress = connectRace.nextAddress();
+            if (remoteAddress == null) {
+                return;
+            }
+            SocketChannel socketChannel = null;
+            try {
+                socketChannel = SocketChannel.open();
+                processConnectionRequest(socketChannel, connectRace.sessionRequest, remoteAddress, connectRace);
+                if (connectRace.hasMoreAddresses()) {
+                    connectRace.setNextAttemptTime(System.currentTimeMillis()
+                            + this.reactorConfig.getConnectionAttemptDelay().toMillis());
+                    if (!this.pendingRaces.contains(connectRace)) {
+                        this.pendingRaces.add(connectRace);
+                    }
+                }
+                return;
+            } catch (final IOException | SecurityException ex) {
+                Closer.closeQuietly(socketChannel);
+                if (!connectRace.attemptFailed(ex)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void processConnectionRequest(
+            final SocketChannel socketChannel,
+            final IOSessionRequest sessionRequest,
+            final SocketAddress remoteAddress,
+            final InternalConnectRace connectRace) throws IOException {
         validateAddress(sessionRequest.localAddress);
-        validateAddress(sessionRequest.remoteAddress);
+        validateAddress(remoteAddress);
 
         socketChannel.configureBlocking(false);
         prepareSocket(socketChannel.socket());
@@ -314,17 +672,17 @@ private void processConnectionRequest(final SocketChannel socketChannel, final I
         if (this.reactorConfig.getSocksProxyAddress() != null) {
             targetAddress = this.reactorConfig.getSocksProxyAddress();
             eventHandlerFactory = new SocksProxyProtocolHandlerFactory(
-                    sessionRequest.remoteAddress,
+                    remoteAddress,
                     this.reactorConfig.getSocksProxyUsername(),
                     this.reactorConfig.getSocksProxyPassword(),
                     this.eventHandlerFactory);
         } else {
-            targetAddress = sessionRequest.remoteAddress;
+            targetAddress = remoteAddress;
             eventHandlerFactory = this.eventHandlerFactory;
         }
         final boolean connected = socketChannel.connect(targetAddress);
         final SelectionKey key = socketChannel.register(this.selector, SelectionKey.OP_CONNECT | SelectionKey.OP_READ);
-        final InternalChannel channel = new InternalConnectChannel(key, socketChannel, sessionRequest, new InternalDataChannelFactory() {
+        final InternalConnectChannel channel = new InternalConnectChannel(key, socketChannel, sessionRequest, new InternalDataChannelFactory() {
 
             @Override
             public InternalDataChannel create(
@@ -332,26 +690,40 @@ public InternalDataChannel create(
                     final SocketChannel socketChannel,
                     final NamedEndpoint namedEndpoint,
                     final Object attachment) {
-                final IOSession ioSession = new IOSessionImpl(key, socketChannel);
-                final InternalDataChannel dataChannel = new InternalDataChannel(ioSession, namedEndpoint, sessionListener, closedSessions);
+                final IOSession ioSession = new IOSessionImpl(key, socketChannel, socketTimeoutCallback, commandCallback);
+                final InternalDataChannel dataChannel = new InternalDataChannel(ioSession, namedEndpoint, sessionListener, closedSessions,
+                        reactorConfig.getBufferAllocator());
+                activeSessionCount.incrementAndGet();
                 final ProtocolIOSession protocolSession = ioSessionDecorator != null ? ioSessionDecorator.decorate(dataChannel) : dataChannel;
                 dataChannel.upgrade(eventHandlerFactory.createHandler(protocolSession, attachment));
                 dataChannel.setSocketTimeout(reactorConfig.getSoTimeout());
+                if (timeoutWheel != null) {
+                    scheduleTimeout(dataChannel);
+                }
                 return dataChannel;
             }
 
-        });
+        }, connectRace);
         if (connected) {
             channel.handleIOEvent(SelectionKey.OP_CONNECT);
         } else {
             key.attach(channel);
-            sessionRequest.assign(channel);
+            if (connectRace == null) {
+                sessionRequest.assign(channel);
+            } else if (!connectRace.add(channel)) {
+                channel.close();
+                return;
+            }
+            if (this.timeoutWheel != null) {
+                scheduleTimeout(channel);
+            }
         }
     }
 
     private void closePendingChannels() {
         SocketChannel socketChannel;
         while ((socketChannel = this.channelQueue.poll()) != null) {
+            this.pendingRequestCount.decrementAndGet();
             try {
                 socketChannel.close();
             } catch (final IOException ex) {
@@ -360,9 +732,25 @@ private void closePendingChannels() {
         }
     }
 
+    private void closePendingConnectRaces() {
+        for (final InternalConnectRace connectRace : this.pendingRaces) {
+            connectRace.sessionRequest.cancel();
+        }
+        this.pendingRaces.clear();
+    }
+
+    private void closePendingResolutions() {
+        for (final Iterator<IOSessionRequest> it = this.pendingResolutions.iterator(); it.hasNext(); ) {
+            final IOSessionRequest sessionRequest = it.next();
+            it.remove();
+            sessionRequest.cancel();
+        }
+    }
+
     private void closePendingConnectionRequests() {
         IOSessionRequest sessionRequest;
         while ((sessionRequest = this.requestQueue.poll()) != null) {
+            this.pendingRequestCount.decrementAndGet();
             sessionRequest.cancel();
         }
     }
@@ -0,0 +1,159 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+import java.util.List;
+
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Hashed timing wheel used by the I/O reactor to track channel timeout deadlines.
+ * <p>
+ * Channels are linked into wheel slots intrusively so that scheduling and cancellation
+ * are O(1) and do not allocate. Each call to {@link #expire(long, List)} visits only
+ * the slots whose ticks have elapsed since the previous call. Channels whose deadline
+ * falls more than one wheel revolution ahead remain in their slot until it comes around
+ * again.
+ * </p>
+ * <p>
+ * This class is not thread-safe and must only be accessed by the I/O reactor thread.
+ * </p>
+ *
+ * @since 5.0
+ */
+final class TimeoutWheel {
+
+    private final InternalChannel[] slots;
+    private final int mask;
+    private final long tickMillis;
+    private long currentTick;
+    private int size;
+
+    TimeoutWheel(final int wheelSize, final long tickMillis, final long currentTimeMillis) {
+        Args.positive(wheelSize, "Wheel size");
+        Args.positive(tickMillis, "Tick duration");
+        int n = 1;
+        while (n < wheelSize) {
+            n <<= 1;
+        }
+        this.slots = new InternalChannel[n];
+        this.mask = n - 1;
+        this.tickMillis = tickMillis;
+        this.currentTick = currentTimeMillis / tickMillis;
+    }
+
+    int getWheelSize() {
+        return slots.length;
+    }
+
+    /**
+     * Returns the number of channels currently scheduled.
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isScheduled(final InternalChannel channel) {
+        return channel.wheelSlot >= 0;
+    }
+
+    /**
+     * Schedules the channel to expire at the given deadline, replacing its previous
+     * deadline if it was already scheduled. Deadlines in the past are processed
+     * by the next call to {@link #expire(long, List)}.
+     */
+    void schedule(final InternalChannel channel, final long deadlineMillis) {
+        cancel(channel);
+        final long tick = Math.max(deadlineMillis / tickMillis, currentTick);
+        final int idx = (int) (tick & mask);
+        final InternalChannel head = slots[idx];
+        channel.wheelNext = head;
+        channel.wheelPrev = null;
+        if (head != null) {
+            head.wheelPrev = channel;
+        }
+        slots[idx] = channel;
+        channel.wheelSlot = idx;
+        channel.wheelDeadline = deadlineMillis;
+        size++;
+    }
+
+    /**
+     * Removes the channel from the wheel. Has no effect if the channel is not scheduled.
+     */
+    void cancel(final InternalChannel channel) {
+        final int idx = channel.wheelSlot;
+        if (idx < 0) {
+            return;
+        }
+        final InternalChannel prev = channel.wheelPrev;
+        final InternalChannel next = channel.wheelNext;
+        if (prev != null) {
+            prev.wheelNext = next;
+        } else {
+            slots[idx] = next;
+        }
+        if (next != null) {
+            next.wheelPrev = prev;
+        }
+        channel.wheelPrev = null;
+        channel.wheelNext = null;
+        channel.wheelSlot = -1;
+        size--;
+    }
+
+    /**
+     * Removes all channels whose deadline is at or before {@code currentTimeMillis}
+     * from the wheel and adds them to {@code expired}.
+     *
+     * @return the number of expired channels.
+     */
+    int expire(final long currentTimeMillis, final List<InternalChannel> expired) {
+        final long nowTick = currentTimeMillis / tickMillis;
+        final long ticks = nowTick - currentTick;
+        final int count = ticks >= slots.length ? slots.length : (int) ticks + 1;
+        int total = 0;
+        for (long tick = nowTick - count + 1; tick <= nowTick; tick++) {
+            InternalChannel channel = slots[(int) (tick & mask)];
+            while (channel != null) {
+                final InternalChannel next = channel.wheelNext;
+                if (channel.wheelDeadline <= currentTimeMillis) {
+                    cancel(channel);
+                    expired.add(channel);
+                    total++;
+                }
+                channel = next;
+            }
+        }
+        if (nowTick > currentTick) {
+            currentTick = nowTick;
+        }
+        return total;
+    }
+
+}
@@ -34,6 +34,10 @@
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 
@@ -56,6 +60,7 @@
 import org.apache.hc.core5.reactor.IOSession;
 import org.apache.hc.core5.util.Args;
 import org.apache.hc.core5.util.Asserts;
+import org.apache.hc.core5.util.ByteBufferAllocator;
 import org.apache.hc.core5.util.ReflectionUtils;
 import org.apache.hc.core5.util.Timeout;
 
@@ -85,6 +90,7 @@ public class SSLIOSession implements IOSession {
     private final Callback<SSLIOSession> disconnectedCallback;
     private final AtomicLong bytesReadCount;
     private final Timeout connectTimeout;
+    private final Executor handshakeExecutor;
 
     private int appEventMask;
 
@@ -93,6 +99,8 @@ public class SSLIOSession implements IOSession {
     private volatile int status;
     private volatile boolean initialized;
     private volatile Timeout socketTimeout;
+    private volatile boolean taskPending;
+    private volatile RuntimeException taskException;
     private TlsDetails tlsDetails;
 
     /**
@@ -106,6 +114,11 @@ public class SSLIOSession implements IOSession {
      * @param initializer optional SSL session initializer. May be {@code null}.
      * @param verifier optional SSL session verifier. May be {@code null}.
      * @param connectTimeout timeout to apply for the TLS/SSL handshake. May be {@code null}.
+     * @param handshakeExecutor optional executor to run delegated SSL engine tasks such as
+     *                          key exchange computations. If {@code null} the tasks get executed
+     *                          by the I/O dispatch thread. May be {@code null}.
+     * @param bufferAllocator optional allocator of the network and application buffers.
+     *                        If {@code null} heap buffers will be used. May be {@code null}.
      *
      * @since 5.0
      */
@@ -119,7 +132,9 @@ public SSLIOSession(
             final SSLSessionVerifier verifier,
             final Callback<SSLIOSession> connectedCallback,
             final Callback<SSLIOSession> disconnectedCallback,
-            final Timeout connectTimeout) {
+            final Timeout connectTimeout,
+            final Executor handshakeExecutor,
+            final ByteBufferAllocator bufferAllocator) {
         super();
         Args.notNull(session, "IO session");
         Args.notNull(sslContext, "SSL context");
@@ -141,12 +156,12 @@ public SSLIOSession(
         final SSLSession sslSession = this.sslEngine.getSession();
         // Allocate buffers for network (encrypted) data
         final int netBufferSize = sslSession.getPacketBufferSize();
-        this.inEncrypted = SSLManagedBuffer.create(sslBufferMode, netBufferSize);
-        this.outEncrypted = SSLManagedBuffer.create(sslBufferMode, netBufferSize);
+        this.inEncrypted = SSLManagedBuffer.create(sslBufferMode, netBufferSize, bufferAllocator);
+        this.outEncrypted = SSLManagedBuffer.create(sslBufferMode, netBufferSize, bufferAllocator);
 
         // Allocate buffers for application (unencrypted) data
         final int appBufferSize = sslSession.getApplicationBufferSize();
-        this.inPlain = SSLManagedBuffer.create(sslBufferMode, appBufferSize);
+        this.inPlain = SSLManagedBuffer.create(sslBufferMode, appBufferSize, bufferAllocator);
         this.channel = new ByteChannel() {
 
             @Override
@@ -172,6 +187,69 @@ public boolean isOpen() {
         };
         this.bytesReadCount = new AtomicLong(0);
         this.connectTimeout = connectTimeout;
+        this.handshakeExecutor = handshakeExecutor;
+    }
+
+    /**
+     * Creates new instance of {@code SSLIOSession} class.
+     *
+     * @param session I/O session to be decorated with the TLS/SSL capabilities.
+     * @param sslMode SSL mode (client or server)
+     * @param targetEndpoint target endpoint (applicable in client mode only). May be {@code null}.
+     * @param sslContext SSL context to use for this I/O session.
+     * @param sslBufferMode buffer management mode
+     * @param initializer optional SSL session initializer. May be {@code null}.
+     * @param verifier optional SSL session verifier. May be {@code null}.
+     * @param connectTimeout timeout to apply for the TLS/SSL handshake. May be {@code null}.
+     * @param handshakeExecutor optional executor to run delegated SSL engine tasks such as
+     *                          key exchange computations. If {@code null} the tasks get executed
+     *                          by the I/O dispatch thread. May be {@code null}.
+     *
+     * @since 5.0
+     */
+    public SSLIOSession(
+            final NamedEndpoint targetEndpoint,
+            final IOSession session,
+            final SSLMode sslMode,
+            final SSLContext sslContext,
+            final SSLBufferMode sslBufferMode,
+            final SSLSessionInitializer initializer,
+            final SSLSessionVerifier verifier,
+            final Callback<SSLIOSession> connectedCallback,
+            final Callback<SSLIOSession> disconnectedCallback,
+            final Timeout connectTimeout,
+            final Executor handshakeExecutor) {
+        this(targetEndpoint, session, sslMode, sslContext, sslBufferMode, initializer, verifier,
+                connectedCallback, disconnectedCallback, connectTimeout, handshakeExecutor, null);
+    }
+
+    /**
+     * Creates new instance of {@code SSLIOSession} class.
+     *
+     * @param session I/O session to be decorated with the TLS/SSL capabilities.
+     * @param sslMode SSL mode (client or server)
+     * @param targetEndpoint target endpoint (applicable in client mode only). May be {@code null}.
+     * @param sslContext SSL context to use for this I/O session.
+     * @param sslBufferMode buffer management mode
+     * @param initializer optional SSL session initializer. May be {@code null}.
+     * @param verifier optional SSL session verifier. May be {@code null}.
+     * @param connectTimeout timeout to apply for the TLS/SSL handshake. May be {@code null}.
+     *
+     * @since 5.0
+     */
+    public SSLIOSession(
+            final NamedEndpoint targetEndpoint,
+            final IOSession session,
+            final SSLMode sslMode,
+            final SSLContext sslContext,
+            final SSLBufferMode sslBufferMode,
+            final SSLSessionInitializer initializer,
+            final SSLSessionVerifier verifier,
+            final Callback<SSLIOSession> connectedCallback,
+            final Callback<SSLIOSession> disconnectedCallback,
+            final Timeout connectTimeout) {
+        this(targetEndpoint, session, sslMode, sslContext, sslBufferMode, initializer, verifier,
+                connectedCallback, disconnectedCallback, connectTimeout, null, null);
     }
 
     @Override
@@ -281,7 +359,74 @@ private void doRunTask() throws SSLException {
         }
     }
 
+    /**
+     * Hands all outstanding delegated tasks over to the handshake executor. The session
+     * stops processing I/O events until the tasks have been completed and then requests
+     * output readiness in order to resume the handshake on the I/O dispatch thread.
+     *
+     * @return {@code true} if the tasks are being executed asynchronously,
+     *   {@code false} if the executor rejected them.
+     */
+    private boolean doRunTaskAsync() {
+        final List<Runnable> tasks = new ArrayList<>(1);
+        for (Runnable r = this.sslEngine.getDelegatedTask(); r != null; r = this.sslEngine.getDelegatedTask()) {
+            tasks.add(r);
+        }
+        if (tasks.isEmpty()) {
+            return false;
+        }
+        this.taskPending = true;
+        try {
+            this.handshakeExecutor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        for (final Runnable task : tasks) {
+                            task.run();
+                        }
+                    } catch (final RuntimeException ex) {
+                        taskException = ex;
+                    } finally {
+                        resumeHandshake();
+                    }
+                }
+
+            });
+            return true;
+        } catch (final RejectedExecutionException ex) {
+            this.taskPending = false;
+            for (final Runnable task : tasks) {
+                task.run();
+            }
+            return false;
+        }
+    }
+
+    private void resumeHandshake() {
+        this.session.getLock().lock();
+        try {
+            this.taskPending = false;
+            if (this.status == CLOSED || this.session.isClosed()) {
+                return;
+            }
+            updateEventMask();
+            this.session.setEvent(SelectionKey.OP_WRITE);
+        } catch (final CancelledKeyException ignore) {
+        } finally {
+            this.session.getLock().unlock();
+        }
+    }
+
     private void doHandshake() throws SSLException {
+        if (this.taskPending) {
+            return;
+        }
+        final RuntimeException ex = this.taskException;
+        if (ex != null) {
+            this.taskException = null;
+            throw convert(ex);
+        }
         boolean handshaking = true;
 
         SSLEngineResult result = null;
@@ -331,7 +476,17 @@ private void doHandshake() throws SSLException {
                 }
                 break;
             case NEED_TASK:
-                doRunTask();
+                if (this.handshakeExecutor != null) {
+                    try {
+                        if (doRunTaskAsync()) {
+                            handshaking = false;
+                        }
+                    } catch (final RuntimeException rex) {
+                        throw convert(rex);
+                    }
+                } else {
+                    doRunTask();
+                }
                 break;
             case NOT_HANDSHAKING:
                 handshaking = false;
@@ -379,6 +534,11 @@ private void updateEventMask() {
             this.status = CLOSED;
         }
         if (this.status == CLOSED) {
+            this.inEncrypted.dispose();
+            this.outEncrypted.dispose();
+            if (!this.inPlain.hasData()) {
+                this.inPlain.dispose();
+            }
             this.session.close();
             if (disconnectedCallback != null) {
                 disconnectedCallback.execute(this);
@@ -404,6 +564,11 @@ private void updateEventMask() {
             break;
         }
 
+        // Suspend I/O events while delegated tasks are being executed
+        if (this.taskPending) {
+            newMask = 0;
+        }
+
         if (this.endOfStream) {
             newMask = newMask & ~EventMask.READ;
         }
@@ -521,7 +686,7 @@ public boolean isAppInputReady() throws IOException {
                 if (status == HandshakeStatus.NOT_HANDSHAKING || status == HandshakeStatus.FINISHED) {
                     decryptData();
                 }
-            } while (this.sslEngine.getHandshakeStatus() == HandshakeStatus.NEED_TASK);
+            } while (this.sslEngine.getHandshakeStatus() == HandshakeStatus.NEED_TASK && !this.taskPending);
             // Some decrypted data is available or at the end of stream
             return this.inPlain.hasData() || (this.endOfStream && this.status == ACTIVE);
         } finally {
@@ -628,14 +793,24 @@ private int readPlain(final ByteBuffer dst) {
                 // Perform operations
                 inPlainBuf.flip();
                 final int n = Math.min(inPlainBuf.remaining(), dst.remaining());
-                for (int i = 0; i < n; i++) {
-                    dst.put(inPlainBuf.get());
+                if (n == inPlainBuf.remaining()) {
+                    dst.put(inPlainBuf);
+                } else {
+                    final int limit = inPlainBuf.limit();
+                    inPlainBuf.limit(inPlainBuf.position() + n);
+                    dst.put(inPlainBuf);
+                    inPlainBuf.limit(limit);
                 }
                 inPlainBuf.compact();
 
-                // Release if empty
+                // Release if empty. Buffers of closed sessions are no longer needed
+                // and go back to the allocator regardless of the buffer mode.
                 if (inPlainBuf.position() == 0) {
-                    this.inPlain.release();
+                    if (this.status == CLOSED) {
+                        this.inPlain.dispose();
+                    } else {
+                        this.inPlain.release();
+                    }
                 }
                 bytesReadCount.addAndGet(n);
                 return n;
@@ -683,11 +858,13 @@ public void close(final CloseMode closeMode) {
         this.session.getLock().lock();
         try {
             if (this.status == CLOSED) {
+                // Plain data left over from a session closed by the opposite endpoint
+                this.inPlain.dispose();
                 return;
             }
-            this.inEncrypted.release();
-            this.outEncrypted.release();
-            this.inPlain.release();
+            this.inEncrypted.dispose();
+            this.outEncrypted.dispose();
+            this.inPlain.dispose();
 
             this.status = CLOSED;
             this.session.close(closeMode);
@@ -717,6 +894,17 @@ public void enqueue(final Command command, final Command.Priority priority) {
         }
     }
 
+    @Override
+    public void enqueue(final List<Command> commands, final Command.Priority priority) {
+        this.session.getLock().lock();
+        try {
+            this.session.enqueue(commands, priority);
+            setEvent(SelectionKey.OP_WRITE);
+        } finally {
+            this.session.getLock().unlock();
+        }
+    }
+
     @Override
     public boolean hasCommands() {
         return this.session.hasCommands();
@@ -30,6 +30,8 @@
 import java.nio.ByteBuffer;
 
 import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteBufferAllocator;
+import org.apache.hc.core5.util.HeapByteBufferAllocator;
 
 abstract class SSLManagedBuffer {
 
@@ -44,6 +46,11 @@ abstract class SSLManagedBuffer {
      * Releases the resources for this buffer. If the buffer has already been released, this method does nothing.
      */
     abstract void release();
+    /**
+     * Returns the resources held by this buffer to the allocator regardless of the buffer mode. The buffer gets
+     * re-allocated if {@link #acquire()} is called afterwards.
+     */
+    abstract void dispose();
     /**
      * Tests to see if this buffer has been acquired.
      * @return {@code true} if the buffer is acquired, otherwise {@code false}
@@ -57,21 +64,29 @@ abstract class SSLManagedBuffer {
      */
     abstract boolean hasData();
 
-    static SSLManagedBuffer create(final SSLBufferMode mode, final int size) {
-        return mode == SSLBufferMode.DYNAMIC ? new DynamicBuffer(size) : new StaticBuffer(size);
+    static SSLManagedBuffer create(final SSLBufferMode mode, final int size, final ByteBufferAllocator allocator) {
+        final ByteBufferAllocator bufferAllocator = allocator != null ? allocator : HeapByteBufferAllocator.INSTANCE;
+        return mode == SSLBufferMode.DYNAMIC ? new DynamicBuffer(size, bufferAllocator) : new StaticBuffer(size, bufferAllocator);
     }
 
     static final class StaticBuffer extends SSLManagedBuffer {
 
-        private final ByteBuffer buffer;
+        private final ByteBufferAllocator allocator;
+        private final int length;
+        private ByteBuffer buffer;
 
-        public StaticBuffer(final int size) {
+        public StaticBuffer(final int size, final ByteBufferAllocator allocator) {
             Args.positive(size, "size");
-            buffer = ByteBuffer.allocate(size);
+            this.allocator = allocator;
+            this.length = size;
+            this.buffer = allocator.allocate(size);
         }
 
         @Override
         public ByteBuffer acquire() {
+            if (buffer == null) {
+                buffer = allocator.allocate(length);
+            }
             return buffer;
         }
 
@@ -80,6 +95,15 @@ public void release() {
             // do nothing
         }
 
+        @Override
+        public void dispose() {
+            if (buffer != null) {
+                final ByteBuffer oldBuffer = buffer;
+                buffer = null;
+                allocator.release(oldBuffer);
+            }
+        }
+
         @Override
         public boolean isAcquired() {
             return true;
@@ -87,18 +111,20 @@ public boolean isAcquired() {
 
         @Override
         public boolean hasData() {
-            return buffer.position() > 0;
+            return buffer != null && buffer.position() > 0;
         }
 
     }
 
     static final class DynamicBuffer extends SSLManagedBuffer {
 
+        private final ByteBufferAllocator allocator;
         private ByteBuffer wrapped;
         private final int length;
 
-        public DynamicBuffer(final int size) {
+        public DynamicBuffer(final int size, final ByteBufferAllocator allocator) {
             Args.positive(size, "size");
+            this.allocator = allocator;
             this.length = size;
         }
 
@@ -107,13 +133,22 @@ public ByteBuffer acquire() {
             if (wrapped != null) {
                 return wrapped;
             }
-            wrapped = ByteBuffer.allocate(length);
+            wrapped = allocator.allocate(length);
             return wrapped;
         }
 
         @Override
         public void release() {
-            wrapped = null;
+            if (wrapped != null) {
+                final ByteBuffer oldBuffer = wrapped;
+                wrapped = null;
+                allocator.release(oldBuffer);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            release();
         }
 
         @Override
@@ -27,6 +27,8 @@
 
 package org.apache.hc.core5.reactor.ssl;
 
+import java.util.concurrent.Executor;
+
 import javax.net.ssl.SSLContext;
 
 import org.apache.hc.core5.net.NamedEndpoint;
@@ -59,6 +61,35 @@ void startTls(
             SSLSessionVerifier verifier,
             Timeout handshakeTimeout) throws UnsupportedOperationException;
 
+    /**
+     * Starts TLS session over an existing network connection with the given SSL context.
+     * {@link NamedEndpoint} details are applicable for client side connections and
+     * are used for host name verification, when supported by the SSL engine.
+     * <p>
+     * CPU intensive handshake tasks delegated by the SSL engine get executed by the given
+     * executor instead of the I/O dispatch thread, so that key exchange computations
+     * do not hold up other sessions managed by the same thread.
+     * </p>
+     *
+     * @param sslContext SSL context to be used for this session.
+     * @param endpoint optional endpoint details for outgoing client side connections.
+     * @param sslBufferMode SSL buffer management mode.
+     * @param initializer SSL session initialization callback.
+     * @param verifier SSL session verification callback.
+     * @param handshakeTimeout the timeout to use while performing the TLS handshake; may be {@code null}.
+     * @param handshakeExecutor the executor to run delegated handshake tasks; may be {@code null}.
+     *
+     * @since 5.0
+     */
+    void startTls(
+            SSLContext sslContext,
+            NamedEndpoint endpoint,
+            SSLBufferMode sslBufferMode,
+            SSLSessionInitializer initializer,
+            SSLSessionVerifier verifier,
+            Timeout handshakeTimeout,
+            Executor handshakeExecutor) throws UnsupportedOperationException;
+
     /**
      * Returns details of a fully established TLS session.
      *
@@ -0,0 +1,64 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Strategy for allocating and recycling {@link ByteBuffer}s used by
+ * I/O sessions and protocol handlers for their internal buffers.
+ * <p>
+ * Implementations must be thread-safe.
+ * </p>
+ *
+ * @see HeapByteBufferAllocator
+ * @see PooledByteBufferAllocator
+ * @since 5.0
+ */
+public interface ByteBufferAllocator {
+
+    /**
+     * Allocates a buffer of at least the given capacity. The returned buffer
+     * is cleared: its position is {@code 0} and its limit equals its capacity,
+     * which may be larger than requested.
+     *
+     * @param capacity the minimal capacity of the buffer.
+     * @return the buffer.
+     */
+    ByteBuffer allocate(int capacity);
+
+    /**
+     * Returns a buffer previously obtained from {@link #allocate(int)} back to
+     * this allocator. The caller must not access the buffer once released.
+     * Buffers not allocated by this allocator are ignored.
+     *
+     * @param buffer the buffer to release.
+     */
+    void release(ByteBuffer buffer);
+
+}
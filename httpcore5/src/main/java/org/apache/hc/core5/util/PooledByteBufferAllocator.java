@@ -0,0 +1,248 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.util;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+
+/**
+ * {@link ByteBufferAllocator} that recycles direct buffers.
+ * <p>
+ * Requested capacities are rounded up to one of a number of size classes:
+ * the minimal capacity and then four equally spaced classes per power of two
+ * up to the maximal capacity, which bounds the internal fragmentation to 25%.
+ * Released buffers are kept in a small per-thread cache first, so that
+ * I/O dispatch threads can recycle buffers without any synchronization,
+ * and overflow into a shared arena bounded by the total number of bytes
+ * it may hold. Requests above the maximal capacity are served with
+ * non-pooled direct buffers.
+ * </p>
+ * <p>
+ * Direct buffers save the extra copy the JDK makes when reading from or writing
+ * to a socket channel with heap buffers.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public final class PooledByteBufferAllocator implements ByteBufferAllocator {
+
+    public static final int DEFAULT_MIN_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_CAPACITY = 256 * 1024;
+    public static final int DEFAULT_THREAD_CACHE_SIZE = 16;
+    public static final long DEFAULT_MAX_ARENA_SIZE = 64L * 1024 * 1024;
+
+    private final int minShift;
+    private final int maxCapacity;
+    private final int threadCacheSize;
+    private final long maxArenaSize;
+    private final Queue<ByteBuffer>[] arena;
+    private final AtomicLong arenaSize;
+    private final AtomicLong allocatedSize;
+    private final ThreadLocal<ThreadCache> threadCache;
+
+    /**
+     * Creates new pooled allocator.
+     *
+     * @param minCapacity the capacity of the smallest size class. Must be a power of two.
+     * @param maxCapacity the capacity of the largest size class. Must be a power of two.
+     * @param threadCacheSize the number of buffers of each size class cached per thread.
+     *   {@code 0} disables per-thread caching.
+     * @param maxArenaSize the maximal total capacity of buffers held by the shared arena.
+     */
+    @SuppressWarnings("unchecked")
+    public PooledByteBufferAllocator(
+            final int minCapacity,
+            final int maxCapacity,
+            final int threadCacheSize,
+            final long maxArenaSize) {
+        Args.check(minCapacity >= 16 && Integer.bitCount(minCapacity) == 1,
+                "Minimal capacity must be a power of two not less than 16: %s", minCapacity);
+        Args.check(maxCapacity >= minCapacity && Integer.bitCount(maxCapacity) == 1,
+                "Maximal capacity must be a power of two not less than minimal capacity: %s", maxCapacity);
+        this.minShift = Integer.numberOfTrailingZeros(minCapacity);
+        this.maxCapacity = maxCapacity;
+        this.threadCacheSize = Args.notNegative(threadCacheSize, "Thread cache size");
+        this.maxArenaSize = Args.notNegative(maxArenaSize, "Max arena size");
+        final int classCount = sizeClass(maxCapacity) + 1;
+        this.arena = new Queue[classCount];
+        for (int i = 0; i < classCount; i++) {
+            this.arena[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.arenaSize = new AtomicLong(0);
+        this.allocatedSize = new AtomicLong(0);
+        this.threadCache = new ThreadLocal<ThreadCache>() {
+
+            @Override
+            protected ThreadCache initialValue() {
+                return new ThreadCache(classCount, PooledByteBufferAllocator.this.threadCacheSize);
+            }
+
+        };
+    }
+
+    public PooledByteBufferAllocator() {
+        this(DEFAULT_MIN_CAPACITY, DEFAULT_MAX_CAPACITY, DEFAULT_THREAD_CACHE_SIZE, DEFAULT_MAX_ARENA_SIZE);
+    }
+
+    int sizeClass(final int capacity) {
+        if (capacity <= 1 << minShift) {
+            return 0;
+        }
+        // 2^shift < capacity <= 2^(shift + 1)
+        final int shift = 31 - Integer.numberOfLeadingZeros(capacity - 1);
+        final int sub = (capacity - 1 - (1 << shift)) >> (shift - 2);
+        return 1 + ((shift - minShift) << 2) + sub;
+    }
+
+    int classCapacity(final int sizeClass) {
+        if (sizeClass == 0) {
+            return 1 << minShift;
+        }
+        final int shift = minShift + ((sizeClass - 1) >> 2);
+        return (1 << shift) + ((((sizeClass - 1) & 3) + 1) << (shift - 2));
+    }
+
+    @Override
+    public ByteBuffer allocate(final int capacity) {
+        Args.notNegative(capacity, "Capacity");
+        if (capacity > maxCapacity) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        final int sizeClass = sizeClass(capacity);
+        ByteBuffer buffer = threadCacheSize > 0 ? threadCache.get().poll(sizeClass) : null;
+        if (buffer == null) {
+            buffer = arena[sizeClass].poll();
+            if (buffer != null) {
+                arenaSize.addAndGet(-buffer.capacity());
+            } else {
+                final int classCapacity = classCapacity(sizeClass);
+                buffer = ByteBuffer.allocateDirect(classCapacity);
+                allocatedSize.addAndGet(classCapacity);
+            }
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    @Override
+    public void release(final ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.isReadOnly()) {
+            return;
+        }
+        final int capacity = buffer.capacity();
+        if (capacity > maxCapacity) {
+            return;
+        }
+        final int sizeClass = sizeClass(capacity);
+        if (classCapacity(sizeClass) != capacity) {
+            return;
+        }
+        if (threadCacheSize > 0 && threadCache.get().offer(sizeClass, buffer)) {
+            return;
+        }
+        if (arenaSize.addAndGet(capacity) <= maxArenaSize) {
+            arena[sizeClass].offer(buffer);
+        } else {
+            arenaSize.addAndGet(-capacity);
+        }
+    }
+
+    /**
+     * Returns the total capacity of direct buffers allocated by this allocator
+     * for its size classes so far.
+     */
+    public long getAllocatedSize() {
+        return allocatedSize.get();
+    }
+
+    /**
+     * Returns the total capacity of buffers currently held by the shared arena.
+     */
+    public long getArenaSize() {
+        return arenaSize.get();
+    }
+
+    @Override
+    public String toString() {
+        return "pooled [minCapacity=" + (1 << minShift) +
+                ", maxCapacity=" + maxCapacity +
+                ", threadCacheSize=" + threadCacheSize +
+                ", maxArenaSize=" + maxArenaSize +
+                ", allocatedSize=" + allocatedSize +
+                ", arenaSize=" + arenaSize +
+                "]";
+    }
+
+    static final class ThreadCache {
+
+        private final ByteBuffer[][] buffers;
+        private final int[] counts;
+        private final int size;
+
+        ThreadCache(final int classCount, final int size) {
+            this.buffers = new ByteBuffer[classCount][];
+            this.counts = new int[classCount];
+            this.size = size;
+        }
+
+        ByteBuffer poll(final int sizeClass) {
+            final int count = counts[sizeClass];
+            if (count == 0) {
+                return null;
+            }
+            final ByteBuffer[] stack = buffers[sizeClass];
+            final ByteBuffer buffer = stack[count - 1];
+            stack[count - 1] = null;
+            counts[sizeClass] = count - 1;
+            return buffer;
+        }
+
+        boolean offer(final int sizeClass, final ByteBuffer buffer) {
+            final int count = counts[sizeClass];
+            if (count == size) {
+                return false;
+            }
+            ByteBuffer[] stack = buffers[sizeClass];
+            if (stack == null) {
+                stack = new ByteBuffer[size];
+                buffers[sizeClass] = stack;
+            }
+            stack[count] = buffer;
+            counts[sizeClass] = count + 1;
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.impl.nio;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hc.core5.http.FormattedHeader;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.MessageConstraintException;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.http.ReadableByteChannelMock;
+import org.apache.hc.core5.http.config.Http1Config;
+import org.apache.hc.core5.http.message.BasicLineParser;
+import org.apache.hc.core5.http.message.MessageSupport;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DefaultHttpRequestParser}.
+ */
+public class TestHttpMessageParser {
+
+    private static HttpRequest parse(
+            final DefaultHttpRequestParser<HttpRequest> parser, final String... chunks) throws Exception {
+        final SessionInputBufferImpl inbuf = new SessionInputBufferImpl(1024, 128);
+        final ReadableByteChannelMock channel = new ReadableByteChannelMock(chunks, StandardCharsets.US_ASCII);
+        for (;;) {
+            final int bytesRead = inbuf.fill(channel);
+            final HttpRequest request = parser.parse(inbuf, bytesRead == -1);
+            if (request != null || bytesRead == -1) {
+                return request;
+            }
+        }
+    }
+
+    @Test
+    public void testBasicMessageParsing() throws Exception {
+        final DefaultHttpRequestParser<HttpRequest> parser = new DefaultHttpRequestParser<>(
+                DefaultHttpRequestFactory.INSTANCE);
+        final HttpRequest request = parse(parser,
+                "GET / HTTP/1.1\r\nHost: loc", "alhost\r\nUser-Agent: whatever\r\n",
+                "Cookie: c1=stuff\r\nCookie: c2 = more-stuff  \r\n\r\n");
+        Assert.assertNotNull(request);
+        Assert.assertEquals("GET", request.getMethod());
+        Assert.assertEquals("/", request.getPath());
+        final Header[] headers = request.getHeaders();
+        Assert.assertEquals(4, headers.length);
+        Assert.assertEquals("Host", headers[0].getName());
+        Assert.assertEquals("localhost", headers[0].getValue());
+        Assert.assertEquals("User-Agent", headers[1].getName());
+        Assert.assertEquals("whatever", headers[1].getValue());
+        Assert.assertEquals("c2 = more-stuff", headers[3].getValue());
+        Assert.assertEquals(2, request.countHeaders("cookie"));
+        Assert.assertEquals("localhost", request.getFirstHeader("HOST").getValue());
+        Assert.assertNull(request.getFirstHeader("Hos"));
+        Assert.assertEquals("Cookie: c2 = more-stuff  ", headers[3].toString());
+    }
+
+    @Test
+    public void testFormattedHeaderCompatibility() throws Exception {
+        final DefaultHttpRequestParser<HttpRequest> parser = new DefaultHttpRequestParser<>(
+                DefaultHttpRequestFactory.INSTANCE);
+        final HttpRequest request = parse(parser,
+                "GET / HTTP/1.1\r\nHost: localhost\r\nConnection: keep-alive, Upgrade\r\n\r\n");
+        Assert.assertNotNull(request);
+        final Header header = request.getFirstHeader("Connection");
+        Assert.assertTrue(header instanceof FormattedHeader);
+        final FormattedHeader formattedHeader = (FormattedHeader) header;
+        Assert.assertEquals("Connection: keep-alive, Upgrade", formattedHeader.getBuffer().toString());
+        Assert.assertEquals(11, formattedHeader.getValuePos());
+        Assert.assertEquals(2, MessageSupport.parseTokens(header).size());
+        Assert.assertTrue(MessageSupport.parseTokens(header).contains("Upgrade"));
+    }
+
+    @Test
+    public void testFoldedHeaders() throws Exception {
+        final DefaultHttpRequestParser<HttpRequest> parser = new DefaultHttpRequestParser<>(
+                DefaultHttpRequestFactory.INSTANCE);
+        final HttpRequest request = parse(parser,
+                "GET / HTTP/1.1\r\nX-Folded: stuff\r\n", " \t more\r\n\tand more\r\nHost: localhost\r\n\r\n");
+        Assert.assertNotNull(request);
+        final Header[] headers = request.getHeaders();
+        Assert.assertEquals(2, headers.length);
+        Assert.assertEquals("X-Folded", headers[0].getName());
+        Assert.assertEquals("stuff more and more", headers[0].getValue());
+        Assert.assertEquals("Host", headers[1].getName());
+        Assert.assertEquals("localhost", headers[1].getValue());
+    }
+
+    @Test
+    public void testHeadersAtEndOfStream() throws Exception {
+        final DefaultHttpRequestParser<HttpRequest> parser = new DefaultHttpRequestParser<>(
+                DefaultHttpRequestFactory.INSTANCE);
+        final HttpRequest request = parse(parser, "GET / HTTP/1.1\r\nHost: localhost\r\nX-Last: last");
+        Assert.assertNotNull(request);
+        Assert.assertEquals(2, request.getHeaders().length);
+        Assert.assertEquals("last", request.getFirstHeader("x-last").getValue());
+    }
+
+    @Test
+    public void testParserReuse() throws Exception {
+        final DefaultHttpRequestParser<HttpRequest> parser = new DefaultHttpRequestParser<>(
+                DefaultHttpRequestFactory.INSTANCE);
+        final HttpRequest request1 = parse(parser, "GET /one HTTP/1.1\r\nHost: one\r\n\r\n");
+        parser.reset();
+        final HttpRequest request2 = parse(parser, "GET /two HTTP/1.1\r\nHost: two\r\nX-Two: 2\r\n\r\n");
+        Assert.assertEquals("one", request1.getFirstHeader("Host").getValue());
+        Assert.assertEquals(1, request1.getHeaders().length);
+        Assert.assertEquals("two", request2.getFirstHeader("Host").getValue());
+        Assert.assertEquals(2, request2.getHeaders().length);
+    }
+
+    @Test
+    public void testManyHeaders() throws Exception {
+        final StringBuilder buf = new StringBuilder("GET / HTTP/1.1\r\n");
+        for (int i = 0; i < 100; i++) {
+            buf.append("X-Header-").append(i).append(": value ").append(i).append("\r\n");
+        }
+        buf.append("\r\n");
+        final DefaultHttpRequestParser<HttpRequest> parser = new DefaultHttpRequestParser<>(
+                DefaultHttpRequestFactory.INSTANCE);
+        final HttpRequest request = parse(parser, buf.toString());
+        Assert.assertNotNull(request);
+        final Header[] headers = request.getHeaders();
+        Assert.assertEquals(100, headers.length);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals("X-Header-" + i, headers[i].getName());
+            Assert.assertEquals("value " + i, headers[i].getValue());
+        }
+    }
+
+    @Test(expected = MessageConstraintException.class)
+    public void testMaxHeaderCount() throws Exception {
+        final DefaultHttpRequestParser<HttpRequest> parser = new DefaultHttpRequestParser<>(
+                DefaultHttpRequestFactory.INSTANCE, Http1Config.custom().setMaxHeaderCount(2).build());
+        parse(parser, "GET / HTTP/1.1\r\nHost: localhost\r\nX-One: 1\r\nX-Two: 2\r\n\r\n");
+    }
+
+    @Test(expected = MessageConstraintException.class)
+    public void testMaxFoldedLineLength() throws Exception {
+        final DefaultHttpRequestParser<HttpRequest> parser = new DefaultHttpRequestParser<>(
+                DefaultHttpRequestFactory.INSTANCE, Http1Config.custom().setMaxLineLength(20).build());
+        parse(parser, "GET / HTTP/1.1\r\nX-Folded: stuff\r\n more stuff\r\n\r\n");
+    }
+
+    @Test(expected = ParseException.class)
+    public void testInvalidHeader() throws Exception {
+        final DefaultHttpRequestParser<HttpRequest> parser = new DefaultHttpRequestParser<>(
+                DefaultHttpRequestFactory.INSTANCE);
+        parse(parser, "GET / HTTP/1.1\r\nHost : localhost\r\n\r\n");
+    }
+
+    @Test
+    public void testNonLazyLineParser() throws Exception {
+        final DefaultHttpRequestParser<HttpRequest> parser = new DefaultHttpRequestParser<>(
+                DefaultHttpRequestFactory.INSTANCE, BasicLineParser.INSTANCE, null);
+        final HttpRequest request = parse(parser,
+                "GET / HTTP/1.1\r\nX-Folded: stuff\r\n more\r\nHost: localhost\r\n\r\n");
+        Assert.assertNotNull(request);
+        Assert.assertEquals(2, request.getHeaders().length);
+        Assert.assertEquals("stuff more", request.getFirstHeader("X-Folded").getValue());
+    }
+
+}
@@ -44,6 +44,7 @@
 import org.apache.hc.core5.http.nio.SessionInputBuffer;
 import org.apache.hc.core5.http.nio.SessionOutputBuffer;
 import org.apache.hc.core5.util.CharArrayBuffer;
+import org.apache.hc.core5.util.PooledByteBufferAllocator;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -619,4 +620,72 @@ public void testUnmappableInputActionReplace() throws Exception {
         Assert.assertEquals("This text contains a circumflex ? !!!\r\n", result);
     }
 
+
+    @Test
+    public void testPooledDirectBuffers() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(16, 1024, 4, 0);
+        final SessionOutputBufferImpl outbuf = new SessionOutputBufferImpl(16, 16, null, allocator);
+        final SessionInputBufferImpl inbuf = new SessionInputBufferImpl(16, 16, 0, null, allocator);
+        Assert.assertTrue(outbuf.buffer().isDirect());
+        Assert.assertTrue(inbuf.buffer().isDirect());
+
+        final CharArrayBuffer chbuffer = new CharArrayBuffer(32);
+        chbuffer.append("This line is much longer than the initial buffer");
+        outbuf.writeLine(chbuffer);
+        Assert.assertTrue(outbuf.buffer().isDirect());
+        final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        outbuf.flush(newChannel(outStream));
+        Assert.assertFalse(outbuf.hasData());
+
+        final ReadableByteChannel channel = newChannel(outStream.toByteArray());
+        while (inbuf.fill(channel) > 0) {
+        }
+        chbuffer.clear();
+        Assert.assertTrue(inbuf.readLine(chbuffer, true));
+        Assert.assertEquals("This line is much longer than the initial buffer", chbuffer.toString());
+
+        final ByteBuffer released = outbuf.buffer();
+        outbuf.release();
+        Assert.assertFalse(outbuf.hasData());
+        Assert.assertEquals(0, outbuf.length());
+        Assert.assertSame(released, allocator.allocate(released.capacity()));
+
+        inbuf.release();
+        Assert.assertEquals(16, inbuf.buffer().capacity());
+        Assert.assertFalse(inbuf.hasData());
+    }
+
+    @Test
+    public void testReleaseAndReacquireBuffers() throws Exception {
+        final SessionOutputBufferImpl outbuf = new SessionOutputBufferImpl(16, 16,
+                StandardCharsets.UTF_8.newEncoder());
+        final SessionInputBufferImpl inbuf = new SessionInputBufferImpl(16, 16, 0,
+                StandardCharsets.UTF_8.newDecoder());
+
+        final CharArrayBuffer chbuffer = new CharArrayBuffer(32);
+        for (int i = 0; i < 3; i++) {
+            chbuffer.clear();
+            chbuffer.append("Line " + i + " much longer than the initial buffer");
+            outbuf.writeLine(chbuffer);
+            Assert.assertTrue(outbuf.buffer().capacity() > 16);
+            final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+            outbuf.flush(newChannel(outStream));
+            Assert.assertFalse(outbuf.hasData());
+            outbuf.release();
+            Assert.assertEquals("[mode=INPUT released]", outbuf.toString());
+
+            final ReadableByteChannel channel = newChannel(outStream.toByteArray());
+            while (inbuf.fill(channel) > 0) {
+            }
+            chbuffer.clear();
+            Assert.assertTrue(inbuf.readLine(chbuffer, true));
+            Assert.assertEquals("Line " + i + " much longer than the initial buffer", chbuffer.toString());
+            Assert.assertFalse(inbuf.hasData());
+            inbuf.release();
+            Assert.assertEquals(0, inbuf.length());
+            Assert.assertEquals(16, inbuf.buffer().capacity());
+            Assert.assertEquals(16, outbuf.buffer().capacity());
+        }
+    }
+
 }
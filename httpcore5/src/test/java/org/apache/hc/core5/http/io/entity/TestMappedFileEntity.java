@@ -0,0 +1,101 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.io.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.hc.core5.http.ContentType;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MappedFileEntity}.
+ *
+ */
+public class TestMappedFileEntity {
+
+    @Test
+    public void testContent() throws Exception {
+        final File tmpfile = File.createTempFile("testfile", ".bin");
+        tmpfile.deleteOnExit();
+        final byte[] data = new byte[1000];
+        new Random(0).nextBytes(data);
+        try (final FileOutputStream outStream = new FileOutputStream(tmpfile)) {
+            outStream.write(data);
+        }
+
+        final MappedFileEntity httpentity = new MappedFileEntity(tmpfile, 64, ContentType.APPLICATION_OCTET_STREAM, null);
+        Assert.assertEquals(1000, httpentity.getContentLength());
+        Assert.assertTrue(httpentity.isRepeatable());
+        Assert.assertFalse(httpentity.isStreaming());
+
+        for (int i = 0; i < 2; i++) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            httpentity.writeTo(out);
+            Assert.assertArrayEquals(data, out.toByteArray());
+        }
+
+        try (final InputStream inStream = httpentity.getContent()) {
+            Assert.assertEquals(1000, inStream.available());
+            Assert.assertEquals(data[0] & 0xff, inStream.read());
+            final byte[] tmp = new byte[100];
+            Assert.assertEquals(63, inStream.read(tmp));
+            Assert.assertArrayEquals(Arrays.copyOfRange(data, 1, 64), Arrays.copyOf(tmp, 63));
+            Assert.assertEquals(936, inStream.available());
+        }
+        if (!tmpfile.delete()){
+            Assert.fail("Failed to delete: "+tmpfile);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadAfterClose() throws Exception {
+        final File tmpfile = File.createTempFile("testfile", ".bin");
+        tmpfile.deleteOnExit();
+        final MappedFileEntity httpentity = new MappedFileEntity(tmpfile, ContentType.TEXT_PLAIN);
+        final InputStream inStream = httpentity.getContent();
+        inStream.close();
+        inStream.read();
+    }
+
+    @Test
+    public void testIllegalConstructor() throws Exception {
+        try {
+            new MappedFileEntity(null, ContentType.TEXT_PLAIN);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hc.core5.http.Header;
+
+/**
+ * Measures header lookup throughput of {@link HeaderGroup} for messages with
+ * 10 to 60 headers, performing the lookups typical protocol interceptors
+ * perform per message, and compares it with a plain linear scan.
+ * <p>
+ * Usage: {@code HeaderGroupBenchmark [iterations] [rounds]}
+ * </p>
+ */
+public class HeaderGroupBenchmark {
+
+    private static final String[] COMMON_HEADERS = {
+            "Host", "User-Agent", "Accept", "Accept-Language", "Accept-Encoding", "Referer", "Cookie",
+            "Connection", "Cache-Control", "Upgrade-Insecure-Requests", "DNT", "Pragma"
+    };
+
+    private static final String[] LOOKUPS = {
+            "Transfer-Encoding", "Content-Length", "Content-Type", "Content-Encoding", "Expect",
+            "Connection", "Host", "Upgrade", "Keep-Alive", "Proxy-Connection", "TE", "Date", "Server"
+    };
+
+    static Header[] createHeaders(final int count) {
+        final Header[] headers = new Header[count];
+        for (int i = 0; i < count; i++) {
+            final String name = i < COMMON_HEADERS.length ? COMMON_HEADERS[i] : "X-Custom-Header-" + i;
+            headers[i] = new BasicHeader(name, "value-" + i);
+        }
+        return headers;
+    }
+
+    public static void main(final String... args) throws Exception {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final int[] sizes = {10, 20, 40, 60};
+
+        System.out.printf("%8s %8s %20s %20s%n", "round", "headers", "indexed (msg/s)", "linear (msg/s)");
+        for (int round = 0; round < rounds; round++) {
+            for (final int size : sizes) {
+                final Header[] headers = createHeaders(size);
+                final long indexed = runHeaderGroup(headers, iterations);
+                final long linear = runLinear(headers, iterations);
+                System.out.printf("%8d %8d %20d %20d%n", round + 1, size, indexed, linear);
+            }
+        }
+    }
+
+    static long runHeaderGroup(final Header[] headers, final int iterations) {
+        int found = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            final HeaderGroup headerGroup = new HeaderGroup();
+            for (final Header header : headers) {
+                headerGroup.addHeader(header);
+            }
+            for (final String name : LOOKUPS) {
+                if (headerGroup.containsHeader(name)) {
+                    found++;
+                }
+                if (headerGroup.getFirstHeader(name) != null) {
+                    found++;
+                }
+            }
+        }
+        final long elapsed = System.nanoTime() - start;
+        if (found < 0) {
+            System.out.println(found);
+        }
+        return elapsed > 0 ? iterations * 1000000000L / elapsed : 0;
+    }
+
+    static long runLinear(final Header[] headers, final int iterations) {
+        int found = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            final List<Header> list = new ArrayList<>(16);
+            for (final Header header : headers) {
+                list.add(header);
+            }
+            for (final String name : LOOKUPS) {
+                for (int n = 0; n < 2; n++) {
+                    for (int k = 0; k < list.size(); k++) {
+                        final Header header = list.get(k);
+                        if (header.getName().equalsIgnoreCase(name)) {
+                            found++;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        final long elapsed = System.nanoTime() - start;
+        if (found < 0) {
+            System.out.println(found);
+        }
+        return elapsed > 0 ? iterations * 1000000000L / elapsed : 0;
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.util.CharArrayBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link BufferedHeaderView}.
+ */
+public class TestBufferedHeaderView {
+
+    @Test
+    public void testHeaderRegions() throws Exception {
+        final CharArrayBuffer buf = new CharArrayBuffer(64);
+        buf.append("Host: localhost");
+        final int end1 = buf.length();
+        buf.append("Content-Type:text/plain ");
+        final int end2 = buf.length();
+
+        final BufferedHeaderView header1 = new BufferedHeaderView(buf, 0, end1);
+        Assert.assertEquals("Host", header1.getName());
+        Assert.assertEquals("localhost", header1.getValue());
+        Assert.assertEquals("Host: localhost", header1.toString());
+        Assert.assertEquals(5, header1.getValuePos());
+        Assert.assertEquals("Host: localhost", header1.getBuffer().toString());
+
+        final BufferedHeaderView header2 = new BufferedHeaderView(buf, end1, end2);
+        Assert.assertEquals("Content-Type", header2.getName());
+        Assert.assertEquals("text/plain", header2.getValue());
+        Assert.assertEquals(13, header2.getValuePos());
+        Assert.assertEquals("Content-Type:text/plain ", header2.getBuffer().toString());
+    }
+
+    @Test
+    public void testNameMatching() throws Exception {
+        final CharArrayBuffer buf = new CharArrayBuffer(32);
+        buf.append("Content-Type: text/plain");
+        final BufferedHeaderView header = new BufferedHeaderView(buf, 0, buf.length());
+        Assert.assertTrue(header.isNamed("Content-Type"));
+        Assert.assertTrue(header.isNamed("content-type"));
+        Assert.assertTrue(header.isNamed("CONTENT-TYPE"));
+        Assert.assertFalse(header.isNamed("Content-Typ"));
+        Assert.assertFalse(header.isNamed("Content-Types"));
+        Assert.assertFalse(header.isNamed(null));
+        Assert.assertEquals(BufferedHeaderView.nameHash("content-type", 0, 12), header.getNameHash());
+        Assert.assertEquals(BufferedHeaderView.nameHash("CONTENT-TYPE", 0, 12), header.getNameHash());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        final CharArrayBuffer buf = new CharArrayBuffer(32);
+        buf.append("X-Junk: junk");
+        buf.append("name: value");
+        final BufferedHeaderView orig = new BufferedHeaderView(buf, 12, buf.length());
+        final ByteArrayOutputStream outbuffer = new ByteArrayOutputStream();
+        final ObjectOutputStream outStream = new ObjectOutputStream(outbuffer);
+        outStream.writeObject(orig);
+        outStream.close();
+        final byte[] raw = outbuffer.toByteArray();
+        final ByteArrayInputStream inBuffer = new ByteArrayInputStream(raw);
+        final ObjectInputStream inStream = new ObjectInputStream(inBuffer);
+        final Header clone = (Header) inStream.readObject();
+        Assert.assertEquals("name", clone.getName());
+        Assert.assertEquals("value", clone.getValue());
+    }
+
+    @Test
+    public void testInvalidHeaderParsing() throws Exception {
+        final String[] invalid = new String[] {"", "blah", ":", "   :", ": blah", " : blah", "header : blah"};
+        for (final String s : invalid) {
+            final CharArrayBuffer buf = new CharArrayBuffer(16);
+            buf.append("name: value");
+            final int start = buf.length();
+            buf.append(s);
+            try {
+                new BufferedHeaderView(buf, start, buf.length());
+                Assert.fail("ParseException should have been thrown: " + s);
+            } catch (final ParseException e) {
+                //expected
+            }
+        }
+    }
+
+}
@@ -34,6 +34,7 @@
 import java.util.Iterator;
 
 import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.ProtocolException;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -217,4 +218,98 @@ public void testSerialization() throws Exception {
         }
     }
 
+    private static HeaderGroup createLargeGroup() {
+        final HeaderGroup headergroup = new HeaderGroup();
+        for (int i = 0; i < 40; i++) {
+            headergroup.addHeader(new BasicHeader("X-Header-" + (i % 20), "value" + i));
+        }
+        return headergroup;
+    }
+
+    @Test
+    public void testIndexedLookups() throws Exception {
+        final HeaderGroup headergroup = createLargeGroup();
+        Assert.assertTrue(headergroup.containsHeader("x-header-3"));
+        Assert.assertFalse(headergroup.containsHeader("x-header-20"));
+        Assert.assertFalse(headergroup.containsHeader(null));
+        Assert.assertEquals("value3", headergroup.getFirstHeader("X-HEADER-3").getValue());
+        Assert.assertEquals("value23", headergroup.getLastHeader("x-header-3").getValue());
+        Assert.assertNull(headergroup.getFirstHeader("x-header-20"));
+        Assert.assertNull(headergroup.getLastHeader("x-header-20"));
+        Assert.assertEquals(2, headergroup.countHeaders("X-Header-7"));
+        final Header[] headers = headergroup.getHeaders("x-header-7");
+        Assert.assertEquals(2, headers.length);
+        Assert.assertEquals("value7", headers[0].getValue());
+        Assert.assertEquals("value27", headers[1].getValue());
+        Assert.assertEquals(0, headergroup.getHeaders("x-header-20").length);
+        try {
+            headergroup.getHeader("x-header-7");
+            Assert.fail("ProtocolException should have been thrown");
+        } catch (final ProtocolException expected) {
+        }
+
+        headergroup.addHeader(new BasicHeader("Host", "localhost"));
+        Assert.assertEquals("localhost", headergroup.getHeader("host").getValue());
+        Assert.assertEquals("localhost", headergroup.getLastHeader("HOST").getValue());
+        Assert.assertEquals(41, headergroup.getHeaders().length);
+    }
+
+    @Test
+    public void testIndexedModifications() throws Exception {
+        final HeaderGroup headergroup = createLargeGroup();
+        Assert.assertEquals(2, headergroup.countHeaders("x-header-1"));
+
+        headergroup.setHeader(new BasicHeader("x-header-1", "new value"));
+        final Header[] headers = headergroup.getHeaders("X-Header-1");
+        Assert.assertEquals(2, headers.length);
+        Assert.assertEquals("new value", headers[0].getValue());
+        Assert.assertEquals("value21", headers[1].getValue());
+
+        Assert.assertTrue(headergroup.removeHeaders("X-Header-2"));
+        Assert.assertFalse(headergroup.removeHeaders("X-Header-2"));
+        Assert.assertFalse(headergroup.containsHeader("x-header-2"));
+        Assert.assertEquals(38, headergroup.getHeaders().length);
+        Assert.assertEquals("value23", headergroup.getLastHeader("x-header-3").getValue());
+
+        Assert.assertTrue(headergroup.removeHeader(new BasicHeader("x-header-3", "value3")));
+        Assert.assertEquals("value23", headergroup.getFirstHeader("x-header-3").getValue());
+
+        final Iterator<Header> it = headergroup.headerIterator("x-header-4");
+        it.next();
+        it.remove();
+        Assert.assertEquals("value24", headergroup.getFirstHeader("x-header-4").getValue());
+
+        for (int i = 0; i < 100; i++) {
+            headergroup.addHeader(new BasicHeader("X-Extra", Integer.toString(i)));
+        }
+        Assert.assertEquals(100, headergroup.countHeaders("x-extra"));
+        Assert.assertEquals("99", headergroup.getLastHeader("x-extra").getValue());
+        Assert.assertEquals("value5", headergroup.getFirstHeader("x-header-5").getValue());
+
+        headergroup.setHeader(new BasicHeader("X-New", "new"));
+        Assert.assertEquals("new", headergroup.getLastHeader("x-new").getValue());
+        final Header[] all = headergroup.getHeaders();
+        Assert.assertEquals("X-New", all[all.length - 1].getName());
+
+        headergroup.clear();
+        Assert.assertFalse(headergroup.containsHeader("x-header-5"));
+    }
+
+    @Test
+    public void testIndexedSerialization() throws Exception {
+        final HeaderGroup orig = createLargeGroup();
+        Assert.assertTrue(orig.containsHeader("x-header-5"));
+        final ByteArrayOutputStream outbuffer = new ByteArrayOutputStream();
+        final ObjectOutputStream outStream = new ObjectOutputStream(outbuffer);
+        outStream.writeObject(orig);
+        outStream.close();
+        final byte[] raw = outbuffer.toByteArray();
+        final ByteArrayInputStream inBuffer = new ByteArrayInputStream(raw);
+        final ObjectInputStream inStream = new ObjectInputStream(inBuffer);
+        final HeaderGroup clone = (HeaderGroup) inStream.readObject();
+        Assert.assertEquals(2, clone.countHeaders("x-header-5"));
+        clone.addHeader(new BasicHeader("Host", "localhost"));
+        Assert.assertEquals("localhost", clone.getFirstHeader("host").getValue());
+    }
+
 }
@@ -30,7 +30,9 @@
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
+import java.io.IOException;
 import java.io.Writer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 
 import org.apache.hc.core5.http.ContentType;
@@ -38,6 +40,7 @@
 import org.apache.hc.core5.http.nio.AsyncEntityProducer;
 import org.apache.hc.core5.http.nio.BasicDataStreamChannel;
 import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.FileDataStreamChannel;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -104,4 +107,93 @@ public void testTextContentRepeatable() throws Exception {
         }
     }
 
+    @Test
+    public void testTextContentRange() throws Exception {
+        final AsyncEntityProducer producer = new FileEntityProducer(tempFile, 1, 3, 1024, ContentType.TEXT_PLAIN, false);
+
+        Assert.assertEquals(3, producer.getContentLength());
+
+        final WritableByteChannelMock byteChannel = new WritableByteChannelMock(1024);
+        final DataStreamChannel streamChannel = new BasicDataStreamChannel(byteChannel);
+
+        producer.produce(streamChannel);
+        producer.produce(streamChannel);
+
+        Assert.assertFalse(byteChannel.isOpen());
+        Assert.assertEquals("bcd", byteChannel.dump(StandardCharsets.US_ASCII));
+    }
+
+    static class FileTransferDataStreamChannel extends BasicDataStreamChannel implements FileDataStreamChannel {
+
+        private final WritableByteChannelMock byteChannel;
+        private final boolean transferSupported;
+        private int transfers;
+
+        FileTransferDataStreamChannel(final WritableByteChannelMock byteChannel, final boolean transferSupported) {
+            super(byteChannel);
+            this.byteChannel = byteChannel;
+            this.transferSupported = transferSupported;
+        }
+
+        @Override
+        public boolean isFileTransferSupported() {
+            return transferSupported;
+        }
+
+        @Override
+        public long transfer(final FileChannel src, final long position, final long count) throws IOException {
+            transfers++;
+            return src.transferTo(position, count, byteChannel);
+        }
+
+    }
+
+    @Test
+    public void testFileTransfer() throws Exception {
+        final AsyncEntityProducer producer = new FileEntityProducer(tempFile, ContentType.TEXT_PLAIN);
+
+        for (int i = 0; i < 3; i++) {
+            final WritableByteChannelMock byteChannel = new WritableByteChannelMock(1024);
+            final FileTransferDataStreamChannel streamChannel = new FileTransferDataStreamChannel(byteChannel, true);
+
+            producer.produce(streamChannel);
+
+            Assert.assertFalse(byteChannel.isOpen());
+            Assert.assertEquals("abcdef", byteChannel.dump(StandardCharsets.US_ASCII));
+            Assert.assertEquals(1, streamChannel.transfers);
+        }
+    }
+
+    @Test
+    public void testFileTransferRange() throws Exception {
+        final AsyncEntityProducer producer = new FileEntityProducer(tempFile, 2, 3, 1024, ContentType.TEXT_PLAIN, false);
+
+        final WritableByteChannelMock byteChannel = new WritableByteChannelMock(1024, 2);
+        final FileTransferDataStreamChannel streamChannel = new FileTransferDataStreamChannel(byteChannel, true);
+
+        producer.produce(streamChannel);
+        Assert.assertTrue(byteChannel.isOpen());
+        byteChannel.flush();
+        producer.produce(streamChannel);
+
+        Assert.assertFalse(byteChannel.isOpen());
+        Assert.assertEquals("cde", byteChannel.dump(StandardCharsets.US_ASCII));
+        Assert.assertEquals(2, streamChannel.transfers);
+    }
+
+    @Test
+    public void testFileTransferNotSupported() throws Exception {
+        final AsyncEntityProducer producer = new FileEntityProducer(tempFile, ContentType.TEXT_PLAIN);
+
+        final WritableByteChannelMock byteChannel = new WritableByteChannelMock(1024);
+        final FileTransferDataStreamChannel streamChannel = new FileTransferDataStreamChannel(byteChannel, false);
+
+        producer.produce(streamChannel);
+        producer.produce(streamChannel);
+
+        Assert.assertFalse(byteChannel.isOpen());
+        Assert.assertEquals("abcdef", byteChannel.dump(StandardCharsets.US_ASCII));
+        Assert.assertEquals(0, streamChannel.transfers);
+    }
+
 }
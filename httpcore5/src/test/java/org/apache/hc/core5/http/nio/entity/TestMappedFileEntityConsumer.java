@@ -0,0 +1,115 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestMappedFileEntityConsumer {
+
+    private File tempFile;
+
+    @Before
+    public void setup() throws Exception {
+        tempFile = File.createTempFile("testing", ".bin");
+    }
+
+    @After
+    public void cleanup() {
+        if (tempFile != null) {
+            tempFile.delete();
+            tempFile = null;
+        }
+    }
+
+    private static ByteBuffer wrap(final String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void consume(final long contentLength) throws Exception {
+        final MappedFileEntityConsumer consumer = new MappedFileEntityConsumer(tempFile, 4);
+        final AtomicReference<File> result = new AtomicReference<>(null);
+        consumer.streamStart(new BasicEntityDetails(contentLength, ContentType.APPLICATION_OCTET_STREAM),
+                new FutureCallback<File>() {
+
+                    @Override
+                    public void completed(final File file) {
+                        result.set(file);
+                    }
+
+                    @Override
+                    public void failed(final Exception ex) {
+                    }
+
+                    @Override
+                    public void cancelled() {
+                    }
+
+                });
+
+        consumer.consume(wrap("012"));
+        consumer.consume(wrap("3456789"));
+        consumer.consume(wrap(""));
+        final ByteBuffer direct = ByteBuffer.allocateDirect(3);
+        direct.put(wrap("abc"));
+        direct.flip();
+        consumer.consume(direct);
+        Assert.assertNull(consumer.getContent());
+        consumer.streamEnd(null);
+
+        Assert.assertSame(tempFile, consumer.getContent());
+        Assert.assertSame(tempFile, result.get());
+        Assert.assertEquals("0123456789abc", new String(Files.readAllBytes(tempFile.toPath()), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testConsumeKnownLength() throws Exception {
+        consume(13);
+    }
+
+    @Test
+    public void testConsumeUnknownLength() throws Exception {
+        consume(-1);
+    }
+
+    @Test
+    public void testConsumeMoreThanDeclaredLength() throws Exception {
+        consume(6);
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.nio.entity;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.WritableByteChannelMock;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.BasicDataStreamChannel;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestMappedFileEntityProducer {
+
+    private File tempFile;
+
+    @Before
+    public void setup() throws Exception {
+        tempFile = File.createTempFile("testing", ".txt");
+        try (final FileOutputStream outStream = new FileOutputStream(tempFile)) {
+            outStream.write("0123456789abcdef".getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    @After
+    public void cleanup() {
+        if (tempFile != null) {
+            tempFile.delete();
+            tempFile = null;
+        }
+    }
+
+    @Test
+    public void testContentInMultipleWindows() throws Exception {
+        final AsyncEntityProducer producer = new MappedFileEntityProducer(tempFile, 5, ContentType.TEXT_PLAIN, false);
+
+        Assert.assertEquals(16, producer.getContentLength());
+        Assert.assertEquals(ContentType.TEXT_PLAIN.toString(), producer.getContentType());
+        Assert.assertTrue(producer.isRepeatable());
+
+        for (int i = 0; i < 3; i++) {
+            final WritableByteChannelMock byteChannel = new WritableByteChannelMock(1024);
+            final DataStreamChannel streamChannel = new BasicDataStreamChannel(byteChannel);
+
+            for (int n = 0; n < 4; n++) {
+                Assert.assertTrue(byteChannel.isOpen());
+                producer.produce(streamChannel);
+            }
+
+            Assert.assertFalse(byteChannel.isOpen());
+            Assert.assertEquals("0123456789abcdef", byteChannel.dump(StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void testContentRangePartialWrites() throws Exception {
+        final AsyncEntityProducer producer = new MappedFileEntityProducer(tempFile, 3, 9, 4, ContentType.TEXT_PLAIN, false);
+
+        Assert.assertEquals(9, producer.getContentLength());
+
+        final WritableByteChannelMock byteChannel = new WritableByteChannelMock(1024, 3);
+        final DataStreamChannel streamChannel = new BasicDataStreamChannel(byteChannel);
+
+        int count = 0;
+        while (byteChannel.isOpen()) {
+            producer.produce(streamChannel);
+            byteChannel.flush();
+            Assert.assertTrue(++count < 10);
+        }
+        Assert.assertEquals("3456789ab", byteChannel.dump(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testReleaseResourcesBeforeCompletion() throws Exception {
+        final AsyncEntityProducer producer = new MappedFileEntityProducer(tempFile, 4, ContentType.TEXT_PLAIN, false);
+
+        final WritableByteChannelMock byteChannel1 = new WritableByteChannelMock(1024);
+        producer.produce(new BasicDataStreamChannel(byteChannel1));
+        producer.releaseResources();
+        Assert.assertEquals("0123", byteChannel1.dump(StandardCharsets.US_ASCII));
+
+        final WritableByteChannelMock byteChannel2 = new WritableByteChannelMock(1024);
+        final DataStreamChannel streamChannel = new BasicDataStreamChannel(byteChannel2);
+        while (byteChannel2.isOpen()) {
+            producer.produce(streamChannel);
+        }
+        Assert.assertEquals("0123456789abcdef", byteChannel2.dump(StandardCharsets.US_ASCII));
+    }
+
+}
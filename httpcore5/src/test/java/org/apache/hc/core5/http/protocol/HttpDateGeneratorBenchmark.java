@@ -0,0 +1,136 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.protocol;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how many dates per second multiple threads can obtain from
+ * {@link HttpDateGenerator} concurrently, compared to a generator that
+ * formats under a monitor as done previously.
+ * <p>
+ * Usage: {@code HttpDateGeneratorBenchmark [threads] [iterations] [rounds]}
+ * </p>
+ */
+public class HttpDateGeneratorBenchmark {
+
+    interface DateSource {
+
+        String getCurrentDate();
+
+    }
+
+    static class SynchronizedDateSource implements DateSource {
+
+        private final DateFormat dateformat;
+        private long dateAsMillis;
+        private String dateAsText;
+
+        SynchronizedDateSource() {
+            this.dateformat = new SimpleDateFormat(HttpDateGenerator.PATTERN_RFC1123, Locale.US);
+            this.dateformat.setTimeZone(HttpDateGenerator.GMT);
+        }
+
+        @Override
+        public synchronized String getCurrentDate() {
+            final long now = System.currentTimeMillis();
+            if (now - this.dateAsMillis > 1000) {
+                this.dateAsText = this.dateformat.format(new Date(now));
+                this.dateAsMillis = now;
+            }
+            return this.dateAsText;
+        }
+
+    }
+
+    public static void main(final String... args) throws Exception {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5000000;
+        final int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        final HttpDateGenerator generator = new HttpDateGenerator();
+        final DateSource lockFree = new DateSource() {
+
+            @Override
+            public String getCurrentDate() {
+                return generator.getCurrentDate();
+            }
+
+        };
+        final DateSource synchronizedSource = new SynchronizedDateSource();
+
+        System.out.printf("threads: %d%n", threads);
+        System.out.printf("%8s %22s %22s%n", "round", "lock-free (dates/s)", "synchronized (dates/s)");
+        for (int round = 0; round < rounds; round++) {
+            final long lockFreeRate = run(lockFree, threads, iterations);
+            final long synchronizedRate = run(synchronizedSource, threads, iterations);
+            System.out.printf("%8d %22d %22d%n", round + 1, lockFreeRate, synchronizedRate);
+        }
+    }
+
+    static long run(final DateSource dateSource, final int threads, final int iterations) throws Exception {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch doneLatch = new CountDownLatch(threads);
+        final AtomicLong total = new AtomicLong();
+        for (int i = 0; i < threads; i++) {
+            final Thread thread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        long length = 0;
+                        for (int n = 0; n < iterations; n++) {
+                            length += dateSource.getCurrentDate().length();
+                        }
+                        total.addAndGet(length);
+                    } catch (final InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        doneLatch.countDown();
+                    }
+                }
+
+            });
+            thread.start();
+        }
+        final long start = System.nanoTime();
+        startLatch.countDown();
+        doneLatch.await();
+        final long elapsed = System.nanoTime() - start;
+        if (total.get() < 0) {
+            System.out.println(total.get());
+        }
+        return elapsed > 0 ? (long) threads * iterations * 1000000000L / elapsed : 0;
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.protocol;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+
+import org.apache.hc.core5.http.FormattedHeader;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.util.CharArrayBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link HttpDateGenerator}.
+ */
+public class TestHttpDateGenerator {
+
+    private static String format(final long millis) {
+        final CharArrayBuffer buffer = new CharArrayBuffer(32);
+        HttpDateGenerator.formatDate(millis, buffer);
+        return buffer.toString();
+    }
+
+    @Test
+    public void testDateFormatting() throws Exception {
+        final SimpleDateFormat dateFormat = new SimpleDateFormat(HttpDateGenerator.PATTERN_RFC1123, Locale.US);
+        dateFormat.setTimeZone(HttpDateGenerator.GMT);
+
+        Assert.assertEquals("Thu, 01 Jan 1970 00:00:00 GMT", format(0L));
+        Assert.assertEquals("Wed, 31 Dec 1969 23:59:59 GMT", format(-1000L));
+        Assert.assertEquals("Tue, 29 Feb 2000 12:34:56 GMT",
+                format(dateFormat.parse("Tue, 29 Feb 2000 12:34:56 GMT").getTime()));
+
+        final Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            // Anything between 1900 and 2100
+            final long millis = (long) ((random.nextDouble() - 0.5) * 2 * 4102444800000L) / 1000 * 1000;
+            Assert.assertEquals(dateFormat.format(new Date(millis)), format(millis));
+        }
+    }
+
+    @Test
+    public void testCurrentDate() throws Exception {
+        final HttpDateGenerator generator = new HttpDateGenerator();
+        final long before = System.currentTimeMillis() / 1000 * 1000;
+        final String date = generator.getCurrentDate();
+        final long after = System.currentTimeMillis();
+        final SimpleDateFormat dateFormat = new SimpleDateFormat(HttpDateGenerator.PATTERN_RFC1123, Locale.US);
+        dateFormat.setTimeZone(HttpDateGenerator.GMT);
+        final long millis = dateFormat.parse(date).getTime();
+        Assert.assertTrue(millis >= before && millis <= after);
+    }
+
+    @Test
+    public void testCurrentDateHeader() throws Exception {
+        final HttpDateGenerator generator = new HttpDateGenerator();
+        final Header header = generator.getCurrentDateHeader();
+        Assert.assertNotNull(header);
+        Assert.assertEquals(HttpHeaders.DATE, header.getName());
+        Assert.assertTrue(header instanceof FormattedHeader);
+        Assert.assertEquals(
+                HttpHeaders.DATE + ": " + header.getValue(), ((FormattedHeader) header).getBuffer().toString());
+        Assert.assertEquals(29, header.getValue().length());
+    }
+
+}
@@ -50,4 +50,10 @@ public void testUriPatternInOrder() {
         Assert.assertTrue(matcher instanceof UriPatternOrderedMatcher);
     }
 
+    @Test
+    public void testUriPatternTrie() {
+        final LookupRegistry<Object> matcher = UriPatternType.newMatcher(UriPatternType.URI_PATTERN_TRIE);
+        Assert.assertTrue(matcher instanceof UriPatternTrieMatcher);
+    }
+
 }
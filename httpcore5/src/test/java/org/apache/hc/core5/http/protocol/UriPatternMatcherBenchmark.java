@@ -0,0 +1,145 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.http.protocol;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures lookup throughput of {@link UriPatternTrieMatcher} compared to
+ * {@link UriPatternMatcher} with several hundred prefix, suffix and exact
+ * patterns and multiple threads performing lookups concurrently.
+ * <p>
+ * Usage: {@code UriPatternMatcherBenchmark [routes] [threads] [iterations] [rounds]}
+ * </p>
+ */
+public class UriPatternMatcherBenchmark {
+
+    static void registerRoutes(final LookupRegistry<String> registry, final int routes) {
+        registry.register("*", "default");
+        for (int i = 0; i < routes; i++) {
+            switch (i % 3) {
+            case 0:
+                registry.register("/api/v1/service" + i + "/*", "prefix" + i);
+                break;
+            case 1:
+                registry.register("/api/v1/service" + i + "/status", "exact" + i);
+                break;
+            default:
+                registry.register("*.ext" + i, "suffix" + i);
+            }
+        }
+    }
+
+    static String[] createPaths(final int routes) {
+        final String[] paths = new String[64];
+        for (int i = 0; i < paths.length; i++) {
+            final int route = (i * 7919) % routes;
+            switch (i % 4) {
+            case 0:
+                paths[i] = "/api/v1/service" + route + "/items/" + i;
+                break;
+            case 1:
+                paths[i] = "/api/v1/service" + route + "/status";
+                break;
+            case 2:
+                paths[i] = "/static/files/file" + i + ".ext" + route;
+                break;
+            default:
+                paths[i] = "/unknown/" + i;
+            }
+        }
+        return paths;
+    }
+
+    public static void main(final String... args) throws Exception {
+        final int routes = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 200000;
+        final int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        final LookupRegistry<String> trieMatcher = new UriPatternTrieMatcher<>();
+        registerRoutes(trieMatcher, routes);
+        final LookupRegistry<String> patternMatcher = new UriPatternMatcher<>();
+        registerRoutes(patternMatcher, routes);
+        final String[] paths = createPaths(routes);
+        for (final String path : paths) {
+            if (!trieMatcher.lookup(path).equals(patternMatcher.lookup(path))) {
+                throw new IllegalStateException("Lookup mismatch for " + path);
+            }
+        }
+
+        System.out.printf("routes: %d, threads: %d%n", routes, threads);
+        System.out.printf("%8s %20s %20s%n", "round", "trie (lookups/s)", "linear (lookups/s)");
+        for (int round = 0; round < rounds; round++) {
+            final long trie = run(trieMatcher, paths, threads, iterations);
+            final long linear = run(patternMatcher, paths, threads, iterations / 10);
+            System.out.printf("%8d %20d %20d%n", round + 1, trie, linear);
+        }
+    }
+
+    static long run(
+            final LookupRegistry<String> registry,
+            final String[] paths,
+            final int threads,
+            final int iterations) throws Exception {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch doneLatch = new CountDownLatch(threads);
+        final AtomicLong total = new AtomicLong();
+        for (int i = 0; i < threads; i++) {
+            final Thread thread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        long length = 0;
+                        for (int n = 0; n < iterations; n++) {
+                            length += registry.lookup(paths[n % paths.length]).length();
+                        }
+                        total.addAndGet(length);
+                    } catch (final InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        doneLatch.countDown();
+                    }
+                }
+
+            });
+            thread.start();
+        }
+        final long start = System.nanoTime();
+        startLatch.countDown();
+        doneLatch.await();
+        final long elapsed = System.nanoTime() - start;
+        if (total.get() < 0) {
+            System.out.println(total.get());
+        }
+        return elapsed > 0 ? (long) threads * iterations * 1000000000L / elapsed : 0;
+    }
+
+}
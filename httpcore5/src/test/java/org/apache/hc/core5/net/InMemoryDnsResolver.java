@@ -0,0 +1,78 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.net;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.FutureCallback;
+
+/**
+ * {@link AsyncDnsResolver} backed by an in-memory map. Intended for testing only.
+ */
+public class InMemoryDnsResolver implements AsyncDnsResolver {
+
+    private final Map<String, InetAddress[]> dnsMap;
+    private final AtomicInteger lookupCount;
+
+    public InMemoryDnsResolver() {
+        this.dnsMap = new ConcurrentHashMap<>();
+        this.lookupCount = new AtomicInteger(0);
+    }
+
+    public void add(final String host, final InetAddress... addresses) {
+        dnsMap.put(host, addresses);
+    }
+
+    public void remove(final String host) {
+        dnsMap.remove(host);
+    }
+
+    public int getLookupCount() {
+        return lookupCount.get();
+    }
+
+    @Override
+    public Future<InetAddress[]> resolve(final String host, final FutureCallback<InetAddress[]> callback) {
+        lookupCount.incrementAndGet();
+        final BasicFuture<InetAddress[]> future = new BasicFuture<>(callback);
+        final InetAddress[] addresses = dnsMap.get(host);
+        if (addresses != null) {
+            future.completed(addresses);
+        } else {
+            future.failed(new UnknownHostException(host));
+        }
+        return future;
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.net;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.util.TimeValue;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCachingAsyncDnsResolver {
+
+    @Test
+    public void testPositiveCaching() throws Exception {
+        final InMemoryDnsResolver dnsResolver = new InMemoryDnsResolver();
+        final InetAddress address = InetAddress.getByAddress("somehost", new byte[] {10, 0, 0, 1});
+        dnsResolver.add("somehost", address);
+        final CachingAsyncDnsResolver cachingResolver = new CachingAsyncDnsResolver(
+                dnsResolver, TimeValue.ofMinutes(1), TimeValue.ofMinutes(1));
+
+        final InetAddress[] result1 = cachingResolver.resolve("somehost", null).get();
+        final InetAddress[] result2 = cachingResolver.resolve("somehost", null).get();
+        Assert.assertThat(result1[0], CoreMatchers.equalTo(address));
+        Assert.assertThat(result2[0], CoreMatchers.equalTo(address));
+        Assert.assertThat(dnsResolver.getLookupCount(), CoreMatchers.equalTo(1));
+
+        cachingResolver.clear();
+        cachingResolver.resolve("somehost", null).get();
+        Assert.assertThat(dnsResolver.getLookupCount(), CoreMatchers.equalTo(2));
+    }
+
+    @Test
+    public void testNegativeCaching() throws Exception {
+        final InMemoryDnsResolver dnsResolver = new InMemoryDnsResolver();
+        final CachingAsyncDnsResolver cachingResolver = new CachingAsyncDnsResolver(
+                dnsResolver, TimeValue.ofMinutes(1), TimeValue.ofMinutes(1));
+
+        for (int i = 0; i < 3; i++) {
+            final Future<InetAddress[]> future = cachingResolver.resolve("nohost", null);
+            try {
+                future.get();
+                Assert.fail("ExecutionException expected");
+            } catch (final ExecutionException ex) {
+                Assert.assertThat(ex.getCause(), CoreMatchers.instanceOf(UnknownHostException.class));
+            }
+        }
+        Assert.assertThat(dnsResolver.getLookupCount(), CoreMatchers.equalTo(1));
+    }
+
+    @Test
+    public void testNegativeCachingDisabled() throws Exception {
+        final InMemoryDnsResolver dnsResolver = new InMemoryDnsResolver();
+        final CachingAsyncDnsResolver cachingResolver = new CachingAsyncDnsResolver(
+                dnsResolver, TimeValue.ofMinutes(1), TimeValue.ZERO_MILLISECONDS);
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertThat(cachingResolver.resolve("nohost", null).isDone(), CoreMatchers.equalTo(true));
+        }
+        Assert.assertThat(dnsResolver.getLookupCount(), CoreMatchers.equalTo(3));
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        final InMemoryDnsResolver dnsResolver = new InMemoryDnsResolver();
+        dnsResolver.add("somehost", InetAddress.getByAddress("somehost", new byte[] {10, 0, 0, 1}));
+        final CachingAsyncDnsResolver cachingResolver = new CachingAsyncDnsResolver(
+                dnsResolver, TimeValue.ofMilliseconds(1), TimeValue.ofMilliseconds(1));
+
+        cachingResolver.resolve("somehost", null).get();
+        Thread.sleep(20);
+        cachingResolver.resolve("somehost", null).get();
+        Assert.assertThat(dnsResolver.getLookupCount(), CoreMatchers.equalTo(2));
+    }
+
+    @Test
+    public void testConcurrentLookupsCoalesced() throws Exception {
+        final BasicFuture<InetAddress[]>[] pending = new BasicFuture[1];
+        final AsyncDnsResolver dnsResolver = new AsyncDnsResolver() {
+
+            @Override
+            public Future<InetAddress[]> resolve(final String host, final FutureCallback<InetAddress[]> callback) {
+                Assert.assertNull(pending[0]);
+                pending[0] = new BasicFuture<>(callback);
+                return pending[0];
+            }
+
+        };
+        final CachingAsyncDnsResolver cachingResolver = new CachingAsyncDnsResolver(dnsResolver);
+        final Future<InetAddress[]> future1 = cachingResolver.resolve("somehost", null);
+        final Future<InetAddress[]> future2 = cachingResolver.resolve("somehost", null);
+        Assert.assertThat(future1.isDone(), CoreMatchers.equalTo(false));
+        Assert.assertThat(future2.isDone(), CoreMatchers.equalTo(false));
+
+        final InetAddress address = InetAddress.getByAddress("somehost", new byte[] {10, 0, 0, 1});
+        pending[0].completed(new InetAddress[] {address});
+        Assert.assertThat(future1.get()[0], CoreMatchers.equalTo(address));
+        Assert.assertThat(future2.get()[0], CoreMatchers.equalTo(address));
+    }
+
+}
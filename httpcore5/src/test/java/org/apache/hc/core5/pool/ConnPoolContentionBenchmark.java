@@ -0,0 +1,124 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.pool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.io.ModalCloseable;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Measures lease / release throughput of {@link StrictConnPool},
+ * {@link LaxConnPool} and {@link StripedConnPool} with an increasing number
+ * of threads competing for connections.
+ * <p>
+ * Usage: {@code ConnPoolContentionBenchmark [routes] [maxPerRoute] [seconds]}
+ * </p>
+ */
+public class ConnPoolContentionBenchmark {
+
+    private static final int[] THREAD_COUNTS = new int[] {1, 2, 4, 8, 16, 32, 64};
+
+    public static void main(final String... args) throws Exception {
+        final int routes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final int maxPerRoute = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        final int maxTotal = routes * maxPerRoute;
+
+        System.out.println("Routes: " + routes + ", max per route: " + maxPerRoute + ", max total: " + maxTotal);
+        System.out.printf("%8s %16s %16s %16s%n", "threads", "strict (ops/s)", "lax (ops/s)", "striped (ops/s)");
+        for (final int threads : THREAD_COUNTS) {
+            final long strict = run(new StrictConnPool<String, DummyConnection>(maxPerRoute, maxTotal),
+                    threads, routes, seconds);
+            final long lax = run(new LaxConnPool<String, DummyConnection>(maxPerRoute),
+                    threads, routes, seconds);
+            final long striped = run(new StripedConnPool<String, DummyConnection>(maxPerRoute, maxTotal),
+                    threads, routes, seconds);
+            System.out.printf("%8d %16d %16d %16d%n", threads, strict, lax, striped);
+        }
+    }
+
+    static long run(
+            final ManagedConnPool<String, DummyConnection> pool,
+            final int threadCount,
+            final int routes,
+            final int seconds) throws Exception {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicLong ops = new AtomicLong(0);
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            final String route = "route" + (i % routes);
+            final Thread thread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        long count = 0;
+                        while (running.get()) {
+                            final PoolEntry<String, DummyConnection> entry = pool.lease(route, null, Timeout.DISABLED, null).get();
+                            if (!entry.hasConnection()) {
+                                entry.assignConnection(new DummyConnection());
+                            }
+                            pool.release(entry, true);
+                            count++;
+                        }
+                        ops.addAndGet(count);
+                    } catch (final Exception ex) {
+                        ex.printStackTrace();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        running.set(false);
+        done.await();
+        pool.close(CloseMode.IMMEDIATE);
+        return ops.get() / seconds;
+    }
+
+    static class DummyConnection implements ModalCloseable {
+
+        @Override
+        public void close(final CloseMode closeMode) {
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
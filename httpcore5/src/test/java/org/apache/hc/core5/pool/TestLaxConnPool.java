@@ -27,8 +27,13 @@
 package org.apache.hc.core5.pool;
 
 import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.hc.core5.http.HttpConnection;
 import org.apache.hc.core5.io.CloseMode;
@@ -196,6 +201,134 @@ public void testMaxLimits() throws Exception {
         Assert.assertSame(conn3, entry9.getConnection());
     }
 
+    @Test
+    public void testMaxTotalLimit() throws Exception {
+        final HttpConnection conn1 = Mockito.mock(HttpConnection.class);
+        final HttpConnection conn2 = Mockito.mock(HttpConnection.class);
+
+        final LaxConnPool<String, HttpConnection> pool = new LaxConnPool<>(2);
+        Assert.assertEquals(0, pool.getMaxTotal());
+        pool.setMaxTotal(2);
+        Assert.assertEquals(2, pool.getMaxTotal());
+
+        final Future<PoolEntry<String, HttpConnection>> future1 = pool.lease("somehost", null);
+        final Future<PoolEntry<String, HttpConnection>> future2 = pool.lease("otherhost", null);
+        final Future<PoolEntry<String, HttpConnection>> future3 = pool.lease("somehost", null);
+
+        Assert.assertTrue(future1.isDone());
+        final PoolEntry<String, HttpConnection> entry1 = future1.get();
+        entry1.assignConnection(conn1);
+        Assert.assertTrue(future2.isDone());
+        final PoolEntry<String, HttpConnection> entry2 = future2.get();
+        entry2.assignConnection(conn2);
+        Assert.assertFalse(future3.isDone());
+
+        PoolStats totals = pool.getTotalStats();
+        Assert.assertEquals(2, totals.getLeased());
+        Assert.assertEquals(1, totals.getPending());
+        Assert.assertEquals(2, totals.getMax());
+
+        // Idle connection of the other route gets closed to make room
+        pool.release(entry2, true);
+
+        Assert.assertTrue(future3.isDone());
+        final PoolEntry<String, HttpConnection> entry3 = future3.get();
+        Assert.assertNotNull(entry3);
+        Assert.assertFalse(entry3.hasConnection());
+        Mockito.verify(conn2).close(CloseMode.GRACEFUL);
+
+        totals = pool.getTotalStats();
+        Assert.assertEquals(2, totals.getLeased());
+        Assert.assertEquals(0, totals.getAvailable());
+        Assert.assertEquals(0, totals.getPending());
+
+        // Idle connections of other routes are closed on lease as well
+        pool.release(entry1, true);
+        pool.release(entry3, false);
+
+        final Future<PoolEntry<String, HttpConnection>> future4 = pool.lease("otherhost", null);
+        final Future<PoolEntry<String, HttpConnection>> future5 = pool.lease("otherhost", null);
+        Assert.assertTrue(future4.isDone());
+        Assert.assertTrue(future5.isDone());
+        Mockito.verify(conn1).close(CloseMode.GRACEFUL);
+
+        totals = pool.getTotalStats();
+        Assert.assertEquals(2, totals.getLeased());
+        Assert.assertEquals(0, totals.getAvailable());
+    }
+
+    @Test
+    public void testMaxTotalConcurrentReleaseAndLease() throws Exception {
+        final LaxConnPool<String, HttpConnection> pool = new LaxConnPool<>(2, 1, null, null, null);
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 20000; i++) {
+                final PoolEntry<String, HttpConnection> entry1 = pool.lease("route1", null).get(1, TimeUnit.SECONDS);
+                final Future<Future<PoolEntry<String, HttpConnection>>> leaseFuture = executorService.submit(
+                        new Callable<Future<PoolEntry<String, HttpConnection>>>() {
+
+                            @Override
+                            public Future<PoolEntry<String, HttpConnection>> call() throws Exception {
+                                barrier.await();
+                                return pool.lease("route2", null);
+                            }
+
+                        });
+                barrier.await();
+                // Capacity given back while the other route is about to wait for it
+                pool.release(entry1, false);
+                final PoolEntry<String, HttpConnection> entry2;
+                try {
+                    entry2 = leaseFuture.get().get(5, TimeUnit.SECONDS);
+                } catch (final TimeoutException ex) {
+                    Assert.fail("Lease request stuck with capacity available (round " + i + "): " + pool.getTotalStats());
+                    return;
+                }
+                pool.release(entry2, false);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        final PoolStats totals = pool.getTotalStats();
+        Assert.assertEquals(0, totals.getLeased());
+        Assert.assertEquals(0, totals.getPending());
+    }
+
+    @Test
+    public void testMaxTotalStarvedRoutesWakeUp() throws Exception {
+        final LaxConnPool<String, HttpConnection> pool = new LaxConnPool<>(2, 1, null, null, null);
+
+        final Future<PoolEntry<String, HttpConnection>> future1 = pool.lease("route1", null);
+        final Future<PoolEntry<String, HttpConnection>> future2 = pool.lease("route2", null);
+        final Future<PoolEntry<String, HttpConnection>> future3 = pool.lease("route3", null);
+        final Future<PoolEntry<String, HttpConnection>> future4 = pool.lease("route2", null);
+
+        Assert.assertTrue(future1.isDone());
+        Assert.assertFalse(future2.isDone());
+        Assert.assertFalse(future3.isDone());
+        Assert.assertFalse(future4.isDone());
+
+        // Routes get woken up in the order they ran out of capacity
+        pool.release(future1.get(), false);
+        Assert.assertTrue(future2.isDone());
+        Assert.assertFalse(future3.isDone());
+        Assert.assertFalse(future4.isDone());
+
+        pool.release(future2.get(), false);
+        Assert.assertTrue(future3.isDone());
+        Assert.assertFalse(future4.isDone());
+
+        pool.release(future3.get(), false);
+        Assert.assertTrue(future4.isDone());
+
+        pool.release(future4.get(), false);
+        final PoolStats totals = pool.getTotalStats();
+        Assert.assertEquals(0, totals.getLeased());
+        Assert.assertEquals(0, totals.getAvailable());
+        Assert.assertEquals(0, totals.getPending());
+    }
+
     @Test
     public void testCreateNewIfExpired() throws Exception {
         final HttpConnection conn1 = Mockito.mock(HttpConnection.class);
@@ -391,6 +524,11 @@ public void testSetMaxInvalid() throws Exception {
             Assert.fail("IllegalArgumentException should have been thrown");
         } catch (final IllegalArgumentException expected) {
         }
+        try {
+            pool.setMaxTotal(-1);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException expected) {
+        }
     }
 
     @Test
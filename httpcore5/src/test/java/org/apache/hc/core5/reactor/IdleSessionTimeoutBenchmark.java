@@ -0,0 +1,174 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Measures CPU time spent by an I/O dispatch thread holding a large number
+ * of idle sessions, with and without the timeout wheel.
+ * <p>
+ * Usage: {@code IdleSessionTimeoutBenchmark [sessions] [wheelSize] [seconds]}
+ * </p>
+ * The number of sessions is bounded by the open file limit of the process
+ * (each session takes two file descriptors).
+ */
+public class IdleSessionTimeoutBenchmark {
+
+    public static void main(final String... args) throws Exception {
+        final int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        final int wheelSize = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        System.out.println("Sessions: " + sessions);
+        System.out.println("Linear scan:  " + run(sessions, 0, seconds) + " ms CPU");
+        System.out.println("Timeout wheel (" + wheelSize + "): " + run(sessions, wheelSize, seconds) + " ms CPU");
+    }
+
+    static long run(final int sessions, final int wheelSize, final int seconds) throws Exception {
+        final IOReactorConfig config = IOReactorConfig.custom()
+                .setIoThreadCount(1)
+                .setSelectInterval(TimeValue.ofMilliseconds(10))
+                .setSoTimeout(Timeout.ofMinutes(5))
+                .setBacklogSize(sessions)
+                .setTimeoutWheelSize(wheelSize)
+                .build();
+        final DefaultListeningIOReactor ioReactor = new DefaultListeningIOReactor(new IOEventHandlerFactory() {
+
+            @Override
+            public IOEventHandler createHandler(final ProtocolIOSession ioSession, final Object attachment) {
+                return new IdleHandler();
+            }
+
+        }, config, null);
+        ioReactor.start();
+        final List<SocketChannel> clients = new ArrayList<>(sessions);
+        try {
+            final Future<ListenerEndpoint> future = ioReactor.listen(new InetSocketAddress("localhost", 0));
+            final ListenerEndpoint endpoint = future.get();
+            final InetSocketAddress address = (InetSocketAddress) endpoint.getAddress();
+            for (int i = 0; i < sessions; i++) {
+                clients.add(SocketChannel.open(new InetSocketAddress("localhost", address.getPort())));
+            }
+            // Let the dispatcher register all sessions
+            Thread.sleep(2000);
+
+            final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            final long[] threadIds = getDispatchThreadIds(threadMXBean);
+            final long startCpuTime = getCpuTime(threadMXBean, threadIds);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+            final long endCpuTime = getCpuTime(threadMXBean, threadIds);
+            return TimeUnit.NANOSECONDS.toMillis(endCpuTime - startCpuTime);
+        } finally {
+            for (final SocketChannel client : clients) {
+                client.close();
+            }
+            ioReactor.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    static long[] getDispatchThreadIds(final ThreadMXBean threadMXBean) {
+        final List<Long> ids = new ArrayList<>();
+        for (final ThreadInfo threadInfo : threadMXBean.getThreadInfo(threadMXBean.getAllThreadIds())) {
+            if (threadInfo != null && threadInfo.getThreadName().startsWith("I/O server dispatch")
+                    && threadInfo.getThreadState() != Thread.State.TERMINATED) {
+                ids.add(threadInfo.getThreadId());
+            }
+        }
+        final long[] result = new long[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.get(i);
+        }
+        return result;
+    }
+
+    static long getCpuTime(final ThreadMXBean threadMXBean, final long[] threadIds) {
+        long total = 0;
+        for (final long threadId : threadIds) {
+            final long cpuTime = threadMXBean.getThreadCpuTime(threadId);
+            if (cpuTime > 0) {
+                total += cpuTime;
+            }
+        }
+        return total;
+    }
+
+    static class IdleHandler implements IOEventHandler {
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(64);
+
+        @Override
+        public void connected(final IOSession session) throws IOException {
+            session.setEvent(SelectionKey.OP_READ);
+        }
+
+        @Override
+        public void inputReady(final IOSession session) throws IOException {
+            buffer.clear();
+            if (session.channel().read(buffer) < 0) {
+                session.close();
+            }
+        }
+
+        @Override
+        public void outputReady(final IOSession session) throws IOException {
+            session.clearEvent(SelectionKey.OP_WRITE);
+        }
+
+        @Override
+        public void timeout(final IOSession session, final Timeout timeout) throws IOException {
+            session.close(CloseMode.GRACEFUL);
+        }
+
+        @Override
+        public void exception(final IOSession session, final Exception cause) {
+            session.close(CloseMode.IMMEDIATE);
+        }
+
+        @Override
+        public void disconnected(final IOSession session) {
+        }
+
+    }
+
+}
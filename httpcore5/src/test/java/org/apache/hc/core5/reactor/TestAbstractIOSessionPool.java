@@ -39,6 +39,7 @@
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
@@ -286,4 +287,114 @@ public void testGetSessionReconnectIfClosed() throws Exception {
                 ArgumentMatchers.<FutureCallback<IOSession>>any());
     }
 
+
+    @Test
+    public void testGetSessionOpensAdditionalSessionsWhenSaturated() throws Exception {
+        final AbstractIOSessionPool.PoolEntry entry1 = impl.getPoolEntry("somehost");
+        entry1.session = ioSession1;
+
+        Mockito.when(impl.getMaxSessionsPerEndpoint()).thenReturn(2);
+        Mockito.when(impl.isSessionSaturated(ArgumentMatchers.<IOSession>any(), ArgumentMatchers.anyInt())).thenReturn(true);
+        Mockito.when(impl.connectSession(
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.<Timeout>any(),
+                ArgumentMatchers.<FutureCallback<IOSession>>any())).thenReturn(connectFuture);
+        Mockito.doAnswer(new Answer() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                final Callback<Boolean> callback = invocation.getArgument(1);
+                callback.execute(true);
+                return null;
+            }
+
+        }).when(impl).validateSession(ArgumentMatchers.<IOSession>any(), ArgumentMatchers.<Callback<Boolean>>any());
+
+        // The saturated session keeps serving requests while another one is being opened
+        final Future<AbstractIOSessionPool.SessionLease> future1 = impl.leaseSession("somehost", Timeout.ofSeconds(123L), null);
+        Assert.assertThat(future1.get().getSession(), CoreMatchers.sameInstance(ioSession1));
+        final Future<AbstractIOSessionPool.SessionLease> future2 = impl.leaseSession("somehost", Timeout.ofSeconds(123L), null);
+        Assert.assertThat(future2.get().getSession(), CoreMatchers.sameInstance(ioSession1));
+
+        final ArgumentCaptor<FutureCallback<IOSession>> callbackCaptor = ArgumentCaptor.forClass(FutureCallback.class);
+        Mockito.verify(impl, Mockito.times(1)).connectSession(
+                ArgumentMatchers.eq("somehost"),
+                ArgumentMatchers.eq(Timeout.ofSeconds(123L)),
+                callbackCaptor.capture());
+        callbackCaptor.getValue().completed(ioSession2);
+        Assert.assertThat(entry1.session, CoreMatchers.sameInstance(ioSession1));
+        Assert.assertThat(entry1.extraSessions, CoreMatchers.hasItem(ioSession2));
+
+        // New requests go to the least loaded session
+        final Future<AbstractIOSessionPool.SessionLease> future3 = impl.leaseSession("somehost", Timeout.ofSeconds(123L), null);
+        Assert.assertThat(future3.get().getSession(), CoreMatchers.sameInstance(ioSession2));
+        final Future<AbstractIOSessionPool.SessionLease> future4 = impl.leaseSession("somehost", Timeout.ofSeconds(123L), null);
+        Assert.assertThat(future4.get().getSession(), CoreMatchers.sameInstance(ioSession2));
+
+        future1.get().release();
+        future2.get().release();
+        final Future<AbstractIOSessionPool.SessionLease> future5 = impl.leaseSession("somehost", Timeout.ofSeconds(123L), null);
+        Assert.assertThat(future5.get().getSession(), CoreMatchers.sameInstance(ioSession1));
+
+        // No more sessions than the maximum
+        Mockito.verify(impl, Mockito.times(1)).connectSession(
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.<Timeout>any(),
+                ArgumentMatchers.<FutureCallback<IOSession>>any());
+
+        // Surplus sessions get retired when idle
+        Mockito.when(ioSession1.getLastReadTime()).thenReturn(System.currentTimeMillis());
+        impl.closeIdle(TimeValue.ofSeconds(60));
+        Mockito.verify(impl).closeSession(ioSession2, CloseMode.GRACEFUL);
+        Mockito.verify(impl, Mockito.never()).closeSession(ioSession1, CloseMode.GRACEFUL);
+        Assert.assertThat(entry1.session, CoreMatchers.sameInstance(ioSession1));
+        Assert.assertThat(entry1.extraSessions.isEmpty(), CoreMatchers.equalTo(true));
+    }
+
+    @Test
+    public void testLeaseCountReturnsToZero() throws Exception {
+        final AbstractIOSessionPool.PoolEntry entry1 = impl.getPoolEntry("somehost");
+        entry1.session = ioSession1;
+
+        Mockito.doAnswer(new Answer() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                final Callback<Boolean> callback = invocation.getArgument(1);
+                callback.execute(true);
+                return null;
+            }
+
+        }).when(impl).validateSession(ArgumentMatchers.<IOSession>any(), ArgumentMatchers.<Callback<Boolean>>any());
+
+        // Plain session requests do not hold on to leases
+        final Future<IOSession> future1 = impl.getSession("somehost", Timeout.ofSeconds(123L), null);
+        Assert.assertThat(future1.get(), CoreMatchers.sameInstance(ioSession1));
+        Assert.assertThat(impl.getLeaseCount(ioSession1), CoreMatchers.equalTo(0));
+
+        final AbstractIOSessionPool.SessionLease lease1 = impl.leaseSession("somehost", Timeout.ofSeconds(123L), null).get();
+        final AbstractIOSessionPool.SessionLease lease2 = impl.leaseSession("somehost", Timeout.ofSeconds(123L), null).get();
+        Assert.assertThat(lease1.getSession(), CoreMatchers.sameInstance(ioSession1));
+        Assert.assertThat(lease2.getSession(), CoreMatchers.sameInstance(ioSession1));
+        Assert.assertThat(impl.getLeaseCount(ioSession1), CoreMatchers.equalTo(2));
+
+        lease1.release();
+        Assert.assertThat(impl.getLeaseCount(ioSession1), CoreMatchers.equalTo(1));
+        // Releasing the same lease again has no effect
+        lease1.release();
+        Assert.assertThat(impl.getLeaseCount(ioSession1), CoreMatchers.equalTo(1));
+        lease2.release();
+        Assert.assertThat(impl.getLeaseCount(ioSession1), CoreMatchers.equalTo(0));
+
+        // Lease counts get reset when the session gets evicted
+        final AbstractIOSessionPool.SessionLease lease3 = impl.leaseSession("somehost", Timeout.ofSeconds(123L), null).get();
+        Assert.assertThat(impl.getLeaseCount(ioSession1), CoreMatchers.equalTo(1));
+        Mockito.when(ioSession1.getLastReadTime()).thenReturn(0L);
+        impl.closeIdle(TimeValue.ofSeconds(60));
+        Mockito.verify(impl).closeSession(ioSession1, CloseMode.GRACEFUL);
+        Assert.assertThat(impl.getLeaseCount(ioSession1), CoreMatchers.equalTo(0));
+        lease3.release();
+        Assert.assertThat(impl.getLeaseCount(ioSession1), CoreMatchers.equalTo(0));
+    }
+
 }
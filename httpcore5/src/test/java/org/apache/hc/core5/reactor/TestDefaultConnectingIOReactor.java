@@ -0,0 +1,432 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.net.AsyncDnsResolver;
+import org.apache.hc.core5.net.Host;
+import org.apache.hc.core5.net.InMemoryDnsResolver;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestDefaultConnectingIOReactor {
+
+    private static class NoopIOEventHandlerFactory implements IOEventHandlerFactory {
+
+        @Override
+        public IOEventHandler createHandler(final ProtocolIOSession ioSession, final Object attachment) {
+            return new IOEventHandler() {
+
+                @Override
+                public void connected(final IOSession session) {
+                }
+
+                @Override
+                public void inputReady(final IOSession session) {
+                }
+
+                @Override
+                public void outputReady(final IOSession session) {
+                }
+
+                @Override
+                public void timeout(final IOSession session, final Timeout timeout) {
+                }
+
+                @Override
+                public void exception(final IOSession session, final Exception cause) {
+                }
+
+                @Override
+                public void disconnected(final IOSession session) {
+                }
+            };
+        }
+    }
+
+    private static class TimeoutRecordingIOEventHandlerFactory implements IOEventHandlerFactory {
+
+        final CountDownLatch timeoutLatch = new CountDownLatch(1);
+        final AtomicLong timeoutTime = new AtomicLong();
+
+        @Override
+        public IOEventHandler createHandler(final ProtocolIOSession ioSession, final Object attachment) {
+            return new IOEventHandler() {
+
+                private final ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+                @Override
+                public void connected(final IOSession session) {
+                }
+
+                @Override
+                public void inputReady(final IOSession session) throws IOException {
+                    buffer.clear();
+                    if (session.channel().read(buffer) == -1) {
+                        session.close(CloseMode.IMMEDIATE);
+                    }
+                }
+
+                @Override
+                public void outputReady(final IOSession session) {
+                }
+
+                @Override
+                public void timeout(final IOSession session, final Timeout timeout) {
+                    timeoutTime.compareAndSet(0, System.currentTimeMillis());
+                    timeoutLatch.countDown();
+                    session.close(CloseMode.IMMEDIATE);
+                }
+
+                @Override
+                public void exception(final IOSession session, final Exception cause) {
+                }
+
+                @Override
+                public void disconnected(final IOSession session) {
+                }
+            };
+        }
+    }
+
+    private InMemoryDnsResolver dnsResolver;
+    private DefaultConnectingIOReactor ioReactor;
+    private ServerSocket serverSocket;
+
+    @Before
+    public void setup() throws Exception {
+        final IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(1)
+                .build();
+        this.dnsResolver = new InMemoryDnsResolver();
+        this.ioReactor = new DefaultConnectingIOReactor(new NoopIOEventHandlerFactory(), reactorConfig,
+                null, null, null, null, null, dnsResolver);
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (this.ioReactor != null) {
+            this.ioReactor.close(CloseMode.IMMEDIATE);
+        }
+        if (this.serverSocket != null) {
+            this.serverSocket.close();
+        }
+    }
+
+    @Test
+    public void testConnectResolvedAsynchronously() throws Exception {
+        ioReactor.start();
+        dnsResolver.add("some.test.host", InetAddress.getLoopbackAddress());
+
+        final Host host = new Host("some.test.host", serverSocket.getLocalPort());
+        final Future<IOSession> future = ioReactor.connect(host, null, null, Timeout.ofSeconds(5), null, null);
+        try (final Socket socket = serverSocket.accept()) {
+            final IOSession ioSession = future.get(5, TimeUnit.SECONDS);
+            Assert.assertThat(ioSession.getRemoteAddress(), CoreMatchers.<Object>equalTo(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort())));
+            Assert.assertThat(dnsResolver.getLookupCount(), CoreMatchers.equalTo(1));
+            ioSession.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    @Test
+    public void testConnectUnknownHost() throws Exception {
+        ioReactor.start();
+
+        final Host host = new Host("unknown.test.host", serverSocket.getLocalPort());
+        final Future<IOSession> future = ioReactor.connect(host, null, null, Timeout.ofSeconds(5), null, null);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("ExecutionException expected");
+        } catch (final ExecutionException ex) {
+            Assert.assertThat(ex.getCause(), CoreMatchers.instanceOf(UnknownHostException.class));
+        }
+    }
+
+    @Test
+    public void testConnectTimeoutWhileResolving() throws Exception {
+        final AsyncDnsResolver stalledResolver = new AsyncDnsResolver() {
+
+            @Override
+            public Future<InetAddress[]> resolve(final String host, final FutureCallback<InetAddress[]> callback) {
+                return new BasicFuture<>(callback);
+            }
+
+        };
+        final IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(1)
+                .setSelectInterval(TimeValue.ofMilliseconds(100))
+                .setDnsResolver(stalledResolver)
+                .build();
+        final DefaultConnectingIOReactor stalledIOReactor = new DefaultConnectingIOReactor(
+                new NoopIOEventHandlerFactory(), reactorConfig, null, null, null, null, null);
+        try {
+            stalledIOReactor.start();
+            final Host host = new Host("some.test.host", serverSocket.getLocalPort());
+            final Future<IOSession> future = stalledIOReactor.connect(host, null, null, Timeout.ofMilliseconds(500), null, null);
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                Assert.fail("ExecutionException expected");
+            } catch (final ExecutionException ex) {
+                Assert.assertThat(ex.getCause(), CoreMatchers.instanceOf(SocketTimeoutException.class));
+            }
+        } finally {
+            stalledIOReactor.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    @Test
+    public void testConnectUnresolvedAddress() throws Exception {
+        ioReactor.start();
+        dnsResolver.add("some.test.host", InetAddress.getLoopbackAddress());
+
+        final Host host = new Host("some.test.host", serverSocket.getLocalPort());
+        final Future<IOSession> future = ioReactor.connect(host,
+                InetSocketAddress.createUnresolved("some.test.host", serverSocket.getLocalPort()),
+                null, Timeout.ofSeconds(5), null, null);
+        try (final Socket socket = serverSocket.accept()) {
+            final IOSession ioSession = future.get(5, TimeUnit.SECONDS);
+            Assert.assertNotNull(ioSession);
+            ioSession.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    @Test
+    public void testConnectRaceFallsBackToNextAddress() throws Exception {
+        ioReactor.start();
+        final int port = serverSocket.getLocalPort();
+        final InetAddress blackholeAddress = InetAddress.getByAddress(new byte[] {127, 0, 0, 2});
+        // A listener with a full backlog that never accepts drops connection attempts
+        final List<SocketChannel> backlog = new ArrayList<>();
+        try (final ServerSocket blackhole = new ServerSocket()) {
+            blackhole.bind(new InetSocketAddress(blackholeAddress, port), 1);
+            for (int i = 0; i < 4; i++) {
+                final SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.connect(blackhole.getLocalSocketAddress());
+                backlog.add(channel);
+            }
+            dnsResolver.add("some.test.host", blackholeAddress, InetAddress.getLoopbackAddress());
+
+            final long start = System.currentTimeMillis();
+            final Future<IOSession> future = ioReactor.connect(
+                    new Host("some.test.host", port), null, null, Timeout.ofSeconds(30), null, null);
+            try (final Socket socket = serverSocket.accept()) {
+                final IOSession ioSession = future.get(10, TimeUnit.SECONDS);
+                Assert.assertThat(ioSession.getRemoteAddress(), CoreMatchers.<Object>equalTo(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), port)));
+                Assert.assertTrue(System.currentTimeMillis() - start < 10000);
+                ioSession.close(CloseMode.IMMEDIATE);
+            }
+        } finally {
+            for (final SocketChannel channel : backlog) {
+                channel.close();
+            }
+        }
+    }
+
+    @Test
+    public void testConnectRaceAllAttemptsFail() throws Exception {
+        ioReactor.start();
+        final int port = serverSocket.getLocalPort();
+        serverSocket.close();
+        dnsResolver.add("some.test.host",
+                InetAddress.getByAddress(new byte[] {127, 0, 0, 2}),
+                InetAddress.getLoopbackAddress());
+
+        final Future<IOSession> future = ioReactor.connect(
+                new Host("some.test.host", port), null, null, Timeout.ofSeconds(5), null, null);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("ExecutionException expected");
+        } catch (final ExecutionException ex) {
+            Assert.assertThat(ex.getCause(), CoreMatchers.instanceOf(ConnectException.class));
+        }
+    }
+
+    private static DefaultConnectingIOReactor createTimeoutWheelIOReactor(
+            final IOEventHandlerFactory handlerFactory, final Timeout soTimeout) {
+        final IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(1)
+                .setSelectInterval(TimeValue.ofMilliseconds(50))
+                .setSoTimeout(soTimeout)
+                .setTimeoutWheelSize(64)
+                .build();
+        return new DefaultConnectingIOReactor(handlerFactory, reactorConfig, null, null, null, null, null);
+    }
+
+    @Test
+    public void testTimeoutWheelIdleSession() throws Exception {
+        final TimeoutRecordingIOEventHandlerFactory handlerFactory = new TimeoutRecordingIOEventHandlerFactory();
+        final DefaultConnectingIOReactor wheelIOReactor = createTimeoutWheelIOReactor(
+                handlerFactory, Timeout.ofMilliseconds(500));
+        try {
+            wheelIOReactor.start();
+            final long start = System.currentTimeMillis();
+            final Future<IOSession> future = wheelIOReactor.connect(new Host("localhost", serverSocket.getLocalPort()),
+                    serverSocket.getLocalSocketAddress(), null, Timeout.ofSeconds(5), null, null);
+            try (final Socket socket = serverSocket.accept()) {
+                future.get(5, TimeUnit.SECONDS);
+                Assert.assertTrue(handlerFactory.timeoutLatch.await(5, TimeUnit.SECONDS));
+                Assert.assertTrue(handlerFactory.timeoutTime.get() - start >= 500);
+            }
+        } finally {
+            wheelIOReactor.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    @Test
+    public void testTimeoutWheelActivityPostponesTimeout() throws Exception {
+        final TimeoutRecordingIOEventHandlerFactory handlerFactory = new TimeoutRecordingIOEventHandlerFactory();
+        final DefaultConnectingIOReactor wheelIOReactor = createTimeoutWheelIOReactor(
+                handlerFactory, Timeout.ofMilliseconds(500));
+        try {
+            wheelIOReactor.start();
+            final Future<IOSession> future = wheelIOReactor.connect(new Host("localhost", serverSocket.getLocalPort()),
+                    serverSocket.getLocalSocketAddress(), null, Timeout.ofSeconds(5), null, null);
+            try (final Socket socket = serverSocket.accept()) {
+                future.get(5, TimeUnit.SECONDS);
+                // Keep the session busy for well over its socket timeout
+                for (int i = 0; i < 15; i++) {
+                    socket.getOutputStream().write('a');
+                    socket.getOutputStream().flush();
+                    Thread.sleep(100);
+                }
+                Assert.assertEquals(1, handlerFactory.timeoutLatch.getCount());
+                final long lastActivity = System.currentTimeMillis();
+                Assert.assertTrue(handlerFactory.timeoutLatch.await(5, TimeUnit.SECONDS));
+                Assert.assertTrue(handlerFactory.timeoutTime.get() >= lastActivity);
+            }
+        } finally {
+            wheelIOReactor.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    @Test
+    public void testTimeoutWheelSocketTimeoutUpdate() throws Exception {
+        final TimeoutRecordingIOEventHandlerFactory handlerFactory = new TimeoutRecordingIOEventHandlerFactory();
+        final DefaultConnectingIOReactor wheelIOReactor = createTimeoutWheelIOReactor(
+                handlerFactory, Timeout.ofMinutes(1));
+        try {
+            wheelIOReactor.start();
+            final Future<IOSession> future = wheelIOReactor.connect(new Host("localhost", serverSocket.getLocalPort()),
+                    serverSocket.getLocalSocketAddress(), null, Timeout.ofSeconds(5), null, null);
+            try (final Socket socket = serverSocket.accept()) {
+                final IOSession ioSession = future.get(5, TimeUnit.SECONDS);
+                Thread.sleep(200);
+                Assert.assertEquals(1, handlerFactory.timeoutLatch.getCount());
+                // The session is already scheduled for a much later deadline
+                final long start = System.currentTimeMillis();
+                ioSession.setSocketTimeout(Timeout.ofMilliseconds(300));
+                Assert.assertTrue(handlerFactory.timeoutLatch.await(5, TimeUnit.SECONDS));
+                Assert.assertTrue(handlerFactory.timeoutTime.get() - start >= 300);
+            }
+        } finally {
+            wheelIOReactor.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    @Test
+    public void testTimeoutWheelConnectTimeout() throws Exception {
+        final DefaultConnectingIOReactor wheelIOReactor = createTimeoutWheelIOReactor(
+                new NoopIOEventHandlerFactory(), Timeout.ofMinutes(1));
+        final InetAddress blackholeAddress = InetAddress.getByAddress(new byte[] {127, 0, 0, 2});
+        // A listener with a full backlog that never accepts drops connection attempts
+        final List<SocketChannel> backlog = new ArrayList<>();
+        try (final ServerSocket blackhole = new ServerSocket()) {
+            blackhole.bind(new InetSocketAddress(blackholeAddress, 0), 1);
+            for (int i = 0; i < 4; i++) {
+                final SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.connect(blackhole.getLocalSocketAddress());
+                backlog.add(channel);
+            }
+            wheelIOReactor.start();
+            final Future<IOSession> future = wheelIOReactor.connect(
+                    new Host(blackholeAddress.getHostAddress(), blackhole.getLocalPort()),
+                    blackhole.getLocalSocketAddress(), null, Timeout.ofMilliseconds(500), null, null);
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                Assert.fail("ExecutionException expected");
+            } catch (final ExecutionException ex) {
+                Assert.assertThat(ex.getCause(), CoreMatchers.instanceOf(SocketTimeoutException.class));
+            }
+        } finally {
+            wheelIOReactor.close(CloseMode.IMMEDIATE);
+            for (final SocketChannel channel : backlog) {
+                channel.close();
+            }
+        }
+    }
+
+    @Test
+    public void testInterleaveAddresses() throws Exception {
+        final InetAddress a1 = InetAddress.getByName("::1");
+        final InetAddress a2 = InetAddress.getByName("::2");
+        final InetAddress b1 = InetAddress.getByName("10.0.0.1");
+        final InetAddress b2 = InetAddress.getByName("10.0.0.2");
+        final InetAddress b3 = InetAddress.getByName("10.0.0.3");
+        final List<SocketAddress> addresses = SingleCoreIOReactor.interleaveAddresses(
+                new InetAddress[] {a1, a2, b1, b2, b3}, 80);
+        Assert.assertThat(addresses, CoreMatchers.<List<SocketAddress>>equalTo(Arrays.<SocketAddress>asList(
+                new InetSocketAddress(a1, 80),
+                new InetSocketAddress(b1, 80),
+                new InetSocketAddress(a2, 80),
+                new InetSocketAddress(b2, 80),
+                new InetSocketAddress(b3, 80))));
+    }
+
+}
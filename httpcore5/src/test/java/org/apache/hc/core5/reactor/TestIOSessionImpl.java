@@ -0,0 +1,138 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.core5.reactor;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hc.core5.function.Callback;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestIOSessionImpl {
+
+    static class TestCommand implements Command {
+
+        @Override
+        public boolean cancel() {
+            return true;
+        }
+
+    }
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private SocketChannel socketChannel;
+    private SelectionKey key;
+    private List<IOSessionImpl> scheduled;
+    private IOSessionImpl ioSession;
+
+    @Before
+    public void setUp() throws Exception {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress("localhost", 0));
+        socketChannel = SocketChannel.open(serverChannel.socket().getLocalSocketAddress());
+        socketChannel.configureBlocking(false);
+        key = socketChannel.register(selector, SelectionKey.OP_READ);
+        scheduled = new ArrayList<>();
+        ioSession = new IOSessionImpl(key, socketChannel, null, new Callback<IOSessionImpl>() {
+
+            @Override
+            public void execute(final IOSessionImpl session) {
+                scheduled.add(session);
+            }
+
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        socketChannel.close();
+        serverChannel.close();
+        selector.close();
+    }
+
+    @Test
+    public void testCommandsScheduledOncePerBatch() throws Exception {
+        ioSession.enqueue(new TestCommand(), Command.Priority.NORMAL);
+        ioSession.enqueue(new TestCommand(), Command.Priority.NORMAL);
+        ioSession.enqueue(Arrays.<Command>asList(new TestCommand(), new TestCommand()), Command.Priority.NORMAL);
+        Assert.assertEquals(1, scheduled.size());
+        Assert.assertSame(ioSession, scheduled.get(0));
+        Assert.assertEquals(SelectionKey.OP_READ, key.interestOps());
+
+        ioSession.processScheduledCommands();
+        Assert.assertEquals(SelectionKey.OP_READ | SelectionKey.OP_WRITE, key.interestOps());
+
+        ioSession.enqueue(new TestCommand(), Command.Priority.NORMAL);
+        Assert.assertEquals(2, scheduled.size());
+    }
+
+    @Test
+    public void testNoOutputEventsWithoutCommands() throws Exception {
+        ioSession.enqueue(new TestCommand(), Command.Priority.NORMAL);
+        Assert.assertNotNull(ioSession.poll());
+        ioSession.processScheduledCommands();
+        Assert.assertEquals(SelectionKey.OP_READ, key.interestOps());
+    }
+
+    @Test
+    public void testBatchOrdering() throws Exception {
+        final Command c1 = new TestCommand();
+        final Command c2 = new TestCommand();
+        final Command c3 = new TestCommand();
+        final Command c4 = new TestCommand();
+        final Command c5 = new TestCommand();
+        ioSession.enqueue(c1, Command.Priority.NORMAL);
+        ioSession.enqueue(Arrays.asList(c2, c3), Command.Priority.NORMAL);
+        ioSession.enqueue(Arrays.asList(c4, c5), Command.Priority.IMMEDIATE);
+        Assert.assertSame(c4, ioSession.poll());
+        Assert.assertSame(c5, ioSession.poll());
+        Assert.assertSame(c1, ioSession.poll());
+        Assert.assertSame(c2, ioSession.poll());
+        Assert.assertSame(c3, ioSession.poll());
+        Assert.assertNull(ioSession.poll());
+    }
+
+    @Test
+    public void testWithoutCommandCallback() throws Exception {
+        final IOSessionImpl session = new IOSessionImpl(key, socketChannel);
+        session.enqueue(Arrays.<Command>asList(new TestCommand()), Command.Priority.NORMAL);
+        Assert.assertEquals(SelectionKey.OP_READ | SelectionKey.OP_WRITE, key.interestOps());
+        Assert.assertTrue(session.hasCommands());
+    }
+
+}
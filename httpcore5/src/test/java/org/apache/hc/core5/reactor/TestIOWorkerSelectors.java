@@ -0,0 +1,126 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+import org.apache.hc.core5.net.Host;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestIOWorkerSelectors {
+
+    static class WorkerStats implements IOWorkerStats {
+
+        final int activeSessionCount;
+        final int pendingEventCount;
+
+        WorkerStats(final int activeSessionCount, final int pendingEventCount) {
+            this.activeSessionCount = activeSessionCount;
+            this.pendingEventCount = pendingEventCount;
+        }
+
+        @Override
+        public int getActiveSessionCount() {
+            return activeSessionCount;
+        }
+
+        @Override
+        public int getPendingEventCount() {
+            return pendingEventCount;
+        }
+
+    }
+
+    @Test
+    public void testRoundRobin() {
+        final IOWorkerStats[] workers = new IOWorkerStats[] {
+                new WorkerStats(0, 0), new WorkerStats(0, 0), new WorkerStats(0, 0)};
+        final IOWorkerSelector selector = IOWorkerSelectors.roundRobin();
+        for (int i = 0; i < 7; i++) {
+            Assert.assertThat(selector.select(workers, null), CoreMatchers.equalTo(i % 3));
+        }
+    }
+
+    @Test
+    public void testLeastLoaded() {
+        final IOWorkerStats[] workers = new IOWorkerStats[] {
+                new WorkerStats(10, 0), new WorkerStats(3, 1), new WorkerStats(7, 0), new WorkerStats(5, 0)};
+        final IOWorkerSelector selector = IOWorkerSelectors.leastLoaded();
+        for (int i = 0; i < 5; i++) {
+            Assert.assertThat(selector.select(workers, null), CoreMatchers.equalTo(1));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testInvalidWorkerIndex() {
+        final IOWorkers.Selector selector = IOWorkers.newSelector(new SingleCoreIOReactor[2], new IOWorkerSelector() {
+
+            @Override
+            public int select(final IOWorkerStats[] workers, final NamedEndpoint endpoint) {
+                return workers.length;
+            }
+
+        });
+        selector.next(null);
+    }
+
+    @Test
+    public void testPowerOfTwoChoicesAvoidsBusiestWorker() {
+        final IOWorkerStats[] workers = new IOWorkerStats[] {
+                new WorkerStats(0, 100), new WorkerStats(0, 0)};
+        final IOWorkerSelector selector = IOWorkerSelectors.powerOfTwoChoices();
+        for (int i = 0; i < 10; i++) {
+            Assert.assertThat(selector.select(workers, null), CoreMatchers.equalTo(1));
+        }
+        final IOWorkerStats[] single = new IOWorkerStats[] {new WorkerStats(0, 0)};
+        Assert.assertThat(selector.select(single, null), CoreMatchers.equalTo(0));
+    }
+
+    @Test
+    public void testRouteAffinity() {
+        final IOWorkerStats[] workers = new IOWorkerStats[8];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new WorkerStats(0, 0);
+        }
+        final IOWorkerSelector selector = IOWorkerSelectors.routeAffinity();
+        final int n1 = selector.select(workers, new Host("somehost", 80));
+        for (int i = 0; i < 5; i++) {
+            Assert.assertThat(selector.select(workers, new Host("somehost", 80)), CoreMatchers.equalTo(n1));
+            Assert.assertThat(selector.select(workers, new Host("SomeHost", 80)), CoreMatchers.equalTo(n1));
+        }
+        boolean spread = false;
+        for (int i = 0; i < 32; i++) {
+            if (selector.select(workers, new Host("host" + i, 80)) != n1) {
+                spread = true;
+            }
+        }
+        Assert.assertTrue(spread);
+    }
+
+}
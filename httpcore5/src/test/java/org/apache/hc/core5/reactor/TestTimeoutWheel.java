@@ -0,0 +1,155 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.reactor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.Timeout;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTimeoutWheel {
+
+    static class StubChannel extends InternalChannel {
+
+        @Override
+        void onIOEvent(final int ops) throws IOException {
+        }
+
+        @Override
+        void onTimeout(final Timeout timeout) throws IOException {
+        }
+
+        @Override
+        void onException(final Exception cause) {
+        }
+
+        @Override
+        Timeout getTimeout() {
+            return Timeout.DISABLED;
+        }
+
+        @Override
+        long getLastEventTime() {
+            return 0;
+        }
+
+        @Override
+        boolean isActive() {
+            return true;
+        }
+
+        @Override
+        public void close(final CloseMode closeMode) {
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+
+    }
+
+    @Test
+    public void testWheelSizeRoundedToPowerOfTwo() {
+        final TimeoutWheel wheel = new TimeoutWheel(100, 10, 0);
+        Assert.assertThat(wheel.getWheelSize(), CoreMatchers.equalTo(128));
+    }
+
+    @Test
+    public void testExpireInDeadlineOrder() {
+        final TimeoutWheel wheel = new TimeoutWheel(8, 10, 1000);
+        final StubChannel channel1 = new StubChannel();
+        final StubChannel channel2 = new StubChannel();
+        final StubChannel channel3 = new StubChannel();
+        wheel.schedule(channel1, 1015);
+        wheel.schedule(channel2, 1035);
+        wheel.schedule(channel3, 1500);
+        Assert.assertThat(wheel.size(), CoreMatchers.equalTo(3));
+
+        final List<InternalChannel> expired = new ArrayList<>();
+        Assert.assertThat(wheel.expire(1010, expired), CoreMatchers.equalTo(0));
+        Assert.assertThat(wheel.expire(1020, expired), CoreMatchers.equalTo(1));
+        Assert.assertThat(expired.get(0), CoreMatchers.<InternalChannel>sameInstance(channel1));
+        Assert.assertThat(wheel.isScheduled(channel1), CoreMatchers.equalTo(false));
+        expired.clear();
+
+        Assert.assertThat(wheel.expire(1040, expired), CoreMatchers.equalTo(1));
+        Assert.assertThat(expired.get(0), CoreMatchers.<InternalChannel>sameInstance(channel2));
+        expired.clear();
+
+        // channel3 is several wheel revolutions ahead
+        Assert.assertThat(wheel.expire(1200, expired), CoreMatchers.equalTo(0));
+        Assert.assertThat(wheel.expire(1499, expired), CoreMatchers.equalTo(0));
+        Assert.assertThat(wheel.expire(1510, expired), CoreMatchers.equalTo(1));
+        Assert.assertThat(expired.get(0), CoreMatchers.<InternalChannel>sameInstance(channel3));
+        Assert.assertThat(wheel.size(), CoreMatchers.equalTo(0));
+    }
+
+    @Test
+    public void testDeadlineInThePast() {
+        final TimeoutWheel wheel = new TimeoutWheel(8, 10, 1000);
+        final StubChannel channel = new StubChannel();
+        wheel.schedule(channel, 500);
+        final List<InternalChannel> expired = new ArrayList<>();
+        Assert.assertThat(wheel.expire(1000, expired), CoreMatchers.equalTo(1));
+    }
+
+    @Test
+    public void testReschedule() {
+        final TimeoutWheel wheel = new TimeoutWheel(8, 10, 1000);
+        final StubChannel channel = new StubChannel();
+        wheel.schedule(channel, 1020);
+        wheel.schedule(channel, 1060);
+        Assert.assertThat(wheel.size(), CoreMatchers.equalTo(1));
+        final List<InternalChannel> expired = new ArrayList<>();
+        Assert.assertThat(wheel.expire(1030, expired), CoreMatchers.equalTo(0));
+        Assert.assertThat(wheel.expire(1060, expired), CoreMatchers.equalTo(1));
+    }
+
+    @Test
+    public void testCancel() {
+        final TimeoutWheel wheel = new TimeoutWheel(8, 10, 1000);
+        final StubChannel channel1 = new StubChannel();
+        final StubChannel channel2 = new StubChannel();
+        final StubChannel channel3 = new StubChannel();
+        wheel.schedule(channel1, 1020);
+        wheel.schedule(channel2, 1020);
+        wheel.schedule(channel3, 1020);
+        wheel.cancel(channel2);
+        wheel.cancel(channel2);
+        Assert.assertThat(wheel.size(), CoreMatchers.equalTo(2));
+        final List<InternalChannel> expired = new ArrayList<>();
+        Assert.assertThat(wheel.expire(1100, expired), CoreMatchers.equalTo(2));
+        Assert.assertThat(expired.contains(channel2), CoreMatchers.equalTo(false));
+    }
+
+}
@@ -423,4 +423,13 @@ public void testSubSequenceIndexOfOutBound() {
         }
     }
 
+    @Test
+    public void testSubSequence() {
+        final CharArrayBuffer buffer = new CharArrayBuffer(16);
+        buffer.append("name: value");
+        Assert.assertEquals("name", buffer.subSequence(0, 4).toString());
+        Assert.assertEquals("value", buffer.subSequence(6, 11).toString());
+        Assert.assertEquals("", buffer.subSequence(11, 11).toString());
+    }
+
 }
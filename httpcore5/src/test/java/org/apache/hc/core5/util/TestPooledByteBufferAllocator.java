@@ -0,0 +1,156 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.hc.core5.util;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PooledByteBufferAllocator}.
+ */
+public class TestPooledByteBufferAllocator {
+
+    @Test
+    public void testSizeClasses() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(1024, 64 * 1024, 4, 1024 * 1024);
+        Assert.assertEquals(0, allocator.sizeClass(1));
+        Assert.assertEquals(0, allocator.sizeClass(1024));
+        Assert.assertEquals(1, allocator.sizeClass(1025));
+        Assert.assertEquals(1280, allocator.classCapacity(1));
+        Assert.assertEquals(2048, allocator.classCapacity(allocator.sizeClass(2048)));
+        Assert.assertEquals(2560, allocator.classCapacity(allocator.sizeClass(2049)));
+        Assert.assertEquals(20480, allocator.classCapacity(allocator.sizeClass(16384 + 9)));
+        Assert.assertEquals(64 * 1024, allocator.classCapacity(allocator.sizeClass(64 * 1024)));
+        for (int i = 1; i <= 64 * 1024; i++) {
+            final int classCapacity = allocator.classCapacity(allocator.sizeClass(i));
+            Assert.assertTrue(classCapacity >= i);
+            Assert.assertTrue(i <= 1024 || classCapacity - i < i / 4 + 1);
+        }
+    }
+
+    @Test
+    public void testAllocate() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator();
+        final ByteBuffer buffer = allocator.allocate(5000);
+        Assert.assertTrue(buffer.isDirect());
+        Assert.assertEquals(0, buffer.position());
+        Assert.assertEquals(5120, buffer.capacity());
+        Assert.assertEquals(buffer.capacity(), buffer.limit());
+        Assert.assertEquals(5120, allocator.getAllocatedSize());
+    }
+
+    @Test
+    public void testRecycleThreadCache() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator();
+        final ByteBuffer buffer1 = allocator.allocate(8192);
+        buffer1.put((byte) 1);
+        allocator.release(buffer1);
+        final ByteBuffer buffer2 = allocator.allocate(8000);
+        Assert.assertSame(buffer1, buffer2);
+        Assert.assertEquals(0, buffer2.position());
+        Assert.assertEquals(8192, buffer2.limit());
+        Assert.assertEquals(8192, allocator.getAllocatedSize());
+        Assert.assertEquals(0, allocator.getArenaSize());
+    }
+
+    @Test
+    public void testRecycleArena() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(1024, 64 * 1024, 0, 4096);
+        final ByteBuffer buffer1 = allocator.allocate(2048);
+        final ByteBuffer buffer2 = allocator.allocate(2048);
+        final ByteBuffer buffer3 = allocator.allocate(2048);
+        allocator.release(buffer1);
+        allocator.release(buffer2);
+        Assert.assertEquals(4096, allocator.getArenaSize());
+        // Arena is full
+        allocator.release(buffer3);
+        Assert.assertEquals(4096, allocator.getArenaSize());
+
+        final ByteBuffer buffer4 = allocator.allocate(2048);
+        Assert.assertTrue(buffer4 == buffer1 || buffer4 == buffer2);
+        Assert.assertEquals(2048, allocator.getArenaSize());
+        Assert.assertEquals(3 * 2048, allocator.getAllocatedSize());
+    }
+
+    @Test
+    public void testRecycleAcrossThreads() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(1024, 64 * 1024, 1, 1024 * 1024);
+        final ByteBuffer buffer1 = allocator.allocate(1024);
+        final ByteBuffer buffer2 = allocator.allocate(1024);
+        final Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                // The first buffer goes to the thread cache, the second one to the arena
+                allocator.release(buffer1);
+                allocator.release(buffer2);
+            }
+
+        });
+        thread.start();
+        thread.join();
+        Assert.assertEquals(1024, allocator.getArenaSize());
+        Assert.assertSame(buffer2, allocator.allocate(1024));
+    }
+
+    @Test
+    public void testReleaseForeignBuffers() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(1024, 64 * 1024, 0, 1024 * 1024);
+        allocator.release(null);
+        allocator.release(ByteBuffer.allocate(1024));
+        allocator.release(ByteBuffer.allocateDirect(1000));
+        allocator.release(ByteBuffer.allocateDirect(1024).asReadOnlyBuffer());
+        Assert.assertEquals(0, allocator.getArenaSize());
+        allocator.release(ByteBuffer.allocateDirect(1024));
+        Assert.assertEquals(1024, allocator.getArenaSize());
+    }
+
+    @Test
+    public void testAllocateLarge() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(1024, 64 * 1024, 4, 1024 * 1024);
+        final ByteBuffer buffer = allocator.allocate(100000);
+        Assert.assertTrue(buffer.isDirect());
+        Assert.assertEquals(100000, buffer.capacity());
+        allocator.release(buffer);
+        Assert.assertEquals(0, allocator.getAllocatedSize());
+        Assert.assertEquals(0, allocator.getArenaSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMinCapacity() throws Exception {
+        new PooledByteBufferAllocator(1000, 64 * 1024, 4, 1024 * 1024);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxCapacity() throws Exception {
+        new PooledByteBufferAllocator(1024, 512, 4, 1024 * 1024);
+    }
+
+}